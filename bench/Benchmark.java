@@ -0,0 +1,112 @@
+import java.util.Arrays;
+
+/**
+ * <h1>Benchmark</h1>
+ *
+ * <p>A benchmark of an operation that processes a number of items, such
+ * as tokens or statements.  The operation runs a number of warm-up
+ * iterations, which let the JIT compiler compile the hot code, and then
+ * a number of measured iterations.  The result is the rate of items per
+ * second of the median and of the fastest measured iteration.</p>
+ */
+public abstract class Benchmark
+{
+    private String name;  // name of the benchmark
+    private String unit;  // name of the items, such as "tokens"
+
+    private static long sink = 0;  // consumes the results of run()
+
+    /**
+     * Constructor.
+     * @param name the name of the benchmark.
+     * @param unit the name of the items that the operation processes.
+     */
+    protected Benchmark(String name, String unit)
+    {
+        this.name = name;
+        this.unit = unit;
+    }
+
+    /**
+     * Prepare the input of the operation.  Not timed.
+     * @throws Exception if an error occurred.
+     */
+    protected void setUp()
+        throws Exception
+    {
+    }
+
+    /**
+     * Prepare for one iteration of the operation.  Not timed.
+     * @throws Exception if an error occurred.
+     */
+    protected void setUpIteration()
+        throws Exception
+    {
+    }
+
+    /**
+     * Run one iteration of the operation.  Timed.
+     * @return the number of items processed.
+     * @throws Exception if an error occurred.
+     */
+    protected abstract long run()
+        throws Exception;
+
+    private static final String RESULT_FORMAT =
+        "%-28s %,16.0f %,16.0f %s/s\n";
+
+    /**
+     * Run the benchmark and print its result.
+     * @param warmUps the number of warm-up iterations.
+     * @param iterations the number of measured iterations.
+     * @throws Exception if an error occurred.
+     */
+    public void measure(int warmUps, int iterations)
+        throws Exception
+    {
+        setUp();
+
+        for (int i = 0; i < warmUps; ++i) {
+            setUpIteration();
+            sink += run();
+        }
+
+        double rates[] = new double[iterations];
+        for (int i = 0; i < iterations; ++i) {
+            setUpIteration();
+
+            long startTime = System.nanoTime();
+            long count = run();
+            long elapsedTime = System.nanoTime() - startTime;
+
+            sink += count;
+            rates[i] = count/(Math.max(elapsedTime, 1)/1e9);
+        }
+
+        Arrays.sort(rates);
+        System.out.printf(RESULT_FORMAT, name, rates[iterations/2],
+                          rates[iterations - 1], unit);
+    }
+
+    /**
+     * Print the column headings of the results.
+     */
+    public static void printHeadings()
+    {
+        System.out.printf("%-28s %16s %16s\n",
+                          "Benchmark", "Median", "Best");
+        System.out.printf("%-28s %16s %16s\n",
+                          "---------", "------", "----");
+    }
+
+    /**
+     * Getter.
+     * @return the sum of the results of every iteration, so that the
+     *         work of the operations cannot be optimized away.
+     */
+    public static long getSink()
+    {
+        return sink;
+    }
+}
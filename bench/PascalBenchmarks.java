@@ -0,0 +1,296 @@
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import wci.frontend.*;
+import wci.frontend.pascal.*;
+import wci.intermediate.*;
+import wci.backend.interpreter.Executor;
+
+/**
+ * <h1>PascalBenchmarks</h1>
+ *
+ * <p>Benchmarks of the hot paths of the compiler and the interpreter, on
+ * synthetic programs generated at several scales:</p>
+ *
+ * <ul>
+ * <li>the scanners, in tokens per second,</li>
+ * <li>the top-down parser, in statements per second,</li>
+ * <li>the tree-walking executor, on the parsed program and on the
+ *     program optimized as the -o option does, in statements executed
+ *     per second, and</li>
+ * <li>the executor of SELECT statements, with and without the jump table
+ *     cache, in statements executed per second.</li>
+ * </ul>
+ *
+ * <p>Build the compiler into a directory such as bin, and then:</p>
+ *
+ * <pre>
+ * javac -d bench/bin -cp bin bench/*.java
+ * java -cp bin:bench/bin PascalBenchmarks [-w warm-ups] [-i iterations]
+ *                                         [statements ...]
+ * </pre>
+ *
+ * <p>The default scales are 1,000, 100,000, and 1,000,000 statements.</p>
+ */
+public class PascalBenchmarks
+{
+    private static final int DEFAULT_SCALES[] = {1000, 100000, 1000000};
+
+    /**
+     * The main method.
+     * @param args command-line arguments: optional "-w" and the number of
+     *             warm-up iterations, "-i" and the number of measured
+     *             iterations, and the scales.
+     */
+    public static void main(String args[])
+    {
+        try {
+            int warmUps = 3;
+            int iterations = 5;
+            ArrayList<Integer> scales = new ArrayList<Integer>();
+
+            for (int i = 0; i < args.length; ++i) {
+                if (args[i].equals("-w")) {
+                    warmUps = Integer.parseInt(args[++i]);
+                }
+                else if (args[i].equals("-i")) {
+                    iterations = Integer.parseInt(args[++i]);
+                }
+                else {
+                    scales.add(Integer.parseInt(args[i]));
+                }
+            }
+
+            if (scales.isEmpty()) {
+                for (int scale : DEFAULT_SCALES) {
+                    scales.add(scale);
+                }
+            }
+
+            for (int scale : scales) {
+                System.out.printf("\n===== %,d STATEMENTS =====\n\n", scale);
+                Benchmark.printHeadings();
+
+                for (Benchmark benchmark : createBenchmarks(scale)) {
+                    benchmark.measure(warmUps, iterations);
+                }
+            }
+        }
+        catch (Exception ex) {
+            System.out.println("***** Benchmark error. *****");
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Create the benchmarks of a scale.
+     * @param scale the number of statements of the generated programs.
+     * @return the list of benchmarks.
+     */
+    private static ArrayList<Benchmark> createBenchmarks(int scale)
+    {
+        final ProgramGenerator program = ProgramGenerator.generate(scale);
+        final ProgramGenerator select =
+            ProgramGenerator.generateSelect(scale/2);
+        ArrayList<Benchmark> benchmarks = new ArrayList<Benchmark>();
+
+        // Scanners.
+        benchmarks.add(new Benchmark("PascalScanner", "tokens")
+        {
+            protected long run()
+                throws Exception
+            {
+                return scan(new PascalScanner(createSource(program)));
+            }
+        });
+        benchmarks.add(new Benchmark("PascalTableScanner", "tokens")
+        {
+            protected long run()
+                throws Exception
+            {
+                return scan(new PascalTableScanner(createSource(program)));
+            }
+        });
+
+        // Parser.
+        benchmarks.add(new Benchmark("PascalParserTD.parse", "statements")
+        {
+            protected long run()
+                throws Exception
+            {
+                parse(program, new CompilationContext());
+                return program.getStatementCount();
+            }
+        });
+
+        // Executors.
+        benchmarks.add(new ExecutorBenchmark("Executor.process", program,
+                                             false, true));
+        benchmarks.add(new ExecutorBenchmark("Executor.process -o", program,
+                                             true, true));
+        benchmarks.add(new ExecutorBenchmark("SelectExecutor cached",
+                                             select, false, true));
+        benchmarks.add(new ExecutorBenchmark("SelectExecutor uncached",
+                                             select, false, false));
+
+        return benchmarks;
+    }
+
+    /**
+     * Create the source of a generated program.
+     * @param program the generator of the program.
+     * @return the source.
+     */
+    private static Source createSource(ProgramGenerator program)
+    {
+        return FrontendFactory.createSource(
+                   CharBuffer.wrap(program.getText()));
+    }
+
+    /**
+     * Scan the tokens of a source to the end.
+     * @param scanner the scanner.
+     * @return the number of tokens.
+     * @throws Exception if an error occurred.
+     */
+    private static long scan(Scanner scanner)
+        throws Exception
+    {
+        long count = 0;
+
+        while (!(scanner.nextToken() instanceof EofToken)) {
+            ++count;
+        }
+
+        return count;
+    }
+
+    /**
+     * Parse a generated program with the top-down parser.
+     * @param program the generator of the program.
+     * @param context the context of the compilation.
+     * @return the parser.
+     * @throws Exception if an error occurred, or if the program has
+     *                   syntax errors.
+     */
+    private static Parser parse(ProgramGenerator program,
+                                CompilationContext context)
+        throws Exception
+    {
+        Parser parser = FrontendFactory.createParser(
+                            "Pascal", "top-down", createSource(program),
+                            context);
+        parser.parse();
+
+        if (parser.getErrorCount() > 0) {
+            throw new Exception("Generated program has syntax errors");
+        }
+
+        return parser;
+    }
+
+    /**
+     * A benchmark of the execution of a generated program, which is
+     * parsed once and, as the Pascal main program does with the -o
+     * option, optionally optimized before it is executed.
+     */
+    private static class ExecutorBenchmark extends Benchmark
+    {
+        private ProgramGenerator program;  // generator of the program
+        private boolean optimized;         // true to optimize the program
+        private boolean cached;            // false to disable the cache
+        private CompilationContext context;
+        private ICode iCode;
+        private SymTabStack symTabStack;
+        private Executor executor;
+
+        /**
+         * Constructor.
+         * @param name the name of the benchmark.
+         * @param program the generator of the program.
+         * @param optimized true to optimize the program before it is
+         *                  executed, as the -o option does.
+         * @param cached true if the executor caches the jump tables of
+         *               SELECT statements, false if it rebuilds them on
+         *               every execution.
+         */
+        ExecutorBenchmark(String name, ProgramGenerator program,
+                          boolean optimized, boolean cached)
+        {
+            super(name, "statements");
+
+            this.program = program;
+            this.optimized = optimized;
+            this.cached = cached;
+        }
+
+        /**
+         * Parse the program, and optimize it if requested.
+         * @throws Exception if an error occurred.
+         */
+        protected void setUp()
+            throws Exception
+        {
+            context = new CompilationContext();
+
+            Parser parser = parse(program, context);
+            symTabStack = parser.getSymTabStack();
+            iCode = parser.getICode();
+
+            if (optimized) {
+                iCode = new ICodeOptimizer(context).optimize(iCode);
+            }
+        }
+
+        /**
+         * Create a new executor, with an empty jump table cache.
+         */
+        protected void setUpIteration()
+        {
+            executor = cached ? new Executor(context)
+                              : new UncachedExecutor(context);
+        }
+
+        /**
+         * Execute the program.
+         * @return the number of statements executed.
+         * @throws Exception if an error occurred.
+         */
+        protected long run()
+            throws Exception
+        {
+            int startCount = context.getExecutionCount();
+            executor.process(iCode, symTabStack);
+
+            return context.getExecutionCount() - startCount;
+        }
+    }
+
+    /**
+     * An executor whose jump table cache keeps no jump table, so that
+     * each execution of a SELECT statement builds its jump table again.
+     */
+    private static class UncachedExecutor extends Executor
+    {
+        /**
+         * Constructor.
+         * @param context the context of the compilation.
+         */
+        UncachedExecutor(CompilationContext context)
+        {
+            super(context);
+
+            this.jumpCache = new HashMap<ICodeNode,
+                                         HashMap<Object, ICodeNode>>()
+            {
+                public HashMap<Object, ICodeNode> put(
+                    ICodeNode node, HashMap<Object, ICodeNode> jumpTable)
+                {
+                    return null;
+                }
+            };
+        }
+    }
+}
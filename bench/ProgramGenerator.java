@@ -0,0 +1,193 @@
+/**
+ * <h1>ProgramGenerator</h1>
+ *
+ * <p>Generate synthetic Pascal programs for the benchmarks.  A program
+ * is a compound statement of a mix of assignment, IF, CASE, WHILE, FOR,
+ * and REPEAT statements that runs to completion without runtime
+ * errors.  The program assigns every variable before it uses it, so
+ * every execution of the program executes the same statements.</p>
+ */
+public class ProgramGenerator
+{
+    private static final int VARIABLE_COUNT = 8;
+
+    private StringBuilder text;  // text of the program
+    private int statementCount;  // statements generated
+    private int unitCount;       // units of statements generated
+
+    /**
+     * Generate a program of straight-line statements.
+     * @param statements the minimum number of statements.  The count
+     *                   includes the statements nested in others.
+     * @return the generator, with the text of the program.
+     */
+    public static ProgramGenerator generate(int statements)
+    {
+        ProgramGenerator generator = new ProgramGenerator();
+
+        generator.text.append("BEGIN\n");
+        generator.initialize();
+
+        while (generator.statementCount < statements) {
+            generator.appendUnit();
+        }
+
+        generator.text.append("    v0 := v0\n");
+        ++generator.statementCount;
+        generator.text.append("END.\n");
+
+        return generator;
+    }
+
+    /**
+     * Generate a program of a WHILE loop around a CASE statement, to
+     * exercise SELECT statements.
+     * @param iterations the number of times the loop executes the CASE
+     *                   statement.
+     * @return the generator, with the text of the program.
+     */
+    public static ProgramGenerator generateSelect(int iterations)
+    {
+        ProgramGenerator generator = new ProgramGenerator();
+        StringBuilder text = generator.text;
+
+        text.append("BEGIN\n");
+        text.append("    i := 0;\n");
+        text.append("    WHILE i < ").append(iterations)
+            .append(" DO BEGIN\n");
+        text.append("        CASE i MOD 16 OF\n");
+        for (int value = 0; value < 15; ++value) {
+            text.append("            ").append(value).append(": j := ")
+                .append(value).append(";\n");
+        }
+        text.append("            15: j := -1\n");
+        text.append("        END;\n");
+        text.append("        i := i + 1\n");
+        text.append("    END\n");
+        text.append("END.\n");
+
+        // The assignment to i, the WHILE, its compound statement, the
+        // CASE and its 16 branches, and the increment of i.
+        generator.statementCount = 1 + 1 + 1 + 1 + 16 + 1;
+        return generator;
+    }
+
+    /**
+     * Constructor.
+     */
+    private ProgramGenerator()
+    {
+        this.text = new StringBuilder();
+        this.statementCount = 0;
+        this.unitCount = 0;
+    }
+
+    /**
+     * Getter.
+     * @return the text of the program.
+     */
+    public String getText()
+    {
+        return text.toString();
+    }
+
+    /**
+     * Getter.
+     * @return the number of statements in the program, including the
+     *         statements nested in others but not the program's compound
+     *         statement.
+     */
+    public int getStatementCount()
+    {
+        return statementCount;
+    }
+
+    /**
+     * Generate assignments of initial values to the variables.
+     */
+    private void initialize()
+    {
+        for (int i = 0; i < VARIABLE_COUNT; ++i) {
+            text.append("    v").append(i).append(" := ").append(i + 1)
+                .append(";\n");
+            ++statementCount;
+        }
+    }
+
+    /**
+     * Generate the next unit of statements.  The units cycle through
+     * the kinds of statements, and the variables that they use.
+     */
+    private void appendUnit()
+    {
+        String a = variable(unitCount);
+        String b = variable(unitCount + 3);
+        String c = variable(unitCount + 5);
+
+        switch (unitCount%6) {
+
+            case 0: {
+                text.append("    ").append(a).append(" := (").append(b)
+                    .append(" + ").append(c).append("*7) MOD 1000;\n");
+                statementCount += 1;
+                break;
+            }
+
+            case 1: {
+                text.append("    IF ").append(a).append(" > ").append(b)
+                    .append(" THEN ").append(c).append(" := ").append(a)
+                    .append(" - ").append(b).append(" ELSE ").append(c)
+                    .append(" := ").append(b).append(" - ").append(a)
+                    .append(";\n");
+                statementCount += 3;
+                break;
+            }
+
+            case 2: {
+                text.append("    CASE ").append(a).append(" MOD 4 OF ")
+                    .append("0: ").append(b).append(" := 1; ")
+                    .append("1, 2: ").append(b).append(" := 2; ")
+                    .append("3: ").append(b).append(" := ").append(c)
+                    .append(" END;\n");
+                statementCount += 4;
+                break;
+            }
+
+            case 3: {
+                text.append("    ").append(a).append(" := 0; WHILE ")
+                    .append(a).append(" < 3 DO ").append(a).append(" := ")
+                    .append(a).append(" + 1;\n");
+                statementCount += 3;
+                break;
+            }
+
+            case 4: {
+                text.append("    FOR k := 1 TO 3 DO ").append(a)
+                    .append(" := (").append(a).append(" + k) MOD 1000;\n");
+                statementCount += 2;
+                break;
+            }
+
+            case 5: {
+                text.append("    REPEAT ").append(a).append(" := ")
+                    .append(a).append(" + 1 UNTIL ").append(a)
+                    .append(" MOD 4 = 0;\n");
+                statementCount += 2;
+                break;
+            }
+        }
+
+        ++unitCount;
+    }
+
+    /**
+     * Return the name of a variable.
+     * @param index the index of the variable, modulo the number of
+     *              variables.
+     * @return the name.
+     */
+    private static String variable(int index)
+    {
+        return "v" + (index%VARIABLE_COUNT);
+    }
+}
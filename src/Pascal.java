@@ -1,9 +1,12 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.BufferedOutputStream;
+import java.io.PrintStream;
+import java.util.EnumSet;
 
 import wci.frontend.*;
 import wci.intermediate.*;
 import wci.backend.*;
+import wci.backend.interpreter.Executor;
+import wci.backend.interpreter.Profiler;
 import wci.message.*;
 import wci.util.*;
 
@@ -24,72 +27,313 @@ public class Pascal
     private ICode iCode;              // generated intermediate code
     private SymTabStack symTabStack;  // symbol table stack
     private Backend backend;          // backend
+    private PrintStream out;          // listing and message output
+    private int status;               // exit status
+
+    // Types of the messages that each listener prints.  The producers
+    // don't build the messages of the other types.
+    private static final EnumSet<MessageType> SOURCE_MESSAGES =
+        EnumSet.of(SOURCE_LINE);
+    private static final EnumSet<MessageType> PARSER_MESSAGES =
+        EnumSet.of(PARSER_SUMMARY, SYNTAX_ERROR);
+    private static final EnumSet<MessageType> STATEMENT_MESSAGES =
+        EnumSet.of(STATEMENT);
+    private static final EnumSet<MessageType> BACKEND_MESSAGES =
+        EnumSet.of(ASSIGN, RUNTIME_ERROR, INTERPRETER_SUMMARY,
+                   COMPILER_SUMMARY);
+
+    // Size of the buffer of the standard output.  The listing is written
+    // in chunks of this size, and whenever a summary or an error is
+    // printed, rather than a line at a time.
+    private static final int OUTPUT_BUFFER_SIZE = 65536;
 
     /**
      * Compile or interpret a Pascal source program.
-     * @param operation either "compile" or "execute".
+     * @param operation "compile", "compile-jvm", "execute",
+     *                  "execute-closure", "execute-flat", "execute-vm",
+     *                  or "execute-jvm".
      * @param filePath the source file path.
      * @param flags the command line flags.
      */
     public Pascal(String operation, String filePath, String flags)
     {
+        this(operation, null, filePath, flags,
+             new PrintStream(new BufferedOutputStream(System.out,
+                                                      OUTPUT_BUFFER_SIZE),
+                             false));
+    }
+
+    /**
+     * Compile or interpret a Pascal source program that has already been
+     * read, and print the output to a stream.
+     * @param operation "compile", "compile-jvm", "execute",
+     *                  "execute-closure", "execute-flat", "execute-vm",
+     *                  or "execute-jvm".
+     * @param source the source program.
+     * @param flags the command line flags.
+     * @param out the output stream.
+     */
+    public Pascal(String operation, Source source, String flags,
+                  PrintStream out)
+    {
+        this(operation, source, null, flags, out);
+    }
+
+    /**
+     * Compile or interpret a Pascal source program.
+     * @param operation the operation.
+     * @param programSource the source program, or null to read the
+     *                      source file.
+     * @param filePath the source file path if there is no source program.
+     * @param flags the command line flags.
+     * @param out the output stream.
+     */
+    private Pascal(String operation, Source programSource, String filePath,
+                   String flags, PrintStream out)
+    {
+        this.out = out;
+        this.status = 0;
+
         try {
             boolean intermediate = flags.indexOf('i') > -1;
             boolean xref         = flags.indexOf('x') > -1;
+            boolean streaming    = flags.indexOf('s') > -1;
+            boolean parallel     = flags.indexOf('m') > -1;
+            boolean asynchronous = flags.indexOf('a') > -1;
+            boolean optimizing   = flags.indexOf('o') > -1;
+
+            // Only the executor that walks the parse tree is profiled.
+            boolean profiling    = flags.indexOf('p') > -1
+                                   && operation.equalsIgnoreCase("execute");
+
+            // The flat executor walks flat, array-encoded intermediate code.
+            boolean flat = operation.equalsIgnoreCase("execute-flat");
+            CompilationContext context = new CompilationContext(flat);
+
+            source = programSource != null
+                         ? programSource
+                         : FrontendFactory.createSource(filePath);
+            parser = FrontendFactory.createParser(
+                         "Pascal", parallel ? "parallel" : "top-down", source,
+                         context);
+
+            backend = BackendFactory.createBackend(operation, context);
+            if (!asynchronous) {
+                backend.addMessageListener(new BackendMessageListener(),
+                                           BACKEND_MESSAGES);
+            }
 
-            source = new Source(new BufferedReader(new FileReader(filePath)));
-            source.addMessageListener(new SourceMessageListener());
-
-            parser = FrontendFactory.createParser("Pascal", "top-down", source);
-            parser.addMessageListener(new ParserMessageListener());
+            Profiler profiler = null;
+            if (profiling) {
+                profiler = new Profiler();
+                ((Executor) backend).setProfiler(profiler);
+            }
 
-            backend = BackendFactory.createBackend(operation);
-            backend.addMessageListener(new BackendMessageListener());
+            if (streaming) {
+                parseStreaming(intermediate);
+            }
+            else {
+                source.addMessageListener(new SourceMessageListener(),
+                                          SOURCE_MESSAGES);
+                parser.addMessageListener(new ParserMessageListener(),
+                                          PARSER_MESSAGES);
 
-            parser.parse();
-            source.close();
+                parser.parse();
+                source.close();
+            }
 
             if (parser.getErrorCount() == 0) {
                 iCode = parser.getICode();
                 symTabStack = parser.getSymTabStack();
 
                 if (xref) {
-                    CrossReferencer crossReferencer = new CrossReferencer();
+                    CrossReferencer crossReferencer = new CrossReferencer(out);
                     crossReferencer.print(symTabStack);
                 }
 
-                if (intermediate) {
+                // Streaming has already printed each statement.
+                if (intermediate && !streaming) {
                     ParseTreePrinter treePrinter =
-                                         new ParseTreePrinter(System.out);
+                                         new ParseTreePrinter(out);
                     treePrinter.print(iCode);
                 }
 
-                backend.process(iCode, symTabStack);
+                // Simplify the intermediate code for the back end.  The
+                // optimized code executes fewer statements, so only the
+                // -o flag turns the optimizer on.
+                if (optimizing) {
+                    ICodeOptimizer optimizer = new ICodeOptimizer(context);
+                    iCode = optimizer.optimize(iCode);
+                }
+
+                if (asynchronous) {
+                    processAsynchronously();
+                }
+                else {
+                    backend.process(iCode, symTabStack);
+                }
+
+                if (profiler != null) {
+                    profiler.print(out);
+                }
             }
         }
+        catch (AbortException ex) {
+            if (ex.getMessage() != null) {
+                out.println(ex.getMessage());
+            }
+
+            status = ex.getStatus();
+        }
         catch (Exception ex) {
-            System.out.println("***** Internal translator error. *****");
+            // The output may be a server response, so it says what failed.
+            // The stack trace goes to the standard error.
+            out.println("***** Internal translator error. *****");
+            out.println("*** " + ex);
+            out.flush();
             ex.printStackTrace();
+
+            status = -1;
+        }
+        finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Getter.
+     * @return the exit status: nonzero if the translation was aborted
+     *         or failed.
+     */
+    public int getStatus()
+    {
+        return status;
+    }
+
+    private static final int PIPELINE_CAPACITY = 1024;
+
+    /**
+     * Parse the source program on a thread of its own, and receive the
+     * source and parser messages on this thread through a pipeline.  The
+     * statements of the program's compound statement arrive as soon as
+     * they have been parsed, and are printed if intermediate is set.
+     * @param intermediate true to print the statements as parse trees.
+     * @throws Exception if an error occurred.
+     */
+    private void parseStreaming(boolean intermediate)
+        throws Exception
+    {
+        final MessagePipeline pipeline =
+            new MessagePipeline(PIPELINE_CAPACITY);
+        final Exception failure[] = new Exception[1];
+
+        source.addMessageListener(
+            pipeline.connect(new SourceMessageListener()), SOURCE_MESSAGES);
+        parser.addMessageListener(
+            pipeline.connect(new ParserMessageListener()), PARSER_MESSAGES);
+
+        if (intermediate) {
+            parser.addMessageListener(
+                pipeline.connect(new StatementMessageListener()),
+                STATEMENT_MESSAGES);
+        }
+
+        // The parser stage.
+        Thread parserThread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try {
+                    parser.parse();
+                    source.close();
+                }
+                catch (Exception ex) {
+                    failure[0] = ex;
+                }
+                finally {
+                    pipeline.close();
+                }
+            }
+        }, "parser");
+
+        // Don't keep the program alive if this thread stops delivering.
+        parserThread.setDaemon(true);
+        parserThread.start();
+
+        pipeline.deliver();
+        parserThread.join();
+
+        if (failure[0] != null) {
+            throw failure[0];
         }
     }
 
-    private static final String FLAGS = "[-ix]";
+    private static final int RING_CAPACITY = 65536;
+
+    /**
+     * Process the intermediate code with the back end, and print the back
+     * end's messages on a thread of its own, so that the back end does
+     * not wait for the output of each message.
+     * @throws Exception if an error occurred.
+     */
+    private void processAsynchronously()
+        throws Exception
+    {
+        final MessageRing ring = new MessageRing(RING_CAPACITY);
+
+        backend.addMessageListener(
+            ring.connect(new BackendMessageListener()), BACKEND_MESSAGES);
+
+        // The delivery stage.
+        Thread deliveryThread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                ring.deliver();
+            }
+        }, "messages");
+
+        deliveryThread.setDaemon(true);
+        deliveryThread.start();
+
+        try {
+            backend.process(iCode, symTabStack);
+        }
+        finally {
+            ring.close();
+            deliveryThread.join();
+        }
+    }
+
+    private static final String FLAGS = "[-aimopsx]";
     private static final String USAGE =
-        "Usage: Pascal execute|compile " + FLAGS + " <source file path>";
+        "Usage: Pascal " +
+        "execute|execute-closure|execute-flat|execute-vm|execute-jvm|" +
+        "compile|compile-jvm " +
+        FLAGS + " <source file path>\n" +
+        "       Pascal server";
 
     /**
      * The main method.
-     * @param args command-line arguments: "compile" or "execute" followed by
-     *             optional flags followed by the source file path.
+     * @param args command-line arguments: "compile", "compile-jvm",
+     *             "execute", "execute-closure", "execute-flat",
+     *             "execute-vm", or "execute-jvm" followed by optional flags
+     *             followed by the source file path, or "server" to serve
+     *             requests on the standard input.
      */
     public static void main(String args[])
     {
         try {
             String operation = args[0];
 
+            // Server.
+            if (operation.equalsIgnoreCase("server") && (args.length == 1)) {
+                serve();
+                return;
+            }
+
             // Operation.
-            if (!(   operation.equalsIgnoreCase("compile")
-                  || operation.equalsIgnoreCase("execute"))) {
+            if (!isOperation(operation)) {
                 throw new Exception();
             }
 
@@ -104,7 +348,11 @@ public class Pascal
             // Source path.
             if (i < args.length) {
                 String path = args[i];
-                new Pascal(operation, path, flags);
+                Pascal pascal = new Pascal(operation, path, flags);
+
+                if (pascal.getStatus() != 0) {
+                    System.exit(pascal.getStatus());
+                }
             }
             else {
                 throw new Exception();
@@ -115,13 +363,49 @@ public class Pascal
         }
     }
 
-    private static final String SOURCE_LINE_FORMAT = "%03d %s";
+    /**
+     * Determine whether a command-line argument is an operation.
+     * @param operation the argument.
+     * @return true if it is "compile", "compile-jvm", "execute",
+     *         "execute-closure", "execute-flat", "execute-vm",
+     *         or "execute-jvm".
+     */
+    private static boolean isOperation(String operation)
+    {
+        return    operation.equalsIgnoreCase("compile")
+               || operation.equalsIgnoreCase("compile-jvm")
+               || operation.equalsIgnoreCase("execute")
+               || operation.equalsIgnoreCase("execute-closure")
+               || operation.equalsIgnoreCase("execute-flat")
+               || operation.equalsIgnoreCase("execute-vm")
+               || operation.equalsIgnoreCase("execute-jvm");
+    }
+
+    /**
+     * Serve the requests on the standard input until it ends.
+     */
+    private static void serve()
+    {
+        try {
+            PascalServer server = new PascalServer(
+                System.in, System.out,
+                Runtime.getRuntime().availableProcessors());
+            server.serve();
+        }
+        catch (Exception ex) {
+            System.err.println("***** Server error. *****");
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+    }
 
     /**
      * Listener for source messages.
      */
     private class SourceMessageListener implements MessageListener
     {
+        private LineBuilder line = new LineBuilder();
+
         /**
          * Called by the source whenever it produces a message.
          * @param message the message.
@@ -137,14 +421,34 @@ public class Pascal
                     int lineNumber = (Integer) body[0];
                     String lineText = (String) body[1];
 
-                    System.out.println(String.format(SOURCE_LINE_FORMAT,
-                                                     lineNumber, lineText));
+                    line.clear().appendPadded(lineNumber, 3)
+                        .append(' ').append(lineText).println(out);
                     break;
                 }
             }
         }
     }
 
+    /**
+     * Listener for the statements of the program as they are parsed.
+     */
+    private class StatementMessageListener implements MessageListener
+    {
+        private ParseTreePrinter treePrinter =
+            new ParseTreePrinter(out);
+
+        /**
+         * Called by the parser whenever it produces a message.
+         * @param message the message.
+         */
+        public void messageReceived(Message message)
+        {
+            if (message.getType() == STATEMENT) {
+                treePrinter.printStatement((ICodeNode) message.getBody());
+            }
+        }
+    }
+
     private static final String PARSER_SUMMARY_FORMAT =
         "\n%,20d source lines." +
         "\n%,20d syntax errors." +
@@ -157,6 +461,8 @@ public class Pascal
      */
     private class ParserMessageListener implements MessageListener
     {
+        private LineBuilder line = new LineBuilder();
+
         /**
          * Called by the parser whenever it produces a message.
          * @param message the message.
@@ -173,9 +479,10 @@ public class Pascal
                     int syntaxErrors = (Integer) body[1];
                     float elapsedTime = (Float) body[2];
 
-                    System.out.printf(PARSER_SUMMARY_FORMAT,
-                                      statementCount, syntaxErrors,
-                                      elapsedTime);
+                    out.printf(PARSER_SUMMARY_FORMAT,
+                               statementCount, syntaxErrors,
+                               elapsedTime);
+                    out.flush();
                     break;
                 }
 
@@ -187,23 +494,21 @@ public class Pascal
                     String errorMessage = (String) body[3];
 
                     int spaceCount = PREFIX_WIDTH + position;
-                    StringBuilder flagBuffer = new StringBuilder();
 
                     // Spaces up to the error position.
-                    for (int i = 1; i < spaceCount; ++i) {
-                        flagBuffer.append(' ');
-                    }
+                    line.clear().append(' ', spaceCount - 1);
 
                     // A pointer to the error followed by the error message.
-                    flagBuffer.append("^\n*** ").append(errorMessage);
+                    line.append("^\n*** ").append(errorMessage);
 
                     // Text, if any, of the bad token.
                     if (tokenText != null) {
-                        flagBuffer.append(" [at \"").append(tokenText)
+                        line.append(" [at \"").append(tokenText)
                             .append("\"]");
                     }
 
-                    System.out.println(flagBuffer.toString());
+                    line.println(out);
+                    out.flush();
                     break;
                 }
             }
@@ -219,18 +524,13 @@ public class Pascal
         "\n%,20d instructions generated." +
         "\n%,20.2f seconds total code generation time.\n";
 
-    private static final String LINE_FORMAT =
-        ">>> AT LINE %03d\n";
-
-    private static final String ASSIGN_FORMAT =
-        ">>> LINE %03d: %s = %s\n";
-
     /**
      * Listener for back end messages.
      */
     private class BackendMessageListener implements MessageListener
     {
         private boolean firstOutputMessage = true;
+        private LineBuilder line = new LineBuilder();
 
         /**
          * Called by the back end whenever it produces a message.
@@ -244,7 +544,7 @@ public class Pascal
 
                 case ASSIGN: {
                     if (firstOutputMessage) {
-                        System.out.println("\n===== OUTPUT =====\n");
+                        out.println("\n===== OUTPUT =====\n");
                         firstOutputMessage = false;
                     }
 
@@ -253,8 +553,9 @@ public class Pascal
                     String variableName = (String) body[1];
                     Object value = body[2];
 
-                    System.out.printf(ASSIGN_FORMAT,
-                                      lineNumber, variableName, value);
+                    line.clear().append(">>> LINE ").appendPadded(lineNumber, 3)
+                        .append(": ").append(variableName).append(" = ")
+                        .appendValue(value).append('\n').print(out);
                     break;
                 }
 
@@ -263,12 +564,12 @@ public class Pascal
                     String errorMessage = (String) body[0];
                     Integer lineNumber = (Integer) body[1];
 
-                    System.out.print("*** RUNTIME ERROR");
+                    line.clear().append("*** RUNTIME ERROR");
                     if (lineNumber != null) {
-                        System.out.print(" AT LINE " +
-                                         String.format("%03d", lineNumber));
+                        line.append(" AT LINE ").appendPadded(lineNumber, 3);
                     }
-                    System.out.println(": " + errorMessage);
+                    line.append(": ").append(errorMessage).println(out);
+                    out.flush();
                     break;
                 }
 
@@ -278,9 +579,10 @@ public class Pascal
                     int runtimeErrors = (Integer) body[1];
                     float elapsedTime = (Float) body[2];
 
-                    System.out.printf(INTERPRETER_SUMMARY_FORMAT,
-                                      executionCount, runtimeErrors,
-                                      elapsedTime);
+                    out.printf(INTERPRETER_SUMMARY_FORMAT,
+                               executionCount, runtimeErrors,
+                               elapsedTime);
+                    out.flush();
                     break;
                 }
 
@@ -289,8 +591,9 @@ public class Pascal
                     int instructionCount = (Integer) body[0];
                     float elapsedTime = (Float) body[1];
 
-                    System.out.printf(COMPILER_SUMMARY_FORMAT,
-                                      instructionCount, elapsedTime);
+                    out.printf(COMPILER_SUMMARY_FORMAT,
+                               instructionCount, elapsedTime);
+                    out.flush();
                     break;
                 }
             }
@@ -0,0 +1,249 @@
+import java.io.*;
+import java.nio.CharBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import wci.frontend.*;
+
+/**
+ * <h1>PascalServer</h1>
+ *
+ * <p>Compile or interpret the Pascal source programs of a stream of
+ * requests in one long-running process, several programs at a time on a
+ * thread pool.  The classes are loaded and the code is compiled by the
+ * JVM once, by a warm-up before the first request, instead of once for
+ * every program.</p>
+ *
+ * <p>A request is a header line followed by the source lines of the
+ * program:</p>
+ *
+ * <pre>
+ *     &lt;id&gt; &lt;operation&gt; [-flags] &lt;line count&gt;
+ * </pre>
+ *
+ * <p>The id is any word that names the request, and the operation and
+ * the flags are those of the command line, except "compile-jvm", which
+ * writes a class file.  A response is a header line followed by the
+ * lines that the command line prints for the program:</p>
+ *
+ * <pre>
+ *     &lt;id&gt; &lt;line count&gt; &lt;exit status&gt;
+ * </pre>
+ *
+ * <p>The responses are written as their programs finish, which need not
+ * be the order of the requests.  At the end of the requests, the number
+ * of programs per second is printed to the standard error.</p>
+ */
+public class PascalServer
+{
+    private static final int WARMUP_ROUNDS = 200;
+
+    // Operations that a request can ask for.
+    private static final String OPERATIONS[] = {
+        "execute", "execute-closure", "execute-flat", "execute-vm",
+        "execute-jvm", "compile"
+    };
+
+    // Program that the warm-up compiles and executes.
+    private static final String WARMUP_PROGRAM =
+        "BEGIN\n" +
+        "    i := 0;\n" +
+        "    sum := 0.0;\n" +
+        "    WHILE i < 100 DO BEGIN\n" +
+        "        i := i + 1;\n" +
+        "        sum := sum + i/2\n" +
+        "    END;\n" +
+        "    CASE i OF\n" +
+        "        1:   j := 1;\n" +
+        "        100: j := 2\n" +
+        "    END;\n" +
+        "    FOR k := 1 TO 10 DO\n" +
+        "        IF k > 5 THEN j := j + k ELSE j := j - 1;\n" +
+        "    REPEAT\n" +
+        "        i := i - 1\n" +
+        "    UNTIL i = 0\n" +
+        "END.\n";
+
+    private BufferedReader in;     // requests
+    private PrintStream out;       // responses
+    private ExecutorService pool;  // threads that process the requests
+    private int programCount;      // number of programs processed
+
+    /**
+     * Constructor.
+     * @param in the input stream of requests.
+     * @param out the output stream of responses.
+     * @param threadCount the number of requests to process at a time.
+     */
+    public PascalServer(InputStream in, OutputStream out, int threadCount)
+    {
+        this.in = new BufferedReader(new InputStreamReader(in));
+        this.out = new PrintStream(new BufferedOutputStream(out), false);
+        this.pool = Executors.newFixedThreadPool(threadCount);
+        this.programCount = 0;
+    }
+
+    private static final String SERVER_SUMMARY_FORMAT =
+        "\n%,20d programs processed." +
+        "\n%,20.2f seconds total time." +
+        "\n%,20.2f programs per second.\n";
+
+    /**
+     * Warm up, and then process the requests until the input ends.
+     * @throws Exception if an error occurred.
+     */
+    public void serve()
+        throws Exception
+    {
+        warmUp();
+
+        long startTime = System.currentTimeMillis();
+        String header;
+
+        while ((header = in.readLine()) != null) {
+            if (header.trim().length() > 0) {
+                submit(header);
+            }
+        }
+
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        out.flush();
+
+        float elapsedTime = (System.currentTimeMillis() - startTime)/1000f;
+        System.err.printf(SERVER_SUMMARY_FORMAT, programCount, elapsedTime,
+                          elapsedTime > 0 ? programCount/elapsedTime : 0f);
+    }
+
+    /**
+     * Compile and execute the warm-up program with every operation,
+     * discarding the output.
+     */
+    private void warmUp()
+    {
+        PrintStream discard = new PrintStream(new OutputStream()
+        {
+            public void write(int b) {}
+            public void write(byte b[], int off, int len) {}
+        });
+
+        for (int round = 0; round < WARMUP_ROUNDS; ++round) {
+            for (String operation : OPERATIONS) {
+                Source source = FrontendFactory.createSource(
+                                    CharBuffer.wrap(WARMUP_PROGRAM));
+                new Pascal(operation, source, "", discard);
+            }
+        }
+    }
+
+    /**
+     * Read the source lines of a request and submit the request to the
+     * thread pool.  A request with a bad header gets an error response.
+     * @param header the header line of the request.
+     * @throws IOException if an I/O error occurred.
+     */
+    private void submit(String header)
+        throws IOException
+    {
+        String words[] = header.trim().split("\\s+");
+        final String id = words[0];
+        int lineCount;
+
+        try {
+            lineCount = Integer.parseInt(words[words.length - 1]);
+        }
+        catch (NumberFormatException ex) {
+            lineCount = -1;
+        }
+
+        if ((words.length < 3) || (lineCount < 0)) {
+            respond(id, "***** Invalid request header. *****\n", -1);
+            return;
+        }
+
+        // Read the source lines.
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lineCount; ++i) {
+            String line = in.readLine();
+            if (line == null) {
+                break;
+            }
+
+            text.append(line).append('\n');
+        }
+
+        final String operation = words[1];
+        if (!isOperation(operation)) {
+            respond(id, "***** Invalid operation '" + operation +
+                        "'. *****\n", -1);
+            return;
+        }
+
+        // Flags.
+        StringBuilder flagBuffer = new StringBuilder();
+        for (int i = 2; i < words.length - 1; ++i) {
+            if (words[i].charAt(0) == '-') {
+                flagBuffer.append(words[i].substring(1));
+            }
+        }
+
+        final String flags = flagBuffer.toString();
+        final Source source =
+            FrontendFactory.createSource(CharBuffer.wrap(text));
+
+        pool.execute(new Runnable()
+        {
+            public void run()
+            {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                Pascal pascal = new Pascal(operation, source, flags,
+                                           new PrintStream(output));
+
+                respond(id, output.toString(), pascal.getStatus());
+            }
+        });
+    }
+
+    /**
+     * Determine whether a request can ask for an operation.
+     * @param operation the operation.
+     * @return true if it can.
+     */
+    private static boolean isOperation(String operation)
+    {
+        for (String name : OPERATIONS) {
+            if (name.equalsIgnoreCase(operation)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Write the response to a request.
+     * @param id the id of the request.
+     * @param output the output of the request's program.
+     * @param status the exit status.
+     */
+    private synchronized void respond(String id, String output, int status)
+    {
+        if ((output.length() > 0) && !output.endsWith("\n")) {
+            output += "\n";
+        }
+
+        int lineCount = 0;
+        for (int i = 0; i < output.length(); ++i) {
+            if (output.charAt(i) == '\n') {
+                ++lineCount;
+            }
+        }
+
+        out.print(id + " " + lineCount + " " + status + "\n");
+        out.print(output);
+        out.flush();
+
+        ++programCount;
+    }
+}
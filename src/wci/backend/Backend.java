@@ -1,5 +1,8 @@
 package wci.backend;
 
+import java.util.EnumSet;
+
+import wci.intermediate.CompilationContext;
 import wci.intermediate.ICode;
 import wci.intermediate.SymTabStack;
 import wci.message.*;
@@ -14,14 +17,46 @@ import wci.message.*;
  */
 public abstract class Backend implements MessageProducer
 {
-    protected static SymTabStack symTabStack;        // symbol table stack
-    protected static MessageHandler messageHandler;  // message handler delegate
+    protected CompilationContext context;     // compilation context
+    protected SymTabStack symTabStack;        // symbol table stack
+    protected MessageHandler messageHandler;  // message handler delegate
+
+    protected ICode iCode;  // intermediate code
 
-    static {
-        messageHandler = new MessageHandler();
+    /**
+     * Constructor.
+     * @param context the context of the compilation.
+     */
+    protected Backend(CompilationContext context)
+    {
+        this.context = context;
+        this.symTabStack = context.getSymTabStack();
+        this.messageHandler = new MessageHandler();
+        this.iCode = null;
     }
 
-    protected ICode iCode;  // intermediate code
+    /**
+     * Constructor for the components of a back end, which share the
+     * context, the symbol table stack, and the message handler of the
+     * parent component.
+     * @param parent the parent component.
+     */
+    protected Backend(Backend parent)
+    {
+        this.context = parent.context;
+        this.symTabStack = parent.symTabStack;
+        this.messageHandler = parent.messageHandler;
+        this.iCode = null;
+    }
+
+    /**
+     * Getter.
+     * @return the context of the compilation.
+     */
+    public CompilationContext getContext()
+    {
+        return context;
+    }
 
     /**
      * Getter.
@@ -69,6 +104,16 @@ public abstract class Backend implements MessageProducer
         messageHandler.sendMessage(message);
     }
 
+    /**
+     * Determine whether any listener receives messages of a type.
+     * @param type the message type.
+     * @return true if a message of the type would be delivered.
+     */
+    public boolean isEnabled(MessageType type)
+    {
+        return messageHandler.isEnabled(type);
+    }
+
     /**
      * Add a parser message listener.
      * @param listener the message listener to add.
@@ -78,6 +123,17 @@ public abstract class Backend implements MessageProducer
         messageHandler.addListener(listener);
     }
 
+    /**
+     * Add a message listener that receives only some types of messages.
+     * @param listener the message listener to add.
+     * @param types the types of the messages that the listener receives.
+     */
+    public void addMessageListener(MessageListener listener,
+                                   EnumSet<MessageType> types)
+    {
+        messageHandler.addListener(listener, types);
+    }
+
     /**
      * Remove a parser message listener.
      * @param listener the message listener to remove.
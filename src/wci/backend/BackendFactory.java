@@ -1,7 +1,13 @@
 package wci.backend;
 
 import wci.backend.compiler.CodeGenerator;
+import wci.backend.compiler.jvm.JvmCodeGenerator;
+import wci.backend.interpreter.ClosureExecutor;
 import wci.backend.interpreter.Executor;
+import wci.backend.interpreter.FlatExecutor;
+import wci.backend.interpreter.JvmExecutor;
+import wci.backend.interpreter.VirtualMachine;
+import wci.intermediate.CompilationContext;
 
 /**
  * <h1>BackendFactory</h1>
@@ -15,18 +21,37 @@ public class BackendFactory
 {
     /**
      * Create a compiler or an interpreter back end component.
-     * @param operation either "compile" or "execute"
+     * @param operation "compile", "compile-jvm", "execute",
+     *                  "execute-closure", "execute-flat", "execute-vm",
+     *                  or "execute-jvm".
+     * @param context the context of the compilation.
      * @return a compiler or an interpreter back end component.
      * @throws Exception if an error occurred.
      */
-    public static Backend createBackend(String operation)
+    public static Backend createBackend(String operation,
+                                        CompilationContext context)
         throws Exception
     {
         if (operation.equalsIgnoreCase("compile")) {
-            return new CodeGenerator();
+            return new CodeGenerator(context);
+        }
+        else if (operation.equalsIgnoreCase("compile-jvm")) {
+            return new JvmCodeGenerator(context);
         }
         else if (operation.equalsIgnoreCase("execute")) {
-            return new Executor();
+            return new Executor(context);
+        }
+        else if (operation.equalsIgnoreCase("execute-closure")) {
+            return new ClosureExecutor(context);
+        }
+        else if (operation.equalsIgnoreCase("execute-flat")) {
+            return new FlatExecutor(context);
+        }
+        else if (operation.equalsIgnoreCase("execute-vm")) {
+            return new VirtualMachine(context);
+        }
+        else if (operation.equalsIgnoreCase("execute-jvm")) {
+            return new JvmExecutor(context);
         }
         else {
             throw new Exception("Backend factory: Invalid operation '" +
@@ -0,0 +1,209 @@
+package wci.backend.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import wci.intermediate.*;
+
+/**
+ * <h1>Bytecode</h1>
+ *
+ * <p>The stack bytecode of a program: a linear int array of instructions,
+ * a constant pool for the operands that are objects, the jump tables
+ * of the SWITCH instructions, and the storage kind of each variable
+ * slot.  The code generator appends instructions
+ * and the virtual machine executes them.</p>
+ */
+public class Bytecode
+{
+    private int code[];                  // instructions and operands
+    private int size;                    // number of ints of code
+    private int instructionCount;        // number of instructions
+    private ArrayList<Object> constants; // constant pool
+    private ArrayList<HashMap<Object, Integer>> jumpTables;  // SWITCH
+    private ValueKind slotKinds[];       // storage kinds of the slots
+
+    /**
+     * Constructor.
+     * @param slotCount the number of variable slots.
+     */
+    public Bytecode(int slotCount)
+    {
+        this.code = new int[256];
+        this.size = 0;
+        this.instructionCount = 0;
+        this.constants = new ArrayList<Object>();
+        this.jumpTables = new ArrayList<HashMap<Object, Integer>>();
+        this.slotKinds = new ValueKind[slotCount];
+
+        Arrays.fill(slotKinds, ValueKind.UNKNOWN);
+    }
+
+    /**
+     * Append an instruction without operands.
+     * @param opcode the opcode.
+     * @return the address of the instruction.
+     */
+    public int emit(int opcode)
+    {
+        ++instructionCount;
+        return append(opcode);
+    }
+
+    /**
+     * Append an instruction with one operand.
+     * @param opcode the opcode.
+     * @param operand the operand.
+     * @return the address of the instruction.
+     */
+    public int emit(int opcode, int operand)
+    {
+        int address = emit(opcode);
+        append(operand);
+        return address;
+    }
+
+    /**
+     * Append an instruction with two operands.
+     * @param opcode the opcode.
+     * @param operand1 the first operand.
+     * @param operand2 the second operand.
+     * @return the address of the instruction.
+     */
+    public int emit(int opcode, int operand1, int operand2)
+    {
+        int address = emit(opcode);
+        append(operand1);
+        append(operand2);
+        return address;
+    }
+
+    /**
+     * Append an int to the code.
+     * @param value the int.
+     * @return the address of the int.
+     */
+    private int append(int value)
+    {
+        if (size == code.length) {
+            code = Arrays.copyOf(code, 2*code.length);
+        }
+
+        code[size] = value;
+        return size++;
+    }
+
+    /**
+     * Set an operand of an instruction that has already been appended,
+     * such as the target of a forward jump.
+     * @param address the address of the operand.
+     * @param value the operand value.
+     */
+    public void patch(int address, int value)
+    {
+        code[address] = value;
+    }
+
+    /**
+     * Return the address of the next instruction to be appended.
+     * @return the address.
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Getter.
+     * @return the number of instructions.
+     */
+    public int getInstructionCount()
+    {
+        return instructionCount;
+    }
+
+    /**
+     * Return the code trimmed to its size.
+     * @return the array of instructions and operands.
+     */
+    public int[] getCode()
+    {
+        return Arrays.copyOf(code, size);
+    }
+
+    /**
+     * Enter an object into the constant pool.
+     * @param value the object.
+     * @return the index of the object in the constant pool.
+     */
+    public int addConstant(Object value)
+    {
+        constants.add(value);
+        return constants.size() - 1;
+    }
+
+    /**
+     * Return the constant pool.
+     * @return the array of constants.
+     */
+    public Object[] getConstants()
+    {
+        return constants.toArray();
+    }
+
+    /**
+     * Enter a SWITCH instruction's jump table.
+     * @param jumpTable the map from selection values to branch addresses.
+     * @return the index of the jump table.
+     */
+    public int addJumpTable(HashMap<Object, Integer> jumpTable)
+    {
+        jumpTables.add(jumpTable);
+        return jumpTables.size() - 1;
+    }
+
+    /**
+     * Getter.
+     * @return the jump tables, indexed by the SWITCH operand.
+     */
+    public ArrayList<HashMap<Object, Integer>> getJumpTables()
+    {
+        return jumpTables;
+    }
+
+    /**
+     * Set the storage kind of a variable slot.
+     * @param slot the slot.
+     * @param kind INTEGER, REAL, or BOOLEAN for a typed slot, or any other
+     *             kind for a slot that holds an object.
+     */
+    public void setSlotKind(int slot, ValueKind kind)
+    {
+        slotKinds[slot] = kind;
+    }
+
+    /**
+     * Allocate a slot after the variables' slots, such as for a value
+     * that the generated code computes once and uses repeatedly.
+     * @param kind the storage kind of the slot.
+     * @return the slot.
+     */
+    public int allocateSlot(ValueKind kind)
+    {
+        int slot = slotKinds.length;
+
+        slotKinds = Arrays.copyOf(slotKinds, slot + 1);
+        slotKinds[slot] = kind;
+        return slot;
+    }
+
+    /**
+     * Getter.
+     * @return the storage kinds of the variable slots.
+     */
+    public ValueKind[] getSlotKinds()
+    {
+        return slotKinds;
+    }
+}
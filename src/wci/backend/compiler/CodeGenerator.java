@@ -1,8 +1,11 @@
 package wci.backend.compiler;
 
 import wci.backend.*;
+import wci.backend.compiler.generators.*;
+import wci.intermediate.CompilationContext;
 import wci.intermediate.ICode;
 import wci.intermediate.SymTabStack;
+import wci.intermediate.TypeInferencer;
 import wci.message.*;
 
 import static wci.message.MessageType.COMPILER_SUMMARY;
@@ -17,6 +20,30 @@ import static wci.message.MessageType.COMPILER_SUMMARY;
  */
 public class CodeGenerator extends Backend
 {
+    protected Bytecode bytecode;          // the bytecode being generated
+    protected TypeInferencer inferencer;  // inferred kinds of values
+
+    /**
+     * Constructor.
+     * @param context the context of the compilation.
+     */
+    public CodeGenerator(CompilationContext context)
+    {
+        super(context);
+    }
+
+    /**
+     * Constructor for subclasses.
+     * @param parent the parent code generator.
+     */
+    public CodeGenerator(CodeGenerator parent)
+    {
+        super(parent);
+
+        this.bytecode = parent.bytecode;
+        this.inferencer = parent.inferencer;
+    }
+
     /**
      * Process the intermediate code and the symbol table generated by the
      * parser to generate machine-language instructions.
@@ -28,12 +55,39 @@ public class CodeGenerator extends Backend
         throws Exception
     {
         long startTime = System.currentTimeMillis();
+        generate(iCode, symTabStack);
         float elapsedTime = (System.currentTimeMillis() - startTime)/1000f;
-        int instructionCount = 0;
+        int instructionCount = bytecode.getInstructionCount();
 
         // Send the compiler summary message.
         sendMessage(new Message(COMPILER_SUMMARY,
                                 new Number[] {instructionCount,
                                               elapsedTime}));
     }
+
+    /**
+     * Generate the stack bytecode for the intermediate code.
+     * @param iCode the intermediate code.
+     * @param symTabStack the symbol table stack.
+     * @return the bytecode.
+     */
+    public Bytecode generate(ICode iCode, SymTabStack symTabStack)
+    {
+        this.symTabStack = symTabStack;
+        this.iCode = iCode;
+
+        int slotCount = symTabStack.getLocalSymTab().getSlotCount();
+        bytecode = new Bytecode(slotCount);
+        inferencer = new TypeInferencer(iCode);
+
+        // Generate the code for the root statement, then stop.
+        if (iCode.getRoot() != null) {
+            StatementGenerator statementGenerator =
+                new StatementGenerator(this);
+            statementGenerator.generate(iCode.getRoot());
+        }
+        bytecode.emit(Opcode.HALT);
+
+        return bytecode;
+    }
 }
@@ -0,0 +1,95 @@
+package wci.backend.compiler;
+
+/**
+ * <h1>Opcode</h1>
+ *
+ * <p>The opcodes of the stack bytecode.  An instruction is an opcode
+ * followed by its operands, all stored in one int array.  The virtual
+ * machine has three operand stacks: an int stack for integer and boolean
+ * values (false is 0, true is 1), a float stack, and an object stack for
+ * values whose kind is not known until run time.</p>
+ */
+public class Opcode
+{
+    // Constants and variables
+    public static final int ICONST  =  0;  // value: push an int
+    public static final int FCONST  =  1;  // float bits: push a float
+    public static final int OCONST  =  2;  // constant: push an object
+    public static final int ILOAD   =  3;  // slot: push an int variable
+    public static final int FLOAD   =  4;  // slot: push a float variable
+    public static final int OLOAD   =  5;  // slot: push a variable boxed
+    public static final int ISTORE  =  6;  // slot: pop an int variable
+    public static final int FSTORE  =  7;  // slot: pop a float variable
+    public static final int OSTORE  =  8;  // slot: pop an object variable
+
+    // Integer arithmetic
+    public static final int IADD    =  9;
+    public static final int ISUB    = 10;
+    public static final int IMUL    = 11;
+    public static final int IDIV    = 12;  // node constant
+    public static final int IMOD    = 13;  // node constant
+    public static final int INEG    = 14;
+
+    // Float arithmetic
+    public static final int FADD    = 15;
+    public static final int FSUB    = 16;
+    public static final int FMUL    = 17;
+    public static final int FDIV    = 18;  // node constant
+    public static final int FNEG    = 19;
+
+    // Integer and float comparisons, which push a boolean
+    public static final int IEQ     = 20;
+    public static final int INE     = 21;
+    public static final int ILT     = 22;
+    public static final int ILE     = 23;
+    public static final int IGT     = 24;
+    public static final int IGE     = 25;
+    public static final int FEQ     = 26;
+    public static final int FNE     = 27;
+    public static final int FLT     = 28;
+    public static final int FLE     = 29;
+    public static final int FGT     = 30;
+    public static final int FGE     = 31;
+
+    // Boolean operators
+    public static final int NOT     = 32;
+    public static final int AND     = 33;
+    public static final int OR      = 34;
+
+    // Object arithmetic and comparisons, decided by the operand values
+    public static final int OADD    = 35;
+    public static final int OSUB    = 36;
+    public static final int OMUL    = 37;
+    public static final int OFDIV   = 38;  // node constant
+    public static final int OIDIV   = 39;  // node constant
+    public static final int OMOD    = 40;  // node constant
+    public static final int ONEG    = 41;
+    public static final int OEQ     = 42;
+    public static final int ONE     = 43;
+    public static final int OLT     = 44;
+    public static final int OLE     = 45;
+    public static final int OGT     = 46;
+    public static final int OGE     = 47;
+
+    // Conversions between the stacks
+    public static final int I2F     = 48;
+    public static final int BOX_I   = 49;
+    public static final int BOX_F   = 50;
+    public static final int BOX_B   = 51;
+    public static final int UNBOX_I = 52;
+    public static final int UNBOX_F = 53;
+    public static final int UNBOX_B = 54;
+
+    // Control
+    public static final int GOTO     = 55;  // target
+    public static final int IF_TRUE  = 56;  // target: pop a boolean
+    public static final int IF_FALSE = 57;  // target: pop a boolean
+    public static final int SWITCH   = 58;  // jump table, target
+    public static final int HALT     = 59;
+
+    // Statement bookkeeping
+    public static final int LINE     = 60;  // line number constant
+    public static final int ASSIGNED = 61;  // line constant, ID constant
+    public static final int COUNT    = 62;  // count a statement
+    public static final int UNIMPLEMENTED = 63;  // node constant
+}
@@ -0,0 +1,269 @@
+package wci.backend.compiler.generators;
+
+import java.util.ArrayList;
+
+import wci.intermediate.*;
+import wci.intermediate.icodeimpl.*;
+import wci.backend.compiler.*;
+
+import static wci.intermediate.ValueKind.*;
+import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+
+/**
+ * <h1>ExpressionGenerator</h1>
+ *
+ * <p>Generate the stack bytecode of an expression.  An expression whose
+ * inferred kind is INTEGER, REAL, or BOOLEAN is computed with typed
+ * instructions on the int or float stack.  Any other expression is
+ * computed on the object stack with instructions that decide what to do
+ * from the operand values at run time, as the tree walker does.</p>
+ */
+public class ExpressionGenerator extends CodeGenerator
+{
+    /**
+     * Constructor.
+     * @param parent the parent code generator.
+     */
+    public ExpressionGenerator(CodeGenerator parent)
+    {
+        super(parent);
+    }
+
+    /**
+     * Generate the code of an expression.
+     * @param node the root node of the expression.
+     * @param want the kind of value to leave on the stack: INTEGER or
+     *             BOOLEAN on the int stack, REAL on the float stack,
+     *             or any other kind on the object stack.
+     */
+    public void generate(ICodeNode node, ValueKind want)
+    {
+        ValueKind kind = stackKind(inferencer.expressionKind(node));
+
+        // Load a variable wanted as an object with OLOAD, which pushes
+        // null for a typed variable that was never assigned.
+        if (   (node.getType() == ICodeNodeTypeImpl.VARIABLE)
+            && (stackKind(want) == UNKNOWN)) {
+            kind = UNKNOWN;
+        }
+
+        generateValue(node, kind);
+        convert(kind, stackKind(want));
+    }
+
+    /**
+     * Map a kind of value to the kind that selects its stack.
+     * @param kind the kind of value.
+     * @return INTEGER, REAL, BOOLEAN, or UNKNOWN for the object stack.
+     */
+    private ValueKind stackKind(ValueKind kind)
+    {
+        switch (kind) {
+            case INTEGER: case REAL: case BOOLEAN: return kind;
+            default:                               return UNKNOWN;
+        }
+    }
+
+    /**
+     * Generate the instruction that converts a value on the stack.
+     * @param from the kind of the value.
+     * @param to the kind to convert to.
+     */
+    private void convert(ValueKind from, ValueKind to)
+    {
+        if (from == to) {
+            return;
+        }
+
+        if (from == UNKNOWN) {
+            switch (to) {
+                case INTEGER: bytecode.emit(Opcode.UNBOX_I); break;
+                case REAL:    bytecode.emit(Opcode.UNBOX_F); break;
+                case BOOLEAN: bytecode.emit(Opcode.UNBOX_B); break;
+            }
+        }
+        else if (to == UNKNOWN) {
+            switch (from) {
+                case INTEGER: bytecode.emit(Opcode.BOX_I); break;
+                case REAL:    bytecode.emit(Opcode.BOX_F); break;
+                case BOOLEAN: bytecode.emit(Opcode.BOX_B); break;
+            }
+        }
+        else if ((from == INTEGER) && (to == REAL)) {
+            bytecode.emit(Opcode.I2F);
+        }
+    }
+
+    /**
+     * Generate the code that computes an expression's value on the stack
+     * of the expression's kind.
+     * @param node the root node of the expression.
+     * @param kind the stack kind of the expression.
+     */
+    private void generateValue(ICodeNode node, ValueKind kind)
+    {
+        ICodeNodeTypeImpl nodeType = (ICodeNodeTypeImpl) node.getType();
+        ArrayList<ICodeNode> children = node.getChildren();
+
+        switch (nodeType) {
+
+            case VARIABLE: {
+                SymTabEntry variableId = (SymTabEntry) node.getAttribute(ID);
+                int slot = variableId.getSlot();
+
+                bytecode.setSlotKind(slot, inferencer.variableKind(variableId));
+                switch (kind) {
+                    case INTEGER:
+                    case BOOLEAN: bytecode.emit(Opcode.ILOAD, slot); break;
+                    case REAL:    bytecode.emit(Opcode.FLOAD, slot); break;
+                    default:      bytecode.emit(Opcode.OLOAD, slot); break;
+                }
+
+                return;
+            }
+
+            case INTEGER_CONSTANT: {
+                bytecode.emit(Opcode.ICONST,
+                              (Integer) node.getAttribute(VALUE));
+                return;
+            }
+
+            case REAL_CONSTANT: {
+                float value = (Float) node.getAttribute(VALUE);
+                bytecode.emit(Opcode.FCONST, Float.floatToRawIntBits(value));
+                return;
+            }
+
+            case NEGATE: {
+                generate(children.get(0), kind);
+                bytecode.emit(kind == INTEGER ? Opcode.INEG
+                            : kind == REAL    ? Opcode.FNEG
+                            :                   Opcode.ONEG);
+                return;
+            }
+
+            case NOT: {
+                generate(children.get(0), BOOLEAN);
+                bytecode.emit(Opcode.NOT);
+                return;
+            }
+
+            case AND:
+            case OR: {
+                generate(children.get(0), BOOLEAN);
+                generate(children.get(1), BOOLEAN);
+                bytecode.emit(nodeType == ICodeNodeTypeImpl.AND ? Opcode.AND
+                                                                : Opcode.OR);
+                return;
+            }
+
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case FLOAT_DIVIDE:
+            case INTEGER_DIVIDE:
+            case MOD: {
+                generate(children.get(0), kind);
+                generate(children.get(1), kind);
+                generateArithmetic(node, nodeType, kind);
+                return;
+            }
+
+            case EQ: case NE: case LT: case LE: case GT: case GE: {
+                generateRelational(node, nodeType);
+                return;
+            }
+
+            // Strings and anything else go into the constant pool.
+            default: {
+                Object value = node.getAttribute(VALUE);
+                bytecode.emit(Opcode.OCONST,
+                              bytecode.addConstant(value != null ? value
+                                                                 : 0));
+            }
+        }
+    }
+
+    /**
+     * Generate an arithmetic instruction whose operands are on the stack.
+     * @param node the operator node.
+     * @param nodeType the operator node type.
+     * @param kind the stack kind of the expression.
+     */
+    private void generateArithmetic(ICodeNode node,
+                                    ICodeNodeTypeImpl nodeType,
+                                    ValueKind kind)
+    {
+        switch (nodeType) {
+            case ADD:
+                bytecode.emit(kind == INTEGER ? Opcode.IADD
+                            : kind == REAL    ? Opcode.FADD
+                            :                   Opcode.OADD);
+                break;
+            case SUBTRACT:
+                bytecode.emit(kind == INTEGER ? Opcode.ISUB
+                            : kind == REAL    ? Opcode.FSUB
+                            :                   Opcode.OSUB);
+                break;
+            case MULTIPLY:
+                bytecode.emit(kind == INTEGER ? Opcode.IMUL
+                            : kind == REAL    ? Opcode.FMUL
+                            :                   Opcode.OMUL);
+                break;
+
+            // The division instructions refer to their node
+            // for runtime error messages.  A float division of two
+            // integers is never REAL, since a division by zero yields
+            // the integer 0, so OFDIV computes it.
+            case FLOAT_DIVIDE:
+                bytecode.emit(kind == REAL ? Opcode.FDIV : Opcode.OFDIV,
+                              bytecode.addConstant(node));
+                break;
+            case INTEGER_DIVIDE:
+                bytecode.emit(kind == INTEGER ? Opcode.IDIV : Opcode.OIDIV,
+                              bytecode.addConstant(node));
+                break;
+            default:
+                bytecode.emit(kind == INTEGER ? Opcode.IMOD : Opcode.OMOD,
+                              bytecode.addConstant(node));
+                break;
+        }
+    }
+
+    /**
+     * Generate the code of a relational operator.  Two INTEGER operands
+     * are compared on the int stack, two numeric operands on the float
+     * stack, and any others on the object stack.
+     * @param node the operator node.
+     * @param nodeType the operator node type.
+     */
+    private void generateRelational(ICodeNode node,
+                                    ICodeNodeTypeImpl nodeType)
+    {
+        ArrayList<ICodeNode> children = node.getChildren();
+        ValueKind kind1 = inferencer.expressionKind(children.get(0));
+        ValueKind kind2 = inferencer.expressionKind(children.get(1));
+
+        ValueKind operandKind =
+              (kind1 == INTEGER) && (kind2 == INTEGER)   ? INTEGER
+            : kind1.isNumeric() && kind2.isNumeric()     ? REAL
+            :                                              UNKNOWN;
+
+        generate(children.get(0), operandKind);
+        generate(children.get(1), operandKind);
+
+        int base = operandKind == INTEGER ? Opcode.IEQ
+                 : operandKind == REAL    ? Opcode.FEQ
+                 :                          Opcode.OEQ;
+
+        // The six comparisons of each kind have consecutive opcodes.
+        switch (nodeType) {
+            case EQ: bytecode.emit(base);     break;
+            case NE: bytecode.emit(base + 1); break;
+            case LT: bytecode.emit(base + 2); break;
+            case LE: bytecode.emit(base + 3); break;
+            case GT: bytecode.emit(base + 4); break;
+            default: bytecode.emit(base + 5); break;
+        }
+    }
+}
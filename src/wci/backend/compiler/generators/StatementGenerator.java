@@ -0,0 +1,280 @@
+package wci.backend.compiler.generators;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import wci.intermediate.*;
+import wci.intermediate.icodeimpl.*;
+import wci.backend.compiler.*;
+
+import static wci.intermediate.symtabimpl.SymTabKeyImpl.TEMPORARY;
+import static wci.intermediate.icodeimpl.ICodeNodeTypeImpl.*;
+import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+
+/**
+ * <h1>StatementGenerator</h1>
+ *
+ * <p>Generate the stack bytecode of a statement.  Every statement with a
+ * line number starts with a LINE instruction, and the statements that
+ * the interpreter counts end with an instruction that counts them.</p>
+ */
+public class StatementGenerator extends CodeGenerator
+{
+    /**
+     * Constructor.
+     * @param parent the parent code generator.
+     */
+    public StatementGenerator(CodeGenerator parent)
+    {
+        super(parent);
+    }
+
+    /**
+     * Generate the code of a statement.
+     * @param node the root node of the statement.
+     */
+    public void generate(ICodeNode node)
+    {
+        ICodeNodeTypeImpl nodeType = (ICodeNodeTypeImpl) node.getType();
+        Object lineNumber = node.getAttribute(LINE);
+
+        if (lineNumber != null) {
+            bytecode.emit(Opcode.LINE, bytecode.addConstant(lineNumber));
+        }
+
+        switch (nodeType) {
+
+            case COMPOUND: {
+                for (ICodeNode child : node.getChildren()) {
+                    generate(child);
+                }
+
+                break;
+            }
+
+            case ASSIGN: generateAssignment(node, lineNumber); break;
+            case LOOP:   generateLoop(node);                   break;
+            case FOR:    generateFor(node);                    break;
+            case IF:     generateIf(node);                     break;
+            case SELECT: generateSelect(node);                 break;
+            case NO_OP:                                        break;
+
+            default: {
+                bytecode.emit(Opcode.UNIMPLEMENTED,
+                              bytecode.addConstant(node));
+            }
+        }
+    }
+
+    /**
+     * Generate the code of an assignment statement.
+     * @param node the ASSIGN node.
+     * @param lineNumber the statement's line number, or null.
+     */
+    private void generateAssignment(ICodeNode node, Object lineNumber)
+    {
+        ArrayList<ICodeNode> children = node.getChildren();
+        SymTabEntry variableId =
+            (SymTabEntry) children.get(0).getAttribute(ID);
+        ValueKind kind = inferencer.variableKind(variableId);
+        int slot = variableId.getSlot();
+
+        // Evaluate the expression onto the stack of the variable's kind
+        // and store it.
+        ExpressionGenerator expressionGenerator =
+            new ExpressionGenerator(this);
+        expressionGenerator.generate(children.get(1), kind);
+
+        bytecode.setSlotKind(slot, kind);
+        switch (kind) {
+            case INTEGER:
+            case BOOLEAN: bytecode.emit(Opcode.ISTORE, slot); break;
+            case REAL:    bytecode.emit(Opcode.FSTORE, slot); break;
+            default:      bytecode.emit(Opcode.OSTORE, slot); break;
+        }
+
+        // The optimizer's assignments to temporaries have no line number
+        // to report and are not counted.
+        if (variableId.getAttribute(TEMPORARY) == null) {
+            int lineIndex = lineNumber != null
+                                ? bytecode.addConstant(lineNumber) : -1;
+            bytecode.emit(Opcode.ASSIGNED, lineIndex,
+                          bytecode.addConstant(variableId));
+        }
+    }
+
+    /**
+     * Generate the code of a loop statement.  Each iteration is counted,
+     * and each TEST exits the loop if its expression is true.
+     * @param node the LOOP node.
+     */
+    private void generateLoop(ICodeNode node)
+    {
+        ArrayList<Integer> exitJumps = new ArrayList<Integer>();
+        int top = bytecode.emit(Opcode.COUNT);
+
+        for (ICodeNode child : node.getChildren()) {
+            if (child.getType() == TEST) {
+                ExpressionGenerator expressionGenerator =
+                    new ExpressionGenerator(this);
+                expressionGenerator.generate(child.getChildren().get(0),
+                                             ValueKind.BOOLEAN);
+                exitJumps.add(bytecode.emit(Opcode.IF_TRUE, -1));
+            }
+            else {
+                generate(child);
+            }
+        }
+
+        bytecode.emit(Opcode.GOTO, top);
+
+        // Patch the exit jumps to the end of the loop.
+        int exit = bytecode.getSize();
+        for (int address : exitJumps) {
+            bytecode.patch(address + 1, exit);
+        }
+    }
+
+    /**
+     * Generate the code of a FOR statement.  The termination expression is
+     * evaluated once into a slot of its own, and each iteration is counted
+     * and compares the control variable with the slot's value: on the int
+     * stack if both are INTEGER, on the float stack if both are numeric,
+     * and on the object stack otherwise.
+     * @param node the FOR node.
+     */
+    private void generateFor(ICodeNode node)
+    {
+        ArrayList<ICodeNode> children = node.getChildren();
+        ICodeNode initNode = children.get(0);
+        ICodeNode variableNode = initNode.getChildren().get(0);
+        ICodeNode limitNode = children.get(1);
+        ICodeNode nextNode = children.get(3);
+        boolean down = nextNode.getChildren().get(1).getType() == SUBTRACT;
+
+        ValueKind kind1 = inferencer.expressionKind(variableNode);
+        ValueKind kind2 = inferencer.expressionKind(limitNode);
+        ValueKind operandKind =
+              (kind1 == ValueKind.INTEGER) && (kind2 == ValueKind.INTEGER)
+                  ? ValueKind.INTEGER
+            : kind1.isNumeric() && kind2.isNumeric()
+                  ? ValueKind.REAL
+                  : ValueKind.UNKNOWN;
+
+        generate(initNode);
+
+        // Evaluate the limit into its slot.
+        int limitSlot = bytecode.allocateSlot(operandKind);
+        ExpressionGenerator expressionGenerator =
+            new ExpressionGenerator(this);
+        expressionGenerator.generate(limitNode, operandKind);
+
+        int load, compare;
+        switch (operandKind) {
+            case INTEGER: {
+                bytecode.emit(Opcode.ISTORE, limitSlot);
+                load = Opcode.ILOAD;
+                compare = down ? Opcode.ILT : Opcode.IGT;
+                break;
+            }
+            case REAL: {
+                bytecode.emit(Opcode.FSTORE, limitSlot);
+                load = Opcode.FLOAD;
+                compare = down ? Opcode.FLT : Opcode.FGT;
+                break;
+            }
+            default: {
+                bytecode.emit(Opcode.OSTORE, limitSlot);
+                load = Opcode.OLOAD;
+                compare = down ? Opcode.OLT : Opcode.OGT;
+                break;
+            }
+        }
+
+        // Exit if the control variable is past the limit.
+        int top = bytecode.emit(Opcode.COUNT);
+        expressionGenerator.generate(variableNode, operandKind);
+        bytecode.emit(load, limitSlot);
+        bytecode.emit(compare);
+        int exitJump = bytecode.emit(Opcode.IF_TRUE, -1);
+
+        generate(children.get(2));
+        generate(nextNode);
+        bytecode.emit(Opcode.GOTO, top);
+
+        bytecode.patch(exitJump + 1, bytecode.getSize());
+    }
+
+    /**
+     * Generate the code of an IF statement.
+     * @param node the IF node.
+     */
+    private void generateIf(ICodeNode node)
+    {
+        ArrayList<ICodeNode> children = node.getChildren();
+
+        ExpressionGenerator expressionGenerator =
+            new ExpressionGenerator(this);
+        expressionGenerator.generate(children.get(0), ValueKind.BOOLEAN);
+        int elseJump = bytecode.emit(Opcode.IF_FALSE, -1);
+
+        generate(children.get(1));
+
+        if (children.size() > 2) {
+            int endJump = bytecode.emit(Opcode.GOTO, -1);
+            bytecode.patch(elseJump + 1, bytecode.getSize());
+            generate(children.get(2));
+            bytecode.patch(endJump + 1, bytecode.getSize());
+        }
+        else {
+            bytecode.patch(elseJump + 1, bytecode.getSize());
+        }
+
+        bytecode.emit(Opcode.COUNT);  // count the IF statement itself
+    }
+
+    /**
+     * Generate the code of a SELECT statement.  The SWITCH instruction looks
+     * the selection value up in a jump table of branch addresses.
+     * @param node the SELECT node.
+     */
+    private void generateSelect(ICodeNode node)
+    {
+        ArrayList<ICodeNode> selectChildren = node.getChildren();
+        HashMap<Object, Integer> jumpTable = new HashMap<Object, Integer>();
+        ArrayList<Integer> endJumps = new ArrayList<Integer>();
+
+        ExpressionGenerator expressionGenerator =
+            new ExpressionGenerator(this);
+        expressionGenerator.generate(selectChildren.get(0),
+                                     ValueKind.UNKNOWN);
+        int switchAddress =
+            bytecode.emit(Opcode.SWITCH, bytecode.addJumpTable(jumpTable), -1);
+
+        // Loop over children that are SELECT_BRANCH nodes.
+        for (int i = 1; i < selectChildren.size(); ++i) {
+            ICodeNode branchNode = selectChildren.get(i);
+            ICodeNode constantsNode = branchNode.getChildren().get(0);
+            ICodeNode statementNode = branchNode.getChildren().get(1);
+
+            // Enter each branch constant into the jump table.
+            int branchAddress = bytecode.getSize();
+            for (ICodeNode constantNode : constantsNode.getChildren()) {
+                jumpTable.put(constantNode.getAttribute(VALUE),
+                              branchAddress);
+            }
+
+            generate(statementNode);
+            endJumps.add(bytecode.emit(Opcode.GOTO, -1));
+        }
+
+        // Patch the default and the branch exits to the end.
+        int end = bytecode.getSize();
+        bytecode.patch(switchAddress + 2, end);
+        for (int address : endJumps) {
+            bytecode.patch(address + 1, end);
+        }
+
+        bytecode.emit(Opcode.COUNT);  // count the SELECT statement itself
+    }
+}
@@ -0,0 +1,289 @@
+package wci.backend.compiler.jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * <h1>ClassFileBuilder</h1>
+ *
+ * <p>Build the bytes of a JVM class file: the constant pool and the
+ * methods of a class that has no fields.  The class file version is 49,
+ * whose methods the JVM verifies without stack map frames.</p>
+ */
+public class ClassFileBuilder
+{
+    private static final int MAJOR_VERSION = 49;
+    private static final int MAX_POOL_COUNT = 65535;
+
+    // Constant pool tags.
+    private static final int CONSTANT_UTF8         = 1;
+    private static final int CONSTANT_INTEGER      = 3;
+    private static final int CONSTANT_FLOAT        = 4;
+    private static final int CONSTANT_CLASS        = 7;
+    private static final int CONSTANT_STRING       = 8;
+    private static final int CONSTANT_METHODREF    = 10;
+    private static final int CONSTANT_NAMEANDTYPE  = 12;
+
+    private ByteArrayOutputStream poolBytes;   // constant pool entries
+    private DataOutputStream pool;             // writer of the entries
+    private HashMap<String, Integer> entries;  // entry key to pool index
+    private int poolCount;                     // next pool index
+
+    private ByteArrayOutputStream methodBytes; // method entries
+    private DataOutputStream methods;          // writer of the methods
+    private int methodCount;                   // number of methods
+
+    /**
+     * Constructor.
+     */
+    public ClassFileBuilder()
+    {
+        this.poolBytes = new ByteArrayOutputStream();
+        this.pool = new DataOutputStream(poolBytes);
+        this.entries = new HashMap<String, Integer>();
+        this.poolCount = 1;
+
+        this.methodBytes = new ByteArrayOutputStream();
+        this.methods = new DataOutputStream(methodBytes);
+        this.methodCount = 0;
+    }
+
+    /**
+     * Return the pool index of a UTF8 entry, adding it if necessary.
+     * @param value the string value.
+     * @return the pool index.
+     */
+    public int utf8(String value)
+    {
+        String key = "U" + value;
+        Integer index = entries.get(key);
+
+        if (index == null) {
+            index = addEntry(key);
+            write(CONSTANT_UTF8);
+            try {
+                pool.writeUTF(value);
+            }
+            catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Return the pool index of a class entry, adding it if necessary.
+     * @param internalName the class name with slashes, such as
+     *                     "java/lang/Integer".
+     * @return the pool index.
+     */
+    public int classRef(String internalName)
+    {
+        return reference("C" + internalName, CONSTANT_CLASS,
+                         utf8(internalName), -1);
+    }
+
+    /**
+     * Return the pool index of a string entry, adding it if necessary.
+     * @param value the string value.
+     * @return the pool index.
+     */
+    public int string(String value)
+    {
+        return reference("S" + value, CONSTANT_STRING, utf8(value), -1);
+    }
+
+    /**
+     * Return the pool index of an integer entry, adding it if necessary.
+     * @param value the integer value.
+     * @return the pool index.
+     */
+    public int integer(int value)
+    {
+        return number("I" + value, CONSTANT_INTEGER, value);
+    }
+
+    /**
+     * Return the pool index of a float entry, adding it if necessary.
+     * @param value the float value.
+     * @return the pool index.
+     */
+    public int floatValue(float value)
+    {
+        int bits = Float.floatToRawIntBits(value);
+        return number("F" + bits, CONSTANT_FLOAT, bits);
+    }
+
+    /**
+     * Return the pool index of a method reference, adding it if necessary.
+     * @param owner the internal name of the class that has the method.
+     * @param name the method name.
+     * @param descriptor the method descriptor.
+     * @return the pool index.
+     */
+    public int methodRef(String owner, String name, String descriptor)
+    {
+        int nameAndType = reference("N" + name + ":" + descriptor,
+                                    CONSTANT_NAMEANDTYPE,
+                                    utf8(name), utf8(descriptor));
+
+        return reference("M" + owner + "." + name + ":" + descriptor,
+                         CONSTANT_METHODREF, classRef(owner), nameAndType);
+    }
+
+    /**
+     * Add a method.
+     * @param access the access flags.
+     * @param name the method name.
+     * @param descriptor the method descriptor.
+     * @param code the method's code.
+     */
+    public void addMethod(int access, String name, String descriptor,
+                          CodeBuilder code)
+    {
+        byte bytes[] = code.getCode();
+
+        try {
+            methods.writeShort(access);
+            methods.writeShort(utf8(name));
+            methods.writeShort(utf8(descriptor));
+            methods.writeShort(1);  // one attribute: Code
+
+            methods.writeShort(utf8("Code"));
+            methods.writeInt(12 + bytes.length);
+            methods.writeShort(code.getMaxStack());
+            methods.writeShort(code.getMaxLocals());
+            methods.writeInt(bytes.length);
+            methods.write(bytes);
+            methods.writeShort(0);  // no exception table
+            methods.writeShort(0);  // no attributes
+        }
+        catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        ++methodCount;
+    }
+
+    /**
+     * Return the bytes of the class file.
+     * @param className the internal name of the class.
+     * @param superName the internal name of the superclass.
+     * @param access the class access flags.
+     * @return the bytes.
+     */
+    public byte[] toByteArray(String className, String superName, int access)
+    {
+        int thisIndex = classRef(className);
+        int superIndex = classRef(superName);
+
+        if (poolCount > MAX_POOL_COUNT) {
+            throw new ClassFileLimitException("Constant pool too large");
+        }
+
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(classBytes);
+
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(poolCount);
+            out.write(poolBytes.toByteArray());
+            out.writeShort(access);
+            out.writeShort(thisIndex);
+            out.writeShort(superIndex);
+            out.writeShort(0);  // no interfaces
+            out.writeShort(0);  // no fields
+            out.writeShort(methodCount);
+            out.write(methodBytes.toByteArray());
+            out.writeShort(0);  // no attributes
+        }
+        catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        return classBytes.toByteArray();
+    }
+
+    /**
+     * Return the pool index of an entry that refers to one or two other
+     * entries, adding it if necessary.
+     * @param key the entry key.
+     * @param tag the constant pool tag.
+     * @param index1 the first referenced index.
+     * @param index2 the second referenced index, or -1 if none.
+     * @return the pool index.
+     */
+    private int reference(String key, int tag, int index1, int index2)
+    {
+        Integer index = entries.get(key);
+
+        if (index == null) {
+            index = addEntry(key);
+            write(tag);
+            writeShort(index1);
+            if (index2 >= 0) {
+                writeShort(index2);
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Return the pool index of a four-byte numeric entry, adding it if
+     * necessary.
+     * @param key the entry key.
+     * @param tag the constant pool tag.
+     * @param bits the four bytes of the value.
+     * @return the pool index.
+     */
+    private int number(String key, int tag, int bits)
+    {
+        Integer index = entries.get(key);
+
+        if (index == null) {
+            index = addEntry(key);
+            write(tag);
+            writeShort(bits >>> 16);
+            writeShort(bits & 0xFFFF);
+        }
+
+        return index;
+    }
+
+    /**
+     * Reserve the next pool index for an entry.
+     * @param key the entry key.
+     * @return the pool index.
+     */
+    private int addEntry(String key)
+    {
+        int index = poolCount++;
+        entries.put(key, index);
+        return index;
+    }
+
+    /**
+     * Write a byte to the constant pool.
+     * @param value the byte.
+     */
+    private void write(int value)
+    {
+        poolBytes.write(value);
+    }
+
+    /**
+     * Write two bytes to the constant pool.
+     * @param value the value of the two bytes.
+     */
+    private void writeShort(int value)
+    {
+        poolBytes.write((value >> 8) & 0xFF);
+        poolBytes.write(value & 0xFF);
+    }
+}
@@ -0,0 +1,22 @@
+package wci.backend.compiler.jvm;
+
+/**
+ * <h1>ClassFileLimitException</h1>
+ *
+ * <p>Thrown when a program does not fit within a limit of the class file
+ * format, such as the size of a method's code or of the constant pool.
+ * The program can still be executed another way.</p>
+ */
+public class ClassFileLimitException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     * @param message the limit that was exceeded.
+     */
+    public ClassFileLimitException(String message)
+    {
+        super(message);
+    }
+}
@@ -0,0 +1,467 @@
+package wci.backend.compiler.jvm;
+
+import java.util.Arrays;
+
+/**
+ * <h1>CodeBuilder</h1>
+ *
+ * <p>Build the code of a JVM method.  The builder keeps track of the
+ * operand stack depth to compute the maximum stack size, allocates local
+ * variables, and resolves the offsets of jumps to labels.</p>
+ */
+public class CodeBuilder
+{
+    // JVM opcodes.
+    public static final int ACONST_NULL = 0x01;
+    public static final int ICONST_0    = 0x03;
+    public static final int FCONST_0    = 0x0b;
+    public static final int BIPUSH      = 0x10;
+    public static final int SIPUSH      = 0x11;
+    public static final int LDC         = 0x12;
+    public static final int LDC_W       = 0x13;
+    public static final int ILOAD       = 0x15;
+    public static final int FLOAD       = 0x17;
+    public static final int ALOAD       = 0x19;
+    public static final int ISTORE      = 0x36;
+    public static final int FSTORE      = 0x38;
+    public static final int ASTORE      = 0x3a;
+    public static final int POP         = 0x57;
+    public static final int POP2        = 0x58;
+    public static final int DUP         = 0x59;
+    public static final int IADD        = 0x60;
+    public static final int FADD        = 0x62;
+    public static final int ISUB        = 0x64;
+    public static final int FSUB        = 0x66;
+    public static final int IMUL        = 0x68;
+    public static final int FMUL        = 0x6a;
+    public static final int IDIV        = 0x6c;
+    public static final int FDIV        = 0x6e;
+    public static final int IREM        = 0x70;
+    public static final int INEG        = 0x74;
+    public static final int FNEG        = 0x76;
+    public static final int IAND        = 0x7e;
+    public static final int IOR         = 0x80;
+    public static final int IXOR        = 0x82;
+    public static final int IINC        = 0x84;
+    public static final int I2F         = 0x86;
+    public static final int FCMPL       = 0x95;
+    public static final int FCMPG       = 0x96;
+    public static final int IFEQ        = 0x99;
+    public static final int IFNE        = 0x9a;
+    public static final int IFLT        = 0x9b;
+    public static final int IFGE        = 0x9c;
+    public static final int IFGT        = 0x9d;
+    public static final int IFLE        = 0x9e;
+    public static final int IF_ICMPEQ   = 0x9f;
+    public static final int IF_ICMPNE   = 0xa0;
+    public static final int IF_ICMPLT   = 0xa1;
+    public static final int IF_ICMPGE   = 0xa2;
+    public static final int IF_ICMPGT   = 0xa3;
+    public static final int IF_ICMPLE   = 0xa4;
+    public static final int GOTO        = 0xa7;
+    public static final int TABLESWITCH = 0xaa;
+    public static final int RETURN      = 0xb1;
+    public static final int INVOKEVIRTUAL = 0xb6;
+    public static final int INVOKESTATIC  = 0xb8;
+    public static final int CHECKCAST   = 0xc0;
+    public static final int WIDE        = 0xc4;
+
+    private static final int MAX_CODE_SIZE = 65535;
+
+    private ClassFileBuilder classFile;  // class file with the constant pool
+    private byte code[];                 // the code bytes
+    private int size;                    // number of code bytes
+    private int instructionCount;        // number of instructions
+    private int depth;                   // current operand stack depth
+    private int maxDepth;                // maximum operand stack depth
+    private int maxLocals;               // number of local variables
+
+    /**
+     * Constructor.
+     * @param classFile the class file whose constant pool the code uses.
+     * @param parameterCount the number of one-word method parameters.
+     */
+    public CodeBuilder(ClassFileBuilder classFile, int parameterCount)
+    {
+        this.classFile = classFile;
+        this.code = new byte[1024];
+        this.size = 0;
+        this.instructionCount = 0;
+        this.depth = 0;
+        this.maxDepth = 0;
+        this.maxLocals = parameterCount;
+    }
+
+    /**
+     * Allocate a one-word local variable.
+     * @return the local variable index.
+     */
+    public int allocateLocal()
+    {
+        return maxLocals++;
+    }
+
+    /**
+     * Emit an instruction without operands.
+     * @param opcode the opcode.
+     * @param delta the change of the operand stack depth.
+     */
+    public void op(int opcode, int delta)
+    {
+        begin(delta);
+        append(opcode);
+
+        if (opcode == RETURN) {
+            depth = -1;  // unreachable until a label is placed
+        }
+    }
+
+    /**
+     * Emit the shortest instruction that pushes an int constant.
+     * @param value the constant.
+     */
+    public void pushInt(int value)
+    {
+        if ((value >= -1) && (value <= 5)) {
+            op(ICONST_0 + value, 1);
+        }
+        else if ((value >= Byte.MIN_VALUE) && (value <= Byte.MAX_VALUE)) {
+            begin(1);
+            append(BIPUSH);
+            append(value);
+        }
+        else if ((value >= Short.MIN_VALUE) && (value <= Short.MAX_VALUE)) {
+            begin(1);
+            append(SIPUSH);
+            appendShort(value);
+        }
+        else {
+            ldc(classFile.integer(value));
+        }
+    }
+
+    /**
+     * Emit an instruction that pushes a float constant.
+     * @param value the constant.
+     */
+    public void pushFloat(float value)
+    {
+        if ((value == 0.0f) || (value == 1.0f) || (value == 2.0f)) {
+            if (Float.floatToRawIntBits(value) != 0x80000000) {
+                op(FCONST_0 + (int) value, 1);
+                return;
+            }
+        }
+
+        ldc(classFile.floatValue(value));
+    }
+
+    /**
+     * Emit an instruction that pushes a string constant.
+     * @param value the constant.
+     */
+    public void pushString(String value)
+    {
+        ldc(classFile.string(value));
+    }
+
+    /**
+     * Emit an instruction that pushes a constant pool entry.
+     * @param index the pool index.
+     */
+    private void ldc(int index)
+    {
+        begin(1);
+        if (index <= 0xFF) {
+            append(LDC);
+            append(index);
+        }
+        else {
+            append(LDC_W);
+            appendShort(index);
+        }
+    }
+
+    /**
+     * Emit a load or store instruction of a local variable.
+     * @param opcode ILOAD, FLOAD, ALOAD, ISTORE, FSTORE, or ASTORE.
+     * @param local the local variable index.
+     */
+    public void local(int opcode, int local)
+    {
+        boolean load = (opcode == ILOAD) || (opcode == FLOAD)
+                                         || (opcode == ALOAD);
+        begin(load ? 1 : -1);
+
+        if (local <= 0xFF) {
+            append(opcode);
+            append(local);
+        }
+        else {
+            append(WIDE);
+            append(opcode);
+            appendShort(local);
+        }
+    }
+
+    /**
+     * Emit an instruction that increments a local int variable.
+     * @param local the local variable index.
+     * @param amount the increment, from -128 through 127.
+     */
+    public void iinc(int local, int amount)
+    {
+        begin(0);
+
+        if (local <= 0xFF) {
+            append(IINC);
+            append(local);
+            append(amount);
+        }
+        else {
+            append(WIDE);
+            append(IINC);
+            appendShort(local);
+            appendShort(amount);
+        }
+    }
+
+    /**
+     * Emit a method call.
+     * @param opcode INVOKEVIRTUAL or INVOKESTATIC.
+     * @param owner the internal name of the class that has the method.
+     * @param name the method name.
+     * @param descriptor the method descriptor.
+     * @param delta the change of the operand stack depth.
+     */
+    public void invoke(int opcode, String owner, String name,
+                       String descriptor, int delta)
+    {
+        begin(delta);
+        append(opcode);
+        appendShort(classFile.methodRef(owner, name, descriptor));
+    }
+
+    /**
+     * Emit a CHECKCAST instruction.
+     * @param internalName the internal name of the class to cast to.
+     */
+    public void checkcast(String internalName)
+    {
+        begin(0);
+        append(CHECKCAST);
+        appendShort(classFile.classRef(internalName));
+    }
+
+    /**
+     * Emit a jump instruction.
+     * @param opcode GOTO or a conditional jump opcode.
+     * @param target the target label.
+     */
+    public void jump(int opcode, Label target)
+    {
+        int delta = opcode == GOTO                                 ? 0
+                  : (opcode >= IF_ICMPEQ) && (opcode <= IF_ICMPLE) ? -2
+                  :                                                  -1;
+        begin(delta);
+
+        int instruction = size;
+        append(opcode);
+        appendShort(0);
+        reference(target, instruction, size - 2, 2);
+
+        if (opcode == GOTO) {
+            depth = -1;  // unreachable until a label is placed
+        }
+    }
+
+    /**
+     * Emit a TABLESWITCH instruction on the int on top of the stack.
+     * @param defaultTarget the target if the int is out of range.
+     * @param targets the targets for the ints 0 through n - 1.
+     */
+    public void tableSwitch(Label defaultTarget, Label targets[])
+    {
+        begin(-1);
+
+        int instruction = size;
+        append(TABLESWITCH);
+        while (size%4 != 0) {
+            append(0);
+        }
+
+        appendInt(0);
+        reference(defaultTarget, instruction, size - 4, 4);
+        appendInt(0);
+        appendInt(targets.length - 1);
+
+        for (Label target : targets) {
+            appendInt(0);
+            reference(target, instruction, size - 4, 4);
+        }
+
+        depth = -1;  // unreachable until a label is placed
+    }
+
+    /**
+     * Place a label at the current code position.
+     * @param label the label.
+     */
+    public void place(Label label)
+    {
+        label.position = size;
+
+        for (int fixup[] : label.fixups) {
+            patch(label, fixup);
+        }
+        label.fixups.clear();
+
+        if (depth < 0) {
+            depth = Math.max(label.depth, 0);
+        }
+        else {
+            label.depth = depth;
+        }
+    }
+
+    /**
+     * Getter.
+     * @return the number of instructions.
+     */
+    public int getInstructionCount()
+    {
+        return instructionCount;
+    }
+
+    /**
+     * Getter.
+     * @return the maximum operand stack depth.
+     */
+    public int getMaxStack()
+    {
+        return maxDepth;
+    }
+
+    /**
+     * Getter.
+     * @return the number of local variables.
+     */
+    public int getMaxLocals()
+    {
+        return maxLocals;
+    }
+
+    /**
+     * Return the code bytes.  Every label that a jump refers to must have
+     * been placed.
+     * @return the code bytes.
+     */
+    public byte[] getCode()
+    {
+        if (size > MAX_CODE_SIZE) {
+            throw new ClassFileLimitException("Method code too large");
+        }
+
+        return Arrays.copyOf(code, size);
+    }
+
+    /**
+     * Start an instruction.
+     * @param delta the change of the operand stack depth.
+     */
+    private void begin(int delta)
+    {
+        ++instructionCount;
+
+        if (depth < 0) {
+            depth = 0;
+        }
+
+        depth += delta;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    /**
+     * Record a jump offset to a label, and patch it now if the label has
+     * already been placed.
+     * @param label the label.
+     * @param instruction the position of the jump instruction.
+     * @param position the position of the offset.
+     * @param offsetSize the size of the offset, 2 or 4 bytes.
+     */
+    private void reference(Label label, int instruction, int position,
+                           int offsetSize)
+    {
+        if (label.depth < 0) {
+            label.depth = Math.max(depth, 0);
+        }
+
+        int fixup[] = {instruction, position, offsetSize};
+
+        if (label.position >= 0) {
+            patch(label, fixup);
+        }
+        else {
+            label.fixups.add(fixup);
+        }
+    }
+
+    /**
+     * Patch a jump offset.
+     * @param label the placed label.
+     * @param fixup {instruction, offset position, size}.
+     */
+    private void patch(Label label, int fixup[])
+    {
+        int offset = label.position - fixup[0];
+        int position = fixup[1];
+
+        if (fixup[2] == 2) {
+            if ((offset < Short.MIN_VALUE) || (offset > Short.MAX_VALUE)) {
+                throw new ClassFileLimitException("Jump offset too large");
+            }
+
+            code[position]     = (byte) (offset >> 8);
+            code[position + 1] = (byte) offset;
+        }
+        else {
+            code[position]     = (byte) (offset >> 24);
+            code[position + 1] = (byte) (offset >> 16);
+            code[position + 2] = (byte) (offset >> 8);
+            code[position + 3] = (byte) offset;
+        }
+    }
+
+    /**
+     * Append a byte.
+     * @param value the byte.
+     */
+    private void append(int value)
+    {
+        if (size == code.length) {
+            code = Arrays.copyOf(code, 2*code.length);
+        }
+
+        code[size++] = (byte) value;
+    }
+
+    /**
+     * Append two bytes.
+     * @param value the value of the two bytes.
+     */
+    private void appendShort(int value)
+    {
+        append(value >> 8);
+        append(value);
+    }
+
+    /**
+     * Append four bytes.
+     * @param value the value of the four bytes.
+     */
+    private void appendInt(int value)
+    {
+        appendShort(value >> 16);
+        appendShort(value);
+    }
+}
@@ -0,0 +1,308 @@
+package wci.backend.compiler.jvm;
+
+import java.io.FileOutputStream;
+
+import wci.intermediate.*;
+import wci.backend.compiler.*;
+import wci.message.*;
+
+import static wci.intermediate.ValueKind.*;
+import static wci.message.MessageType.COMPILER_SUMMARY;
+
+/**
+ * <h1>JvmCodeGenerator</h1>
+ *
+ * <p>The code generator that compiles a Pascal program to a JVM class.
+ * The class has a single static method that executes the program.  Each
+ * main-program variable is a local variable of the method whose JVM type
+ * is the variable's inferred kind: int for INTEGER and BOOLEAN, float for
+ * REAL, and Object for any other kind.  Each typed variable also has an
+ * int local that is set when the variable is assigned, so that reading
+ * the variable as an object yields null until then, as in the tree
+ * walker.  The method calls a runtime object
+ * to send the runtime messages, flag the runtime errors, and compute the
+ * operations on values whose kinds are not known until run time.</p>
+ */
+public class JvmCodeGenerator extends CodeGenerator
+{
+    // Local variables of the method.
+    protected static final int RUNTIME_LOCAL = 0;  // the runtime object
+    protected static final int COUNT_LOCAL   = 1;  // statements executed
+
+    protected static final String OBJECT = "Ljava/lang/Object;";
+
+    protected CodeBuilder code;    // the method code being generated
+    protected JvmProgram program;  // the program being generated
+    protected int locals[];        // local variable indexes by slot
+    protected int flags[];         // assigned flag local indexes by slot
+    protected ValueKind kinds[];   // storage kinds by slot
+
+    /**
+     * Constructor.
+     * @param context the context of the compilation.
+     */
+    public JvmCodeGenerator(CompilationContext context)
+    {
+        super(context);
+    }
+
+    /**
+     * Constructor for subclasses.
+     * @param parent the parent code generator.
+     */
+    public JvmCodeGenerator(JvmCodeGenerator parent)
+    {
+        super(parent);
+
+        this.code = parent.code;
+        this.program = parent.program;
+        this.locals = parent.locals;
+        this.flags = parent.flags;
+        this.kinds = parent.kinds;
+    }
+
+    /**
+     * Compile the intermediate code and the symbol table generated by the
+     * parser to a JVM class, and write the class file.
+     * @param iCode the intermediate code.
+     * @param symTabStack the symbol table stack.
+     * @throws Exception if an error occurred.
+     */
+    public void process(ICode iCode, SymTabStack symTabStack)
+        throws Exception
+    {
+        long startTime = System.currentTimeMillis();
+        JvmProgram program = generateProgram(iCode, symTabStack);
+        float elapsedTime = (System.currentTimeMillis() - startTime)/1000f;
+        int instructionCount = program.getInstructionCount();
+
+        FileOutputStream classFile =
+            new FileOutputStream(JvmProgram.CLASS_NAME + ".class");
+        classFile.write(program.getClassBytes());
+        classFile.close();
+
+        // Send the compiler summary message.
+        sendMessage(new Message(COMPILER_SUMMARY,
+                                new Number[] {instructionCount,
+                                              elapsedTime}));
+    }
+
+    /**
+     * Generate the JVM class of the intermediate code.
+     * @param iCode the intermediate code.
+     * @param symTabStack the symbol table stack.
+     * @return the program.
+     */
+    public JvmProgram generateProgram(ICode iCode, SymTabStack symTabStack)
+    {
+        this.symTabStack = symTabStack;
+        this.iCode = iCode;
+
+        ClassFileBuilder classFile = new ClassFileBuilder();
+        code = new CodeBuilder(classFile, 2);
+        program = new JvmProgram();
+        inferencer = new TypeInferencer(iCode);
+
+        allocateVariables(symTabStack.getLocalSymTab());
+        code.pushInt(0);
+        code.local(CodeBuilder.ISTORE, COUNT_LOCAL);
+
+        // Generate the code for the root statement, then report the count.
+        if (iCode.getRoot() != null) {
+            JvmStatementGenerator statementGenerator =
+                new JvmStatementGenerator(this);
+            statementGenerator.generate(iCode.getRoot());
+        }
+
+        code.local(CodeBuilder.ALOAD, RUNTIME_LOCAL);
+        code.local(CodeBuilder.ILOAD, COUNT_LOCAL);
+        callRuntime("count", "(I)V", -2);
+        code.op(CodeBuilder.RETURN, 0);
+
+        int publicStatic = 0x0009;
+        int publicFinalSuper = 0x0031;
+        classFile.addMethod(publicStatic, JvmProgram.METHOD_NAME,
+                            JvmProgram.METHOD_DESCRIPTOR, code);
+        program.setClassBytes(classFile.toByteArray(JvmProgram.CLASS_NAME,
+                                                    "java/lang/Object",
+                                                    publicFinalSuper));
+        program.setInstructionCount(code.getInstructionCount());
+
+        return program;
+    }
+
+    /**
+     * Allocate a local variable for each variable of a symbol table,
+     * and initialize it to 0, 0.0, or null as the JVM verifier requires.
+     * A typed variable also gets an assigned flag local, initialized to 0.
+     * @param symTab the symbol table.
+     */
+    private void allocateVariables(SymTab symTab)
+    {
+        int slotCount = symTab.getSlotCount();
+        locals = new int[slotCount];
+        flags = new int[slotCount];
+        kinds = new ValueKind[slotCount];
+
+        for (SymTabEntry entry : symTab.sortedEntries()) {
+            int slot = entry.getSlot();
+            ValueKind kind = inferencer.variableKind(entry);
+            int local = code.allocateLocal();
+
+            locals[slot] = local;
+            flags[slot] = -1;
+            kinds[slot] = kind;
+
+            switch (kind) {
+                case INTEGER:
+                case BOOLEAN: {
+                    code.pushInt(0);
+                    code.local(CodeBuilder.ISTORE, local);
+                    break;
+                }
+                case REAL: {
+                    code.pushFloat(0.0f);
+                    code.local(CodeBuilder.FSTORE, local);
+                    break;
+                }
+                default: {
+                    code.op(CodeBuilder.ACONST_NULL, 1);
+                    code.local(CodeBuilder.ASTORE, local);
+                    continue;
+                }
+            }
+
+            flags[slot] = code.allocateLocal();
+            code.pushInt(0);
+            code.local(CodeBuilder.ISTORE, flags[slot]);
+        }
+    }
+
+    /**
+     * Generate a call to an instance method of the runtime object, whose
+     * reference and arguments are already on the stack.
+     * @param name the method name.
+     * @param descriptor the method descriptor.
+     * @param delta the change of the operand stack depth.
+     */
+    protected void callRuntime(String name, String descriptor, int delta)
+    {
+        code.invoke(CodeBuilder.INVOKEVIRTUAL, PascalRuntime.INTERNAL_NAME,
+                    name, descriptor, delta);
+    }
+
+    /**
+     * Generate a call to a static method of the runtime class.
+     * @param name the method name.
+     * @param descriptor the method descriptor.
+     * @param delta the change of the operand stack depth.
+     */
+    protected void callStatic(String name, String descriptor, int delta)
+    {
+        code.invoke(CodeBuilder.INVOKESTATIC, PascalRuntime.INTERNAL_NAME,
+                    name, descriptor, delta);
+    }
+
+    /**
+     * Generate the code that loads a variable in its storage kind.
+     * @param variableId the variable's symbol table entry.
+     */
+    protected void loadVariable(SymTabEntry variableId)
+    {
+        int slot = variableId.getSlot();
+
+        switch (kinds[slot]) {
+            case INTEGER:
+            case BOOLEAN: code.local(CodeBuilder.ILOAD, locals[slot]); break;
+            case REAL:    code.local(CodeBuilder.FLOAD, locals[slot]); break;
+            default:      code.local(CodeBuilder.ALOAD, locals[slot]); break;
+        }
+    }
+
+    /**
+     * Generate the code that loads a variable as an object.  A typed
+     * variable that has not been assigned yields null.
+     * @param variableId the variable's symbol table entry.
+     */
+    protected void loadVariableObject(SymTabEntry variableId)
+    {
+        int slot = variableId.getSlot();
+
+        if (flags[slot] < 0) {
+            loadVariable(variableId);
+            return;
+        }
+
+        Label isAssigned = new Label();
+        Label end = new Label();
+
+        code.local(CodeBuilder.ILOAD, flags[slot]);
+        code.jump(CodeBuilder.IFNE, isAssigned);
+        code.op(CodeBuilder.ACONST_NULL, 1);
+        code.jump(CodeBuilder.GOTO, end);
+
+        code.place(isAssigned);
+        loadVariable(variableId);
+        box(kinds[slot]);
+        code.place(end);
+    }
+
+    /**
+     * Generate the code that stores the value on the stack into a
+     * variable, and sets a typed variable's assigned flag.  The value
+     * must be of the variable's storage kind.
+     * @param variableId the variable's symbol table entry.
+     */
+    protected void storeVariable(SymTabEntry variableId)
+    {
+        int slot = variableId.getSlot();
+
+        switch (kinds[slot]) {
+            case INTEGER:
+            case BOOLEAN: code.local(CodeBuilder.ISTORE, locals[slot]); break;
+            case REAL:    code.local(CodeBuilder.FSTORE, locals[slot]); break;
+            default:      code.local(CodeBuilder.ASTORE, locals[slot]); break;
+        }
+
+        if (flags[slot] >= 0) {
+            code.pushInt(1);
+            code.local(CodeBuilder.ISTORE, flags[slot]);
+        }
+    }
+
+    /**
+     * Return the storage kind of a variable.
+     * @param variableId the variable's symbol table entry.
+     * @return the kind.
+     */
+    protected ValueKind storageKind(SymTabEntry variableId)
+    {
+        return kinds[variableId.getSlot()];
+    }
+
+    /**
+     * Generate the code that boxes the value on the stack.
+     * @param kind the kind of the value: INTEGER, REAL, or BOOLEAN.
+     *             Values of other kinds are already objects.
+     */
+    protected void box(ValueKind kind)
+    {
+        switch (kind) {
+            case INTEGER: {
+                code.invoke(CodeBuilder.INVOKESTATIC, "java/lang/Integer",
+                            "valueOf", "(I)Ljava/lang/Integer;", 0);
+                break;
+            }
+            case REAL: {
+                code.invoke(CodeBuilder.INVOKESTATIC, "java/lang/Float",
+                            "valueOf", "(F)Ljava/lang/Float;", 0);
+                break;
+            }
+            case BOOLEAN: {
+                code.invoke(CodeBuilder.INVOKESTATIC, "java/lang/Boolean",
+                            "valueOf", "(Z)Ljava/lang/Boolean;", 0);
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package wci.backend.compiler.jvm;
+
+import java.util.ArrayList;
+
+import wci.intermediate.*;
+import wci.intermediate.icodeimpl.*;
+
+import static wci.intermediate.ValueKind.*;
+import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+
+/**
+ * <h1>JvmExpressionGenerator</h1>
+ *
+ * <p>Generate the JVM code of an expression.  An expression whose
+ * inferred kind is INTEGER or BOOLEAN is computed as an int, one whose
+ * kind is REAL as a float, and any other as an object with calls to the
+ * runtime that decide what to do from the operand values at run time,
+ * as the tree walker does.</p>
+ */
+public class JvmExpressionGenerator extends JvmCodeGenerator
+{
+    private static final String BINARY =
+        "(" + OBJECT + OBJECT + ")" + OBJECT;
+    private static final String BINARY_AT_NODE =
+        "(" + OBJECT + OBJECT + "I)" + OBJECT;
+
+    /**
+     * Constructor.
+     * @param parent the parent code generator.
+     */
+    public JvmExpressionGenerator(JvmCodeGenerator parent)
+    {
+        super(parent);
+    }
+
+    /**
+     * Generate the code of an expression.
+     * @param node the root node of the expression.
+     * @param want the kind of value to leave on the stack: INTEGER or
+     *             BOOLEAN as an int, REAL as a float, or any other kind
+     *             as an object.
+     */
+    public void generate(ICodeNode node, ValueKind want)
+    {
+        ValueKind kind = stackKind(inferencer.expressionKind(node));
+
+        // A variable wanted as an object yields null until it is assigned.
+        if (   (node.getType() == ICodeNodeTypeImpl.VARIABLE)
+            && (stackKind(want) == UNKNOWN)) {
+            loadVariableObject((SymTabEntry) node.getAttribute(ID));
+            return;
+        }
+
+        generateValue(node, kind);
+        convert(kind, stackKind(want));
+    }
+
+    /**
+     * Map a kind of value to the kind that selects its JVM type.
+     * @param kind the kind of value.
+     * @return INTEGER, REAL, BOOLEAN, or UNKNOWN for an object.
+     */
+    private ValueKind stackKind(ValueKind kind)
+    {
+        switch (kind) {
+            case INTEGER: case REAL: case BOOLEAN: return kind;
+            default:                               return UNKNOWN;
+        }
+    }
+
+    /**
+     * Generate the code that converts the value on the stack.
+     * @param from the kind of the value.
+     * @param to the kind to convert to.
+     */
+    private void convert(ValueKind from, ValueKind to)
+    {
+        if (from == to) {
+            return;
+        }
+
+        if (from == UNKNOWN) {
+            switch (to) {
+                case INTEGER: {
+                    unbox("java/lang/Integer", "intValue", "()I");
+                    break;
+                }
+                case REAL: {
+                    callStatic("toFloat", "(" + OBJECT + ")F", 0);
+                    break;
+                }
+                case BOOLEAN: {
+                    unbox("java/lang/Boolean", "booleanValue", "()Z");
+                    break;
+                }
+            }
+        }
+        else if (to == UNKNOWN) {
+            box(from);
+        }
+        else if ((from == INTEGER) && (to == REAL)) {
+            code.op(CodeBuilder.I2F, 0);
+        }
+        else if ((from == REAL) || (to == REAL)) {
+
+            // Convert through an object, which fails at run time
+            // as the tree walker would.
+            box(from);
+            convert(UNKNOWN, to);
+        }
+    }
+
+    /**
+     * Generate the code that unboxes the object on the stack.
+     * @param internalName the internal name of the box class.
+     * @param name the name of the method that returns the value.
+     * @param descriptor the method descriptor.
+     */
+    private void unbox(String internalName, String name, String descriptor)
+    {
+        code.checkcast(internalName);
+        code.invoke(CodeBuilder.INVOKEVIRTUAL, internalName, name,
+                    descriptor, 0);
+    }
+
+    /**
+     * Generate the code that computes an expression's value in the
+     * expression's kind.
+     * @param node the root node of the expression.
+     * @param kind the stack kind of the expression.
+     */
+    private void generateValue(ICodeNode node, ValueKind kind)
+    {
+        ICodeNodeTypeImpl nodeType = (ICodeNodeTypeImpl) node.getType();
+        ArrayList<ICodeNode> children = node.getChildren();
+
+        switch (nodeType) {
+
+            case VARIABLE: {
+                loadVariable((SymTabEntry) node.getAttribute(ID));
+                return;
+            }
+
+            case INTEGER_CONSTANT: {
+                code.pushInt((Integer) node.getAttribute(VALUE));
+                return;
+            }
+
+            case REAL_CONSTANT: {
+                code.pushFloat((Float) node.getAttribute(VALUE));
+                return;
+            }
+
+            case NEGATE: {
+                generate(children.get(0), kind);
+
+                if (kind == INTEGER) {
+                    code.op(CodeBuilder.INEG, 0);
+                }
+                else if (kind == REAL) {
+                    code.op(CodeBuilder.FNEG, 0);
+                }
+                else {
+                    callStatic("negate", "(" + OBJECT + ")" + OBJECT, 0);
+                }
+
+                return;
+            }
+
+            case NOT: {
+                generate(children.get(0), BOOLEAN);
+                code.pushInt(1);
+                code.op(CodeBuilder.IXOR, -1);
+                return;
+            }
+
+            case AND:
+            case OR: {
+                generate(children.get(0), BOOLEAN);
+                generate(children.get(1), BOOLEAN);
+                code.op(nodeType == ICodeNodeTypeImpl.AND ? CodeBuilder.IAND
+                                                          : CodeBuilder.IOR,
+                        -1);
+                return;
+            }
+
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY: {
+                generate(children.get(0), kind);
+                generate(children.get(1), kind);
+                generateArithmetic(nodeType, kind);
+                return;
+            }
+
+            case FLOAT_DIVIDE:
+            case INTEGER_DIVIDE:
+            case MOD: {
+                generateDivision(node, nodeType, kind);
+                return;
+            }
+
+            case EQ: case NE: case LT: case LE: case GT: case GE: {
+                generateRelational(node, nodeType);
+                return;
+            }
+
+            // Strings and anything else are constant objects.
+            default: {
+                generateConstant(node.getAttribute(VALUE));
+            }
+        }
+    }
+
+    /**
+     * Generate the code that pushes a constant object.
+     * @param value the constant value, or null for 0.
+     */
+    private void generateConstant(Object value)
+    {
+        if (value instanceof String) {
+            code.pushString((String) value);
+        }
+        else if (value instanceof Float) {
+            code.pushFloat((Float) value);
+            box(REAL);
+        }
+        else if (value instanceof Boolean) {
+            code.pushInt((Boolean) value ? 1 : 0);
+            box(BOOLEAN);
+        }
+        else if ((value == null) || (value instanceof Integer)) {
+            code.pushInt(value != null ? (Integer) value : 0);
+            box(INTEGER);
+        }
+        else {
+            throw new IllegalStateException("Unsupported constant " + value);
+        }
+    }
+
+    /**
+     * Generate an ADD, SUBTRACT, or MULTIPLY instruction whose operands are
+     * on the stack.
+     * @param nodeType the operator node type.
+     * @param kind the stack kind of the expression.
+     */
+    private void generateArithmetic(ICodeNodeTypeImpl nodeType,
+                                    ValueKind kind)
+    {
+        switch (nodeType) {
+            case ADD: {
+                if      (kind == INTEGER) code.op(CodeBuilder.IADD, -1);
+                else if (kind == REAL)    code.op(CodeBuilder.FADD, -1);
+                else                      callStatic("add", BINARY, -1);
+                break;
+            }
+            case SUBTRACT: {
+                if      (kind == INTEGER) code.op(CodeBuilder.ISUB, -1);
+                else if (kind == REAL)    code.op(CodeBuilder.FSUB, -1);
+                else                      callStatic("subtract", BINARY, -1);
+                break;
+            }
+            default: {
+                if      (kind == INTEGER) code.op(CodeBuilder.IMUL, -1);
+                else if (kind == REAL)    code.op(CodeBuilder.FMUL, -1);
+                else                      callStatic("multiply", BINARY, -1);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Generate the code of a division operator.  A division by zero is
+     * flagged through the runtime and yields 0, which is the integer 0
+     * for a float division of two integers.  Such a division is never
+     * REAL, so the runtime computes it.
+     * @param node the operator node.
+     * @param nodeType the operator node type.
+     * @param kind the stack kind of the expression.
+     */
+    private void generateDivision(ICodeNode node, ICodeNodeTypeImpl nodeType,
+                                  ValueKind kind)
+    {
+        ArrayList<ICodeNode> children = node.getChildren();
+        boolean typed =
+            nodeType == ICodeNodeTypeImpl.FLOAT_DIVIDE ? kind == REAL
+                                                       : kind == INTEGER;
+
+        // Object division is a runtime instance method.
+        if (!typed) {
+            code.local(CodeBuilder.ALOAD, RUNTIME_LOCAL);
+            generate(children.get(0), UNKNOWN);
+            generate(children.get(1), UNKNOWN);
+            code.pushInt(program.addNode(node));
+
+            String name =
+                  nodeType == ICodeNodeTypeImpl.FLOAT_DIVIDE   ? "floatDivide"
+                : nodeType == ICodeNodeTypeImpl.INTEGER_DIVIDE ? "integerDivide"
+                :                                                "mod";
+            callRuntime(name, BINARY_AT_NODE, -3);
+
+            convert(UNKNOWN, kind);
+            return;
+        }
+
+        Label divide = new Label();
+        Label end = new Label();
+
+        generate(children.get(0), kind);
+        generate(children.get(1), kind);
+
+        // Check for division by zero.
+        code.op(CodeBuilder.DUP, 1);
+        if (kind == REAL) {
+            code.pushFloat(0.0f);
+            code.op(CodeBuilder.FCMPL, -1);
+        }
+        code.jump(CodeBuilder.IFNE, divide);
+
+        code.op(CodeBuilder.POP2, -2);
+        code.local(CodeBuilder.ALOAD, RUNTIME_LOCAL);
+        code.pushInt(program.addNode(node));
+        callRuntime("divisionByZero", "(I)V", -2);
+        if (kind == REAL) {
+            code.pushFloat(0.0f);
+        }
+        else {
+            code.pushInt(0);
+        }
+        code.jump(CodeBuilder.GOTO, end);
+
+        code.place(divide);
+        code.op(  kind == REAL                         ? CodeBuilder.FDIV
+                : nodeType == ICodeNodeTypeImpl.MOD    ? CodeBuilder.IREM
+                :                                        CodeBuilder.IDIV,
+                -1);
+        code.place(end);
+    }
+
+    /**
+     * Generate the code of a relational operator.  Two INTEGER operands
+     * are compared as ints, two numeric operands as floats, and any others
+     * as objects.
+     * @param node the operator node.
+     * @param nodeType the operator node type.
+     */
+    private void generateRelational(ICodeNode node,
+                                    ICodeNodeTypeImpl nodeType)
+    {
+        ArrayList<ICodeNode> children = node.getChildren();
+        ValueKind kind1 = inferencer.expressionKind(children.get(0));
+        ValueKind kind2 = inferencer.expressionKind(children.get(1));
+
+        ValueKind operandKind =
+              (kind1 == INTEGER) && (kind2 == INTEGER)   ? INTEGER
+            : kind1.isNumeric() && kind2.isNumeric()     ? REAL
+            :                                              UNKNOWN;
+
+        generate(children.get(0), operandKind);
+        generate(children.get(1), operandKind);
+
+        int relation = nodeType.ordinal() - ICodeNodeTypeImpl.EQ.ordinal();
+
+        if (operandKind == UNKNOWN) {
+            code.pushInt(relation);
+            callStatic("compare", "(" + OBJECT + OBJECT + "I)Z", -2);
+            return;
+        }
+
+        // The six jumps of each kind have consecutive opcodes
+        // in the order EQ, NE, LT, GE, GT, LE.
+        int jumps[] = {0, 1, 2, 5, 4, 3};
+        int jump;
+
+        if (operandKind == INTEGER) {
+            jump = CodeBuilder.IF_ICMPEQ + jumps[relation];
+        }
+        else {
+
+            // FCMPG makes NaN compare false with < and <=,
+            // and FCMPL with the others.
+            boolean less = (nodeType == ICodeNodeTypeImpl.LT)
+                        || (nodeType == ICodeNodeTypeImpl.LE);
+            code.op(less ? CodeBuilder.FCMPG : CodeBuilder.FCMPL, -1);
+            jump = CodeBuilder.IFEQ + jumps[relation];
+        }
+
+        Label isTrue = new Label();
+        Label end = new Label();
+
+        code.jump(jump, isTrue);
+        code.pushInt(0);
+        code.jump(CodeBuilder.GOTO, end);
+        code.place(isTrue);
+        code.pushInt(1);
+        code.place(end);
+    }
+}
@@ -0,0 +1,111 @@
+package wci.backend.compiler.jvm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import wci.intermediate.ICodeNode;
+
+/**
+ * <h1>JvmProgram</h1>
+ *
+ * <p>A Pascal program compiled to a JVM class.  Besides the bytes of the
+ * class file, the program keeps the intermediate code nodes and SELECT
+ * jump tables that the class refers to by index at run time.</p>
+ */
+public class JvmProgram
+{
+    public static final String CLASS_NAME = "PascalProgram";
+    public static final String METHOD_NAME = "execute";
+    public static final String METHOD_DESCRIPTOR =
+        "(L" + PascalRuntime.INTERNAL_NAME + ";)V";
+
+    private byte classBytes[];           // bytes of the class file
+    private int instructionCount;        // number of JVM instructions
+    private ArrayList<ICodeNode> nodes;  // nodes referred to by index
+    private ArrayList<HashMap<Object, Integer>> jumpTables;  // SELECT tables
+
+    /**
+     * Constructor.
+     */
+    public JvmProgram()
+    {
+        this.nodes = new ArrayList<ICodeNode>();
+        this.jumpTables = new ArrayList<HashMap<Object, Integer>>();
+    }
+
+    /**
+     * Add a node that the class refers to.
+     * @param node the node.
+     * @return the node's index.
+     */
+    public int addNode(ICodeNode node)
+    {
+        nodes.add(node);
+        return nodes.size() - 1;
+    }
+
+    /**
+     * Add a SELECT jump table from branch constants to branch numbers.
+     * @param jumpTable the jump table.
+     * @return the table's index.
+     */
+    public int addJumpTable(HashMap<Object, Integer> jumpTable)
+    {
+        jumpTables.add(jumpTable);
+        return jumpTables.size() - 1;
+    }
+
+    /**
+     * Getter.
+     * @return the nodes that the class refers to.
+     */
+    public ArrayList<ICodeNode> getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * Getter.
+     * @return the SELECT jump tables.
+     */
+    public ArrayList<HashMap<Object, Integer>> getJumpTables()
+    {
+        return jumpTables;
+    }
+
+    /**
+     * Getter.
+     * @return the bytes of the class file.
+     */
+    public byte[] getClassBytes()
+    {
+        return classBytes;
+    }
+
+    /**
+     * Setter.
+     * @param classBytes the bytes of the class file.
+     */
+    public void setClassBytes(byte classBytes[])
+    {
+        this.classBytes = classBytes;
+    }
+
+    /**
+     * Getter.
+     * @return the number of JVM instructions.
+     */
+    public int getInstructionCount()
+    {
+        return instructionCount;
+    }
+
+    /**
+     * Setter.
+     * @param instructionCount the number of JVM instructions.
+     */
+    public void setInstructionCount(int instructionCount)
+    {
+        this.instructionCount = instructionCount;
+    }
+}
@@ -0,0 +1,302 @@
+package wci.backend.compiler.jvm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import wci.intermediate.*;
+import wci.intermediate.icodeimpl.*;
+
+import static wci.intermediate.symtabimpl.SymTabKeyImpl.TEMPORARY;
+import static wci.intermediate.icodeimpl.ICodeNodeTypeImpl.*;
+import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+
+/**
+ * <h1>JvmStatementGenerator</h1>
+ *
+ * <p>Generate the JVM code of a statement.  Every statement with a line
+ * number starts with a call that reports the line, and the statements
+ * that the interpreter counts increment the count local variable.</p>
+ */
+public class JvmStatementGenerator extends JvmCodeGenerator
+{
+    /**
+     * Constructor.
+     * @param parent the parent code generator.
+     */
+    public JvmStatementGenerator(JvmCodeGenerator parent)
+    {
+        super(parent);
+    }
+
+    /**
+     * Generate the code of a statement.
+     * @param node the root node of the statement.
+     */
+    public void generate(ICodeNode node)
+    {
+        ICodeNodeTypeImpl nodeType = (ICodeNodeTypeImpl) node.getType();
+        Object lineNumber = node.getAttribute(LINE);
+
+        if (lineNumber != null) {
+            code.local(CodeBuilder.ALOAD, RUNTIME_LOCAL);
+            code.pushInt((Integer) lineNumber);
+            callRuntime("line", "(I)V", -2);
+        }
+
+        switch (nodeType) {
+
+            case COMPOUND: {
+                for (ICodeNode child : node.getChildren()) {
+                    generate(child);
+                }
+
+                break;
+            }
+
+            case ASSIGN: generateAssignment(node, lineNumber); break;
+            case LOOP:   generateLoop(node);                   break;
+            case FOR:    generateFor(node);                    break;
+            case IF:     generateIf(node);                     break;
+            case SELECT: generateSelect(node);                 break;
+            case NO_OP:                                        break;
+
+            default: {
+                code.local(CodeBuilder.ALOAD, RUNTIME_LOCAL);
+                code.pushInt(program.addNode(node));
+                callRuntime("unimplemented", "(I)V", -2);
+            }
+        }
+    }
+
+    /**
+     * Generate the code of an assignment statement.
+     * @param node the ASSIGN node.
+     * @param lineNumber the statement's line number, or null.
+     */
+    private void generateAssignment(ICodeNode node, Object lineNumber)
+    {
+        ArrayList<ICodeNode> children = node.getChildren();
+        SymTabEntry variableId =
+            (SymTabEntry) children.get(0).getAttribute(ID);
+        ValueKind kind = storageKind(variableId);
+
+        // Evaluate the expression in the variable's kind and store it.
+        JvmExpressionGenerator expressionGenerator =
+            new JvmExpressionGenerator(this);
+        expressionGenerator.generate(children.get(1), kind);
+        storeVariable(variableId);
+
+        // Report the assigned value.
+        if (lineNumber != null) {
+            code.local(CodeBuilder.ALOAD, RUNTIME_LOCAL);
+            code.pushInt((Integer) lineNumber);
+            code.pushString(variableId.getName());
+            loadVariable(variableId);
+            box(kind);
+            callRuntime("assigned", "(ILjava/lang/String;" + OBJECT + ")V",
+                        -4);
+        }
+
+        // The optimizer's assignments to temporaries are not counted.
+        if (variableId.getAttribute(TEMPORARY) == null) {
+            code.iinc(COUNT_LOCAL, 1);
+        }
+    }
+
+    /**
+     * Generate the code of a loop statement.  Each iteration is counted,
+     * and each TEST exits the loop if its expression is true.
+     * @param node the LOOP node.
+     */
+    private void generateLoop(ICodeNode node)
+    {
+        Label top = new Label();
+        Label exit = new Label();
+
+        code.place(top);
+        code.iinc(COUNT_LOCAL, 1);
+
+        for (ICodeNode child : node.getChildren()) {
+            if (child.getType() == TEST) {
+                JvmExpressionGenerator expressionGenerator =
+                    new JvmExpressionGenerator(this);
+                expressionGenerator.generate(child.getChildren().get(0),
+                                             ValueKind.BOOLEAN);
+                code.jump(CodeBuilder.IFNE, exit);
+            }
+            else {
+                generate(child);
+            }
+        }
+
+        code.jump(CodeBuilder.GOTO, top);
+        code.place(exit);
+    }
+
+    /**
+     * Generate the code of a FOR statement.  The termination expression is
+     * evaluated once into a local variable of its own, and each iteration
+     * is counted and compares the control variable with the local's value:
+     * as ints if both are INTEGER, as floats if both are numeric, and as
+     * objects otherwise.
+     * @param node the FOR node.
+     */
+    private void generateFor(ICodeNode node)
+    {
+        ArrayList<ICodeNode> children = node.getChildren();
+        ICodeNode initNode = children.get(0);
+        ICodeNode variableNode = initNode.getChildren().get(0);
+        ICodeNode limitNode = children.get(1);
+        ICodeNode nextNode = children.get(3);
+        boolean down = nextNode.getChildren().get(1).getType() == SUBTRACT;
+
+        ValueKind kind1 = inferencer.expressionKind(variableNode);
+        ValueKind kind2 = inferencer.expressionKind(limitNode);
+        ValueKind operandKind =
+              (kind1 == ValueKind.INTEGER) && (kind2 == ValueKind.INTEGER)
+                  ? ValueKind.INTEGER
+            : kind1.isNumeric() && kind2.isNumeric()
+                  ? ValueKind.REAL
+                  : ValueKind.UNKNOWN;
+
+        generate(initNode);
+
+        // Evaluate the limit into its local variable.
+        int limitLocal = code.allocateLocal();
+        JvmExpressionGenerator expressionGenerator =
+            new JvmExpressionGenerator(this);
+        expressionGenerator.generate(limitNode, operandKind);
+
+        int load;
+        switch (operandKind) {
+            case INTEGER: {
+                code.local(CodeBuilder.ISTORE, limitLocal);
+                load = CodeBuilder.ILOAD;
+                break;
+            }
+            case REAL: {
+                code.local(CodeBuilder.FSTORE, limitLocal);
+                load = CodeBuilder.FLOAD;
+                break;
+            }
+            default: {
+                code.local(CodeBuilder.ASTORE, limitLocal);
+                load = CodeBuilder.ALOAD;
+                break;
+            }
+        }
+
+        Label top = new Label();
+        Label exit = new Label();
+
+        // Exit if the control variable is past the limit.
+        code.place(top);
+        code.iinc(COUNT_LOCAL, 1);
+        expressionGenerator.generate(variableNode, operandKind);
+        code.local(load, limitLocal);
+
+        if (operandKind == ValueKind.INTEGER) {
+            code.jump(down ? CodeBuilder.IF_ICMPLT : CodeBuilder.IF_ICMPGT,
+                      exit);
+        }
+        else if (operandKind == ValueKind.REAL) {
+
+            // FCMPG makes NaN compare false with <, and FCMPL with >.
+            code.op(down ? CodeBuilder.FCMPG : CodeBuilder.FCMPL, -1);
+            code.jump(down ? CodeBuilder.IFLT : CodeBuilder.IFGT, exit);
+        }
+        else {
+            int relation = (down ? LT : GT).ordinal() - EQ.ordinal();
+
+            code.pushInt(relation);
+            callStatic("compare", "(" + OBJECT + OBJECT + "I)Z", -2);
+            code.jump(CodeBuilder.IFNE, exit);
+        }
+
+        generate(children.get(2));
+        generate(nextNode);
+        code.jump(CodeBuilder.GOTO, top);
+        code.place(exit);
+    }
+
+    /**
+     * Generate the code of an IF statement.
+     * @param node the IF node.
+     */
+    private void generateIf(ICodeNode node)
+    {
+        ArrayList<ICodeNode> children = node.getChildren();
+        Label elseLabel = new Label();
+
+        JvmExpressionGenerator expressionGenerator =
+            new JvmExpressionGenerator(this);
+        expressionGenerator.generate(children.get(0), ValueKind.BOOLEAN);
+        code.jump(CodeBuilder.IFEQ, elseLabel);
+
+        generate(children.get(1));
+
+        if (children.size() > 2) {
+            Label end = new Label();
+
+            code.jump(CodeBuilder.GOTO, end);
+            code.place(elseLabel);
+            generate(children.get(2));
+            code.place(end);
+        }
+        else {
+            code.place(elseLabel);
+        }
+
+        code.iinc(COUNT_LOCAL, 1);  // count the IF statement itself
+    }
+
+    /**
+     * Generate the code of a SELECT statement.  The runtime looks the
+     * selection value up in a jump table of branch numbers, and a
+     * TABLESWITCH instruction jumps to the branch.
+     * @param node the SELECT node.
+     */
+    private void generateSelect(ICodeNode node)
+    {
+        ArrayList<ICodeNode> selectChildren = node.getChildren();
+        HashMap<Object, Integer> jumpTable = new HashMap<Object, Integer>();
+        int branchCount = selectChildren.size() - 1;
+        Label end = new Label();
+
+        // Branch 0 is taken if no constant matches.
+        Label targets[] = new Label[branchCount + 1];
+        targets[0] = end;
+
+        code.local(CodeBuilder.ALOAD, RUNTIME_LOCAL);
+        JvmExpressionGenerator expressionGenerator =
+            new JvmExpressionGenerator(this);
+        expressionGenerator.generate(selectChildren.get(0),
+                                     ValueKind.UNKNOWN);
+        code.pushInt(program.addJumpTable(jumpTable));
+        callRuntime("select", "(" + OBJECT + "I)I", -2);
+
+        for (int i = 1; i <= branchCount; ++i) {
+            targets[i] = new Label();
+        }
+        code.tableSwitch(end, targets);
+
+        // Loop over children that are SELECT_BRANCH nodes.
+        for (int i = 1; i <= branchCount; ++i) {
+            ICodeNode branchNode = selectChildren.get(i);
+            ICodeNode constantsNode = branchNode.getChildren().get(0);
+            ICodeNode statementNode = branchNode.getChildren().get(1);
+
+            // Enter each branch constant into the jump table.
+            for (ICodeNode constantNode : constantsNode.getChildren()) {
+                jumpTable.put(constantNode.getAttribute(VALUE), i - 1);
+            }
+
+            code.place(targets[i]);
+            generate(statementNode);
+            code.jump(CodeBuilder.GOTO, end);
+        }
+
+        code.place(end);
+        code.iinc(COUNT_LOCAL, 1);  // count the SELECT statement itself
+    }
+}
@@ -0,0 +1,26 @@
+package wci.backend.compiler.jvm;
+
+import java.util.ArrayList;
+
+/**
+ * <h1>Label</h1>
+ *
+ * <p>A position in the code of a method that jump instructions can
+ * target before the position is known.</p>
+ */
+public class Label
+{
+    int position;                 // code position, or -1 if not yet placed
+    int depth;                    // operand stack depth, or -1 if unknown
+    ArrayList<int[]> fixups;      // {instruction, offset position, size}
+
+    /**
+     * Constructor.
+     */
+    public Label()
+    {
+        this.position = -1;
+        this.depth = -1;
+        this.fixups = new ArrayList<int[]>();
+    }
+}
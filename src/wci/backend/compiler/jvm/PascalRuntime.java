@@ -0,0 +1,277 @@
+package wci.backend.compiler.jvm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import wci.intermediate.ICodeNode;
+
+/**
+ * <h1>PascalRuntime</h1>
+ *
+ * <p>The runtime support that a generated program class calls.  The
+ * program refers to intermediate code nodes and SELECT jump tables by
+ * their indexes in the program's lists.  An executor subclass sends the
+ * runtime messages and flags the runtime errors.  The static methods
+ * compute the operations on values whose kinds are not known until run
+ * time, as the tree walker does.</p>
+ */
+public abstract class PascalRuntime
+{
+    public static final String INTERNAL_NAME =
+        "wci/backend/compiler/jvm/PascalRuntime";
+
+    protected ArrayList<ICodeNode> nodes;  // nodes that the program uses
+    private ArrayList<HashMap<Object, Integer>> jumpTables;  // SELECT tables
+
+    /**
+     * Constructor.
+     * @param program the generated program.
+     */
+    public PascalRuntime(JvmProgram program)
+    {
+        this.nodes = program.getNodes();
+        this.jumpTables = program.getJumpTables();
+    }
+
+    /**
+     * Called at the start of each statement that has a line number.
+     * @param lineNumber the statement's line number.
+     */
+    public abstract void line(int lineNumber);
+
+    /**
+     * Called after a variable was assigned at a line.
+     * @param lineNumber the assignment's line number.
+     * @param name the variable name.
+     * @param value the assigned value.
+     */
+    public abstract void assigned(int lineNumber, String name, Object value);
+
+    /**
+     * Called when a division by zero occurred.
+     * @param node the index of the operator node.
+     */
+    public abstract void divisionByZero(int node);
+
+    /**
+     * Called when an unimplemented statement is reached.
+     * @param node the index of the statement node.
+     */
+    public abstract void unimplemented(int node);
+
+    /**
+     * Called at the end of the program with the number of statements
+     * executed.
+     * @param count the number of statements.
+     */
+    public abstract void count(int count);
+
+    /**
+     * Look up the branch of a SELECT statement.
+     * @param value the selection value.
+     * @param table the index of the jump table.
+     * @return the branch number plus one, or 0 if no branch matches.
+     */
+    public int select(Object value, int table)
+    {
+        Integer branch = jumpTables.get(table).get(value);
+        return branch != null ? branch + 1 : 0;
+    }
+
+    /**
+     * Add values of kinds not known until run time.
+     * @param operand1 the first operand.
+     * @param operand2 the second operand.
+     * @return the sum.
+     */
+    public static Object add(Object operand1, Object operand2)
+    {
+        if ((operand1 instanceof Integer) && (operand2 instanceof Integer)) {
+            return (Integer) operand1 + (Integer) operand2;
+        }
+        else {
+            return toFloat(operand1) + toFloat(operand2);
+        }
+    }
+
+    /**
+     * Subtract values of kinds not known until run time.
+     * @param operand1 the first operand.
+     * @param operand2 the second operand.
+     * @return the difference.
+     */
+    public static Object subtract(Object operand1, Object operand2)
+    {
+        if ((operand1 instanceof Integer) && (operand2 instanceof Integer)) {
+            return (Integer) operand1 - (Integer) operand2;
+        }
+        else {
+            return toFloat(operand1) - toFloat(operand2);
+        }
+    }
+
+    /**
+     * Multiply values of kinds not known until run time.
+     * @param operand1 the first operand.
+     * @param operand2 the second operand.
+     * @return the product.
+     */
+    public static Object multiply(Object operand1, Object operand2)
+    {
+        if ((operand1 instanceof Integer) && (operand2 instanceof Integer)) {
+            return (Integer) operand1 * (Integer) operand2;
+        }
+        else {
+            return toFloat(operand1) * toFloat(operand2);
+        }
+    }
+
+    /**
+     * Divide values of kinds not known until run time with the / operator.
+     * @param operand1 the first operand.
+     * @param operand2 the second operand.
+     * @param node the index of the operator node.
+     * @return the quotient, or 0 after a division by zero.
+     */
+    public Object floatDivide(Object operand1, Object operand2, int node)
+    {
+        if ((operand1 instanceof Integer) && (operand2 instanceof Integer)) {
+            int value1 = (Integer) operand1;
+            int value2 = (Integer) operand2;
+
+            // Check for division by zero.
+            if (value2 != 0) {
+                return ((float) value1)/((float) value2);
+            }
+            else {
+                divisionByZero(node);
+                return 0;
+            }
+        }
+        else {
+            float value1 = toFloat(operand1);
+            float value2 = toFloat(operand2);
+
+            // Check for division by zero.
+            if (value2 != 0.0f) {
+                return value1/value2;
+            }
+            else {
+                divisionByZero(node);
+                return 0.0f;
+            }
+        }
+    }
+
+    /**
+     * Divide values of kinds not known until run time with DIV.
+     * @param operand1 the first operand.
+     * @param operand2 the second operand.
+     * @param node the index of the operator node.
+     * @return the quotient, or 0 after a division by zero.
+     */
+    public Object integerDivide(Object operand1, Object operand2, int node)
+    {
+        return integerOperation(operand1, operand2, node, false);
+    }
+
+    /**
+     * Compute the remainder of values of kinds not known until run time.
+     * @param operand1 the first operand.
+     * @param operand2 the second operand.
+     * @param node the index of the operator node.
+     * @return the remainder, or 0 after a division by zero.
+     */
+    public Object mod(Object operand1, Object operand2, int node)
+    {
+        return integerOperation(operand1, operand2, node, true);
+    }
+
+    /**
+     * Compute DIV or MOD, which have no float mode.
+     * @param operand1 the first operand.
+     * @param operand2 the second operand.
+     * @param node the index of the operator node.
+     * @param mod true for MOD, false for DIV.
+     * @return the result, or 0 after a division by zero.
+     */
+    private Object integerOperation(Object operand1, Object operand2,
+                                    int node, boolean mod)
+    {
+        if ((operand1 instanceof Integer) && (operand2 instanceof Integer)) {
+            int value1 = (Integer) operand1;
+            int value2 = (Integer) operand2;
+
+            // Check for division by zero.
+            if (value2 == 0) {
+                divisionByZero(node);
+                return 0;
+            }
+
+            return mod ? value1%value2 : value1/value2;
+        }
+        else {
+            return 0;
+        }
+    }
+
+    /**
+     * Negate a value of a kind not known until run time.
+     * @param value the value.
+     * @return the negated value.
+     */
+    public static Object negate(Object value)
+    {
+        return value instanceof Integer ? (Object) (-(Integer) value)
+                                        : (Object) (-(Float) value);
+    }
+
+    /**
+     * Compare values of kinds not known until run time, as integers if
+     * both are integers and as floats otherwise.
+     * @param operand1 the first operand.
+     * @param operand2 the second operand.
+     * @param relation 0 through 5 for EQ, NE, LT, LE, GT, and GE.
+     * @return the result of the comparison.
+     */
+    public static boolean compare(Object operand1, Object operand2,
+                                  int relation)
+    {
+        if ((operand1 instanceof Integer) && (operand2 instanceof Integer)) {
+            int value1 = (Integer) operand1;
+            int value2 = (Integer) operand2;
+
+            switch (relation) {
+                case 0:  return value1 == value2;
+                case 1:  return value1 != value2;
+                case 2:  return value1 <  value2;
+                case 3:  return value1 <= value2;
+                case 4:  return value1 >  value2;
+                default: return value1 >= value2;
+            }
+        }
+        else {
+            float value1 = toFloat(operand1);
+            float value2 = toFloat(operand2);
+
+            switch (relation) {
+                case 0:  return value1 == value2;
+                case 1:  return value1 != value2;
+                case 2:  return value1 <  value2;
+                case 3:  return value1 <= value2;
+                case 4:  return value1 >  value2;
+                default: return value1 >= value2;
+            }
+        }
+    }
+
+    /**
+     * Convert an integer or float value to float.
+     * @param value the value.
+     * @return the float value.
+     */
+    public static float toFloat(Object value)
+    {
+        return value instanceof Integer ? (Integer) value : (Float) value;
+    }
+}
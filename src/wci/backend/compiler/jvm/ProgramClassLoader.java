@@ -0,0 +1,30 @@
+package wci.backend.compiler.jvm;
+
+/**
+ * <h1>ProgramClassLoader</h1>
+ *
+ * <p>A class loader that defines the class of a compiled program so that
+ * the program can execute in the same process.  The class resolves the
+ * runtime support classes through the loader of this class.</p>
+ */
+public class ProgramClassLoader extends ClassLoader
+{
+    /**
+     * Constructor.
+     */
+    public ProgramClassLoader()
+    {
+        super(ProgramClassLoader.class.getClassLoader());
+    }
+
+    /**
+     * Define the class of a compiled program.
+     * @param program the compiled program.
+     * @return the class.
+     */
+    public Class<?> defineProgram(JvmProgram program)
+    {
+        byte bytes[] = program.getClassBytes();
+        return defineClass(JvmProgram.CLASS_NAME, bytes, 0, bytes.length);
+    }
+}
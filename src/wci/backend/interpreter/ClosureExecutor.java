@@ -0,0 +1,59 @@
+package wci.backend.interpreter;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.closures.*;
+import wci.message.*;
+
+import static wci.message.MessageType.INTERPRETER_SUMMARY;
+
+/**
+ * <h1>ClosureExecutor</h1>
+ *
+ * <p>An executor that first turns the intermediate code into a closure
+ * tree of pre-linked, specialized nodes and then executes that tree.
+ * No executor objects are created and no node types are switched on
+ * while the program runs.</p>
+ */
+public class ClosureExecutor extends Executor
+{
+    /**
+     * Constructor.
+     * @param context the context of the compilation.
+     */
+    public ClosureExecutor(CompilationContext context)
+    {
+        super(context);
+    }
+
+    /**
+     * Execute the source program by building the closure tree from the
+     * intermediate code and then executing the tree.
+     * @param iCode the intermediate code.
+     * @param symTabStack the symbol table stack.
+     * @throws Exception if an error occurred.
+     */
+    public void process(ICode iCode, SymTabStack symTabStack)
+        throws Exception
+    {
+        this.symTabStack = symTabStack;
+        this.iCode = iCode;
+
+        long startTime = System.currentTimeMillis();
+
+        // Create the frame for the program's variables.  Build the closure
+        // tree from the root node and execute it.
+        Frame frame = new Frame(symTabStack.getLocalSymTab());
+        ClosureBuilder builder = new ClosureBuilder(this, iCode, frame);
+        StatementNode rootNode = builder.buildStatement(iCode.getRoot());
+        rootNode.execute();
+
+        float elapsedTime = (System.currentTimeMillis() - startTime)/1000f;
+        int runtimeErrors = errorHandler.getErrorCount();
+
+        // Send the interpreter summary message.
+        sendMessage(new Message(INTERPRETER_SUMMARY,
+                                new Number[] {context.getExecutionCount(),
+                                              runtimeErrors,
+                                              elapsedTime}));
+    }
+}
@@ -1,5 +1,7 @@
 package wci.backend.interpreter;
 
+import java.util.HashMap;
+
 import wci.intermediate.*;
 import wci.intermediate.icodeimpl.*;
 import wci.backend.*;
@@ -19,26 +21,41 @@ import static wci.message.MessageType.INTERPRETER_SUMMARY;
  */
 public class Executor extends Backend
 {
-    protected static int executionCount;
-    protected static RuntimeErrorHandler errorHandler;
+    protected RuntimeErrorHandler errorHandler;  // runtime error handler
 
-    static {
-        executionCount = 0;
-        errorHandler = new RuntimeErrorHandler();
-    }
+    // Jump table cache of the SELECT executors: entry key is a SELECT
+    // node, entry value is the jump table.
+    // Jump table: entry key is a selection value,
+    //             entry value is the branch statement.
+    protected HashMap<ICodeNode, HashMap<Object, ICodeNode>> jumpCache;
+
+    protected Profiler profiler;  // execution profiler, or null
 
     /**
      * Constructor.
+     * @param context the context of the compilation.
      */
-    public Executor() {}
+    public Executor(CompilationContext context)
+    {
+        super(context);
+
+        this.errorHandler = new RuntimeErrorHandler();
+        this.jumpCache = new HashMap<ICodeNode, HashMap<Object, ICodeNode>>();
+        this.profiler = null;
+    }
 
     /**
-     * Constructor for subclasses.
+     * Constructor for subclasses, which share the error handler, the
+     * jump table cache, and the profiler of the parent executor.
      * @param the parent executor.
      */
     public Executor(Executor parent)
     {
-        super();
+        super(parent);
+
+        this.errorHandler = parent.errorHandler;
+        this.jumpCache = parent.jumpCache;
+        this.profiler = parent.profiler;
     }
 
     /**
@@ -50,6 +67,17 @@ public class Executor extends Backend
         return errorHandler;
     }
 
+    /**
+     * Setter.  Only the statements that the executors of this package
+     * execute by walking the parse tree are profiled.
+     * @param profiler the profiler to record the execution of each
+     *                 statement, or null not to profile.
+     */
+    public void setProfiler(Profiler profiler)
+    {
+        this.profiler = profiler;
+    }
+
     /**
      * Execute the source program by processing the intermediate code
      * and the symbol table stack generated by the parser.
@@ -75,7 +103,7 @@ public class Executor extends Backend
 
         // Send the interpreter summary message.
         sendMessage(new Message(INTERPRETER_SUMMARY,
-                                new Number[] {executionCount,
+                                new Number[] {context.getExecutionCount(),
                                               runtimeErrors,
                                               elapsedTime}));
     }
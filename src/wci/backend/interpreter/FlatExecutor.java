@@ -0,0 +1,481 @@
+package wci.backend.interpreter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+
+import wci.intermediate.*;
+import wci.intermediate.icodeimpl.*;
+import wci.message.*;
+
+import static wci.intermediate.symtabimpl.SymTabKeyImpl.TEMPORARY;
+import static wci.intermediate.icodeimpl.ICodeNodeTypeImpl.*;
+import static wci.backend.interpreter.RuntimeErrorCode.*;
+import static wci.message.MessageType.INTERPRETER_SUMMARY;
+import static wci.message.MessageType.SOURCE_LINE;
+
+/**
+ * <h1>FlatExecutor</h1>
+ *
+ * <p>An executor that walks flat, array-encoded intermediate code by
+ * node index.  The variables' values are kept in an array indexed by the
+ * variables' symbol table slots.  Intermediate code that is a tree of
+ * node objects is first copied into flat intermediate code.</p>
+ */
+public class FlatExecutor extends Executor
+{
+    private FlatICodeImpl flat;   // the flat intermediate code
+    private Object values[];      // variable values indexed by slot
+
+    // Jump tables indexed by SELECT node index.
+    // Jump table: entry key is a selection value,
+    //             entry value is the branch statement node index.
+    private ArrayList<HashMap<Object, Integer>> jumpTables;
+
+    /**
+     * Constructor.
+     * @param context the context of the compilation.
+     */
+    public FlatExecutor(CompilationContext context)
+    {
+        super(context);
+    }
+
+    /**
+     * Execute the source program by walking the flat intermediate code.
+     * @param iCode the intermediate code.
+     * @param symTabStack the symbol table stack.
+     * @throws Exception if an error occurred.
+     */
+    public void process(ICode iCode, SymTabStack symTabStack)
+        throws Exception
+    {
+        this.symTabStack = symTabStack;
+        this.iCode = iCode;
+
+        long startTime = System.currentTimeMillis();
+
+        if (iCode instanceof FlatICodeImpl) {
+            flat = (FlatICodeImpl) iCode;
+        }
+        else {
+            flat = new FlatICodeImpl();
+            flat.setRoot(iCode.getRoot());
+        }
+
+        values = new Object[symTabStack.getLocalSymTab().getSlotCount()];
+        jumpTables = new ArrayList<HashMap<Object, Integer>>(
+                         Collections.nCopies(flat.getNodeCount(),
+                                             (HashMap<Object, Integer>) null));
+
+        int root = flat.getRootIndex();
+        if (root >= 0) {
+            executeStatement(root);
+        }
+
+        float elapsedTime = (System.currentTimeMillis() - startTime)/1000f;
+        int runtimeErrors = errorHandler.getErrorCount();
+
+        // Send the interpreter summary message.
+        sendMessage(new Message(INTERPRETER_SUMMARY,
+                                new Number[] {context.getExecutionCount(),
+                                              runtimeErrors,
+                                              elapsedTime}));
+    }
+
+    /**
+     * Execute a statement.
+     * @param node the index of the root node of the statement.
+     */
+    private void executeStatement(int node)
+    {
+        int lineNumber = flat.getLineNumber(node);
+
+        // Send a message about the current source line.
+        if ((lineNumber >= 0) && isEnabled(SOURCE_LINE)) {
+            sendMessage(new Message(SOURCE_LINE, lineNumber));
+        }
+
+        switch (flat.getType(node)) {
+
+            case COMPOUND: {
+                for (int child = flat.getFirstChild(node); child >= 0;
+                     child = flat.getNextSibling(child)) {
+                    executeStatement(child);
+                }
+
+                break;
+            }
+
+            case ASSIGN: {
+                int variableNode = flat.getFirstChild(node);
+                int expressionNode = flat.getNextSibling(variableNode);
+
+                // Execute the expression and store its value
+                // in the variable's slot.
+                Object value = executeExpression(expressionNode);
+                SymTabEntry variableId =
+                    (SymTabEntry) flat.getId(variableNode);
+                values[variableId.getSlot()] = value;
+
+                // Send an ASSIGN message.
+                if ((lineNumber >= 0) && isEnabled(MessageType.ASSIGN)) {
+                    sendMessage(new Message(MessageType.ASSIGN,
+                                            new Object[] {lineNumber,
+                                                          variableId.getName(),
+                                                          value}));
+                }
+
+                // The optimizer's assignments to temporaries are not
+                // counted.
+                if (variableId.getAttribute(TEMPORARY) == null) {
+                    context.countExecution();
+                }
+                break;
+            }
+
+            case LOOP: {
+                boolean exitLoop = false;
+
+                // Loop until the TEST expression value is true.
+                while (!exitLoop) {
+                    context.countExecution();  // count the loop statement
+
+                    // Execute the children of the LOOP node.
+                    for (int child = flat.getFirstChild(node);
+                         !exitLoop && (child >= 0);
+                         child = flat.getNextSibling(child)) {
+                        if (flat.getType(child) == TEST) {
+                            int test = flat.getFirstChild(child);
+                            exitLoop = (Boolean) executeExpression(test);
+                        }
+                        else {
+                            executeStatement(child);
+                        }
+                    }
+                }
+
+                break;
+            }
+
+            case FOR: executeFor(node); break;
+
+            case IF: {
+                int exprNode = flat.getFirstChild(node);
+                int thenStmtNode = flat.getNextSibling(exprNode);
+                int elseStmtNode = flat.getNextSibling(thenStmtNode);
+
+                // Evaluate the expression to determine which statement
+                // to execute.
+                if ((Boolean) executeExpression(exprNode)) {
+                    executeStatement(thenStmtNode);
+                }
+                else if (elseStmtNode >= 0) {
+                    executeStatement(elseStmtNode);
+                }
+
+                context.countExecution();  // count the IF statement itself
+                break;
+            }
+
+            case SELECT: {
+                HashMap<Object, Integer> jumpTable = jumpTables.get(node);
+                if (jumpTable == null) {
+                    jumpTable = createJumpTable(node);
+                    jumpTables.set(node, jumpTable);
+                }
+
+                // Evaluate the SELECT expression and execute the selected
+                // branch statement, if any.
+                Object selectValue =
+                    executeExpression(flat.getFirstChild(node));
+                Integer statementNode = jumpTable.get(selectValue);
+                if (statementNode != null) {
+                    executeStatement(statementNode);
+                }
+
+                context.countExecution();  // count the SELECT statement itself
+                break;
+            }
+
+            case NO_OP: break;
+
+            default: {
+                errorHandler.flag(flat.getNode(node),
+                                  UNIMPLEMENTED_FEATURE, this);
+            }
+        }
+    }
+
+    /**
+     * Execute a FOR statement.  The termination expression is evaluated
+     * once.  While the control variable and the limit are integers, the
+     * control variable is advanced as an int.
+     * @param node the index of the FOR node.
+     */
+    private void executeFor(int node)
+    {
+        int initNode = flat.getFirstChild(node);
+        int limitNode = flat.getNextSibling(initNode);
+        int statementNode = flat.getNextSibling(limitNode);
+        int nextNode = flat.getNextSibling(statementNode);
+
+        SymTabEntry variableId =
+            (SymTabEntry) flat.getId(flat.getFirstChild(initNode));
+        int slot = variableId.getSlot();
+        int operatorNode = flat.getNextSibling(flat.getFirstChild(nextNode));
+        boolean down = flat.getType(operatorNode) == SUBTRACT;
+
+        // Assign the initial value and evaluate the limit.
+        executeStatement(initNode);
+        Object limit = executeExpression(limitNode);
+        Object value = values[slot];
+
+        if ((value instanceof Integer) && (limit instanceof Integer)) {
+            int count = (Integer) value;
+            int last = (Integer) limit;
+            int lineNumber = flat.getLineNumber(nextNode);
+
+            while (true) {
+                context.countExecution();  // count the loop statement itself
+
+                if (down ? count < last : count > last) {
+                    return;
+                }
+
+                executeStatement(statementNode);
+
+                // The nested statement may have assigned
+                // the control variable.
+                if (values[slot] != value) {
+                    if (!(values[slot] instanceof Integer)) {
+                        executeStatement(nextNode);
+                        break;
+                    }
+
+                    count = (Integer) values[slot];
+                }
+
+                // Advance the control variable.
+                count = down ? count - 1 : count + 1;
+                value = count;
+                values[slot] = value;
+
+                if (lineNumber >= 0) {
+                    if (isEnabled(SOURCE_LINE)) {
+                        sendMessage(new Message(SOURCE_LINE, lineNumber));
+                    }
+                    if (isEnabled(MessageType.ASSIGN)) {
+                        sendMessage(new Message(MessageType.ASSIGN,
+                                                new Object[] {
+                                                    lineNumber,
+                                                    variableId.getName(),
+                                                    value}));
+                    }
+                }
+
+                context.countExecution();  // count the advancing assignment
+            }
+        }
+
+        // Compare the values of any other kinds as the TEST of a loop does.
+        while (true) {
+            context.countExecution();  // count the loop statement itself
+
+            value = values[slot];
+            boolean past;
+            if ((value instanceof Integer) && (limit instanceof Integer)) {
+                past = down ? (Integer) value < (Integer) limit
+                            : (Integer) value > (Integer) limit;
+            }
+            else {
+                past = down ? toFloat(value) < toFloat(limit)
+                            : toFloat(value) > toFloat(limit);
+            }
+
+            if (past) {
+                return;
+            }
+
+            executeStatement(statementNode);
+            executeStatement(nextNode);
+        }
+    }
+
+    /**
+     * Create a jump table for a SELECT node.
+     * @param node the index of the SELECT node.
+     * @return the jump table.
+     */
+    private HashMap<Object, Integer> createJumpTable(int node)
+    {
+        HashMap<Object, Integer> jumpTable = new HashMap<Object, Integer>();
+
+        // Loop over the SELECT_BRANCH children after the expression.
+        for (int branchNode = flat.getNextSibling(flat.getFirstChild(node));
+             branchNode >= 0; branchNode = flat.getNextSibling(branchNode)) {
+            int constantsNode = flat.getFirstChild(branchNode);
+            int statementNode = flat.getNextSibling(constantsNode);
+
+            // Create a jump table entry for each branch constant.
+            for (int constantNode = flat.getFirstChild(constantsNode);
+                 constantNode >= 0;
+                 constantNode = flat.getNextSibling(constantNode)) {
+                jumpTable.put(flat.getValue(constantNode), statementNode);
+            }
+        }
+
+        return jumpTable;
+    }
+
+    /**
+     * Execute an expression.
+     * @param node the index of the root node of the expression.
+     * @return the computed value of the expression.
+     */
+    private Object executeExpression(int node)
+    {
+        ICodeNodeTypeImpl nodeType = flat.getType(node);
+
+        switch (nodeType) {
+
+            case VARIABLE: {
+                SymTabEntry entry = (SymTabEntry) flat.getId(node);
+                return values[entry.getSlot()];
+            }
+
+            case INTEGER_CONSTANT:
+            case REAL_CONSTANT:
+            case STRING_CONSTANT: {
+                return flat.getValue(node);
+            }
+
+            case NEGATE: {
+                Object value = executeExpression(flat.getFirstChild(node));
+                if (value instanceof Integer) {
+                    return -((Integer) value);
+                }
+                else {
+                    return -((Float) value);
+                }
+            }
+
+            case NOT: {
+                boolean value =
+                    (Boolean) executeExpression(flat.getFirstChild(node));
+                return !value;
+            }
+
+            // Must be a binary operator.
+            default: return executeBinaryOperator(node, nodeType);
+        }
+    }
+
+    /**
+     * Execute a binary operator.
+     * @param node the index of the root node of the expression.
+     * @param nodeType the node type.
+     * @return the computed value of the expression.
+     */
+    private Object executeBinaryOperator(int node, ICodeNodeTypeImpl nodeType)
+    {
+        int operandNode1 = flat.getFirstChild(node);
+        int operandNode2 = flat.getNextSibling(operandNode1);
+
+        Object operand1 = executeExpression(operandNode1);
+        Object operand2 = executeExpression(operandNode2);
+
+        boolean integerMode = (operand1 instanceof Integer) &&
+                              (operand2 instanceof Integer);
+
+        switch (nodeType) {
+
+            case AND: return (Boolean) operand1 && (Boolean) operand2;
+            case OR:  return (Boolean) operand1 || (Boolean) operand2;
+
+            case FLOAT_DIVIDE: {
+                float value1 = toFloat(operand1);
+                float value2 = toFloat(operand2);
+
+                // Check for division by zero.
+                if (value2 != 0.0f) {
+                    return value1/value2;
+                }
+                else {
+                    errorHandler.flag(flat.getNode(node),
+                                      DIVISION_BY_ZERO, this);
+                    return integerMode ? (Object) 0 : (Object) 0.0f;
+                }
+            }
+
+            case INTEGER_DIVIDE:
+            case MOD: {
+
+                // Integer operations only.
+                if (!integerMode) {
+                    return 0;
+                }
+
+                int value1 = (Integer) operand1;
+                int value2 = (Integer) operand2;
+
+                // Check for division by zero.
+                if (value2 != 0) {
+                    return nodeType == MOD ? value1%value2 : value1/value2;
+                }
+                else {
+                    errorHandler.flag(flat.getNode(node),
+                                      DIVISION_BY_ZERO, this);
+                    return 0;
+                }
+            }
+        }
+
+        if (integerMode) {
+            int value1 = (Integer) operand1;
+            int value2 = (Integer) operand2;
+
+            // Integer operands.
+            switch (nodeType) {
+                case ADD:      return value1 + value2;
+                case SUBTRACT: return value1 - value2;
+                case MULTIPLY: return value1 * value2;
+                case EQ:       return value1 == value2;
+                case NE:       return value1 != value2;
+                case LT:       return value1 <  value2;
+                case LE:       return value1 <= value2;
+                case GT:       return value1 >  value2;
+                case GE:       return value1 >= value2;
+            }
+        }
+        else {
+            float value1 = toFloat(operand1);
+            float value2 = toFloat(operand2);
+
+            // Float operands.
+            switch (nodeType) {
+                case ADD:      return value1 + value2;
+                case SUBTRACT: return value1 - value2;
+                case MULTIPLY: return value1 * value2;
+                case EQ:       return value1 == value2;
+                case NE:       return value1 != value2;
+                case LT:       return value1 <  value2;
+                case LE:       return value1 <= value2;
+                case GT:       return value1 >  value2;
+                case GE:       return value1 >= value2;
+            }
+        }
+
+        return 0;  // should never get here
+    }
+
+    /**
+     * Convert an integer or float operand value to float.
+     * @param value the operand value.
+     * @return the float value.
+     */
+    private float toFloat(Object value)
+    {
+        return value instanceof Integer ? (Integer) value : (Float) value;
+    }
+}
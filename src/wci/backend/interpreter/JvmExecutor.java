@@ -0,0 +1,160 @@
+package wci.backend.interpreter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import wci.intermediate.*;
+import wci.backend.compiler.jvm.*;
+import wci.message.*;
+
+import static wci.backend.interpreter.RuntimeErrorCode.*;
+import static wci.message.MessageType.INTERPRETER_SUMMARY;
+import static wci.message.MessageType.SOURCE_LINE;
+
+/**
+ * <h1>JvmExecutor</h1>
+ *
+ * <p>An executor that compiles the intermediate code into a JVM class,
+ * loads the class into this process, and calls its method to execute the
+ * program, which the JVM then compiles to machine code.  A program too
+ * large for a single JVM method is executed by the virtual machine
+ * instead.</p>
+ */
+public class JvmExecutor extends Executor
+{
+    /**
+     * Constructor.
+     * @param context the context of the compilation.
+     */
+    public JvmExecutor(CompilationContext context)
+    {
+        super(context);
+    }
+
+    /**
+     * Execute the source program by compiling it to a JVM class
+     * and calling the class's method.
+     * @param iCode the intermediate code.
+     * @param symTabStack the symbol table stack.
+     * @throws Exception if an error occurred.
+     */
+    public void process(ICode iCode, SymTabStack symTabStack)
+        throws Exception
+    {
+        JvmProgram program;
+
+        try {
+            JvmCodeGenerator codeGenerator = new JvmCodeGenerator(context);
+            program = codeGenerator.generateProgram(iCode, symTabStack);
+        }
+        catch (ClassFileLimitException ex) {
+
+            // The program is too large for a single JVM method.
+            new VirtualMachine(this).process(iCode, symTabStack);
+            return;
+        }
+
+        this.symTabStack = symTabStack;
+        this.iCode = iCode;
+
+        long startTime = System.currentTimeMillis();
+
+        Class<?> programClass =
+            new ProgramClassLoader().defineProgram(program);
+        Method method = programClass.getMethod(JvmProgram.METHOD_NAME,
+                                               PascalRuntime.class);
+
+        try {
+            method.invoke(null, new ExecutorRuntime(program));
+        }
+        catch (InvocationTargetException ex) {
+
+            // Abort the same way as the other executors.
+            if (ex.getCause() instanceof AbortException) {
+                throw (AbortException) ex.getCause();
+            }
+
+            throw ex;
+        }
+
+        float elapsedTime = (System.currentTimeMillis() - startTime)/1000f;
+        int runtimeErrors = errorHandler.getErrorCount();
+
+        // Send the interpreter summary message.
+        sendMessage(new Message(INTERPRETER_SUMMARY,
+                                new Number[] {context.getExecutionCount(),
+                                              runtimeErrors,
+                                              elapsedTime}));
+    }
+
+    /**
+     * The runtime that the program calls back into to send the runtime
+     * messages and to flag the runtime errors.
+     */
+    private class ExecutorRuntime extends PascalRuntime
+    {
+        /**
+         * Constructor.
+         * @param program the generated program.
+         */
+        public ExecutorRuntime(JvmProgram program)
+        {
+            super(program);
+        }
+
+        /**
+         * Send a SOURCE_LINE message.
+         * @param lineNumber the statement's line number.
+         */
+        public void line(int lineNumber)
+        {
+            if (isEnabled(SOURCE_LINE)) {
+                sendMessage(new Message(SOURCE_LINE, lineNumber));
+            }
+        }
+
+        /**
+         * Send an ASSIGN message.
+         * @param lineNumber the assignment's line number.
+         * @param name the variable name.
+         * @param value the assigned value.
+         */
+        public void assigned(int lineNumber, String name, Object value)
+        {
+            if (isEnabled(MessageType.ASSIGN)) {
+                sendMessage(new Message(MessageType.ASSIGN,
+                                        new Object[] {lineNumber, name,
+                                                      value}));
+            }
+        }
+
+        /**
+         * Flag a division by zero.
+         * @param node the index of the operator node.
+         */
+        public void divisionByZero(int node)
+        {
+            errorHandler.flag(nodes.get(node), DIVISION_BY_ZERO,
+                              JvmExecutor.this);
+        }
+
+        /**
+         * Flag an unimplemented feature.
+         * @param node the index of the statement node.
+         */
+        public void unimplemented(int node)
+        {
+            errorHandler.flag(nodes.get(node), UNIMPLEMENTED_FEATURE,
+                              JvmExecutor.this);
+        }
+
+        /**
+         * Add the number of statements executed.
+         * @param count the number of statements.
+         */
+        public void count(int count)
+        {
+            context.countExecutions(count);
+        }
+    }
+}
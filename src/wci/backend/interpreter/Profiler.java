@@ -0,0 +1,241 @@
+package wci.backend.interpreter;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+import wci.intermediate.*;
+import wci.intermediate.icodeimpl.*;
+
+import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+
+/**
+ * <h1>Profiler</h1>
+ *
+ * <p>The execution profile of a program: for each source line and for
+ * each type of statement node, the number of statements executed, the
+ * time spent in them including the time spent in their child statements,
+ * and the time spent in them alone.  The executor calls enter() before
+ * and exit() after it executes each statement.</p>
+ *
+ * <p>A statement nested in another statement of the same line, or of the
+ * same type, is counted, but its time is already part of the total time
+ * of the enclosing statement and is not added again.</p>
+ */
+public class Profiler
+{
+    private static final int TYPE_COUNT = ICodeNodeTypeImpl.values().length;
+
+    private long lineCounts[];       // statements executed, by line
+    private long lineTotalTimes[];   // nanoseconds including children
+    private long lineSelfTimes[];    // nanoseconds excluding children
+    private int lineActive[];        // statements of the line executing
+
+    private long typeCounts[];       // statements executed, by node type
+    private long typeTotalTimes[];   // nanoseconds including children
+    private long typeSelfTimes[];    // nanoseconds excluding children
+    private int typeActive[];        // statements of the type executing
+
+    private long childTimes[];  // time of the children of each statement
+    private int depth;          // depth of the statement executing
+
+    /**
+     * Constructor.
+     */
+    public Profiler()
+    {
+        this.lineCounts = new long[64];
+        this.lineTotalTimes = new long[64];
+        this.lineSelfTimes = new long[64];
+        this.lineActive = new int[64];
+
+        this.typeCounts = new long[TYPE_COUNT];
+        this.typeTotalTimes = new long[TYPE_COUNT];
+        this.typeSelfTimes = new long[TYPE_COUNT];
+        this.typeActive = new int[TYPE_COUNT];
+
+        this.childTimes = new long[64];
+        this.depth = 0;
+    }
+
+    /**
+     * Start timing a statement.
+     * @param node the root node of the statement.
+     * @return the start time in nanoseconds, to pass to exit().
+     */
+    public long enter(ICodeNode node)
+    {
+        int line = lineOf(node);
+
+        if (line >= lineCounts.length) {
+            growLines(line);
+        }
+        ++lineCounts[line];
+        ++lineActive[line];
+
+        int type = ((ICodeNodeTypeImpl) node.getType()).ordinal();
+        ++typeCounts[type];
+        ++typeActive[type];
+
+        if (++depth == childTimes.length) {
+            long times[] = new long[2*childTimes.length];
+            System.arraycopy(childTimes, 0, times, 0, childTimes.length);
+            childTimes = times;
+        }
+        childTimes[depth] = 0;
+
+        return System.nanoTime();
+    }
+
+    /**
+     * Stop timing a statement.
+     * @param node the root node of the statement.
+     * @param startTime the start time returned by enter().
+     */
+    public void exit(ICodeNode node, long startTime)
+    {
+        long totalTime = System.nanoTime() - startTime;
+        long selfTime = totalTime - childTimes[depth--];
+
+        // The statement's time is part of its parent's child time.
+        childTimes[depth] += totalTime;
+
+        int line = lineOf(node);
+        lineSelfTimes[line] += selfTime;
+        if (--lineActive[line] == 0) {
+            lineTotalTimes[line] += totalTime;
+        }
+
+        int type = ((ICodeNodeTypeImpl) node.getType()).ordinal();
+        typeSelfTimes[type] += selfTime;
+        if (--typeActive[type] == 0) {
+            typeTotalTimes[type] += totalTime;
+        }
+    }
+
+    private static final String LINE_HEADING =
+        "\n Line          Count       Self ms      Total ms";
+    private static final String LINE_UNDERLINE =
+        " ----          -----       -------      --------";
+    private static final String LINE_FORMAT =
+        " %03d %,15d %,13.2f %,13.2f\n";
+
+    private static final String TYPE_HEADING =
+        "\n Node type     Count       Self ms      Total ms";
+    private static final String TYPE_UNDERLINE =
+        " ---------     -----       -------      --------";
+    private static final String TYPE_FORMAT =
+        " %-8s %,10d %,13.2f %,13.2f\n";
+
+    /**
+     * Print the profile: the source lines and then the node types, each
+     * sorted by the time spent in their statements alone, the most
+     * first.
+     * @param ps the output print stream.
+     */
+    public void print(PrintStream ps)
+    {
+        ps.println("\n===== PROFILE =====");
+
+        // Source lines.
+        ps.println(LINE_HEADING);
+        ps.println(LINE_UNDERLINE);
+        for (int line : sortedBySelfTime(lineCounts, lineSelfTimes)) {
+            ps.printf(LINE_FORMAT, line, lineCounts[line],
+                      millis(lineSelfTimes[line]),
+                      millis(lineTotalTimes[line]));
+        }
+
+        // Node types.
+        ICodeNodeTypeImpl types[] = ICodeNodeTypeImpl.values();
+        ps.println(TYPE_HEADING);
+        ps.println(TYPE_UNDERLINE);
+        for (int type : sortedBySelfTime(typeCounts, typeSelfTimes)) {
+            ps.printf(TYPE_FORMAT, types[type], typeCounts[type],
+                      millis(typeSelfTimes[type]),
+                      millis(typeTotalTimes[type]));
+        }
+    }
+
+    /**
+     * Return the indexes of the entries that have executed statements,
+     * sorted by their time alone, the most first.
+     * @param counts the statement counts of the entries.
+     * @param selfTimes the self times of the entries.
+     * @return the sorted list of indexes.
+     */
+    private static ArrayList<Integer> sortedBySelfTime(
+        long counts[], final long selfTimes[])
+    {
+        ArrayList<Integer> indexes = new ArrayList<Integer>();
+
+        for (int i = 0; i < counts.length; ++i) {
+            if (counts[i] > 0) {
+                indexes.add(i);
+            }
+        }
+
+        Collections.sort(indexes, new Comparator<Integer>()
+        {
+            public int compare(Integer i1, Integer i2)
+            {
+                int order = Long.compare(selfTimes[i2], selfTimes[i1]);
+                return order != 0 ? order : Integer.compare(i1, i2);
+            }
+        });
+
+        return indexes;
+    }
+
+    /**
+     * Return the source line number of a statement.
+     * @param node the root node of the statement.
+     * @return the line number, or 0 if the node has none.
+     */
+    private static int lineOf(ICodeNode node)
+    {
+        Object line = node.getAttribute(LINE);
+        return line != null ? (Integer) line : 0;
+    }
+
+    /**
+     * Make room for the entry of a source line.
+     * @param line the line number.
+     */
+    private void growLines(int line)
+    {
+        int length = Math.max(2*lineCounts.length, line + 1);
+
+        lineCounts = grow(lineCounts, length);
+        lineTotalTimes = grow(lineTotalTimes, length);
+        lineSelfTimes = grow(lineSelfTimes, length);
+
+        int active[] = new int[length];
+        System.arraycopy(lineActive, 0, active, 0, lineActive.length);
+        lineActive = active;
+    }
+
+    /**
+     * Return a copy of an array with a new length.
+     * @param array the array.
+     * @param length the new length.
+     * @return the copy.
+     */
+    private static long[] grow(long array[], int length)
+    {
+        long copy[] = new long[length];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    /**
+     * Convert nanoseconds to milliseconds.
+     * @param nanos the nanoseconds.
+     * @return the milliseconds.
+     */
+    private static double millis(long nanos)
+    {
+        return nanos/1000000.0;
+    }
+}
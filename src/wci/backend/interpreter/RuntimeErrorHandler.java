@@ -19,13 +19,13 @@ public class RuntimeErrorHandler
 {
     private static final int MAX_ERRORS = 5;
 
-    private static int errorCount = 0;    // count of runtime errors
+    private int errorCount = 0;    // count of runtime errors
 
     /**
      * Getter
      * @return the count of runtime errors.
      */
-    public static int getErrorCount()
+    public int getErrorCount()
     {
         return errorCount;
     }
@@ -53,8 +53,8 @@ public class RuntimeErrorHandler
                                       (Integer) node.getAttribute(LINE)}));
 
         if (++errorCount > MAX_ERRORS) {
-            System.out.println("*** ABORTED AFTER TOO MANY RUNTIME ERRORS.");
-            System.exit(-1);
+            throw new AbortException(
+                      -1, "*** ABORTED AFTER TOO MANY RUNTIME ERRORS.");
         }
     }
 }
@@ -0,0 +1,507 @@
+package wci.backend.interpreter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import wci.intermediate.*;
+import wci.backend.compiler.*;
+import wci.message.*;
+
+import static wci.backend.compiler.Opcode.*;
+import static wci.backend.interpreter.RuntimeErrorCode.*;
+import static wci.message.MessageType.INTERPRETER_SUMMARY;
+import static wci.message.MessageType.SOURCE_LINE;
+
+/**
+ * <h1>VirtualMachine</h1>
+ *
+ * <p>An executor that compiles the intermediate code into stack bytecode
+ * with the code generator and then executes the linear instruction stream
+ * in a single switch loop.  Variables live in slot-indexed arrays by
+ * storage kind, and each typed instruction works on the int or float
+ * operand stack without boxing.</p>
+ */
+public class VirtualMachine extends Executor
+{
+    private Object constants[];     // constant pool
+    private ValueKind slotKinds[];  // storage kinds of the slots
+    private int ints[];             // INTEGER and BOOLEAN variables
+    private float floats[];         // REAL variables
+    private Object objects[];       // all other variables
+    private boolean assigned[];     // true if a typed slot has been assigned
+
+    /**
+     * Constructor.
+     * @param context the context of the compilation.
+     */
+    public VirtualMachine(CompilationContext context)
+    {
+        super(context);
+    }
+
+    /**
+     * Constructor for an executor that runs a program in place of
+     * another executor, sharing its message handler and error handler.
+     * @param parent the other executor.
+     */
+    public VirtualMachine(Executor parent)
+    {
+        super(parent);
+    }
+
+    /**
+     * Execute the source program by compiling it to bytecode
+     * and executing the bytecode.
+     * @param iCode the intermediate code.
+     * @param symTabStack the symbol table stack.
+     * @throws Exception if an error occurred.
+     */
+    public void process(ICode iCode, SymTabStack symTabStack)
+        throws Exception
+    {
+        this.symTabStack = symTabStack;
+        this.iCode = iCode;
+
+        long startTime = System.currentTimeMillis();
+
+        CodeGenerator codeGenerator = new CodeGenerator(context);
+        Bytecode bytecode = codeGenerator.generate(iCode, symTabStack);
+        run(bytecode);
+
+        float elapsedTime = (System.currentTimeMillis() - startTime)/1000f;
+        int runtimeErrors = errorHandler.getErrorCount();
+
+        // Send the interpreter summary message.
+        sendMessage(new Message(INTERPRETER_SUMMARY,
+                                new Number[] {context.getExecutionCount(),
+                                              runtimeErrors,
+                                              elapsedTime}));
+    }
+
+    /**
+     * Execute bytecode until its HALT instruction.
+     * @param bytecode the bytecode.
+     */
+    private void run(Bytecode bytecode)
+    {
+        int code[] = bytecode.getCode();
+        int slotCount = bytecode.getSlotKinds().length;
+
+        constants = bytecode.getConstants();
+        slotKinds = bytecode.getSlotKinds();
+        ints = new int[slotCount];
+        floats = new float[slotCount];
+        objects = new Object[slotCount];
+        assigned = new boolean[slotCount];
+
+        // Local copies for the loop.
+        Object constants[] = this.constants;
+        ArrayList<HashMap<Object, Integer>> jumpTables =
+            bytecode.getJumpTables();
+        int ints[] = this.ints;
+        float floats[] = this.floats;
+        Object objects[] = this.objects;
+        boolean assigned[] = this.assigned;
+
+        // Each instruction pushes at most one value,
+        // so no stack can be deeper than the code is long.
+        int istack[] = new int[code.length];
+        float fstack[] = new float[code.length];
+        Object ostack[] = new Object[code.length];
+        int isp = 0, fsp = 0, osp = 0;
+
+        int pc = 0;
+        int count = 0;
+
+        for (;;) {
+            switch (code[pc++]) {
+
+                case ICONST: istack[isp++] = code[pc++]; break;
+                case FCONST: fstack[fsp++] =
+                                 Float.intBitsToFloat(code[pc++]); break;
+                case OCONST: ostack[osp++] = constants[code[pc++]]; break;
+
+                case ILOAD: istack[isp++] = ints[code[pc++]];   break;
+                case FLOAD: fstack[fsp++] = floats[code[pc++]]; break;
+                case OLOAD: ostack[osp++] = slotValue(code[pc++]); break;
+
+                case ISTORE: {
+                    int slot = code[pc++];
+                    ints[slot] = istack[--isp];
+                    assigned[slot] = true;
+                    break;
+                }
+
+                case FSTORE: {
+                    int slot = code[pc++];
+                    floats[slot] = fstack[--fsp];
+                    assigned[slot] = true;
+                    break;
+                }
+
+                case OSTORE: objects[code[pc++]] = ostack[--osp]; break;
+
+                case IADD: --isp; istack[isp-1] += istack[isp]; break;
+                case ISUB: --isp; istack[isp-1] -= istack[isp]; break;
+                case IMUL: --isp; istack[isp-1] *= istack[isp]; break;
+                case INEG: istack[isp-1] = -istack[isp-1];       break;
+
+                case IDIV: {
+                    int node = code[pc++];
+                    int value2 = istack[--isp];
+
+                    // Check for division by zero.
+                    if (value2 != 0) {
+                        istack[isp-1] /= value2;
+                    }
+                    else {
+                        divisionByZero(node);
+                        istack[isp-1] = 0;
+                    }
+                    break;
+                }
+
+                case IMOD: {
+                    int node = code[pc++];
+                    int value2 = istack[--isp];
+
+                    // Check for division by zero.
+                    if (value2 != 0) {
+                        istack[isp-1] %= value2;
+                    }
+                    else {
+                        divisionByZero(node);
+                        istack[isp-1] = 0;
+                    }
+                    break;
+                }
+
+                case FADD: --fsp; fstack[fsp-1] += fstack[fsp]; break;
+                case FSUB: --fsp; fstack[fsp-1] -= fstack[fsp]; break;
+                case FMUL: --fsp; fstack[fsp-1] *= fstack[fsp]; break;
+                case FNEG: fstack[fsp-1] = -fstack[fsp-1];       break;
+
+                case FDIV: {
+                    int node = code[pc++];
+                    float value2 = fstack[--fsp];
+
+                    // Check for division by zero.
+                    if (value2 != 0.0f) {
+                        fstack[fsp-1] /= value2;
+                    }
+                    else {
+                        divisionByZero(node);
+                        fstack[fsp-1] = 0.0f;
+                    }
+                    break;
+                }
+
+                case IEQ: --isp; istack[isp-1] =
+                              bool(istack[isp-1] == istack[isp]); break;
+                case INE: --isp; istack[isp-1] =
+                              bool(istack[isp-1] != istack[isp]); break;
+                case ILT: --isp; istack[isp-1] =
+                              bool(istack[isp-1] <  istack[isp]); break;
+                case ILE: --isp; istack[isp-1] =
+                              bool(istack[isp-1] <= istack[isp]); break;
+                case IGT: --isp; istack[isp-1] =
+                              bool(istack[isp-1] >  istack[isp]); break;
+                case IGE: --isp; istack[isp-1] =
+                              bool(istack[isp-1] >= istack[isp]); break;
+
+                case FEQ: fsp -= 2; istack[isp++] =
+                              bool(fstack[fsp] == fstack[fsp+1]); break;
+                case FNE: fsp -= 2; istack[isp++] =
+                              bool(fstack[fsp] != fstack[fsp+1]); break;
+                case FLT: fsp -= 2; istack[isp++] =
+                              bool(fstack[fsp] <  fstack[fsp+1]); break;
+                case FLE: fsp -= 2; istack[isp++] =
+                              bool(fstack[fsp] <= fstack[fsp+1]); break;
+                case FGT: fsp -= 2; istack[isp++] =
+                              bool(fstack[fsp] >  fstack[fsp+1]); break;
+                case FGE: fsp -= 2; istack[isp++] =
+                              bool(fstack[fsp] >= fstack[fsp+1]); break;
+
+                case NOT: istack[isp-1] ^= 1;                      break;
+                case AND: --isp; istack[isp-1] &= istack[isp];     break;
+                case OR:  --isp; istack[isp-1] |= istack[isp];     break;
+
+                case OADD: case OSUB: case OMUL: {
+                    Object operand2 = ostack[--osp];
+                    ostack[osp-1] = arithmetic(code[pc-1], ostack[osp-1],
+                                               operand2, -1);
+                    break;
+                }
+
+                case OFDIV: case OIDIV: case OMOD: {
+                    int opcode = code[pc-1];
+                    int node = code[pc++];
+                    Object operand2 = ostack[--osp];
+                    ostack[osp-1] = arithmetic(opcode, ostack[osp-1],
+                                               operand2, node);
+                    break;
+                }
+
+                case ONEG: {
+                    Object value = ostack[osp-1];
+                    ostack[osp-1] = value instanceof Integer
+                                        ? (Object) (-(Integer) value)
+                                        : (Object) (-(Float) value);
+                    break;
+                }
+
+                case OEQ: case ONE: case OLT: case OLE: case OGT: case OGE: {
+                    Object operand2 = ostack[--osp];
+                    Object operand1 = ostack[--osp];
+                    istack[isp++] = bool(compare(code[pc-1] - OEQ,
+                                                 operand1, operand2));
+                    break;
+                }
+
+                case I2F: fstack[fsp++] = istack[--isp]; break;
+
+                case BOX_I: ostack[osp++] = istack[--isp];        break;
+                case BOX_F: ostack[osp++] = fstack[--fsp];        break;
+                case BOX_B: ostack[osp++] = istack[--isp] != 0;   break;
+
+                case UNBOX_I: istack[isp++] = (Integer) ostack[--osp]; break;
+                case UNBOX_F: fstack[fsp++] = toFloat(ostack[--osp]);  break;
+                case UNBOX_B: istack[isp++] =
+                                  bool((Boolean) ostack[--osp]);       break;
+
+                case GOTO: pc = code[pc]; break;
+
+                case IF_TRUE: {
+                    pc = istack[--isp] != 0 ? code[pc] : pc + 1;
+                    break;
+                }
+
+                case IF_FALSE: {
+                    pc = istack[--isp] == 0 ? code[pc] : pc + 1;
+                    break;
+                }
+
+                case SWITCH: {
+                    HashMap<Object, Integer> jumpTable =
+                        jumpTables.get(code[pc]);
+                    Integer target = jumpTable.get(ostack[--osp]);
+                    pc = target != null ? target : code[pc+1];
+                    break;
+                }
+
+                case LINE: {
+                    if (isEnabled(SOURCE_LINE)) {
+                        sendMessage(new Message(SOURCE_LINE,
+                                                constants[code[pc]]));
+                    }
+
+                    ++pc;
+                    break;
+                }
+
+                case ASSIGNED: {
+                    int lineIndex = code[pc++];
+                    SymTabEntry variableId =
+                        (SymTabEntry) constants[code[pc++]];
+
+                    // Send an ASSIGN message.
+                    if ((lineIndex >= 0) && isEnabled(MessageType.ASSIGN)) {
+                        Object value = slotValue(variableId.getSlot());
+                        sendMessage(new Message(MessageType.ASSIGN,
+                                                new Object[] {
+                                                    constants[lineIndex],
+                                                    variableId.getName(),
+                                                    value}));
+                    }
+
+                    ++count;
+                    break;
+                }
+
+                case COUNT: ++count; break;
+
+                case UNIMPLEMENTED: {
+                    errorHandler.flag((ICodeNode) constants[code[pc++]],
+                                      UNIMPLEMENTED_FEATURE, this);
+                    break;
+                }
+
+                case HALT: {
+                    context.countExecutions(count);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the value of a variable as an object.
+     * @param slot the variable's slot.
+     * @return the value, or null if a typed slot has not been assigned.
+     */
+    private Object slotValue(int slot)
+    {
+        ValueKind kind = slotKinds[slot];
+
+        if (kind == ValueKind.INTEGER) {
+            return assigned[slot] ? (Object) ints[slot] : null;
+        }
+        else if (kind == ValueKind.REAL) {
+            return assigned[slot] ? (Object) floats[slot] : null;
+        }
+        else if (kind == ValueKind.BOOLEAN) {
+            return assigned[slot] ? (Object) (ints[slot] != 0) : null;
+        }
+        else {
+            return objects[slot];
+        }
+    }
+
+    /**
+     * Flag a division by zero.
+     * @param node the constant pool index of the operator node.
+     */
+    private void divisionByZero(int node)
+    {
+        errorHandler.flag((ICodeNode) constants[node], DIVISION_BY_ZERO,
+                          this);
+    }
+
+    /**
+     * Compute an arithmetic operation on object operands, in integer mode
+     * if both are integers and in float mode otherwise.
+     * @param opcode the OADD, OSUB, OMUL, OFDIV, OIDIV, or OMOD opcode.
+     * @param operand1 the first operand.
+     * @param operand2 the second operand.
+     * @param node the constant pool index of the operator node, or -1.
+     * @return the computed value.
+     */
+    private Object arithmetic(int opcode, Object operand1, Object operand2,
+                              int node)
+    {
+        if ((operand1 instanceof Integer) && (operand2 instanceof Integer)) {
+            int value1 = (Integer) operand1;
+            int value2 = (Integer) operand2;
+
+            switch (opcode) {
+                case OADD: return value1 + value2;
+                case OSUB: return value1 - value2;
+                case OMUL: return value1 * value2;
+            }
+
+            // Check for division by zero.
+            if (value2 == 0) {
+                divisionByZero(node);
+                return 0;
+            }
+
+            switch (opcode) {
+                case OFDIV: return ((float) value1)/((float) value2);
+                case OIDIV: return value1/value2;
+                default:    return value1%value2;
+            }
+        }
+        else {
+            float value1 = toFloat(operand1);
+            float value2 = toFloat(operand2);
+
+            switch (opcode) {
+                case OADD: return value1 + value2;
+                case OSUB: return value1 - value2;
+                case OMUL: return value1 * value2;
+
+                case OFDIV: {
+
+                    // Check for division by zero.
+                    if (value2 != 0.0f) {
+                        return value1/value2;
+                    }
+                    else {
+                        divisionByZero(node);
+                        return 0.0f;
+                    }
+                }
+
+                // DIV and MOD have no float mode.
+                default: return 0;
+            }
+        }
+    }
+
+    /**
+     * Compare object operands, as integers if both are integers
+     * and as floats otherwise.
+     * @param relation 0 through 5 for EQ, NE, LT, LE, GT, and GE.
+     * @param operand1 the first operand.
+     * @param operand2 the second operand.
+     * @return the result of the comparison.
+     */
+    private boolean compare(int relation, Object operand1, Object operand2)
+    {
+        if ((operand1 instanceof Integer) && (operand2 instanceof Integer)) {
+            return compare(relation, (int) (Integer) operand1,
+                                     (int) (Integer) operand2);
+        }
+        else {
+            return compare(relation, toFloat(operand1), toFloat(operand2));
+        }
+    }
+
+    /**
+     * Compare integers.
+     * @param relation 0 through 5 for EQ, NE, LT, LE, GT, and GE.
+     * @param value1 the first value.
+     * @param value2 the second value.
+     * @return the result of the comparison.
+     */
+    private boolean compare(int relation, int value1, int value2)
+    {
+        switch (relation) {
+            case 0:  return value1 == value2;
+            case 1:  return value1 != value2;
+            case 2:  return value1 <  value2;
+            case 3:  return value1 <= value2;
+            case 4:  return value1 >  value2;
+            default: return value1 >= value2;
+        }
+    }
+
+    /**
+     * Compare floats.
+     * @param relation 0 through 5 for EQ, NE, LT, LE, GT, and GE.
+     * @param value1 the first value.
+     * @param value2 the second value.
+     * @return the result of the comparison.
+     */
+    private boolean compare(int relation, float value1, float value2)
+    {
+        switch (relation) {
+            case 0:  return value1 == value2;
+            case 1:  return value1 != value2;
+            case 2:  return value1 <  value2;
+            case 3:  return value1 <= value2;
+            case 4:  return value1 >  value2;
+            default: return value1 >= value2;
+        }
+    }
+
+    /**
+     * Convert an integer or float value to float.
+     * @param value the value.
+     * @return the float value.
+     */
+    private float toFloat(Object value)
+    {
+        return value instanceof Integer ? (Integer) value : (Float) value;
+    }
+
+    /**
+     * Convert a boolean to an int stack value.
+     * @param value the boolean.
+     * @return 1 for true, 0 for false.
+     */
+    private static int bool(boolean value)
+    {
+        return value ? 1 : 0;
+    }
+}
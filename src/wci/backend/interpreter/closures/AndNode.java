@@ -0,0 +1,55 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+import static wci.intermediate.ValueKind.*;
+
+/**
+ * <h1>AndNode</h1>
+ *
+ * <p>Evaluate a boolean AND.  Both operands are always evaluated.</p>
+ */
+public class AndNode extends ExpressionNode
+{
+    private ExpressionNode operand1;  // first operand
+    private ExpressionNode operand2;  // second operand
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the AND node.
+     * @param operand1 the first operand node.
+     * @param operand2 the second operand node.
+     */
+    public AndNode(Executor parent, ICodeNode node,
+                   ExpressionNode operand1,
+                   ExpressionNode operand2)
+    {
+        super(parent, node, BOOLEAN);
+
+        this.operand1 = operand1;
+        this.operand2 = operand2;
+    }
+
+    /**
+     * Return the "and" of the operand values.
+     * @return the value.
+     */
+    public Object evaluate()
+    {
+        return evaluateBoolean();
+    }
+
+    /**
+     * Return the "and" of the operand values.
+     * @return the value.
+     */
+    public boolean evaluateBoolean()
+    {
+        boolean value1 = operand1.evaluateBoolean();
+        boolean value2 = operand2.evaluateBoolean();
+
+        return value1 && value2;
+    }
+}
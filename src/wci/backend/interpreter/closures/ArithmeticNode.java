@@ -0,0 +1,128 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+import static wci.intermediate.ValueKind.*;
+
+/**
+ * <h1>ArithmeticNode</h1>
+ *
+ * <p>Evaluate a binary arithmetic operator.  Each subclass implements
+ * one operator in integer and in float mode.</p>
+ *
+ * <p>If the node's inferred kind is INTEGER or REAL, the operands are
+ * evaluated as primitives and the operator is applied without boxing.
+ * Otherwise, the mode is chosen from the operand values at run time.</p>
+ */
+public abstract class ArithmeticNode extends ExpressionNode
+{
+    protected ExpressionNode operand1;  // first operand
+    protected ExpressionNode operand2;  // second operand
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the operator node.
+     * @param kind the inferred kind of the expression's value.
+     * @param operand1 the first operand node.
+     * @param operand2 the second operand node.
+     */
+    public ArithmeticNode(Executor parent, ICodeNode node, ValueKind kind,
+                          ExpressionNode operand1, ExpressionNode operand2)
+    {
+        super(parent, node, kind);
+
+        this.operand1 = operand1;
+        this.operand2 = operand2;
+    }
+
+    /**
+     * Evaluate the operands and apply the operator.
+     * @return the computed value.
+     */
+    public Object evaluate()
+    {
+        if (kind == INTEGER) {
+            return evaluateInt();
+        }
+        else if (kind == REAL) {
+            return evaluateFloat();
+        }
+
+        // Mixed or unknown kinds: Choose the mode from the operand values.
+        Object value1 = operand1.evaluate();
+        Object value2 = operand2.evaluate();
+
+        return compute(value1, value2);
+    }
+
+    /**
+     * Evaluate an expression whose kind is INTEGER.
+     * @return the computed integer value.
+     */
+    public int evaluateInt()
+    {
+        return compute(operand1.evaluateInt(), operand2.evaluateInt());
+    }
+
+    /**
+     * Evaluate an expression whose kind is INTEGER or REAL.
+     * @return the computed value as a float.
+     */
+    public float evaluateFloat()
+    {
+        if (kind == INTEGER) {
+            return evaluateInt();
+        }
+        else if (kind == REAL) {
+            return compute(operand1.evaluateFloat(), operand2.evaluateFloat());
+        }
+        else {
+            return super.evaluateFloat();
+        }
+    }
+
+    /**
+     * Apply the operator to operand values of any kind: in integer mode if
+     * both values are integers, else in float mode.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the computed value.
+     */
+    protected Object compute(Object value1, Object value2)
+    {
+        if ((value1 instanceof Integer) && (value2 instanceof Integer)) {
+            return compute((int) (Integer) value1, (int) (Integer) value2);
+        }
+        else {
+            return compute(toFloat(value1), toFloat(value2));
+        }
+    }
+
+    /**
+     * Convert an operand value to a float.
+     * @param value the integer or float value.
+     * @return the float value.
+     */
+    protected static float toFloat(Object value)
+    {
+        return value instanceof Integer ? (Integer) value : (Float) value;
+    }
+
+    /**
+     * Apply the operator in integer mode.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the computed value.
+     */
+    protected abstract int compute(int value1, int value2);
+
+    /**
+     * Apply the operator in float mode.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the computed value.
+     */
+    protected abstract float compute(float value1, float value2);
+}
@@ -0,0 +1,108 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+import wci.message.*;
+
+import static wci.intermediate.ValueKind.*;
+import static wci.intermediate.symtabimpl.SymTabKeyImpl.TEMPORARY;
+import static wci.message.MessageType.ASSIGN;
+
+/**
+ * <h1>AssignNode</h1>
+ *
+ * <p>Execute an assignment statement.  The value is stored directly
+ * into the target variable's frame slot: unboxed if the variable's
+ * inferred kind is INTEGER or REAL, else as an object.</p>
+ */
+public class AssignNode extends StatementNode
+{
+    private String variableName;          // name of the target variable
+    private ValueKind variableKind;       // inferred kind of the variable
+    private Frame frame;                  // frame that holds the variable
+    private int slot;                     // the variable's slot number
+    private ExpressionNode expression;    // expression to assign
+    private boolean unboxed;              // true if the expression's kind
+                                          // matches the variable's kind
+    private boolean counted;              // false for a temporary variable
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the ASSIGN node.
+     * @param variableId the symbol table entry of the target variable.
+     * @param variableKind the inferred kind of the target variable.
+     * @param frame the frame that holds the target variable.
+     * @param expression the expression node.
+     */
+    public AssignNode(Executor parent, ICodeNode node,
+                      SymTabEntry variableId, ValueKind variableKind,
+                      Frame frame, ExpressionNode expression)
+    {
+        super(parent, node);
+
+        this.variableName = variableId.getName();
+        this.variableKind = variableKind;
+        this.frame = frame;
+        this.slot = variableId.getSlot();
+        this.expression = expression;
+        this.unboxed = expression.getKind() == variableKind;
+
+        // The optimizer's assignments to temporaries are not counted.
+        this.counted = variableId.getAttribute(TEMPORARY) == null;
+    }
+
+    /**
+     * Evaluate the expression and set the target variable's value.
+     */
+    protected void executeStatement()
+    {
+        Object value;
+
+        if (variableKind == INTEGER) {
+            if (unboxed) {
+                int intValue = expression.evaluateInt();
+                frame.ints[slot] = intValue;
+                frame.assigned[slot] = true;
+                value = intValue;
+            }
+            else {
+                value = expression.evaluate();
+                if (value != null) {
+                    frame.ints[slot] = (Integer) value;
+                }
+                frame.assigned[slot] = value != null;
+            }
+        }
+        else if (variableKind == REAL) {
+            if (unboxed) {
+                float floatValue = expression.evaluateFloat();
+                frame.floats[slot] = floatValue;
+                frame.assigned[slot] = true;
+                value = floatValue;
+            }
+            else {
+                value = expression.evaluate();
+                if (value != null) {
+                    frame.floats[slot] = (Float) value;
+                }
+                frame.assigned[slot] = value != null;
+            }
+        }
+        else {
+            value = expression.evaluate();
+            frame.values[slot] = value;
+        }
+
+        // Send an ASSIGN message.
+        if ((lineNumber != null) && isEnabled(ASSIGN)) {
+            sendMessage(new Message(ASSIGN, new Object[] {lineNumber,
+                                                          variableName,
+                                                          value}));
+        }
+
+        if (counted) {
+            context.countExecution();
+        }
+    }
+}
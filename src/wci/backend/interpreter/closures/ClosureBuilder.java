@@ -0,0 +1,242 @@
+package wci.backend.interpreter.closures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import wci.intermediate.*;
+import wci.intermediate.icodeimpl.*;
+import wci.backend.interpreter.*;
+
+import static wci.intermediate.icodeimpl.ICodeNodeTypeImpl.*;
+import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+
+/**
+ * <h1>ClosureBuilder</h1>
+ *
+ * <p>Turn the intermediate code into a closure tree in a single pass.
+ * Each intermediate code node becomes a specialized statement or
+ * expression node that is already linked to its children.</p>
+ */
+public class ClosureBuilder
+{
+    private Executor executor;          // the executor that owns the tree
+    private TypeInferencer inferencer;  // inferred kinds of values
+    private Frame frame;                // frame that holds the variables
+
+    /**
+     * Constructor.
+     * @param executor the executor that owns the closure tree.
+     * @param iCode the intermediate code to build the closure tree from.
+     * @param frame the frame that holds the program's variables.
+     */
+    public ClosureBuilder(Executor executor, ICode iCode, Frame frame)
+    {
+        this.executor = executor;
+        this.inferencer = new TypeInferencer(iCode);
+        this.frame = frame;
+    }
+
+    /**
+     * Build the closure tree of a statement.
+     * @param node the root node of the statement.
+     * @return the statement node.
+     */
+    public StatementNode buildStatement(ICodeNode node)
+    {
+        ICodeNodeTypeImpl nodeType = (ICodeNodeTypeImpl) node.getType();
+        ArrayList<ICodeNode> children = node.getChildren();
+
+        switch (nodeType) {
+
+            case COMPOUND: {
+                StatementNode statements[] =
+                    new StatementNode[children.size()];
+
+                for (int i = 0; i < statements.length; ++i) {
+                    statements[i] = buildStatement(children.get(i));
+                }
+
+                return new CompoundNode(executor, node, statements);
+            }
+
+            case ASSIGN: {
+                SymTabEntry variableId =
+                    (SymTabEntry) children.get(0).getAttribute(ID);
+                ExpressionNode expression = buildExpression(children.get(1));
+
+                return new AssignNode(executor, node, variableId,
+                                      inferencer.variableKind(variableId),
+                                      frame, expression);
+            }
+
+            case LOOP: {
+                int count = children.size();
+                ExpressionNode tests[] = new ExpressionNode[count];
+                StatementNode statements[] = new StatementNode[count];
+
+                for (int i = 0; i < count; ++i) {
+                    ICodeNode child = children.get(i);
+
+                    if (child.getType() == TEST) {
+                        tests[i] =
+                            buildExpression(child.getChildren().get(0));
+                    }
+                    else {
+                        statements[i] = buildStatement(child);
+                    }
+                }
+
+                return new LoopNode(executor, node, tests, statements);
+            }
+
+            case FOR: {
+                ICodeNode initNode = children.get(0);
+                ICodeNode nextNode = children.get(3);
+                boolean down =
+                    nextNode.getChildren().get(1).getType() == SUBTRACT;
+
+                return new ForNode(executor, node,
+                                   buildStatement(initNode),
+                                   buildExpression(
+                                       initNode.getChildren().get(0)),
+                                   buildExpression(children.get(1)),
+                                   buildStatement(children.get(2)),
+                                   buildStatement(nextNode), down);
+            }
+
+            case IF: {
+                ExpressionNode expression = buildExpression(children.get(0));
+                StatementNode thenStatement = buildStatement(children.get(1));
+                StatementNode elseStatement =
+                    children.size() > 2 ? buildStatement(children.get(2))
+                                        : null;
+
+                return new IfNode(executor, node, expression,
+                                  thenStatement, elseStatement);
+            }
+
+            case SELECT: {
+                ExpressionNode expression = buildExpression(children.get(0));
+                return new SelectNode(executor, node, expression,
+                                      buildJumpTable(node));
+            }
+
+            case NO_OP: return new NoOpNode(executor, node);
+
+            default: return new UnimplementedNode(executor, node);
+        }
+    }
+
+    /**
+     * Build the jump table of a SELECT node.
+     * @param node the SELECT node.
+     * @return the jump table: entry key is a selection value,
+     *         entry value is the branch statement node.
+     */
+    private HashMap<Object, StatementNode> buildJumpTable(ICodeNode node)
+    {
+        HashMap<Object, StatementNode> jumpTable =
+            new HashMap<Object, StatementNode>();
+
+        // Loop over children that are SELECT_BRANCH nodes.
+        ArrayList<ICodeNode> selectChildren = node.getChildren();
+        for (int i = 1; i < selectChildren.size(); ++i) {
+            ICodeNode branchNode = selectChildren.get(i);
+            ICodeNode constantsNode = branchNode.getChildren().get(0);
+            StatementNode statement =
+                buildStatement(branchNode.getChildren().get(1));
+
+            // Create a jump table entry for each branch constant.
+            for (ICodeNode constantNode : constantsNode.getChildren()) {
+                jumpTable.put(constantNode.getAttribute(VALUE), statement);
+            }
+        }
+
+        return jumpTable;
+    }
+
+    /**
+     * Build the closure tree of an expression.
+     * @param node the root node of the expression.
+     * @return the expression node.
+     */
+    public ExpressionNode buildExpression(ICodeNode node)
+    {
+        ICodeNodeTypeImpl nodeType = (ICodeNodeTypeImpl) node.getType();
+        ArrayList<ICodeNode> children = node.getChildren();
+
+        switch (nodeType) {
+
+            case VARIABLE: {
+
+                // Resolve the variable to its frame slot.
+                SymTabEntry variableId = (SymTabEntry) node.getAttribute(ID);
+                ValueKind kind = inferencer.variableKind(variableId);
+                int slot = variableId.getSlot();
+
+                switch (kind) {
+                    case INTEGER:
+                        return new IntVariableNode(executor, node,
+                                                   frame, slot);
+                    case REAL:
+                        return new FloatVariableNode(executor, node,
+                                                     frame, slot);
+                    default:
+                        return new VariableNode(executor, node, kind,
+                                                frame, slot);
+                }
+            }
+
+            case INTEGER_CONSTANT:
+            case REAL_CONSTANT:
+            case STRING_CONSTANT: {
+                return new ConstantNode(executor, node,
+                                        node.getAttribute(VALUE));
+            }
+
+            case NEGATE: {
+                return new NegateNode(executor, node,
+                                      buildExpression(children.get(0)));
+            }
+
+            case NOT: {
+                return new NotNode(executor, node,
+                                   buildExpression(children.get(0)));
+            }
+        }
+
+        // Must be a binary operator.
+        ExpressionNode operand1 = buildExpression(children.get(0));
+        ExpressionNode operand2 = buildExpression(children.get(1));
+        ValueKind kind = inferencer.expressionKind(node);
+
+        switch (nodeType) {
+            case ADD:
+                return new AddNode(executor, node, kind, operand1, operand2);
+            case SUBTRACT:
+                return new SubtractNode(executor, node, kind,
+                                        operand1, operand2);
+            case MULTIPLY:
+                return new MultiplyNode(executor, node, kind,
+                                        operand1, operand2);
+            case FLOAT_DIVIDE:
+                return new FloatDivideNode(executor, node, kind,
+                                           operand1, operand2);
+            case INTEGER_DIVIDE:
+                return new IntegerDivideNode(executor, node, kind,
+                                             operand1, operand2);
+            case MOD:
+                return new ModNode(executor, node, kind, operand1, operand2);
+            case AND:
+                return new AndNode(executor, node, operand1, operand2);
+            case OR:
+                return new OrNode(executor, node, operand1, operand2);
+            case EQ: return new EqNode(executor, node, operand1, operand2);
+            case NE: return new NeNode(executor, node, operand1, operand2);
+            case LT: return new LtNode(executor, node, operand1, operand2);
+            case LE: return new LeNode(executor, node, operand1, operand2);
+            case GT: return new GtNode(executor, node, operand1, operand2);
+            default: return new GeNode(executor, node, operand1, operand2);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+/**
+ * <h1>CompoundNode</h1>
+ *
+ * <p>Execute a compound statement.</p>
+ */
+public class CompoundNode extends StatementNode
+{
+    private StatementNode statements[];  // the nested statements
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the COMPOUND node.
+     * @param statements the nested statement nodes.
+     */
+    public CompoundNode(Executor parent, ICodeNode node,
+                        StatementNode statements[])
+    {
+        super(parent, node);
+        this.statements = statements;
+    }
+
+    /**
+     * Execute each nested statement in turn.
+     */
+    protected void executeStatement()
+    {
+        for (StatementNode statement : statements) {
+            statement.execute();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+import static wci.intermediate.ValueKind.*;
+
+/**
+ * <h1>ConstantNode</h1>
+ *
+ * <p>Evaluate an integer, real, or string constant.</p>
+ */
+public class ConstantNode extends ExpressionNode
+{
+    private Object value;       // the constant value
+    private int intValue;       // the value if an integer
+    private float floatValue;   // the value if an integer or a real
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the constant node.
+     * @param value the constant value.
+     */
+    public ConstantNode(Executor parent, ICodeNode node, Object value)
+    {
+        super(parent, node, value instanceof Integer ? INTEGER
+                          : value instanceof Float   ? REAL
+                          : value instanceof String  ? STRING
+                          :                            UNKNOWN);
+        this.value = value;
+
+        if (value instanceof Integer) {
+            intValue = (Integer) value;
+            floatValue = intValue;
+        }
+        else if (value instanceof Float) {
+            floatValue = (Float) value;
+        }
+    }
+
+    /**
+     * Return the constant value.
+     * @return the value.
+     */
+    public Object evaluate()
+    {
+        return value;
+    }
+
+    /**
+     * Return the integer constant value.
+     * @return the value.
+     */
+    public int evaluateInt()
+    {
+        return intValue;
+    }
+
+    /**
+     * Return the numeric constant value.
+     * @return the value.
+     */
+    public float evaluateFloat()
+    {
+        return floatValue;
+    }
+}
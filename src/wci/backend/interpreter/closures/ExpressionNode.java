@@ -0,0 +1,78 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+/**
+ * <h1>ExpressionNode</h1>
+ *
+ * <p>A pre-linked expression node of the closure tree.  Each subclass
+ * evaluates its own operator and calls its operands directly.</p>
+ *
+ * <p>Besides the generic evaluate() method, an expression node has
+ * primitive-returning evaluation methods.  A parent node calls the one
+ * that matches the node's inferred kind, so that intermediate integer,
+ * float, and boolean values are never boxed.</p>
+ */
+public abstract class ExpressionNode extends Executor
+{
+    protected ICodeNode node;  // the intermediate code node
+    protected ValueKind kind;  // the inferred kind of value
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the intermediate code node of the expression.
+     * @param kind the inferred kind of the expression's value.
+     */
+    public ExpressionNode(Executor parent, ICodeNode node, ValueKind kind)
+    {
+        super(parent);
+
+        this.node = node;
+        this.kind = kind;
+    }
+
+    /**
+     * Getter.
+     * @return the inferred kind of the expression's value.
+     */
+    public ValueKind getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * Evaluate the expression.
+     * @return the computed value of the expression.
+     */
+    public abstract Object evaluate();
+
+    /**
+     * Evaluate an expression whose kind is INTEGER.
+     * @return the computed integer value.
+     */
+    public int evaluateInt()
+    {
+        return (Integer) evaluate();
+    }
+
+    /**
+     * Evaluate an expression whose kind is INTEGER or REAL.
+     * @return the computed value as a float.
+     */
+    public float evaluateFloat()
+    {
+        Object value = evaluate();
+        return value instanceof Integer ? (Integer) value : (Float) value;
+    }
+
+    /**
+     * Evaluate an expression whose kind is BOOLEAN.
+     * @return the computed boolean value.
+     */
+    public boolean evaluateBoolean()
+    {
+        return (Boolean) evaluate();
+    }
+}
@@ -0,0 +1,86 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+import static wci.backend.interpreter.RuntimeErrorCode.*;
+
+/**
+ * <h1>FloatDivideNode</h1>
+ *
+ * <p>Evaluate a float division.  The result is a float value even for
+ * integer operands, unless the divisor is zero.</p>
+ */
+public class FloatDivideNode extends ArithmeticNode
+{
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the FLOAT_DIVIDE node.
+     * @param kind the inferred kind of the expression's value.
+     * @param operand1 the first operand node.
+     * @param operand2 the second operand node.
+     */
+    public FloatDivideNode(Executor parent, ICodeNode node, ValueKind kind,
+                           ExpressionNode operand1,
+                           ExpressionNode operand2)
+    {
+        super(parent, node, kind, operand1, operand2);
+    }
+
+    /**
+     * Apply the operator to operand values of any kind.  Integer operands
+     * yield a float value, except that a division by zero yields the
+     * integer 0.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the computed value.
+     */
+    protected Object compute(Object value1, Object value2)
+    {
+        if ((value1 instanceof Integer) && (value2 instanceof Integer)) {
+            int divisor = (Integer) value2;
+
+            // Check for division by zero.
+            if (divisor != 0) {
+                return ((float) (Integer) value1)/divisor;
+            }
+            else {
+                errorHandler.flag(node, DIVISION_BY_ZERO, this);
+                return 0;
+            }
+        }
+        else {
+            return compute(toFloat(value1), toFloat(value2));
+        }
+    }
+
+    /**
+     * Not used, since compute(Object, Object) handles integer operands.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the truncated quotient.
+     */
+    protected int compute(int value1, int value2)
+    {
+        return (int) compute((float) value1, (float) value2);
+    }
+
+    /**
+     * Apply the operator in float mode.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the computed value.
+     */
+    protected float compute(float value1, float value2)
+    {
+        // Check for division by zero.
+        if (value2 != 0.0f) {
+            return value1/value2;
+        }
+        else {
+            errorHandler.flag(node, DIVISION_BY_ZERO, this);
+            return 0.0f;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+import static wci.intermediate.ValueKind.*;
+
+/**
+ * <h1>FloatVariableNode</h1>
+ *
+ * <p>Evaluate a REAL variable whose value is kept unboxed in the
+ * floats array of its frame.  As with IntVariableNode, only evaluate()
+ * checks whether the variable has been assigned, and the typed paths
+ * read an unassigned variable as 0.0.</p>
+ */
+public class FloatVariableNode extends VariableNode
+{
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the VARIABLE node.
+     * @param frame the frame that holds the variable.
+     * @param slot the variable's slot number.
+     */
+    public FloatVariableNode(Executor parent, ICodeNode node,
+                             Frame frame, int slot)
+    {
+        super(parent, node, REAL, frame, slot);
+    }
+
+    /**
+     * Return the variable's value, or null if it was never assigned.
+     * @return the value.
+     */
+    public Object evaluate()
+    {
+        return frame.assigned[slot] ? (Object) frame.floats[slot] : null;
+    }
+
+    /**
+     * Return the variable's float value, 0.0 if it was never assigned.
+     * @return the value.
+     */
+    public float evaluateFloat()
+    {
+        return frame.floats[slot];
+    }
+}
@@ -0,0 +1,144 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+import static wci.intermediate.ValueKind.*;
+
+/**
+ * <h1>ForNode</h1>
+ *
+ * <p>Execute a FOR statement.  The termination expression is evaluated
+ * once, before the first iteration, and the control variable is compared
+ * with the limit in the mode chosen from their inferred kinds, as a
+ * relational operator node does.</p>
+ */
+public class ForNode extends StatementNode
+{
+    private StatementNode initial;    // initial assignment
+    private ExpressionNode variable;  // control variable
+    private ExpressionNode limit;     // termination expression
+    private StatementNode statement;  // nested statement
+    private StatementNode next;       // assignment that advances the
+                                      // control variable
+    private boolean down;             // true for DOWNTO, false for TO
+    private ValueKind mode;           // INTEGER, REAL, or UNKNOWN
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the FOR node.
+     * @param initial the initial assignment node.
+     * @param variable the control variable node.
+     * @param limit the termination expression node.
+     * @param statement the nested statement node.
+     * @param next the node of the assignment that advances the control
+     *             variable.
+     * @param down true for DOWNTO, false for TO.
+     */
+    public ForNode(Executor parent, ICodeNode node,
+                   StatementNode initial, ExpressionNode variable,
+                   ExpressionNode limit, StatementNode statement,
+                   StatementNode next, boolean down)
+    {
+        super(parent, node);
+
+        this.initial = initial;
+        this.variable = variable;
+        this.limit = limit;
+        this.statement = statement;
+        this.next = next;
+        this.down = down;
+
+        ValueKind kind1 = variable.getKind();
+        ValueKind kind2 = limit.getKind();
+
+        if ((kind1 == INTEGER) && (kind2 == INTEGER)) {
+            mode = INTEGER;
+        }
+        else if (kind1.isNumeric() && kind2.isNumeric()) {
+            mode = REAL;
+        }
+        else {
+            mode = UNKNOWN;
+        }
+    }
+
+    /**
+     * Assign the initial value and loop until the control variable
+     * passes the limit.
+     */
+    protected void executeStatement()
+    {
+        initial.execute();
+
+        if (mode == INTEGER) {
+            int last = limit.evaluateInt();
+
+            while (true) {
+                context.countExecution();  // count the loop statement itself
+
+                int value = variable.evaluateInt();
+                if (down ? value < last : value > last) {
+                    return;
+                }
+
+                statement.execute();
+                next.execute();
+            }
+        }
+        else if (mode == REAL) {
+            float last = limit.evaluateFloat();
+
+            while (true) {
+                context.countExecution();  // count the loop statement itself
+
+                float value = variable.evaluateFloat();
+                if (down ? value < last : value > last) {
+                    return;
+                }
+
+                statement.execute();
+                next.execute();
+            }
+        }
+
+        // Unknown kinds: Choose the mode from the values.
+        Object last = limit.evaluate();
+
+        while (true) {
+            context.countExecution();  // count the loop statement itself
+
+            if (isPastLimit(variable.evaluate(), last)) {
+                return;
+            }
+
+            statement.execute();
+            next.execute();
+        }
+    }
+
+    /**
+     * Determine whether the control variable is past the limit.
+     * @param value the value of the control variable.
+     * @param last the value of the termination expression.
+     * @return true if the loop should exit.
+     */
+    private boolean isPastLimit(Object value, Object last)
+    {
+        if ((value instanceof Integer) && (last instanceof Integer)) {
+            int value1 = (Integer) value;
+            int value2 = (Integer) last;
+
+            return down ? value1 < value2 : value1 > value2;
+        }
+        else {
+            float value1 = value instanceof Integer
+                               ? (Integer) value : (Float) value;
+            float value2 = last instanceof Integer
+                               ? (Integer) last : (Float) last;
+
+            return down ? value1 < value2 : value1 > value2;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+
+/**
+ * <h1>Frame</h1>
+ *
+ * <p>The activation frame that holds the values of the variables of a
+ * symbol table.  Each variable lives in the slot given by its symbol
+ * table entry.  A variable whose inferred kind is INTEGER or REAL keeps
+ * its value unboxed in the ints or floats array; any other variable
+ * keeps its value in the values array.</p>
+ */
+public class Frame
+{
+    public Object values[];       // values of untyped variables
+    public int ints[];            // values of INTEGER variables
+    public float floats[];        // values of REAL variables
+    public boolean assigned[];    // true if a typed slot has been assigned
+
+    /**
+     * Constructor.
+     * @param symTab the symbol table whose variables the frame holds.
+     */
+    public Frame(SymTab symTab)
+    {
+        int slotCount = symTab.getSlotCount();
+
+        this.values = new Object[slotCount];
+        this.ints = new int[slotCount];
+        this.floats = new float[slotCount];
+        this.assigned = new boolean[slotCount];
+    }
+}
@@ -0,0 +1,49 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+/**
+ * <h1>IfNode</h1>
+ *
+ * <p>Execute an IF statement.</p>
+ */
+public class IfNode extends StatementNode
+{
+    private ExpressionNode expression;   // the IF expression
+    private StatementNode thenStatement; // the THEN statement
+    private StatementNode elseStatement; // the ELSE statement, or null
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the IF node.
+     * @param expression the IF expression node.
+     * @param thenStatement the THEN statement node.
+     * @param elseStatement the ELSE statement node, or null.
+     */
+    public IfNode(Executor parent, ICodeNode node, ExpressionNode expression,
+                  StatementNode thenStatement, StatementNode elseStatement)
+    {
+        super(parent, node);
+
+        this.expression = expression;
+        this.thenStatement = thenStatement;
+        this.elseStatement = elseStatement;
+    }
+
+    /**
+     * Evaluate the expression to determine which statement to execute.
+     */
+    protected void executeStatement()
+    {
+        if (expression.evaluateBoolean()) {
+            thenStatement.execute();
+        }
+        else if (elseStatement != null) {
+            elseStatement.execute();
+        }
+
+        context.countExecution();  // count the IF statement itself
+    }
+}
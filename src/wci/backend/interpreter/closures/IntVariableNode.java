@@ -0,0 +1,59 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+import static wci.intermediate.ValueKind.*;
+
+/**
+ * <h1>IntVariableNode</h1>
+ *
+ * <p>Evaluate an INTEGER variable whose value is kept unboxed in the
+ * ints array of its frame.  Only evaluate() checks whether the variable
+ * has been assigned.  The typed paths read an unassigned variable as 0,
+ * where the tree walker fails on the null value; checking there would
+ * cost a test on every typed read.</p>
+ */
+public class IntVariableNode extends VariableNode
+{
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the VARIABLE node.
+     * @param frame the frame that holds the variable.
+     * @param slot the variable's slot number.
+     */
+    public IntVariableNode(Executor parent, ICodeNode node,
+                           Frame frame, int slot)
+    {
+        super(parent, node, INTEGER, frame, slot);
+    }
+
+    /**
+     * Return the variable's value, or null if it was never assigned.
+     * @return the value.
+     */
+    public Object evaluate()
+    {
+        return frame.assigned[slot] ? (Object) frame.ints[slot] : null;
+    }
+
+    /**
+     * Return the variable's integer value, 0 if it was never assigned.
+     * @return the value.
+     */
+    public int evaluateInt()
+    {
+        return frame.ints[slot];
+    }
+
+    /**
+     * Return the variable's integer value as a float, 0 if it was never
+     * assigned.
+     * @return the value.
+     */
+    public float evaluateFloat()
+    {
+        return frame.ints[slot];
+    }
+}
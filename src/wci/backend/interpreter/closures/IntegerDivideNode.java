@@ -0,0 +1,75 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+import static wci.backend.interpreter.RuntimeErrorCode.*;
+
+/**
+ * <h1>IntegerDivideNode</h1>
+ *
+ * <p>Evaluate an integer division.</p>
+ */
+public class IntegerDivideNode extends ArithmeticNode
+{
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the INTEGER_DIVIDE node.
+     * @param kind the inferred kind of the expression's value.
+     * @param operand1 the first operand node.
+     * @param operand2 the second operand node.
+     */
+    public IntegerDivideNode(Executor parent, ICodeNode node, ValueKind kind,
+                             ExpressionNode operand1,
+                             ExpressionNode operand2)
+    {
+        super(parent, node, kind, operand1, operand2);
+    }
+
+    /**
+     * Apply the operator in integer mode.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the computed value.
+     */
+    protected int compute(int value1, int value2)
+    {
+        // Check for division by zero.
+        if (value2 != 0) {
+            return value1/value2;
+        }
+        else {
+            errorHandler.flag(node, DIVISION_BY_ZERO, this);
+            return 0;
+        }
+    }
+
+    /**
+     * Apply the operator to operand values of any kind.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the computed value, or the integer 0 if either value is
+     *         not an integer.
+     */
+    protected Object compute(Object value1, Object value2)
+    {
+        if ((value1 instanceof Integer) && (value2 instanceof Integer)) {
+            return super.compute(value1, value2);
+        }
+        else {
+            return 0;  // not defined for float operands
+        }
+    }
+
+    /**
+     * Apply the operator in float mode.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the computed value.
+     */
+    protected float compute(float value1, float value2)
+    {
+        return 0;  // not defined for float operands
+    }
+}
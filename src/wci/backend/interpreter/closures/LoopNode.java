@@ -0,0 +1,61 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+/**
+ * <h1>LoopNode</h1>
+ *
+ * <p>Execute a loop statement.  The children of the LOOP node are kept
+ * in two parallel arrays: at each index, either a TEST expression or a
+ * nested statement is set.</p>
+ */
+public class LoopNode extends StatementNode
+{
+    private ExpressionNode tests[];        // TEST expressions, or null
+    private StatementNode statements[];    // nested statements, or null
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the LOOP node.
+     * @param tests the TEST expression nodes.
+     * @param statements the nested statement nodes.
+     */
+    public LoopNode(Executor parent, ICodeNode node,
+                    ExpressionNode tests[], StatementNode statements[])
+    {
+        super(parent, node);
+
+        this.tests = tests;
+        this.statements = statements;
+    }
+
+    /**
+     * Loop until a TEST expression value is true.
+     */
+    protected void executeStatement()
+    {
+        int count = tests.length;
+
+        while (true) {
+            context.countExecution();  // count the loop statement itself
+
+            for (int i = 0; i < count; ++i) {
+                ExpressionNode test = tests[i];
+
+                // TEST node: exit if its expression value is true.
+                if (test != null) {
+                    if (test.evaluateBoolean()) {
+                        return;
+                    }
+                }
+
+                // Statement node.
+                else {
+                    statements[i].execute();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+/**
+ * <h1>LtNode</h1>
+ *
+ * <p>Evaluate a less-than comparison.</p>
+ */
+public class LtNode extends RelationalNode
+{
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the LT node.
+     * @param operand1 the first operand node.
+     * @param operand2 the second operand node.
+     */
+    public LtNode(Executor parent, ICodeNode node,
+                  ExpressionNode operand1,
+                  ExpressionNode operand2)
+    {
+        super(parent, node, operand1, operand2);
+    }
+
+    /**
+     * Apply the operator in integer mode.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the result of the comparison.
+     */
+    protected boolean compare(int value1, int value2)
+    {
+        return value1 < value2;
+    }
+
+    /**
+     * Apply the operator in float mode.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the result of the comparison.
+     */
+    protected boolean compare(float value1, float value2)
+    {
+        return value1 < value2;
+    }
+}
@@ -0,0 +1,49 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+/**
+ * <h1>MultiplyNode</h1>
+ *
+ * <p>Evaluate a multiplication.</p>
+ */
+public class MultiplyNode extends ArithmeticNode
+{
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the MULTIPLY node.
+     * @param kind the inferred kind of the expression's value.
+     * @param operand1 the first operand node.
+     * @param operand2 the second operand node.
+     */
+    public MultiplyNode(Executor parent, ICodeNode node, ValueKind kind,
+                        ExpressionNode operand1,
+                        ExpressionNode operand2)
+    {
+        super(parent, node, kind, operand1, operand2);
+    }
+
+    /**
+     * Apply the operator in integer mode.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the computed value.
+     */
+    protected int compute(int value1, int value2)
+    {
+        return value1 * value2;
+    }
+
+    /**
+     * Apply the operator in float mode.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the computed value.
+     */
+    protected float compute(float value1, float value2)
+    {
+        return value1 * value2;
+    }
+}
@@ -0,0 +1,70 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+import static wci.intermediate.ValueKind.*;
+
+/**
+ * <h1>NegateNode</h1>
+ *
+ * <p>Evaluate an arithmetic negation.</p>
+ */
+public class NegateNode extends ExpressionNode
+{
+    private ExpressionNode operand;  // the operand
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the NEGATE node.
+     * @param operand the operand node.
+     */
+    public NegateNode(Executor parent, ICodeNode node, ExpressionNode operand)
+    {
+        super(parent, node, operand.getKind().isNumeric() ? operand.getKind()
+                                                          : UNKNOWN);
+        this.operand = operand;
+    }
+
+    /**
+     * Return the negative of the operand's value.
+     * @return the value.
+     */
+    public Object evaluate()
+    {
+        if (kind == INTEGER) {
+            return -operand.evaluateInt();
+        }
+        else if (kind == REAL) {
+            return -operand.evaluateFloat();
+        }
+
+        Object value = operand.evaluate();
+        if (value instanceof Integer) {
+            return -((Integer) value);
+        }
+        else {
+            return -((Float) value);
+        }
+    }
+
+    /**
+     * Return the negative of the operand's integer value.
+     * @return the value.
+     */
+    public int evaluateInt()
+    {
+        return -operand.evaluateInt();
+    }
+
+    /**
+     * Return the negative of the operand's numeric value.
+     * @return the value.
+     */
+    public float evaluateFloat()
+    {
+        return kind == INTEGER ? -operand.evaluateInt()
+                               : -operand.evaluateFloat();
+    }
+}
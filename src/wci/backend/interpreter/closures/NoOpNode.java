@@ -0,0 +1,29 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+/**
+ * <h1>NoOpNode</h1>
+ *
+ * <p>Execute an empty statement.</p>
+ */
+public class NoOpNode extends StatementNode
+{
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the NO_OP node.
+     */
+    public NoOpNode(Executor parent, ICodeNode node)
+    {
+        super(parent, node);
+    }
+
+    /**
+     * Do nothing.
+     */
+    protected void executeStatement()
+    {
+    }
+}
@@ -0,0 +1,46 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+import static wci.intermediate.ValueKind.*;
+
+/**
+ * <h1>NotNode</h1>
+ *
+ * <p>Evaluate a boolean NOT.</p>
+ */
+public class NotNode extends ExpressionNode
+{
+    private ExpressionNode operand;  // the operand
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the NOT node.
+     * @param operand the operand node.
+     */
+    public NotNode(Executor parent, ICodeNode node, ExpressionNode operand)
+    {
+        super(parent, node, BOOLEAN);
+        this.operand = operand;
+    }
+
+    /**
+     * Return the "not" of the operand's value.
+     * @return the value.
+     */
+    public Object evaluate()
+    {
+        return evaluateBoolean();
+    }
+
+    /**
+     * Return the "not" of the operand's value.
+     * @return the value.
+     */
+    public boolean evaluateBoolean()
+    {
+        return !operand.evaluateBoolean();
+    }
+}
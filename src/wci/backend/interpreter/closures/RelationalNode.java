@@ -0,0 +1,106 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+import static wci.intermediate.ValueKind.*;
+
+/**
+ * <h1>RelationalNode</h1>
+ *
+ * <p>Evaluate a relational operator.  Each subclass implements
+ * one operator in integer and in float mode.</p>
+ *
+ * <p>The comparison mode is chosen once from the inferred kinds of the
+ * operands.  Only if they are not known to be numeric is the mode
+ * chosen from the operand values at run time.</p>
+ */
+public abstract class RelationalNode extends ExpressionNode
+{
+    protected ExpressionNode operand1;  // first operand
+    protected ExpressionNode operand2;  // second operand
+    protected ValueKind mode;           // INTEGER, REAL, or UNKNOWN
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the operator node.
+     * @param operand1 the first operand node.
+     * @param operand2 the second operand node.
+     */
+    public RelationalNode(Executor parent, ICodeNode node,
+                          ExpressionNode operand1, ExpressionNode operand2)
+    {
+        super(parent, node, BOOLEAN);
+
+        this.operand1 = operand1;
+        this.operand2 = operand2;
+
+        ValueKind kind1 = operand1.getKind();
+        ValueKind kind2 = operand2.getKind();
+
+        if ((kind1 == INTEGER) && (kind2 == INTEGER)) {
+            mode = INTEGER;
+        }
+        else if (kind1.isNumeric() && kind2.isNumeric()) {
+            mode = REAL;
+        }
+        else {
+            mode = UNKNOWN;
+        }
+    }
+
+    /**
+     * Evaluate the operands and apply the operator.
+     * @return the computed value.
+     */
+    public Object evaluate()
+    {
+        return evaluateBoolean();
+    }
+
+    /**
+     * Evaluate the operands and apply the operator.
+     * @return the computed value.
+     */
+    public boolean evaluateBoolean()
+    {
+        if (mode == INTEGER) {
+            return compare(operand1.evaluateInt(), operand2.evaluateInt());
+        }
+        else if (mode == REAL) {
+            return compare(operand1.evaluateFloat(),
+                           operand2.evaluateFloat());
+        }
+
+        // Mixed or unknown kinds: Choose the mode from the operand values.
+        Object value1 = operand1.evaluate();
+        Object value2 = operand2.evaluate();
+
+        if ((value1 instanceof Integer) && (value2 instanceof Integer)) {
+            return compare((Integer) value1, (Integer) value2);
+        }
+        else {
+            return compare(value1 instanceof Integer
+                               ? (Integer) value1 : (Float) value1,
+                           value2 instanceof Integer
+                               ? (Integer) value2 : (Float) value2);
+        }
+    }
+
+    /**
+     * Apply the operator in integer mode.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the result of the comparison.
+     */
+    protected abstract boolean compare(int value1, int value2);
+
+    /**
+     * Apply the operator in float mode.
+     * @param value1 the first operand value.
+     * @param value2 the second operand value.
+     * @return the result of the comparison.
+     */
+    protected abstract boolean compare(float value1, float value2);
+}
@@ -0,0 +1,48 @@
+package wci.backend.interpreter.closures;
+
+import java.util.HashMap;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+/**
+ * <h1>SelectNode</h1>
+ *
+ * <p>Execute a SELECT statement through its prebuilt jump table.</p>
+ */
+public class SelectNode extends StatementNode
+{
+    private ExpressionNode expression;               // the SELECT expression
+    private HashMap<Object, StatementNode> jumpTable; // value to branch
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the SELECT node.
+     * @param expression the SELECT expression node.
+     * @param jumpTable the jump table: entry key is a selection value,
+     *                  entry value is the branch statement node.
+     */
+    public SelectNode(Executor parent, ICodeNode node,
+                      ExpressionNode expression,
+                      HashMap<Object, StatementNode> jumpTable)
+    {
+        super(parent, node);
+
+        this.expression = expression;
+        this.jumpTable = jumpTable;
+    }
+
+    /**
+     * Evaluate the SELECT expression and execute the selected branch.
+     */
+    protected void executeStatement()
+    {
+        StatementNode statement = jumpTable.get(expression.evaluate());
+        if (statement != null) {
+            statement.execute();
+        }
+
+        context.countExecution();  // count the SELECT statement itself
+    }
+}
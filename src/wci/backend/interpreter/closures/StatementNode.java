@@ -0,0 +1,52 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+import wci.message.*;
+
+import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+import static wci.message.MessageType.SOURCE_LINE;
+
+/**
+ * <h1>StatementNode</h1>
+ *
+ * <p>A pre-linked statement node of the closure tree.  Each subclass
+ * executes its own statement and calls its children directly.</p>
+ */
+public abstract class StatementNode extends Executor
+{
+    protected ICodeNode node;        // the intermediate code node
+    protected Integer lineNumber;    // source line number, or null
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the intermediate code node of the statement.
+     */
+    public StatementNode(Executor parent, ICodeNode node)
+    {
+        super(parent);
+
+        this.node = node;
+        this.lineNumber = (Integer) node.getAttribute(LINE);
+    }
+
+    /**
+     * Execute the statement.
+     */
+    public final void execute()
+    {
+        // Send a message about the current source line.
+        if ((lineNumber != null) && isEnabled(SOURCE_LINE)) {
+            sendMessage(new Message(SOURCE_LINE, lineNumber));
+        }
+
+        executeStatement();
+    }
+
+    /**
+     * Execute the statement itself.
+     * To be implemented by the statement node subclasses.
+     */
+    protected abstract void executeStatement();
+}
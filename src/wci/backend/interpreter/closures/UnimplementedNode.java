@@ -0,0 +1,32 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+import static wci.backend.interpreter.RuntimeErrorCode.*;
+
+/**
+ * <h1>UnimplementedNode</h1>
+ *
+ * <p>A statement that the interpreter cannot execute.</p>
+ */
+public class UnimplementedNode extends StatementNode
+{
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the unimplemented statement node.
+     */
+    public UnimplementedNode(Executor parent, ICodeNode node)
+    {
+        super(parent, node);
+    }
+
+    /**
+     * Flag the unimplemented feature.
+     */
+    protected void executeStatement()
+    {
+        errorHandler.flag(node, UNIMPLEMENTED_FEATURE, this);
+    }
+}
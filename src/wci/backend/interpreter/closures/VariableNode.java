@@ -0,0 +1,42 @@
+package wci.backend.interpreter.closures;
+
+import wci.intermediate.*;
+import wci.backend.interpreter.*;
+
+/**
+ * <h1>VariableNode</h1>
+ *
+ * <p>Evaluate a variable whose value is kept in the values array
+ * of its frame.</p>
+ */
+public class VariableNode extends ExpressionNode
+{
+    protected Frame frame;  // the frame that holds the variable
+    protected int slot;     // the variable's slot number
+
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     * @param node the VARIABLE node.
+     * @param kind the inferred kind of the variable.
+     * @param frame the frame that holds the variable.
+     * @param slot the variable's slot number.
+     */
+    public VariableNode(Executor parent, ICodeNode node, ValueKind kind,
+                        Frame frame, int slot)
+    {
+        super(parent, node, kind);
+
+        this.frame = frame;
+        this.slot = slot;
+    }
+
+    /**
+     * Return the variable's value.
+     * @return the value.
+     */
+    public Object evaluate()
+    {
+        return frame.values[slot];
+    }
+}
@@ -51,9 +51,14 @@ public class AssignmentExecutor extends StatementExecutor
         SymTabEntry variableId = (SymTabEntry) variableNode.getAttribute(ID);
         variableId.setAttribute(DATA_VALUE, value);
 
-        sendMessage(node, variableId.getName(), value);
+        if (isEnabled(ASSIGN)) {
+            sendMessage(node, variableId.getName(), value);
+        }
 
-        ++executionCount;
+        // The optimizer's assignments to temporaries are not counted.
+        if (variableId.getAttribute(TEMPORARY) == null) {
+            context.countExecution();
+        }
         return null;
     }
 
@@ -0,0 +1,148 @@
+package wci.backend.interpreter.executors;
+
+import java.util.ArrayList;
+
+import wci.intermediate.*;
+import wci.intermediate.icodeimpl.*;
+import wci.backend.interpreter.*;
+import wci.message.*;
+
+import static wci.intermediate.symtabimpl.SymTabKeyImpl.*;
+import static wci.intermediate.icodeimpl.ICodeNodeTypeImpl.*;
+import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+import static wci.message.MessageType.ASSIGN;
+import static wci.message.MessageType.SOURCE_LINE;
+
+/**
+ * <h1>ForExecutor</h1>
+ *
+ * <p>Execute a FOR statement.  The termination expression is evaluated
+ * once, before the first iteration.  While the control variable and the
+ * limit are integers, the control variable is kept and advanced as an
+ * int, and its value is boxed only to store it into the symbol table.</p>
+ */
+public class ForExecutor extends StatementExecutor
+{
+    /**
+     * Constructor.
+     * @param parent the parent executor.
+     */
+    public ForExecutor(Executor parent)
+    {
+        super(parent);
+    }
+
+    /**
+     * Execute a FOR statement.
+     * @param node the root node of the statement.
+     * @return null.
+     */
+    public Object execute(ICodeNode node)
+    {
+        // The FOR node's children are the initial assignment, the
+        // termination expression, the nested statement, and the
+        // assignment that advances the control variable.
+        ArrayList<ICodeNode> children = node.getChildren();
+        ICodeNode initNode = children.get(0);
+        ICodeNode limitNode = children.get(1);
+        ICodeNode statementNode = children.get(2);
+        ICodeNode nextNode = children.get(3);
+
+        SymTabEntry variableId =
+            (SymTabEntry) initNode.getChildren().get(0).getAttribute(ID);
+        boolean down = nextNode.getChildren().get(1).getType() == SUBTRACT;
+
+        StatementExecutor statementExecutor = new StatementExecutor(this);
+        ExpressionExecutor expressionExecutor = new ExpressionExecutor(this);
+
+        // Assign the initial value and evaluate the limit.
+        statementExecutor.execute(initNode);
+        Object limit = expressionExecutor.execute(limitNode);
+        Object value = variableId.getAttribute(DATA_VALUE);
+
+        if ((value instanceof Integer) && (limit instanceof Integer)) {
+            int count = (Integer) value;
+            int last = (Integer) limit;
+            Object lineNumber = nextNode.getAttribute(LINE);
+            String name = variableId.getName();
+
+            while (true) {
+                context.countExecution();  // count the loop statement itself
+
+                if (down ? count < last : count > last) {
+                    return null;
+                }
+
+                statementExecutor.execute(statementNode);
+
+                // The nested statement may have assigned
+                // the control variable.
+                Object current = variableId.getAttribute(DATA_VALUE);
+                if (current != value) {
+                    if (!(current instanceof Integer)) {
+                        statementExecutor.execute(nextNode);
+                        break;
+                    }
+
+                    count = (Integer) current;
+                }
+
+                // Advance the control variable.
+                count = down ? count - 1 : count + 1;
+                value = count;
+                variableId.setAttribute(DATA_VALUE, value);
+
+                if (lineNumber != null) {
+                    if (isEnabled(SOURCE_LINE)) {
+                        sendMessage(new Message(SOURCE_LINE, lineNumber));
+                    }
+                    if (isEnabled(ASSIGN)) {
+                        sendMessage(new Message(ASSIGN,
+                                                new Object[] {lineNumber,
+                                                              name, value}));
+                    }
+                }
+
+                context.countExecution();  // count the advancing assignment
+            }
+        }
+
+        // Compare the values of any other kinds as the TEST of a loop does.
+        while (true) {
+            context.countExecution();  // count the loop statement itself
+
+            value = variableId.getAttribute(DATA_VALUE);
+            if (isPastLimit(value, limit, down)) {
+                return null;
+            }
+
+            statementExecutor.execute(statementNode);
+            statementExecutor.execute(nextNode);
+        }
+    }
+
+    /**
+     * Determine whether the control variable is past the limit.
+     * @param value the value of the control variable.
+     * @param limit the value of the termination expression.
+     * @param down true for DOWNTO, false for TO.
+     * @return true if the loop should exit.
+     */
+    private boolean isPastLimit(Object value, Object limit, boolean down)
+    {
+        if ((value instanceof Integer) && (limit instanceof Integer)) {
+            int value1 = (Integer) value;
+            int value2 = (Integer) limit;
+
+            return down ? value1 < value2 : value1 > value2;
+        }
+        else {
+            float value1 = value instanceof Integer
+                               ? (Integer) value : (Float) value;
+            float value2 = limit instanceof Integer
+                               ? (Integer) limit : (Float) limit;
+
+            return down ? value1 < value2 : value1 > value2;
+        }
+    }
+}
@@ -52,7 +52,7 @@ public class IfExecutor extends StatementExecutor
             statementExecutor.execute(elseStmtNode);
         }
 
-        ++executionCount;  // count the IF statement itself
+        context.countExecution();  // count the IF statement itself
         return null;
     }
 }
@@ -45,7 +45,7 @@ public class LoopExecutor extends StatementExecutor
 
         // Loop until the TEST expression value is true.
         while (!exitLoop) {
-            ++executionCount;  // count the loop statement itself
+            context.countExecution();  // count the loop statement itself
 
             // Execute the children of the LOOP node.
             for (ICodeNode child : loopChildren) {
@@ -29,13 +29,6 @@ public class SelectExecutor extends StatementExecutor
         super(parent);
     }
 
-    // Jump table cache: entry key is a SELECT node,
-    //                   entry value is the jump table.
-    // Jump table: entry key is a selection value,
-    //             entry value is the branch statement.
-    private static HashMap<ICodeNode, HashMap<Object, ICodeNode>> jumpCache =
-        new HashMap<ICodeNode, HashMap<Object, ICodeNode>>();
-
     /**
      * Execute SELECT statement.
      * @param node the root node of the statement.
@@ -66,7 +59,7 @@ public class SelectExecutor extends StatementExecutor
             statementExecutor.execute(statementNode);
         }
 
-        ++executionCount;  // count the SELECT statement itself
+        context.countExecution();  // count the SELECT statement itself
         return null;
     }
 
@@ -36,6 +36,27 @@ public class StatementExecutor extends Executor
      * @return null.
      */
     public Object execute(ICodeNode node)
+    {
+        if (profiler == null) {
+            return executeStatement(node);
+        }
+
+        // Time the statement, including its child statements.
+        long startTime = profiler.enter(node);
+        try {
+            return executeStatement(node);
+        }
+        finally {
+            profiler.exit(node, startTime);
+        }
+    }
+
+    /**
+     * Execute a statement with the executor of its type.
+     * @param node the root node of the statement.
+     * @return null.
+     */
+    private Object executeStatement(ICodeNode node)
     {
         ICodeNodeTypeImpl nodeType = (ICodeNodeTypeImpl) node.getType();
 
@@ -60,6 +81,11 @@ public class StatementExecutor extends Executor
                 return loopExecutor.execute(node);
             }
 
+            case FOR: {
+                ForExecutor forExecutor = new ForExecutor(this);
+                return forExecutor.execute(node);
+            }
+
             case IF: {
                 IfExecutor ifExecutor = new IfExecutor(this);
                 return ifExecutor.execute(node);
@@ -85,6 +111,11 @@ public class StatementExecutor extends Executor
      */
     private void sendSourceLineMessage(ICodeNode node)
     {
+        // Don't build a message that no listener receives.
+        if (!isEnabled(SOURCE_LINE)) {
+            return;
+        }
+
         Object lineNumber = node.getAttribute(LINE);
 
         // Send the SOURCE_LINE message.
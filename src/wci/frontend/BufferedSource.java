@@ -0,0 +1,312 @@
+package wci.frontend;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import wci.message.*;
+import static wci.message.MessageType.SOURCE_LINE;
+
+/**
+ * <h1>BufferedSource</h1>
+ *
+ * <p>A source program that is held in a single character buffer.  The
+ * file is mapped into memory and decoded once, each line terminator is
+ * replaced by a single EOL character, and the buffer ends with an EOF
+ * character.  An array of the buffer indexes where the lines start keeps
+ * the line numbers and positions the same as those of the line-by-line
+ * source, so consuming a character is an index increment and a comparison
+ * with the start of the next line.  A slice of the source reads part of
+ * the same buffer with the same line numbers and positions.</p>
+ */
+public class BufferedSource extends Source
+{
+    private char buffer[];      // source lines each ending with EOL,
+                                // followed by EOF
+    private int lineStarts[];   // buffer index of the start of each line
+    private int lineCount;      // number of source lines
+    private int eofIndex;       // buffer index of the EOF character
+    private int endIndex;       // buffer index where this source ends
+    private boolean listed;     // true to send source line messages
+
+    private int offset;         // buffer index of the current character
+    private int lineNum;        // current source line number
+    private int lineStart;      // buffer index of the current line
+    private int nextLineStart;  // buffer index of the next line or EOF
+
+    /**
+     * Constructor.
+     * @param filePath the path of the source file.
+     * @throws IOException if an I/O error occurred.
+     */
+    public BufferedSource(String filePath)
+        throws IOException
+    {
+        this(readFile(filePath));
+    }
+
+    /**
+     * Constructor.
+     * @param text the text of the source program.  Use CharBuffer.wrap()
+     *             for the text in a string.
+     */
+    public BufferedSource(CharBuffer text)
+    {
+        int length = text.length();
+
+        buffer = new char[length + 2];
+        lineStarts = new int[16];
+        lineCount = 0;
+
+        // Copy the text, replacing each \r\n, \r, or \n by EOL,
+        // and record where each line starts.
+        int size = 0;
+        int i = 0;
+        while (i < length) {
+            if (lineCount == lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, 2*lineCount);
+            }
+            lineStarts[lineCount++] = size;
+
+            while (i < length) {
+                char ch = text.charAt(i++);
+
+                if (ch == '\n') {
+                    break;
+                }
+                else if (ch == '\r') {
+                    if ((i < length) && (text.charAt(i) == '\n')) {
+                        ++i;
+                    }
+                    break;
+                }
+
+                buffer[size++] = ch;
+            }
+
+            buffer[size++] = EOL;
+        }
+
+        eofIndex = size;
+        buffer[size++] = EOF;
+        buffer = Arrays.copyOf(buffer, size);
+
+        endIndex = eofIndex;
+        listed = true;
+
+        offset = -1;  // the first line is not started yet
+        lineNum = 0;
+        lineStart = 0;
+        nextLineStart = 0;
+    }
+
+    /**
+     * Constructor for a slice.
+     * @param source the source to slice.
+     * @param startIndex the buffer index where the slice starts.
+     * @param endIndex the buffer index where the slice ends.
+     */
+    private BufferedSource(BufferedSource source, int startIndex,
+                           int endIndex)
+    {
+        this.buffer = source.buffer;
+        this.lineStarts = source.lineStarts;
+        this.lineCount = source.lineCount;
+        this.eofIndex = source.eofIndex;
+        this.endIndex = endIndex;
+        this.listed = false;
+
+        // The slice's first line starts when the first character is read.
+        this.lineNum = lineIndex(startIndex);
+        this.offset = -1;
+        this.lineStart = startIndex;
+        this.nextLineStart = startIndex;
+    }
+
+    /**
+     * Create a source that reads a part of this source, with the same line
+     * numbers and positions, and that sends no source line messages.  The
+     * part ends with the EOF character.
+     * @param startLine the line number where the part starts.
+     * @param startPosition the position in the start line.
+     * @param endLine the line number where the part ends.
+     * @param endPosition the position in the end line of the first
+     *                    character after the part.
+     * @return the source of the part.
+     */
+    public BufferedSource slice(int startLine, int startPosition,
+                                int endLine, int endPosition)
+    {
+        return new BufferedSource(this, index(startLine, startPosition),
+                                  index(endLine, endPosition));
+    }
+
+    /**
+     * Skip ahead to a character without extracting any tokens.  The source
+     * line messages are sent for every line that is started.
+     * @param lineNum the line number of the character.
+     * @param position the position of the character in its line.
+     */
+    public void skipTo(int lineNum, int position)
+    {
+        int index = index(lineNum, position);
+
+        currentChar();
+        while (index >= nextLineStart) {
+            offset = nextLineStart;
+            startLine();
+        }
+
+        offset = index;
+    }
+
+    /**
+     * Return the buffer index of a character.
+     * @param lineNum the line number of the character.
+     * @param position the position of the character in its line.
+     * @return the buffer index.
+     */
+    private int index(int lineNum, int position)
+    {
+        return lineNum <= lineCount ? lineStarts[lineNum - 1] + position
+                                    : eofIndex;
+    }
+
+    /**
+     * Return the index of the line that contains a buffer index.
+     * @param index the buffer index.
+     * @return the line index, which is the line number minus 1.
+     */
+    private int lineIndex(int index)
+    {
+        int line = Arrays.binarySearch(lineStarts, 0, lineCount, index);
+        return line >= 0 ? line : -line - 2;
+    }
+
+    /**
+     * Map a source file into memory and decode it with the default
+     * character set, as a file reader does.
+     * @param filePath the path of the source file.
+     * @return the decoded text.
+     * @throws IOException if an I/O error occurred.
+     */
+    private static CharBuffer readFile(String filePath)
+        throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(filePath, "r");
+
+        try {
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer bytes =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            return Charset.defaultCharset().decode(bytes);
+        }
+        finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Getter.
+     * @return the current source line number.
+     */
+    public int getLineNum()
+    {
+        return lineNum;
+    }
+
+    /**
+     * Getter.
+     * @return the position of the next source character in the
+     * current source line.
+     */
+    public int getPosition()
+    {
+        return offset - lineStart;
+    }
+
+    /**
+     * Return the source character at the current position.
+     * @return the source character at the current position.
+     */
+    public char currentChar()
+    {
+        // First time?
+        if (offset < 0) {
+            offset = lineStart;
+            startLine();
+        }
+
+        return buffer[offset];
+    }
+
+    /**
+     * Consume the current source character and return the next character.
+     * @return the next source character.
+     */
+    public char nextChar()
+    {
+        if (++offset >= nextLineStart) {
+            startLine();
+        }
+
+        return buffer[offset];
+    }
+
+    /**
+     * Return the source character following the current character without
+     * consuming the current character.
+     * @return the following character.
+     */
+    public char peekChar()
+    {
+        currentChar();
+
+        // The character following the end of a line is another EOL.
+        if ((offset == eofIndex) || (buffer[offset] == EOL)) {
+            return buffer[offset];
+        }
+
+        return offset + 1 < endIndex ? buffer[offset + 1] : EOF;
+    }
+
+    /**
+     * Start the next source line at the current buffer index, or stay at
+     * the EOF character at the end of the source.
+     */
+    private void startLine()
+    {
+        if (offset < endIndex) {
+            lineStart = lineStarts[lineNum++];
+            nextLineStart = Math.min(lineNum < lineCount ? lineStarts[lineNum]
+                                                         : eofIndex,
+                                     endIndex);
+
+            // Send a source line message containing the line number
+            // and the line text, without its EOL, to all the listeners.
+            if (listed && isEnabled(SOURCE_LINE)) {
+                String line = new String(buffer, lineStart,
+                                         nextLineStart - lineStart - 1);
+                sendMessage(new Message(SOURCE_LINE,
+                                        new Object[] {lineNum, line}));
+            }
+        }
+        // Stay at the EOF character, whose position keeps advancing
+        // as that of the line-by-line source does.
+        else {
+            lineStart = offset > eofIndex ? lineStart - 1 : eofIndex;
+            offset = eofIndex;
+            nextLineStart = eofIndex + 1;
+        }
+    }
+
+    /**
+     * Close the source.
+     */
+    public void close() {}
+}
@@ -1,7 +1,11 @@
 package wci.frontend;
 
+import java.nio.CharBuffer;
+
+import wci.frontend.pascal.PascalParallelParserTD;
 import wci.frontend.pascal.PascalParserTD;
-import wci.frontend.pascal.PascalScanner;
+import wci.frontend.pascal.PascalTableScanner;
+import wci.intermediate.CompilationContext;
 
 /**
  * <h1>FrontendFactory</h1>
@@ -13,23 +17,56 @@ import wci.frontend.pascal.PascalScanner;
  */
 public class FrontendFactory
 {
+    /**
+     * Create the source of a program file.  The whole file is read into
+     * a single buffer.
+     * @param filePath the path of the source file.
+     * @return the source.
+     * @throws Exception if an error occurred.
+     */
+    public static Source createSource(String filePath)
+        throws Exception
+    {
+        return new BufferedSource(filePath);
+    }
+
+    /**
+     * Create the source of a program text that is already in memory.
+     * @param text the text of the program.
+     * @return the source.
+     */
+    public static Source createSource(CharBuffer text)
+    {
+        return new BufferedSource(text);
+    }
+
     /**
      * Create a parser.
      * @param language the name of the source language (e.g., "Pascal").
-     * @param type the type of parser (e.g., "top-down").
+     * @param type the type of parser ("top-down", or "parallel" for a
+     *             top-down parser that parses sections of the program
+     *             in parallel).
      * @param source the source object.
+     * @param context the context of the compilation.
      * @return the parser.
      * @throws Exception if an error occurred.
      */
     public static Parser createParser(String language, String type,
-                                      Source source)
+                                      Source source,
+                                      CompilationContext context)
         throws Exception
     {
         if (language.equalsIgnoreCase("Pascal") &&
             type.equalsIgnoreCase("top-down"))
         {
-            Scanner scanner = new PascalScanner(source);
-            return new PascalParserTD(scanner);
+            Scanner scanner = new PascalTableScanner(source);
+            return new PascalParserTD(scanner, context);
+        }
+        else if (language.equalsIgnoreCase("Pascal") &&
+                 type.equalsIgnoreCase("parallel"))
+        {
+            Scanner scanner = new PascalTableScanner(source);
+            return new PascalParallelParserTD(scanner, source, context);
         }
         else if (!language.equalsIgnoreCase("Pascal")) {
             throw new Exception("Parser factory: Invalid language '" +
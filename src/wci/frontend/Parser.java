@@ -1,5 +1,7 @@
 package wci.frontend;
 
+import java.util.EnumSet;
+
 import wci.intermediate.*;
 import wci.message.*;
 
@@ -14,13 +16,9 @@ import wci.message.*;
  */
 public abstract class Parser implements MessageProducer
 {
-    protected static SymTabStack symTabStack;        // symbol table stack
-    protected static MessageHandler messageHandler;  // message handler delegate
-
-    static {
-        symTabStack = SymTabFactory.createSymTabStack();
-        messageHandler = new MessageHandler();
-    }
+    protected CompilationContext context;     // compilation context
+    protected SymTabStack symTabStack;        // symbol table stack
+    protected MessageHandler messageHandler;  // message handler delegate
 
     protected Scanner scanner;  // scanner used with this parser
     protected ICode iCode;      // intermediate code generated by this parser
@@ -28,13 +26,31 @@ public abstract class Parser implements MessageProducer
     /**
      * Constructor.
      * @param scanner the scanner to be used with this parser.
+     * @param context the context of the compilation.
      */
-    protected Parser(Scanner scanner)
+    protected Parser(Scanner scanner, CompilationContext context)
     {
+        this.context = context;
+        this.symTabStack = context.getSymTabStack();
+        this.messageHandler = new MessageHandler();
         this.scanner = scanner;
         this.iCode = null;
     }
 
+    /**
+     * Constructor for subparsers, which share the scanner, the context,
+     * the symbol table stack, and the message handler of the parent parser.
+     * @param parent the parent parser.
+     */
+    protected Parser(Parser parent)
+    {
+        this.context = parent.context;
+        this.symTabStack = parent.symTabStack;
+        this.messageHandler = parent.messageHandler;
+        this.scanner = parent.scanner;
+        this.iCode = null;
+    }
+
     /**
      * Getter.
      * @return the scanner used by this parser.
@@ -44,6 +60,15 @@ public abstract class Parser implements MessageProducer
         return scanner;
     }
 
+    /**
+     * Getter.
+     * @return the context of the compilation.
+     */
+    public CompilationContext getContext()
+    {
+        return context;
+    }
+
     /**
      * Getter.
      * @return the intermediate code generated by this parser.
@@ -115,6 +140,17 @@ public abstract class Parser implements MessageProducer
         messageHandler.addListener(listener);
     }
 
+    /**
+     * Add a message listener that receives only some types of messages.
+     * @param listener the message listener to add.
+     * @param types the types of the messages that the listener receives.
+     */
+    public void addMessageListener(MessageListener listener,
+                                   EnumSet<MessageType> types)
+    {
+        messageHandler.addListener(listener, types);
+    }
+
     /**
      * Remove a parser message listener.
      * @param listener the message listener to remove.
@@ -132,4 +168,14 @@ public abstract class Parser implements MessageProducer
     {
         messageHandler.sendMessage(message);
     }
+
+    /**
+     * Determine whether any listener receives messages of a type.
+     * @param type the message type.
+     * @return true if a message of the type would be delivered.
+     */
+    public boolean isEnabled(MessageType type)
+    {
+        return messageHandler.isEnabled(type);
+    }
 }
@@ -2,6 +2,7 @@ package wci.frontend;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.EnumSet;
 
 import wci.message.*;
 import static wci.message.MessageType.SOURCE_LINE;
@@ -40,6 +41,14 @@ public class Source implements MessageProducer
         this.messageHandler = new MessageHandler();
     }
 
+    /**
+     * Constructor for subclasses that read the source program themselves.
+     */
+    protected Source()
+    {
+        this.messageHandler = new MessageHandler();
+    }
+
     /**
      * Getter.
      * @return the current source line number.
@@ -141,7 +150,7 @@ public class Source implements MessageProducer
 
         // Send a source line message containing the line number
         // and the line text to all the listeners.
-        if (line != null) {
+        if ((line != null) && isEnabled(SOURCE_LINE)) {
             sendMessage(new Message(SOURCE_LINE,
                                     new Object[] {lineNum, line}));
         }
@@ -174,6 +183,17 @@ public class Source implements MessageProducer
         messageHandler.addListener(listener);
     }
 
+    /**
+     * Add a message listener that receives only some types of messages.
+     * @param listener the message listener to add.
+     * @param types the types of the messages that the listener receives.
+     */
+    public void addMessageListener(MessageListener listener,
+                                   EnumSet<MessageType> types)
+    {
+        messageHandler.addListener(listener, types);
+    }
+
     /**
      * Remove a parser message listener.
      * @param listener the message listener to remove.
@@ -191,4 +211,14 @@ public class Source implements MessageProducer
     {
         messageHandler.sendMessage(message);
     }
+
+    /**
+     * Determine whether any listener receives messages of a type.
+     * @param type the message type.
+     * @return true if a message of the type would be delivered.
+     */
+    public boolean isEnabled(MessageType type)
+    {
+        return messageHandler.isEnabled(type);
+    }
 }
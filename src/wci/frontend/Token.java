@@ -32,6 +32,20 @@ public class Token
         extract();
     }
 
+    /**
+     * Constructor for a token whose characters a scanner has already
+     * extracted from the source.
+     * @param source the source of the token's characters.
+     * @param lineNum the line number of the token's source line.
+     * @param position the position of the first token character.
+     */
+    protected Token(Source source, int lineNum, int position)
+    {
+        this.source = source;
+        this.lineNum = lineNum;
+        this.position = position;
+    }
+
     /**
      * Getter
      * @return the token type
@@ -0,0 +1,172 @@
+package wci.frontend.pascal;
+
+/**
+ * <h1>IdentifierTable</h1>
+ *
+ * <p>The table of the identifiers that the scanner has seen.  Each
+ * identifier has one canonical lower-case name, which the scanner
+ * delivers as the value of every token of the identifier regardless of
+ * the token's case.  Since the symbol tables are entered and searched
+ * with the canonical names, a name found in a symbol table is the same
+ * string object that was entered.  The table is searched with the
+ * characters of a token and their case-insensitive hash code, so that a
+ * name already in the table costs no allocation.</p>
+ */
+public class IdentifierTable
+{
+    private String names[];  // canonical names, or null for empty entries
+    private int hashes[];    // hash codes of the names
+    private int count;       // number of names
+
+    /**
+     * Constructor.
+     */
+    public IdentifierTable()
+    {
+        this.names = new String[256];
+        this.hashes = new int[256];
+        this.count = 0;
+    }
+
+    /**
+     * Return the lower-case form of an ASCII character.
+     * @param c the character.
+     * @return the lower-case character.
+     */
+    public static char toLower(char c)
+    {
+        return ((c >= 'A') && (c <= 'Z')) ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Compute the hash code of the next character of a name.
+     * @param hash the hash code of the preceding characters.
+     * @param c the next character, already lower case.
+     * @return the hash code.
+     */
+    public static int hash(int hash, char c)
+    {
+        return 31*hash + c;
+    }
+
+    /**
+     * Return the canonical name of an identifier whose characters are all
+     * ASCII, entering it into the table if it is not there.
+     * @param chars the identifier's characters in any case.
+     * @param length the number of characters.
+     * @param hash the hash code of the lower-case characters.
+     * @return the canonical name.
+     */
+    public String intern(char chars[], int length, int hash)
+    {
+        int mask = names.length - 1;
+        int index = hash & mask;
+        String name;
+
+        while ((name = names[index]) != null) {
+            if ((hashes[index] == hash) && matches(name, chars, length)) {
+                return name;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        // Enter the lower-case characters as a new name.
+        char lower[] = new char[length];
+        for (int i = 0; i < length; ++i) {
+            lower[i] = toLower(chars[i]);
+        }
+
+        name = new String(lower);
+        enter(index, name, hash);
+
+        return name;
+    }
+
+    /**
+     * Return the canonical name of an identifier, entering it into the
+     * table if it is not there.
+     * @param lowerName the identifier's name in lower case.
+     * @return the canonical name.
+     */
+    public String intern(String lowerName)
+    {
+        int hash = 0;
+        for (int i = 0; i < lowerName.length(); ++i) {
+            hash = hash(hash, lowerName.charAt(i));
+        }
+
+        int mask = names.length - 1;
+        int index = hash & mask;
+        String name;
+
+        while ((name = names[index]) != null) {
+            if ((hashes[index] == hash) && name.equals(lowerName)) {
+                return name;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        enter(index, lowerName, hash);
+
+        return lowerName;
+    }
+
+    /**
+     * Determine whether a lower-case name matches ASCII characters
+     * in any case.
+     * @param name the lower-case name.
+     * @param chars the characters.
+     * @param length the number of characters.
+     * @return true if they match.
+     */
+    public static boolean matches(String name, char chars[], int length)
+    {
+        if (name.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; ++i) {
+            if (name.charAt(i) != toLower(chars[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Enter a name into an empty entry, and grow the table when it
+     * becomes half full.
+     * @param index the index of the empty entry.
+     * @param name the name.
+     * @param hash the name's hash code.
+     */
+    private void enter(int index, String name, int hash)
+    {
+        names[index] = name;
+        hashes[index] = hash;
+
+        if (2*(++count) > names.length) {
+            String oldNames[] = names;
+            int oldHashes[] = hashes;
+
+            names = new String[2*oldNames.length];
+            hashes = new int[2*oldNames.length];
+
+            int mask = names.length - 1;
+            for (int i = 0; i < oldNames.length; ++i) {
+                if (oldNames[i] != null) {
+                    int j = oldHashes[i] & mask;
+                    while (names[j] != null) {
+                        j = (j + 1) & mask;
+                    }
+
+                    names[j] = oldNames[i];
+                    hashes[j] = oldHashes[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,803 @@
+package wci.frontend.pascal;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import wci.frontend.*;
+import wci.frontend.pascal.parsers.*;
+import wci.frontend.pascal.SpanTable.Span;
+import wci.intermediate.*;
+import wci.intermediate.icodeimpl.ICodeNodeTypeImpl;
+
+import static wci.frontend.pascal.PascalTokenType.SEMICOLON;
+import static wci.intermediate.icodeimpl.ICodeNodeTypeImpl.*;
+import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+
+/**
+ * <h1>IncrementalParser</h1>
+ *
+ * <p>A parser for an editor, which keeps the source lines, the parse
+ * tree, and the symbol table of a program up to date as the lines are
+ * edited.  The parse records where each statement is in the source.  An
+ * edit is parsed again only in the smallest run of statements of a
+ * statement list that contains the edited lines: the run's source is
+ * scanned and parsed apart from the rest of the program, its new nodes
+ * replace the run's old ones, and the line numbers in the rest of the
+ * tree and in the symbol table move by the number of lines that the edit
+ * added or removed.  Every other node is kept.</p>
+ *
+ * <p>The tree and the symbol table are those of a full parse, except
+ * that the entries of new identifiers come after the existing ones.  If
+ * the run's new source does not parse cleanly, or the edit changes which
+ * identifiers are defined before they are used elsewhere, or the program
+ * had syntax errors, the whole program is parsed again instead.</p>
+ */
+public class IncrementalParser
+{
+    // Types of the nodes whose children can be statements.
+    private static final EnumSet<ICodeNodeTypeImpl> STATEMENT_PARENTS =
+        EnumSet.of(COMPOUND, LOOP, FOR, IF, SELECT, SELECT_BRANCH);
+
+    private ArrayList<String> lines;     // source lines
+    private CompilationContext context;  // context of the last full parse
+    private ICode iCode;                 // parse tree
+    private SpanTable spans;             // statement spans
+    private int errorCount;              // syntax errors of the program
+    private boolean generatedNames;      // true if the parser generated
+                                         // identifiers from line numbers
+
+    /**
+     * Constructor.  Parse the whole program.
+     * @param text the text of the source program.
+     * @throws Exception if an error occurred.
+     */
+    public IncrementalParser(String text)
+        throws Exception
+    {
+        this.lines = splitLines(text);
+        parse();
+    }
+
+    /**
+     * Getter.
+     * @return the intermediate code, or null if the parse was aborted.
+     */
+    public ICode getICode()
+    {
+        return iCode;
+    }
+
+    /**
+     * Getter.
+     * @return the symbol table stack.
+     */
+    public SymTabStack getSymTabStack()
+    {
+        return context.getSymTabStack();
+    }
+
+    /**
+     * Getter.
+     * @return the number of syntax errors of the program.
+     */
+    public int getErrorCount()
+    {
+        return errorCount;
+    }
+
+    /**
+     * Getter.
+     * @return the number of source lines.
+     */
+    public int getLineCount()
+    {
+        return lines.size();
+    }
+
+    /**
+     * Replace source lines and update the parse.
+     * @param startLine the line number of the first line to replace.
+     * @param endLine the line number of the last line to replace, or
+     *                startLine - 1 to insert lines before startLine.
+     * @param text the replacement lines, each ending with a line
+     *             terminator, which is optional for the last one.
+     * @return true if the edit was parsed incrementally, false if the
+     *         whole program was parsed again.
+     * @throws Exception if an error occurred.
+     */
+    public boolean edit(int startLine, int endLine, String text)
+        throws Exception
+    {
+        if (   (startLine < 1) || (endLine < startLine - 1)
+            || (endLine > lines.size())) {
+            throw new IllegalArgumentException("Invalid line range " +
+                                               startLine + "-" + endLine);
+        }
+
+        ArrayList<String> newLines = splitLines(text);
+        boolean incremental =    (errorCount == 0) && (iCode != null)
+                              && reparse(startLine, endLine, newLines);
+
+        List<String> range = lines.subList(startLine - 1, endLine);
+        range.clear();
+        range.addAll(newLines);
+
+        if (!incremental) {
+            parse();
+        }
+
+        return incremental;
+    }
+
+    /**
+     * Parse the whole program.
+     * @throws Exception if an error occurred.
+     */
+    private void parse()
+        throws Exception
+    {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+
+        context = new CompilationContext();
+        spans = new SpanTable();
+
+        Source source = FrontendFactory.createSource(CharBuffer.wrap(text));
+        PascalParserTD parser = (PascalParserTD)
+            FrontendFactory.createParser("Pascal", "top-down", source,
+                                         context);
+        parser.spans = spans;
+
+        try {
+            parser.parse();
+            iCode = parser.getICode();
+            errorCount = parser.getErrorCount();
+            generatedNames = hasGeneratedNames(context.getSymTabStack()
+                                                   .getLocalSymTab());
+        }
+        catch (AbortException ex) {
+            iCode = null;
+            errorCount = Math.max(parser.getErrorCount(), 1);
+        }
+    }
+
+    /**
+     * Parse an edit incrementally.  The tree, the spans, and the symbol
+     * table are changed only if the edit can be parsed incrementally.
+     * @param startLine the line number of the first line to replace.
+     * @param endLine the line number of the last line to replace.
+     * @param newLines the replacement lines.
+     * @return true if the edit was parsed incrementally.
+     * @throws Exception if an error occurred.
+     */
+    private boolean reparse(int startLine, int endLine,
+                            ArrayList<String> newLines)
+        throws Exception
+    {
+        Run run = locate(iCode.getRoot(), startLine, endLine);
+        if (run == null) {
+            return false;
+        }
+
+        // Parse the run's new source.
+        Section newSection =
+            parseSection(runText(run, startLine, endLine, newLines));
+        if (newSection.errors.failed || newSection.openComment) {
+            return false;
+        }
+
+        // Statements that the run does not end need a semicolon after them.
+        ArrayList<ICodeNode> newNodes = newSection.statements.getChildren();
+        ArrayList<ICodeNode> children = run.list.getChildren();
+        if ((run.last + 1 < children.size()) && (newNodes.size() > 0)) {
+            ICodeNode lastNode = newNodes.get(newNodes.size() - 1);
+            Span span = newSection.spans.get(lastNode);
+            if (span.followType != SEMICOLON) {
+                return false;
+            }
+        }
+
+        // Parse the run's old source to find its identifiers.
+        Section oldSection =
+            parseSection(runText(run, startLine, endLine,
+                                 lines.subList(startLine - 1, endLine)));
+
+        // Parse the whole program if the run's identifiers are not
+        // resolved, or if names that the parser generated from line
+        // numbers would change.
+        int lineShift = run.startLine - 1;
+        int lineDelta = newLines.size() - (endLine - startLine + 1);
+        if (   (oldSection.symTab == null)
+            || hasGeneratedNames(oldSection.symTab)
+            || hasGeneratedNames(newSection.symTab)
+            || ((lineDelta != 0) && generatedNames)
+            || !isResolved(run, oldSection, newSection, lineShift)) {
+            return false;
+        }
+
+        // Remove the run's old nodes and identifier references.
+        List<ICodeNode> oldNodes = children.subList(run.first, run.last + 1);
+        for (ICodeNode node : oldNodes) {
+            removeSpans(node);
+        }
+        oldNodes.clear();
+
+        SymTabStack symTabStack = context.getSymTabStack();
+        for (SymTabEntry oldId : oldSection.symTab.sortedEntries()) {
+            ArrayList<Integer> lineNumbers =
+                symTabStack.lookup(oldId.getName()).getLineNumbers();
+
+            for (Integer lineNumber : oldId.getLineNumbers()) {
+                lineNumbers.remove(
+                    lowerBound(lineNumbers, lineNumber + lineShift));
+            }
+        }
+
+        // Move the line numbers after the run.
+        if (lineDelta != 0) {
+            shiftTree(iCode.getRoot(), run.endLine, lineDelta);
+
+            for (SymTabEntry id :
+                     symTabStack.getLocalSymTab().sortedEntries()) {
+                ArrayList<Integer> lineNumbers = id.getLineNumbers();
+
+                for (int i = lowerBound(lineNumbers, run.endLine);
+                     i < lineNumbers.size(); ++i) {
+                    lineNumbers.set(i, lineNumbers.get(i) + lineDelta);
+                }
+            }
+        }
+
+        // Enter the run's identifiers and insert its references.
+        IdentityHashMap<SymTabEntry, SymTabEntry> entries =
+            new IdentityHashMap<SymTabEntry, SymTabEntry>();
+        SymTabEntry sectionIds[] =
+            new SymTabEntry[newSection.symTab.getSlotCount()];
+
+        for (SymTabEntry sectionId : newSection.symTab.sortedEntries()) {
+            sectionIds[sectionId.getSlot()] = sectionId;
+        }
+
+        for (SymTabEntry sectionId : sectionIds) {
+            String name = sectionId.getName();
+            SymTabEntry id = symTabStack.lookup(name);
+            if (id == null) {
+                id = symTabStack.enterLocal(name);
+            }
+
+            ArrayList<Integer> lineNumbers = id.getLineNumbers();
+            for (Integer lineNumber : sectionId.getLineNumbers()) {
+                int line = lineNumber + lineShift;
+                lineNumbers.add(lowerBound(lineNumbers, line + 1), line);
+            }
+
+            entries.put(sectionId, id);
+        }
+
+        // Insert the run's new nodes.
+        ArrayList<ICodeNode> insertedNodes = new ArrayList<ICodeNode>();
+        for (ICodeNode node : newNodes) {
+            PascalParallelParserTD.replaceIds(node, entries);
+            moveSpans(node, newSection.spans, lineShift);
+            insertedNodes.add(node);
+        }
+
+        int count = children.size();
+        for (ICodeNode node : insertedNodes) {
+            run.list.addChild(node);
+        }
+
+        List<ICodeNode> added = children.subList(count, children.size());
+        ArrayList<ICodeNode> moved = new ArrayList<ICodeNode>(added);
+        added.clear();
+        children.addAll(run.first, moved);
+
+        return true;
+    }
+
+    /**
+     * Find the smallest run of statements of a statement list that
+     * contains the edited lines.
+     * @param list the parent node of the statement list.
+     * @param startLine the line number of the first edited line.
+     * @param endLine the line number of the last edited line.
+     * @return the run, or null if the list does not contain the lines.
+     */
+    private Run locate(ICodeNode list, int startLine, int endLine)
+    {
+        Span listSpan = spans.get(list);
+        if (   (list.getType() != COMPOUND) || (listSpan == null)
+            || (listSpan.line == 0) || (listSpan.endLine == 0)) {
+            return null;
+        }
+
+        // The run lies between the list's start token and its terminator.
+        int afterLine = endLine + 1;
+        if (   (compare(listSpan.line, listSpan.position + listSpan.length,
+                        startLine, 0) > 0)
+            || (compare(afterLine, 0,
+                        listSpan.endLine, listSpan.endPosition) > 0)) {
+            return null;
+        }
+
+        ArrayList<ICodeNode> children = list.getChildren();
+        int count = children.size();
+
+        // The first statement is the last one that starts its run before
+        // the edit: its run starts after the token before it.
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high + 1)/2;
+            Span span = spans.get(children.get(mid - 1));
+
+            if (compare(span.followLine,
+                        span.followPosition + span.followLength,
+                        startLine, 0) <= 0) {
+                low = mid;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        int first = low;
+
+        // The statement after the run is the first one that starts
+        // after the edit, or the terminator.
+        low = first;
+        high = count;
+        while (low < high) {
+            int mid = (low + high)/2;
+            Span span = spans.get(children.get(mid));
+
+            if (compare(span.line, span.position, afterLine, 0) >= 0) {
+                high = mid;
+            }
+            else {
+                low = mid + 1;
+            }
+        }
+        int last = low - 1;
+
+        // Look for a smaller run in a statement list in a single statement.
+        if (first == last) {
+            Run run = locateNested(children.get(first), startLine, endLine);
+            if (run != null) {
+                return run;
+            }
+        }
+
+        Run run = new Run();
+        run.list = list;
+        run.first = first;
+        run.last = last;
+
+        if (first > 0) {
+            Span span = spans.get(children.get(first - 1));
+            run.startLine = span.followLine;
+            run.startPosition = span.followPosition + span.followLength;
+        }
+        else {
+            run.startLine = listSpan.line;
+            run.startPosition = listSpan.position + listSpan.length;
+        }
+
+        if (last + 1 < count) {
+            Span span = spans.get(children.get(last + 1));
+            run.endLine = span.line;
+            run.endPosition = span.position;
+        }
+        else {
+            run.endLine = listSpan.endLine;
+            run.endPosition = listSpan.endPosition;
+        }
+
+        return run;
+    }
+
+    /**
+     * Find the smallest run of statements that contains the edited lines
+     * in the statement lists of a parse tree.
+     * @param node the root node of the parse tree.
+     * @param startLine the line number of the first edited line.
+     * @param endLine the line number of the last edited line.
+     * @return the run, or null if no list in the tree contains the lines.
+     */
+    private Run locateNested(ICodeNode node, int startLine, int endLine)
+    {
+        Span span = spans.get(node);
+        if (   (node.getType() == COMPOUND) && (span != null)
+            && (span.endLine > 0)) {
+            return locate(node, startLine, endLine);
+        }
+
+        for (ICodeNode child : node.getChildren()) {
+            Run run = locateNested(child, startLine, endLine);
+
+            if (run != null) {
+                return run;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Return the source of a run, with the edited lines replaced.  The
+     * first line is padded so that the positions in it are those in the
+     * program's line.
+     * @param run the run.
+     * @param startLine the line number of the first edited line.
+     * @param endLine the line number of the last edited line.
+     * @param editedLines the lines in place of the edited lines.
+     * @return the source text.
+     */
+    private String runText(Run run, int startLine, int endLine,
+                           List<String> editedLines)
+    {
+        StringBuilder text = new StringBuilder();
+        String firstLine = lines.get(run.startLine - 1);
+
+        for (int i = 0; i < run.startPosition; ++i) {
+            text.append(' ');
+        }
+        text.append(firstLine, run.startPosition, firstLine.length())
+            .append('\n');
+
+        for (int i = run.startLine + 1; i < startLine; ++i) {
+            text.append(lines.get(i - 1)).append('\n');
+        }
+        for (String line : editedLines) {
+            text.append(line).append('\n');
+        }
+        for (int i = endLine + 1; i < run.endLine; ++i) {
+            text.append(lines.get(i - 1)).append('\n');
+        }
+
+        text.append(lines.get(run.endLine - 1), 0, run.endPosition);
+        return text.toString();
+    }
+
+    /**
+     * Parse the source of a run of statements apart from the program.
+     * @param text the source text.
+     * @return the parsed section.
+     */
+    private Section parseSection(String text)
+    {
+        Section section = new Section();
+        section.errors = new SectionErrorHandler();
+        section.spans = new SpanTable();
+        section.openComment = isCommentOpen(text);
+
+        try {
+            Source source =
+                FrontendFactory.createSource(CharBuffer.wrap(text));
+            PascalParserTD parser =
+                new PascalParserTD(new PascalTableScanner(source),
+                                   new CompilationContext());
+            parser.errorHandler = section.errors;
+            parser.spans = section.spans;
+
+            section.statements =
+                parser.getContext().createICodeNode(COMPOUND);
+            StatementParser statementParser = new StatementParser(parser);
+            statementParser.parseStatements(parser.nextToken(),
+                                            section.statements);
+
+            section.symTab = parser.getSymTabStack().getLocalSymTab();
+        }
+        catch (Exception ex) {
+            section.errors.failed = true;
+        }
+
+        return section;
+    }
+
+    /**
+     * Determine whether the identifiers of a run's new source are defined
+     * where the rest of the program uses them, as they were in the old
+     * source.  An identifier that the run uses before defining it must be
+     * defined before the run, and one that the old run defined for later
+     * statements must still be defined before them.
+     * @param run the run.
+     * @param oldSection the run's old source, parsed.
+     * @param newSection the run's new source, parsed.
+     * @param lineShift the number to add to a section's line numbers.
+     * @return true if the run can replace the old one.
+     */
+    private boolean isResolved(Run run, Section oldSection,
+                               Section newSection, int lineShift)
+    {
+        SymTabStack symTabStack = context.getSymTabStack();
+
+        for (String name : newSection.errors.undefinedNames) {
+            SymTabEntry id = symTabStack.lookup(name);
+
+            if (   (id == null)
+                || (countBefore(id, oldSection, run, lineShift) == 0)) {
+                return false;
+            }
+        }
+
+        for (SymTabEntry oldId : oldSection.symTab.sortedEntries()) {
+            String name = oldId.getName();
+            SymTabEntry id = symTabStack.lookup(name);
+            boolean redefined =
+                   (newSection.symTab.lookup(name) != null)
+                && !newSection.errors.undefinedNames.contains(name);
+
+            if (   (id == null)
+                || (!redefined
+                    && (countBefore(id, oldSection, run, lineShift) == 0))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Determine whether a symbol table has identifiers that the parser
+     * generated, which start with a character that a Pascal identifier
+     * cannot start with.
+     * @param symTab the symbol table.
+     * @return true if it has any.
+     */
+    private static boolean hasGeneratedNames(SymTab symTab)
+    {
+        for (SymTabEntry id : symTab.sortedEntries()) {
+            if (!Character.isLetter(id.getName().charAt(0))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Count the references to an identifier before a run.  The run starts
+     * in the middle of its first line, so the old run's references in that
+     * line are not counted.
+     * @param id the program's symbol table entry of the identifier.
+     * @param oldSection the run's old source, parsed.
+     * @param run the run.
+     * @param lineShift the number to add to a section's line numbers.
+     * @return the number of references.
+     */
+    private int countBefore(SymTabEntry id, Section oldSection, Run run,
+                            int lineShift)
+    {
+        int count = lowerBound(id.getLineNumbers(), run.startLine + 1);
+        SymTabEntry oldId = oldSection.symTab.lookup(id.getName());
+
+        if (oldId != null) {
+            for (Integer lineNumber : oldId.getLineNumbers()) {
+                if (lineNumber + lineShift == run.startLine) {
+                    --count;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Add to the line numbers of a parse tree and its spans that are at
+     * or after a line.  Skip the subtrees of statements that end before
+     * the line, and of expressions.
+     * @param node the root node of the parse tree.
+     * @param line the line number.
+     * @param delta the number to add.
+     */
+    private void shiftTree(ICodeNode node, int line, int delta)
+    {
+        Span span = spans.get(node);
+        if ((span != null) && (span.followLine > 0)
+                           && (span.followLine < line)) {
+            return;
+        }
+
+        Object lineNumber = node.getAttribute(LINE);
+        if ((lineNumber != null) && ((Integer) lineNumber >= line)) {
+            node.setAttribute(LINE, (Integer) lineNumber + delta);
+        }
+
+        if (span != null) {
+            if (span.line >= line) {
+                span.line += delta;
+            }
+            if (span.followLine >= line) {
+                span.followLine += delta;
+            }
+            if (span.endLine >= line) {
+                span.endLine += delta;
+            }
+        }
+
+        // Only statements have line numbers.
+        if (STATEMENT_PARENTS.contains(node.getType())) {
+            for (ICodeNode child : node.getChildren()) {
+                shiftTree(child, line, delta);
+            }
+        }
+    }
+
+    /**
+     * Move the spans of a parse tree from a section's table to the
+     * program's, and add to the line numbers of the tree and its spans.
+     * @param node the root node of the parse tree.
+     * @param sectionSpans the section's span table.
+     * @param delta the number to add.
+     */
+    private void moveSpans(ICodeNode node, SpanTable sectionSpans, int delta)
+    {
+        Object lineNumber = node.getAttribute(LINE);
+        if (lineNumber != null) {
+            node.setAttribute(LINE, (Integer) lineNumber + delta);
+        }
+
+        Span span = sectionSpans.get(node);
+        if (span != null) {
+            if (span.line > 0) {
+                span.line += delta;
+                span.followLine += delta;
+            }
+            if (span.endLine > 0) {
+                span.endLine += delta;
+            }
+
+            spans.put(node, span);
+        }
+
+        for (ICodeNode child : node.getChildren()) {
+            moveSpans(child, sectionSpans, delta);
+        }
+    }
+
+    /**
+     * Remove the spans of a parse tree.
+     * @param node the root node of the parse tree.
+     */
+    private void removeSpans(ICodeNode node)
+    {
+        spans.remove(node);
+
+        for (ICodeNode child : node.getChildren()) {
+            removeSpans(child);
+        }
+    }
+
+    /**
+     * Determine whether a source text ends inside a comment, which would
+     * continue past the text in the program.
+     * @param text the source text.
+     * @return true if a comment is open at the end.
+     */
+    private static boolean isCommentOpen(String text)
+    {
+        boolean inComment = false;
+        boolean inString = false;
+
+        for (int i = 0; i < text.length(); ++i) {
+            char ch = text.charAt(i);
+
+            if (inComment) {
+                inComment = ch != '}';
+            }
+            else if (inString) {
+                inString = (ch != '\'') && (ch != '\n');
+            }
+            else if (ch == '{') {
+                inComment = true;
+            }
+            else if (ch == '\'') {
+                inString = true;
+            }
+        }
+
+        return inComment;
+    }
+
+    /**
+     * Return the index of the first line number in a sorted list that is
+     * at least a given line number.
+     * @param lineNumbers the sorted list of line numbers.
+     * @param line the line number.
+     * @return the index, or the size of the list if there is none.
+     */
+    private static int lowerBound(ArrayList<Integer> lineNumbers, int line)
+    {
+        int low = 0;
+        int high = lineNumbers.size();
+
+        while (low < high) {
+            int mid = (low + high)/2;
+
+            if (lineNumbers.get(mid) < line) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Compare two source locations.
+     * @param line1 the line number of the first location.
+     * @param position1 the position of the first location.
+     * @param line2 the line number of the second location.
+     * @param position2 the position of the second location.
+     * @return a negative number, zero, or a positive number if the first
+     *         location is before, at, or after the second.
+     */
+    private static int compare(int line1, int position1,
+                               int line2, int position2)
+    {
+        return line1 != line2 ? line1 - line2 : position1 - position2;
+    }
+
+    /**
+     * Split a text into lines.
+     * @param text the text, with each line ending with a line terminator,
+     *             which is optional for the last one.
+     * @return the list of lines without their terminators.
+     */
+    private static ArrayList<String> splitLines(String text)
+    {
+        ArrayList<String> result = new ArrayList<String>();
+        int start = 0;
+
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+
+            String line = text.substring(start, end);
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+
+            result.add(line);
+            start = end + 1;
+        }
+
+        return result;
+    }
+
+    /**
+     * A run of statements of a statement list, and the source between
+     * the token before the run and the token after it.
+     */
+    private static class Run
+    {
+        private ICodeNode list;      // parent node of the statement list
+        private int first;           // index of the first statement
+        private int last;            // index of the last statement
+        private int startLine;       // line number where the source starts
+        private int startPosition;   // position where the source starts
+        private int endLine;         // line number where the source ends
+        private int endPosition;     // position where the source ends
+    }
+
+    /**
+     * The source of a run, parsed apart from the program.
+     */
+    private static class Section
+    {
+        private ICodeNode statements;        // parent of the statements
+        private SymTab symTab;               // the section's symbol table
+        private SpanTable spans;             // the section's spans
+        private SectionErrorHandler errors;  // the section's errors
+        private boolean openComment;         // true if a comment is open
+    }
+}
@@ -0,0 +1,227 @@
+package wci.frontend.pascal;
+
+import java.math.BigDecimal;
+
+/**
+ * <h1>NumberTable</h1>
+ *
+ * <p>The table of the number literals that the scanner has seen, and the
+ * arithmetic that computes their values.  A number's digits are
+ * accumulated into a mantissa as they are read, and a repeated literal is
+ * found by its characters together with the text and value that were
+ * computed the first time, so that it costs neither a conversion nor an
+ * allocation.  The table stops growing when it is full, since a source
+ * that has many distinct literals rarely repeats them.</p>
+ */
+public class NumberTable
+{
+    private static final int MAX_COUNT = 4096;  // maximum number of entries
+
+    // Largest mantissa that another digit cannot overflow.
+    private static final long MAX_MANTISSA = (Long.MAX_VALUE - 9)/10;
+
+    // Largest mantissa that is exact as a float.
+    private static final long MAX_EXACT_MANTISSA = 1L << 24;
+
+    // Powers of ten that are exact as floats.
+    private static final float POWERS_OF_TEN[] = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    private String texts[];   // literal texts, or null for empty entries
+    private Object values[];  // literal values
+    private int hashes[];     // hash codes of the texts
+    private int count;        // number of literals
+
+    /**
+     * Constructor.
+     */
+    public NumberTable()
+    {
+        this.texts = new String[256];
+        this.values = new Object[256];
+        this.hashes = new int[256];
+        this.count = 0;
+    }
+
+    /**
+     * Return the value of a digit.
+     * @param c the digit.
+     * @return the value.
+     */
+    public static int digitValue(char c)
+    {
+        return c < 128 ? c - '0' : Character.getNumericValue(c);
+    }
+
+    /**
+     * Append a digit to a mantissa.  A mantissa that is too large to
+     * append the digit to stays as it is, which is still too large for
+     * an integer and too precise for a float.
+     * @param mantissa the value of the preceding digits.
+     * @param digit the digit.
+     * @return the new value.
+     */
+    public static long accumulate(long mantissa, char digit)
+    {
+        return mantissa <= MAX_MANTISSA ? 10*mantissa + digitValue(digit)
+                                        : mantissa;
+    }
+
+    /**
+     * Compute the float value of a real number, correctly rounded.
+     * A mantissa and a power of ten that are both exact as floats are
+     * multiplied or divided, which IEEE arithmetic rounds correctly.
+     * Any other number is converted from its text.
+     * @param mantissa the value of the whole and fraction digits.
+     * @param exponent the power of ten to scale the mantissa by.
+     * @param text the text of the number.
+     * @return the float value.
+     */
+    public static float floatValue(long mantissa, int exponent, String text)
+    {
+        if (   (mantissa <= MAX_EXACT_MANTISSA)
+            && (Math.abs(exponent) < POWERS_OF_TEN.length)) {
+            float floatValue = mantissa;
+
+            return exponent >= 0 ? floatValue*POWERS_OF_TEN[exponent]
+                                 : floatValue/POWERS_OF_TEN[-exponent];
+        }
+
+        return new BigDecimal(text).floatValue();
+    }
+
+    /**
+     * Compute the hash code of the characters of a literal.
+     * @param chars the characters.
+     * @param length the number of characters.
+     * @return the hash code.
+     */
+    public static int hash(char chars[], int length)
+    {
+        int hash = 0;
+        for (int i = 0; i < length; ++i) {
+            hash = 31*hash + chars[i];
+        }
+
+        return hash;
+    }
+
+    /**
+     * Look up a literal.
+     * @param chars the characters of the literal.
+     * @param length the number of characters.
+     * @param hash the hash code of the characters.
+     * @return the index of the literal's entry, or -1 if it is not there.
+     */
+    public int lookup(char chars[], int length, int hash)
+    {
+        int mask = texts.length - 1;
+        int index = hash & mask;
+        String text;
+
+        while ((text = texts[index]) != null) {
+            if ((hashes[index] == hash) && matches(text, chars, length)) {
+                return index;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Getter.
+     * @param index the index of an entry.
+     * @return the text of the entry's literal.
+     */
+    public String getText(int index)
+    {
+        return texts[index];
+    }
+
+    /**
+     * Getter.
+     * @param index the index of an entry.
+     * @return the value of the entry's literal.
+     */
+    public Object getValue(int index)
+    {
+        return values[index];
+    }
+
+    /**
+     * Enter a literal that is not in the table, unless the table is full.
+     * @param text the text of the literal.
+     * @param value the value of the literal.
+     * @param hash the hash code of the text.
+     */
+    public void enter(String text, Object value, int hash)
+    {
+        if (count == MAX_COUNT) {
+            return;
+        }
+
+        // Grow the table when it becomes half full.
+        if (2*(++count) > texts.length) {
+            String oldTexts[] = texts;
+            Object oldValues[] = values;
+            int oldHashes[] = hashes;
+
+            texts = new String[2*oldTexts.length];
+            values = new Object[2*oldTexts.length];
+            hashes = new int[2*oldTexts.length];
+
+            for (int i = 0; i < oldTexts.length; ++i) {
+                if (oldTexts[i] != null) {
+                    put(oldTexts[i], oldValues[i], oldHashes[i]);
+                }
+            }
+        }
+
+        put(text, value, hash);
+    }
+
+    /**
+     * Determine whether a text matches characters.
+     * @param text the text.
+     * @param chars the characters.
+     * @param length the number of characters.
+     * @return true if they match.
+     */
+    private static boolean matches(String text, char chars[], int length)
+    {
+        if (text.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; ++i) {
+            if (text.charAt(i) != chars[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Put a literal into the first empty entry from its hash code.
+     * @param text the text of the literal.
+     * @param value the value of the literal.
+     * @param hash the hash code of the text.
+     */
+    private void put(String text, Object value, int hash)
+    {
+        int mask = texts.length - 1;
+        int index = hash & mask;
+
+        while (texts[index] != null) {
+            index = (index + 1) & mask;
+        }
+
+        texts[index] = text;
+        values[index] = value;
+        hashes[index] = hash;
+    }
+}
@@ -1,6 +1,7 @@
 package wci.frontend.pascal;
 
 import wci.frontend.*;
+import wci.intermediate.AbortException;
 import wci.message.Message;
 
 import static wci.frontend.pascal.PascalTokenType.*;
@@ -19,7 +20,7 @@ public class PascalErrorHandler
 {
     private static final int MAX_ERRORS = 25;
 
-    private static int errorCount = 0;   // count of syntax errors
+    private int errorCount = 0;   // count of syntax errors
 
     /**
      * Getter.
@@ -65,6 +66,6 @@ public class PascalErrorHandler
                                                      0,
                                                      "",
                                                      fatalText}));
-        System.exit(errorCode.getStatus());
+        throw new AbortException(errorCode.getStatus(), null);
     }
 }
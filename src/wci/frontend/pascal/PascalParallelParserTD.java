@@ -0,0 +1,388 @@
+package wci.frontend.pascal;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import wci.frontend.*;
+import wci.frontend.pascal.parsers.*;
+import wci.intermediate.*;
+import wci.message.*;
+
+import static wci.frontend.pascal.PascalTokenType.*;
+import static wci.frontend.pascal.PascalErrorCode.*;
+import static wci.intermediate.icodeimpl.ICodeNodeTypeImpl.COMPOUND;
+import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+import static wci.message.MessageType.PARSER_SUMMARY;
+import static wci.message.MessageType.STATEMENT;
+
+/**
+ * <h1>PascalParallelParserTD</h1>
+ *
+ * <p>A top-down Pascal parser that parses the statements of the program's
+ * compound statement in parallel.  A pre-scan of the tokens finds where
+ * the top-level statements start, and the statements are divided into
+ * sections of about the same number of tokens.  Each section is parsed on
+ * a fork/join pool by a parser with its own scanner over a slice of the
+ * source buffer and its own symbol table.  The sections are then joined
+ * in order under the root COMPOUND node: their identifiers are entered
+ * into the program's symbol table in the order that a sequential parse
+ * enters them, and their VARIABLE nodes are pointed at the program's
+ * entries.</p>
+ *
+ * <p>A section may refer to an identifier that only an earlier section
+ * defines, so a section's undefined identifiers are errors only if no
+ * earlier section defines them.  If any section has a real syntax error,
+ * the whole program is parsed again sequentially, so that the listing and
+ * the error messages are exactly those of the sequential parser.</p>
+ */
+public class PascalParallelParserTD extends PascalParserTD
+{
+    // Smallest number of tokens worth parsing as a separate section.
+    private static final int MIN_SECTION_TOKENS = 1024;
+
+    // Number of sections per thread, to balance uneven sections.
+    private static final int SECTIONS_PER_THREAD = 4;
+
+    // Token types that start a non-empty statement.
+    private static final EnumSet<PascalTokenType> STATEMENT_START_SET =
+        EnumSet.of(BEGIN, CASE, PascalTokenType.FOR, PascalTokenType.IF,
+                   PascalTokenType.LOOP, REPEAT, WHEN, WHILE, IDENTIFIER);
+
+    private BufferedSource source;  // source buffer, or null
+    private int endLine;            // line number of the program's END
+    private int endPosition;        // position of the program's END
+
+    /**
+     * Constructor.
+     * @param scanner the scanner to be used with this parser.
+     * @param source the source that the scanner reads.
+     * @param context the context of the compilation.
+     */
+    public PascalParallelParserTD(Scanner scanner, Source source,
+                                  CompilationContext context)
+    {
+        super(scanner, context);
+
+        this.source = source instanceof BufferedSource
+                          ? (BufferedSource) source : null;
+    }
+
+    /**
+     * Parse a Pascal source program and generate the symbol table
+     * and the intermediate code.  Parse sequentially if the source is not
+     * in a buffer, if the intermediate code is flat, or if the program is
+     * too small to divide into sections.
+     * @throws Exception if an error occurred.
+     */
+    public void parse()
+        throws Exception
+    {
+        long startTime = System.currentTimeMillis();
+        ArrayList<Section> sections = null;
+
+        if ((source != null) && !context.isFlatICode()) {
+            sections = split();
+        }
+
+        if (sections != null) {
+            ForkJoinTask.invokeAll(sections);
+        }
+
+        if ((sections != null) && isResolved(sections)) {
+            join(sections, startTime);
+        }
+        else {
+            super.parse();
+        }
+    }
+
+    /**
+     * Pre-scan the source to divide the statements of the program's
+     * compound statement into sections.
+     * @return the list of sections, or null if there are fewer than two.
+     * @throws Exception if an error occurred.
+     */
+    private ArrayList<Section> split()
+        throws Exception
+    {
+        Scanner scanner =
+            new PascalTableScanner(source.slice(1, 0, Integer.MAX_VALUE, 0));
+        ArrayList<Token> starts = new ArrayList<Token>();
+        ArrayList<Integer> counts = new ArrayList<Integer>();
+
+        Token token = scanner.nextToken();
+        if (token.getType() != BEGIN) {
+            return null;
+        }
+
+        // Each top-level statement after a semicolon can start a section.
+        token = scanner.nextToken();
+        starts.add(token);
+        counts.add(0);
+
+        int depth = 1;
+        int count = 0;
+        boolean afterSemicolon = false;
+
+        while (true) {
+            TokenType type = token.getType();
+
+            // Leave the errors to the sequential parse.
+            if ((token instanceof EofToken) || (type == ERROR)) {
+                return null;
+            }
+
+            if (   (depth == 1) && afterSemicolon
+                && STATEMENT_START_SET.contains(type)) {
+                starts.add(token);
+                counts.add(count);
+            }
+
+            afterSemicolon = (depth == 1) && (type == SEMICOLON);
+
+            if ((type == BEGIN) || (type == CASE)) {
+                ++depth;
+            }
+            else if ((type == END) && (--depth == 0)) {
+                break;
+            }
+
+            ++count;
+            token = scanner.nextToken();
+        }
+
+        endLine = token.getLineNumber();
+        endPosition = token.getPosition();
+
+        // Choose the section starts to divide the tokens evenly.
+        int threads = ForkJoinPool.commonPool().getParallelism();
+        int sectionCount = Math.min(SECTIONS_PER_THREAD*threads,
+                                    count/MIN_SECTION_TOKENS);
+        if (sectionCount < 2) {
+            return null;
+        }
+
+        ArrayList<Token> sectionStarts = new ArrayList<Token>();
+        sectionStarts.add(starts.get(0));
+        for (int i = 1; i < starts.size(); ++i) {
+            long next = (long) sectionStarts.size()*count/sectionCount;
+
+            if (counts.get(i) >= next) {
+                sectionStarts.add(starts.get(i));
+            }
+        }
+
+        if (sectionStarts.size() < 2) {
+            return null;
+        }
+
+        // Each section ends where the next one starts,
+        // and the last one at the END token.
+        ArrayList<Section> sections = new ArrayList<Section>();
+        for (int i = 0; i < sectionStarts.size(); ++i) {
+            Token start = sectionStarts.get(i);
+            Token end = i + 1 < sectionStarts.size()
+                            ? sectionStarts.get(i + 1) : null;
+
+            sections.add(new Section(
+                source.slice(start.getLineNumber(), start.getPosition(),
+                             end != null ? end.getLineNumber() : endLine,
+                             end != null ? end.getPosition() : endPosition)));
+        }
+
+        return sections;
+    }
+
+    /**
+     * Determine whether the sections have parsed without syntax errors,
+     * and each identifier that a section did not define was defined by an
+     * earlier section.
+     * @param sections the parsed sections.
+     * @return true if the sections can be joined.
+     */
+    private boolean isResolved(ArrayList<Section> sections)
+    {
+        HashSet<String> definedNames = new HashSet<String>();
+
+        for (Section section : sections) {
+            if (section.errors.failed) {
+                return false;
+            }
+
+            for (String name : section.errors.undefinedNames) {
+                if (!definedNames.contains(name)) {
+                    return false;
+                }
+            }
+
+            for (SymTabEntry entry : section.symTab.sortedEntries()) {
+                definedNames.add(entry.getName());
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Parse the program's BEGIN, END, and final period, and join the
+     * parsed sections in between.
+     * @param sections the parsed sections.
+     * @param startTime the time that parsing started.
+     * @throws Exception if an error occurred.
+     */
+    private void join(ArrayList<Section> sections, long startTime)
+        throws Exception
+    {
+        iCode = context.createICode();
+
+        try {
+            Token token = nextToken();  // the BEGIN
+            ICodeNode rootNode = context.createICodeNode(COMPOUND);
+            rootNode.setAttribute(LINE, token.getLineNumber());
+
+            // Skip the source of the sections, listing its lines,
+            // and consume the END.
+            source.skipTo(endLine, endPosition);
+            nextToken();
+            token = nextToken();
+
+            for (Section section : sections) {
+                joinSection(section, rootNode);
+            }
+
+            // Look for the final period.
+            if (token.getType() != DOT) {
+                errorHandler.flag(token, MISSING_PERIOD, this);
+            }
+            token = currentToken();
+
+            // Set the parse tree root node.
+            iCode.setRoot(rootNode);
+
+            // Send the parser summary message.
+            float elapsedTime = (System.currentTimeMillis() - startTime)/1000f;
+            sendMessage(new Message(PARSER_SUMMARY,
+                                    new Number[] {token.getLineNumber(),
+                                                  getErrorCount(),
+                                                  elapsedTime}));
+        }
+        catch (java.io.IOException ex) {
+            errorHandler.abortTranslation(IO_ERROR, this);
+        }
+    }
+
+    /**
+     * Join a parsed section to the root node.  Enter its identifiers into
+     * the symbol table in the order that it entered them into its own.
+     * @param section the section.
+     * @param rootNode the root node.
+     */
+    private void joinSection(Section section, ICodeNode rootNode)
+    {
+        IdentityHashMap<SymTabEntry, SymTabEntry> entries =
+            new IdentityHashMap<SymTabEntry, SymTabEntry>();
+        SymTabEntry sectionIds[] =
+            new SymTabEntry[section.symTab.getSlotCount()];
+
+        for (SymTabEntry sectionId : section.symTab.sortedEntries()) {
+            sectionIds[sectionId.getSlot()] = sectionId;
+        }
+
+        for (SymTabEntry sectionId : sectionIds) {
+            String name = sectionId.getName();
+            SymTabEntry id = symTabStack.lookup(name);
+            if (id == null) {
+                id = symTabStack.enterLocal(name);
+            }
+
+            for (Integer lineNumber : sectionId.getLineNumbers()) {
+                id.appendLineNumber(lineNumber);
+            }
+
+            entries.put(sectionId, id);
+        }
+
+        for (ICodeNode statementNode : section.statements.getChildren()) {
+            replaceIds(statementNode, entries);
+            rootNode.addChild(statementNode);
+
+            if (isEnabled(STATEMENT)) {
+                sendMessage(new Message(STATEMENT, statementNode));
+            }
+        }
+    }
+
+    /**
+     * Point the nodes of a parse tree at the program's symbol table
+     * entries instead of a section's.  A node that the tree reaches more
+     * than once, such as the variable node that a WHEN statement shares
+     * among its assignment and its tests, is replaced only once.
+     * @param node the root node of the parse tree.
+     * @param entries the map from section entries to program entries.
+     */
+    static void replaceIds(ICodeNode node,
+                           IdentityHashMap<SymTabEntry, SymTabEntry> entries)
+    {
+        Object id = node.getAttribute(ID);
+        if ((id != null) && entries.containsKey(id)) {
+            node.setAttribute(ID, entries.get(id));
+        }
+
+        for (ICodeNode child : node.getChildren()) {
+            replaceIds(child, entries);
+        }
+    }
+
+    /**
+     * A section of the statements of the program's compound statement,
+     * parsed as a fork/join task.
+     */
+    private static class Section extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private BufferedSource source;       // slice of the section
+        private ICodeNode statements;        // parent of the statements
+        private SymTab symTab;               // the section's symbol table
+        private SectionErrorHandler errors;  // the section's errors
+
+        /**
+         * Constructor.
+         * @param source the slice of the source buffer of the section.
+         */
+        private Section(BufferedSource source)
+        {
+            this.source = source;
+            this.errors = new SectionErrorHandler();
+        }
+
+        /**
+         * Parse the section.
+         */
+        protected void compute()
+        {
+            try {
+                // The section has a context and a symbol table of its own.
+                PascalParserTD parser =
+                    new PascalParserTD(new PascalTableScanner(source),
+                                       new CompilationContext());
+                parser.errorHandler = errors;
+
+                statements = parser.getContext().createICodeNode(COMPOUND);
+                StatementParser statementParser = new StatementParser(parser);
+                statementParser.parseStatements(parser.nextToken(),
+                                                statements);
+
+                symTab = parser.getSymTabStack().getLocalSymTab();
+            }
+            catch (Exception ex) {
+                errors.failed = true;
+            }
+        }
+    }
+}
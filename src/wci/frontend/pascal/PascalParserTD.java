@@ -21,15 +21,19 @@ import static wci.message.MessageType.PARSER_SUMMARY;
  */
 public class PascalParserTD extends Parser
 {
-    protected static PascalErrorHandler errorHandler = new PascalErrorHandler();
+    protected PascalErrorHandler errorHandler;  // syntax error handler
+    protected SpanTable spans;                  // statement spans, or null
 
     /**
      * Constructor.
      * @param scanner the scanner to be used with this parser.
+     * @param context the context of the compilation.
      */
-    public PascalParserTD(Scanner scanner)
+    public PascalParserTD(Scanner scanner, CompilationContext context)
     {
-        super(scanner);
+        super(scanner, context);
+        this.errorHandler = new PascalErrorHandler();
+        this.spans = null;
     }
 
     /**
@@ -38,7 +42,9 @@ public class PascalParserTD extends Parser
      */
     public PascalParserTD(PascalParserTD parent)
     {
-        super(parent.getScanner());
+        super(parent);
+        this.errorHandler = parent.errorHandler;
+        this.spans = parent.spans;
     }
 
     /**
@@ -59,7 +65,7 @@ public class PascalParserTD extends Parser
         throws Exception
     {
         long startTime = System.currentTimeMillis();
-        iCode = ICodeFactory.createICode();
+        iCode = context.createICode();
 
         try {
             Token token = nextToken();
@@ -67,8 +73,9 @@ public class PascalParserTD extends Parser
 
             // Look for the BEGIN token to parse a compound statement.
             if (token.getType() == BEGIN) {
-                StatementParser statementParser = new StatementParser(this);
-                rootNode = statementParser.parse(token);
+                CompoundStatementParser compoundParser =
+                    new CompoundStatementParser(this);
+                rootNode = compoundParser.parseProgram(token);
                 token = currentToken();
             }
             else {
@@ -0,0 +1,578 @@
+package wci.frontend.pascal;
+
+import java.util.Map;
+
+import wci.frontend.*;
+import wci.frontend.pascal.tokens.*;
+
+import static wci.frontend.Source.EOF;
+import static wci.frontend.pascal.PascalTokenType.*;
+import static wci.frontend.pascal.PascalErrorCode.*;
+
+/**
+ * <h1>PascalTableScanner</h1>
+ *
+ * <p>A table-driven Pascal scanner that extracts the same tokens as the
+ * Pascal scanner without a token class per kind of token.  A table of
+ * character classes chooses the kind of token from its first character,
+ * and a table of transitions on the second character recognizes the
+ * two-character special symbols.  The characters of each token are
+ * collected into buffers that are reused for every token, and the token
+ * object is created only after the token is complete.  A special symbol
+ * token shares its text with its token type.  A reserved word is found
+ * with a perfect hash of its characters, an identifier's canonical name
+ * with a table of the identifiers, and a repeated number's text and value
+ * with a table of the number literals.</p>
+ */
+public class PascalTableScanner extends Scanner
+{
+    // Character classes.
+    private static final byte OTHER   = 0;  // invalid character
+    private static final byte SPACE   = 1;  // whitespace
+    private static final byte LETTER  = 2;  // starts or continues a word
+    private static final byte DIGIT   = 3;  // starts a number
+    private static final byte QUOTE   = 4;  // starts a string
+    private static final byte COMMENT = 5;  // starts a comment
+    private static final byte SYMBOL  = 6;  // starts a special symbol
+    private static final byte END     = 7;  // end of file
+
+    private static final int MAX_EXPONENT = 37;
+
+    // Classes of the ASCII characters.
+    private static final byte CHAR_CLASSES[] = new byte[128];
+
+    // Special symbol transitions.  SYMBOLS[c] is the type of the special
+    // symbol c, and PAIRS[c1][c2], if PAIRS[c1] is not null, is the type
+    // of the two-character special symbol c1c2, or null.
+    private static final PascalTokenType SYMBOLS[] =
+        new PascalTokenType[128];
+    private static final PascalTokenType PAIRS[][] =
+        new PascalTokenType[128][];
+
+    // Perfect hash table of the reserved words, indexed by reservedHash().
+    private static final PascalTokenType RESERVED[] =
+        new PascalTokenType[128];
+    private static int maxReservedLength = 0;
+
+    static {
+        for (String word : RESERVED_WORDS) {
+            char chars[] = word.toCharArray();
+            int index = reservedHash(chars, chars.length);
+
+            if (RESERVED[index] != null) {
+                throw new IllegalStateException(
+                    "Reserved word hash collision: " + word);
+            }
+
+            RESERVED[index] = PascalTokenType.valueOf(word.toUpperCase());
+            maxReservedLength = Math.max(maxReservedLength, chars.length);
+        }
+    }
+
+    static {
+        for (char c = 0; c < 128; ++c) {
+            CHAR_CLASSES[c] = charClass(c);
+        }
+
+        for (Map.Entry<String, PascalTokenType> entry
+                 : SPECIAL_SYMBOLS.entrySet()) {
+            String text = entry.getKey();
+            char first = text.charAt(0);
+
+            if (text.length() == 1) {
+                SYMBOLS[first] = entry.getValue();
+                CHAR_CLASSES[first] = SYMBOL;
+            }
+            else {
+                if (PAIRS[first] == null) {
+                    PAIRS[first] = new PascalTokenType[128];
+                }
+                PAIRS[first][text.charAt(1)] = entry.getValue();
+            }
+        }
+
+        // A quote starts a string and a left brace starts a comment,
+        // not the special symbols.
+        CHAR_CLASSES['\''] = QUOTE;
+        CHAR_CLASSES['{'] = COMMENT;
+        CHAR_CLASSES[EOF] = END;
+    }
+
+    private IdentifierTable identifiers;  // canonical identifier names
+    private NumberTable numbers;          // number literals and values
+
+    private char text[];         // token characters
+    private int textLength;      // number of token characters
+    private char string[];       // characters of a string token's value
+    private int stringLength;    // number of string value characters
+    private long mantissa;       // value of a number's digits so far
+
+    /**
+     * Constructor
+     * @param source the source to be used with this scanner.
+     */
+    public PascalTableScanner(Source source)
+    {
+        super(source);
+
+        this.identifiers = new IdentifierTable();
+        this.numbers = new NumberTable();
+        this.text = new char[64];
+        this.string = new char[64];
+    }
+
+    /**
+     * Return the class of a character that is not in the table.
+     * @param c the character.
+     * @return the class.
+     */
+    private static byte charClass(char c)
+    {
+        return Character.isWhitespace(c) ? SPACE
+             : Character.isLetter(c)     ? LETTER
+             : Character.isDigit(c)      ? DIGIT
+             :                             OTHER;
+    }
+
+    /**
+     * Return the class of a character.
+     * @param c the character.
+     * @return the class.
+     */
+    private static byte classOf(char c)
+    {
+        return c < 128 ? CHAR_CLASSES[c] : charClass(c);
+    }
+
+    /**
+     * Extract and return the next Pascal token from the source.
+     * @return the next token.
+     * @throws Exception if an error occurred.
+     */
+    protected Token extractToken()
+        throws Exception
+    {
+        char currentChar = skipWhiteSpace();
+        int lineNum = source.getLineNum();
+        int position = source.getPosition();
+
+        // The class of the current character determines the token type.
+        switch (classOf(currentChar)) {
+            case LETTER: return extractWord(currentChar, lineNum, position);
+            case DIGIT:  return extractNumber(currentChar, lineNum, position);
+            case QUOTE:  return extractString(lineNum, position);
+            case SYMBOL: return extractSymbol(currentChar, lineNum, position);
+            case END:    return new EofToken(source);
+
+            default: {
+                Token token = new PascalErrorToken(source, INVALID_CHARACTER,
+                                                   Character.toString(
+                                                       currentChar));
+                source.nextChar();  // consume character
+                return token;
+            }
+        }
+    }
+
+    /**
+     * Skip whitespace characters by consuming them.  A comment is whitespace.
+     * @return the current character after the whitespace.
+     * @throws Exception if an error occurred.
+     */
+    private char skipWhiteSpace()
+        throws Exception
+    {
+        char currentChar = source.currentChar();
+
+        while (true) {
+            byte charClass = classOf(currentChar);
+
+            if (charClass == SPACE) {
+                currentChar = source.nextChar();  // consume whitespace
+            }
+
+            // Start of a comment?
+            else if (charClass == COMMENT) {
+                do {
+                    currentChar = source.nextChar();  // consume comment
+                } while ((currentChar != '}') && (currentChar != EOF));
+
+                // Found closing '}'?
+                if (currentChar == '}') {
+                    currentChar = source.nextChar();  // consume the '}'
+                }
+            }
+
+            else {
+                return currentChar;
+            }
+        }
+    }
+
+    /**
+     * Append a character to the token text.
+     * @param c the character.
+     */
+    private void append(char c)
+    {
+        if (textLength == text.length) {
+            char newText[] = new char[2*textLength];
+            System.arraycopy(text, 0, newText, 0, textLength);
+            text = newText;
+        }
+
+        text[textLength++] = c;
+    }
+
+    /**
+     * Append a character to the value of a string token.
+     * @param c the character.
+     */
+    private void appendString(char c)
+    {
+        if (stringLength == string.length) {
+            char newString[] = new char[2*stringLength];
+            System.arraycopy(string, 0, newString, 0, stringLength);
+            string = newString;
+        }
+
+        string[stringLength++] = c;
+    }
+
+    /**
+     * Extract a word token (an identifier or a reserved word).  The value
+     * of an identifier token is the identifier's canonical name.
+     * @param currentChar the first character, a letter.
+     * @param lineNum the line number of the token.
+     * @param position the position of the token.
+     * @return the token.
+     * @throws Exception if an error occurred.
+     */
+    private Token extractWord(char currentChar, int lineNum, int position)
+        throws Exception
+    {
+        int hash = 0;          // hash code of the lower-case characters
+        int bits = 0;          // all the characters or'ed together
+        boolean upper = false; // true if there is an upper-case letter
+
+        textLength = 0;
+
+        // Get the word characters (letter or digit).
+        byte charClass;
+        do {
+            char lower = IdentifierTable.toLower(currentChar);
+
+            append(currentChar);
+            bits |= currentChar;
+            upper |= lower != currentChar;
+            hash = IdentifierTable.hash(hash, lower);
+
+            currentChar = source.nextChar();  // consume character
+            charClass = classOf(currentChar);
+        } while ((charClass == LETTER) || (charClass == DIGIT));
+
+        // A word with characters that are not ASCII is converted
+        // to lower case as a string.
+        if (bits >= 128) {
+            String word = new String(text, 0, textLength);
+            String lowerWord = word.toLowerCase();
+
+            if (RESERVED_WORDS.contains(lowerWord)) {
+                return new PascalToken(source, lineNum, position,
+                                       PascalTokenType.valueOf(
+                                           word.toUpperCase()),
+                                       word, null);
+            }
+
+            return new PascalToken(source, lineNum, position, IDENTIFIER,
+                                   word, identifiers.intern(lowerWord));
+        }
+
+        // Is it a reserved word?
+        PascalTokenType wordType = reservedWord(text, textLength);
+        if (wordType != null) {
+            String word = upper ? new String(text, 0, textLength)
+                                : wordType.getText();
+            return new PascalToken(source, lineNum, position,
+                                   wordType, word, null);
+        }
+
+        // An identifier.
+        String name = identifiers.intern(text, textLength, hash);
+        String word = upper ? new String(text, 0, textLength) : name;
+        return new PascalToken(source, lineNum, position,
+                               IDENTIFIER, word, name);
+    }
+
+    /**
+     * Return the perfect hash code of a reserved word, computed from its
+     * first, second, and last characters and its length.
+     * @param chars the characters of the word in any case.
+     * @param length the number of characters, at least 2.
+     * @return the hash code, an index into the reserved word table.
+     */
+    private static int reservedHash(char chars[], int length)
+    {
+        return (     IdentifierTable.toLower(chars[0])
+                + 35*IdentifierTable.toLower(chars[1])
+                + 17*IdentifierTable.toLower(chars[length - 1])
+                +    length) & (RESERVED.length - 1);
+    }
+
+    /**
+     * Return the type of a reserved word.
+     * @param chars the ASCII characters of a word in any case.
+     * @param length the number of characters.
+     * @return the reserved word's token type, or null if the word is not
+     *         a reserved word.
+     */
+    private static PascalTokenType reservedWord(char chars[], int length)
+    {
+        if ((length < 2) || (length > maxReservedLength)) {
+            return null;
+        }
+
+        PascalTokenType wordType = RESERVED[reservedHash(chars, length)];
+        return (wordType != null)
+                   && IdentifierTable.matches(wordType.getText(),
+                                              chars, length)
+               ? wordType : null;
+    }
+
+    /**
+     * Extract a number token (an integer or a real).  The value is
+     * accumulated from the digits as they are read, and the text and value
+     * of a repeated literal are taken from the number table.
+     * @param currentChar the first character, a digit.
+     * @param lineNum the line number of the token.
+     * @param position the position of the token.
+     * @return the token.
+     * @throws Exception if an error occurred.
+     */
+    private Token extractNumber(char currentChar, int lineNum, int position)
+        throws Exception
+    {
+        PascalTokenType type = INTEGER;  // assume INTEGER for now
+        long exponentValue = 0;          // power of ten of the mantissa
+
+        textLength = 0;
+        mantissa = 0;
+
+        // Extract the digits of the whole part of the number.
+        currentChar = appendDigits(currentChar);
+        int wholeCount = textLength;
+
+        // Is there a . that is a decimal point and not the start
+        // of a .. token?
+        boolean sawDotDot = false;
+        if (currentChar == '.') {
+            if (source.peekChar() == '.') {
+                sawDotDot = true;  // don't consume the ..
+            }
+            else {
+                type = REAL;
+                append(currentChar);
+                currentChar = source.nextChar();  // consume decimal point
+
+                // The fraction part must have at least one digit.
+                if (classOf(currentChar) != DIGIT) {
+                    return numberToken(ERROR, INVALID_NUMBER,
+                                       lineNum, position);
+                }
+
+                int fractionStart = textLength;
+                currentChar = appendDigits(currentChar);
+                exponentValue = fractionStart - textLength;
+            }
+        }
+
+        // Is there an exponent part?
+        if (!sawDotDot && ((currentChar == 'E') || (currentChar == 'e'))) {
+            type = REAL;
+            append(currentChar);
+            currentChar = source.nextChar();  // consume 'E' or 'e'
+
+            // Exponent sign?
+            char exponentSign = '+';
+            if ((currentChar == '+') || (currentChar == '-')) {
+                append(currentChar);
+                exponentSign = currentChar;
+                currentChar = source.nextChar();  // consume '+' or '-'
+            }
+
+            // The exponent must have at least one digit.
+            if (classOf(currentChar) != DIGIT) {
+                return numberToken(ERROR, INVALID_NUMBER, lineNum, position);
+            }
+
+            long digitsValue = 0;
+            do {
+                append(currentChar);
+                digitsValue = NumberTable.accumulate(digitsValue,
+                                                     currentChar);
+                currentChar = source.nextChar();  // consume digit
+            } while (classOf(currentChar) == DIGIT);
+
+            // The exponent is an unsigned integer, so an exponent that is
+            // too large for an int is an integer out of range.
+            if (digitsValue > Integer.MAX_VALUE) {
+                return numberToken(ERROR, RANGE_INTEGER, lineNum, position);
+            }
+
+            exponentValue += exponentSign == '-' ? -digitsValue
+                                                 : digitsValue;
+        }
+
+        // A repeated literal?
+        int hash = NumberTable.hash(text, textLength);
+        int index = numbers.lookup(text, textLength, hash);
+        if (index >= 0) {
+            return new PascalToken(source, lineNum, position, type,
+                                   numbers.getText(index),
+                                   numbers.getValue(index));
+        }
+
+        String numberText = new String(text, 0, textLength);
+        Object value;
+
+        // Compute the value of an integer number token.
+        if (type == INTEGER) {
+            if (mantissa > Integer.MAX_VALUE) {
+                return numberToken(ERROR, RANGE_INTEGER, lineNum, position);
+            }
+
+            value = (int) mantissa;
+        }
+
+        // Compute the value of a real number token.
+        else {
+            // The exponent is a long, so that a large one cannot wrap
+            // around into range.
+            if (Math.abs(exponentValue + wholeCount) > MAX_EXPONENT) {
+                return numberToken(ERROR, RANGE_REAL, lineNum, position);
+            }
+
+            value = NumberTable.floatValue(mantissa, (int) exponentValue,
+                                           numberText);
+        }
+
+        numbers.enter(numberText, value, hash);
+        return new PascalToken(source, lineNum, position, type,
+                               numberText, value);
+    }
+
+    /**
+     * Create a number token from the token text.
+     * @param type the token type.
+     * @param value the token value.
+     * @param lineNum the line number of the token.
+     * @param position the position of the token.
+     * @return the token.
+     */
+    private Token numberToken(PascalTokenType type, Object value,
+                              int lineNum, int position)
+    {
+        return new PascalToken(source, lineNum, position, type,
+                               new String(text, 0, textLength), value);
+    }
+
+    /**
+     * Append the digits of an unsigned integer to the token text, and
+     * accumulate them into the mantissa.
+     * @param currentChar the first character, a digit.
+     * @return the current character after the digits.
+     * @throws Exception if an error occurred.
+     */
+    private char appendDigits(char currentChar)
+        throws Exception
+    {
+        do {
+            append(currentChar);
+            mantissa = NumberTable.accumulate(mantissa, currentChar);
+            currentChar = source.nextChar();  // consume digit
+        } while (classOf(currentChar) == DIGIT);
+
+        return currentChar;
+    }
+
+    /**
+     * Extract a string token.  Each whitespace character becomes a blank,
+     * and each pair of adjacent quotes represents a single quote.
+     * @param lineNum the line number of the token.
+     * @param position the position of the token.
+     * @return the token.
+     * @throws Exception if an error occurred.
+     */
+    private Token extractString(int lineNum, int position)
+        throws Exception
+    {
+        textLength = 0;
+        stringLength = 0;
+
+        append('\'');
+        char currentChar = source.nextChar();  // consume initial quote
+
+        while (currentChar != EOF) {
+            if (currentChar == '\'') {
+
+                // A pair of quotes?
+                if (source.peekChar() == '\'') {
+                    append('\'');
+                    append('\'');
+                    appendString('\'');
+                    source.nextChar();                // consume pair of quotes
+                    currentChar = source.nextChar();
+                }
+
+                // The final quote.
+                else {
+                    source.nextChar();  // consume final quote
+                    append('\'');
+
+                    return new PascalToken(source, lineNum, position, STRING,
+                                           new String(text, 0, textLength),
+                                           new String(string, 0,
+                                                      stringLength));
+                }
+            }
+            else {
+                if (classOf(currentChar) == SPACE) {
+                    currentChar = ' ';
+                }
+
+                append(currentChar);
+                appendString(currentChar);
+                currentChar = source.nextChar();  // consume character
+            }
+        }
+
+        return new PascalToken(source, lineNum, position, ERROR,
+                               new String(text, 0, textLength),
+                               UNEXPECTED_EOF);
+    }
+
+    /**
+     * Extract a special symbol token.
+     * @param currentChar the first character of the symbol.
+     * @param lineNum the line number of the token.
+     * @param position the position of the token.
+     * @return the token.
+     * @throws Exception if an error occurred.
+     */
+    private Token extractSymbol(char currentChar, int lineNum, int position)
+        throws Exception
+    {
+        PascalTokenType symbolType = SYMBOLS[currentChar];
+        PascalTokenType pairs[] = PAIRS[currentChar];
+        char nextChar = source.nextChar();  // consume the first character
+
+        // A two-character special symbol?
+        if ((pairs != null) && (nextChar < 128) && (pairs[nextChar] != null)) {
+            symbolType = pairs[nextChar];
+            source.nextChar();  // consume the second character
+        }
+
+        return new PascalToken(source, lineNum, position, symbolType,
+                               symbolType.getText(), null);
+    }
+}
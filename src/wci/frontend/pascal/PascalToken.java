@@ -22,4 +22,23 @@ public class PascalToken extends Token
     {
         super(source);
     }
+
+    /**
+     * Constructor for a token that the scanner has already extracted.
+     * @param source the source of the token's characters.
+     * @param lineNum the line number of the token's source line.
+     * @param position the position of the first token character.
+     * @param type the token type.
+     * @param text the token text.
+     * @param value the token value, or null.
+     */
+    protected PascalToken(Source source, int lineNum, int position,
+                          PascalTokenType type, String text, Object value)
+    {
+        super(source, lineNum, position);
+
+        this.type = type;
+        this.text = text;
+        this.value = value;
+    }
 }
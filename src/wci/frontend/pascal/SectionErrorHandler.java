@@ -0,0 +1,50 @@
+package wci.frontend.pascal;
+
+import java.util.HashSet;
+
+import wci.frontend.*;
+import wci.intermediate.AbortException;
+
+import static wci.frontend.pascal.PascalErrorCode.*;
+
+/**
+ * <h1>SectionErrorHandler</h1>
+ *
+ * <p>The error handler of a section of the source that is parsed apart
+ * from the rest of the program.  An undefined identifier is noted to
+ * check later, since the rest of the program may define it, and any
+ * other error fails the section and stops its parse.</p>
+ */
+class SectionErrorHandler extends PascalErrorHandler
+{
+    HashSet<String> undefinedNames =        // identifiers used before
+        new HashSet<String>();               // they were defined
+    boolean failed = false;                 // true if the section failed
+
+    /**
+     * Note an error.
+     * @param token the bad token.
+     * @param errorCode the error code.
+     * @param parser the parser.
+     */
+    public void flag(Token token, PascalErrorCode errorCode, Parser parser)
+    {
+        if (errorCode == IDENTIFIER_UNDEFINED) {
+            undefinedNames.add((String) token.getValue());
+        }
+        else {
+            abortTranslation(errorCode, parser);
+        }
+    }
+
+    /**
+     * Fail the section and abort its parse, but not the translation.
+     * @param errorCode the error code.
+     * @param parser the parser.
+     */
+    public void abortTranslation(PascalErrorCode errorCode, Parser parser)
+    {
+        failed = true;
+        throw new AbortException(errorCode.getStatus(), null);
+    }
+}
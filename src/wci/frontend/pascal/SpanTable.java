@@ -0,0 +1,134 @@
+package wci.frontend.pascal;
+
+import java.util.IdentityHashMap;
+
+import wci.frontend.*;
+import wci.intermediate.*;
+
+/**
+ * <h1>SpanTable</h1>
+ *
+ * <p>Where the statements of a parse tree are in the source: for each
+ * statement node, the token that starts the statement and the token that
+ * follows it, and for a node that is the parent of a statement list, the
+ * token that terminates the list.  An incremental parser uses the spans
+ * to find the statements that an edit of the source touches.</p>
+ */
+public class SpanTable
+{
+    private IdentityHashMap<ICodeNode, Span> spans;  // spans by node
+
+    /**
+     * Constructor.
+     */
+    public SpanTable()
+    {
+        this.spans = new IdentityHashMap<ICodeNode, Span>();
+    }
+
+    /**
+     * Enter the span of a statement.
+     * @param node the statement node.
+     * @param startToken the token that starts the statement.
+     * @param followToken the token that follows the statement.
+     */
+    public void enterStatement(ICodeNode node, Token startToken,
+                               Token followToken)
+    {
+        Span span = enter(node);
+
+        span.line = startToken.getLineNumber();
+        span.position = startToken.getPosition();
+        span.length = lengthOf(startToken);
+        span.followLine = followToken.getLineNumber();
+        span.followPosition = followToken.getPosition();
+        span.followLength = lengthOf(followToken);
+        span.followType = followToken.getType();
+    }
+
+    /**
+     * Enter the token that terminates a statement list.
+     * @param node the parent node of the statement list.
+     * @param terminatorToken the terminator token.
+     */
+    public void enterTerminator(ICodeNode node, Token terminatorToken)
+    {
+        Span span = enter(node);
+
+        span.endLine = terminatorToken.getLineNumber();
+        span.endPosition = terminatorToken.getPosition();
+    }
+
+    /**
+     * Return the span of a node.
+     * @param node the node.
+     * @return the span, or null if none was entered.
+     */
+    public Span get(ICodeNode node)
+    {
+        return spans.get(node);
+    }
+
+    /**
+     * Enter a span that was created for another table.
+     * @param node the node.
+     * @param span the span.
+     */
+    void put(ICodeNode node, Span span)
+    {
+        spans.put(node, span);
+    }
+
+    /**
+     * Remove the span of a node.
+     * @param node the node.
+     */
+    void remove(ICodeNode node)
+    {
+        spans.remove(node);
+    }
+
+    /**
+     * Return the span of a node, entering a new one if none was entered.
+     * @param node the node.
+     * @return the span.
+     */
+    private Span enter(ICodeNode node)
+    {
+        Span span = spans.get(node);
+
+        if (span == null) {
+            span = new Span();
+            spans.put(node, span);
+        }
+
+        return span;
+    }
+
+    /**
+     * Return the number of characters of a token.
+     * @param token the token.
+     * @return the length of its text, or 0 if it has none.
+     */
+    private static int lengthOf(Token token)
+    {
+        String text = token.getText();
+        return text != null ? text.length() : 0;
+    }
+
+    /**
+     * The span of a node.  A line number is 0 if it was not entered.
+     */
+    public static class Span
+    {
+        int line;              // line number of the start token
+        int position;          // position of the start token
+        int length;            // length of the start token
+        int followLine;        // line number of the follow token
+        int followPosition;    // position of the follow token
+        int followLength;      // length of the follow token
+        TokenType followType;  // type of the follow token
+        int endLine;           // line number of the list terminator
+        int endPosition;       // position of the list terminator
+    }
+}
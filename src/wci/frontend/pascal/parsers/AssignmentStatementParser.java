@@ -48,11 +48,12 @@ public class AssignmentStatementParser extends StatementParser
         throws Exception
     {
         // Create the ASSIGN node.
-        ICodeNode assignNode = ICodeFactory.createICodeNode(ASSIGN);
+        ICodeNode assignNode = context.createICodeNode(ASSIGN);
 
         // Look up the target identifer in the symbol table stack.
         // Enter the identifier into the table if it's not found.
-        String targetName = token.getText().toLowerCase();
+        // The token value is the identifier's canonical name.
+        String targetName = (String) token.getValue();
         SymTabEntry targetId = symTabStack.lookup(targetName);
         if (targetId == null) {
             targetId = symTabStack.enterLocal(targetName);
@@ -62,7 +63,7 @@ public class AssignmentStatementParser extends StatementParser
         token = nextToken();  // consume the identifier token
 
         // Create the variable node and set its name attribute.
-        ICodeNode variableNode = ICodeFactory.createICodeNode(VARIABLE);
+        ICodeNode variableNode = context.createICodeNode(VARIABLE);
         variableNode.setAttribute(ID, targetId);
 
         // The ASSIGN node adopts the variable node as its first child.
@@ -56,7 +56,7 @@ public class CaseStatementParser extends StatementParser
         token = nextToken();  // consume the CASE
 
         // Create a SELECT node.
-        ICodeNode selectNode = ICodeFactory.createICodeNode(SELECT);
+        ICodeNode selectNode = context.createICodeNode(SELECT);
 
         // Parse the CASE expression.
         // The SELECT node adopts the expression subtree as its first child.
@@ -120,9 +120,8 @@ public class CaseStatementParser extends StatementParser
         // Create an SELECT_BRANCH node and a SELECT_CONSTANTS node.
         // The SELECT_BRANCH node adopts the SELECT_CONSTANTS node as its
         // first child.
-        ICodeNode branchNode = ICodeFactory.createICodeNode(SELECT_BRANCH);
-        ICodeNode constantsNode =
-                               ICodeFactory.createICodeNode(SELECT_CONSTANTS);
+        ICodeNode branchNode = context.createICodeNode(SELECT_BRANCH);
+        ICodeNode constantsNode = context.createICodeNode(SELECT_CONSTANTS);
         branchNode.addChild(constantsNode);
 
         // Parse the list of CASE branch constants.
@@ -275,7 +274,7 @@ public class CaseStatementParser extends StatementParser
      */
     private ICodeNode parseIntegerConstant(String value, TokenType sign)
     {
-        ICodeNode constantNode = ICodeFactory.createICodeNode(INTEGER_CONSTANT);
+        ICodeNode constantNode = context.createICodeNode(INTEGER_CONSTANT);
         int intValue = Integer.parseInt(value);
 
         if (sign == MINUS) {
@@ -303,7 +302,7 @@ public class CaseStatementParser extends StatementParser
         }
         else {
             if (value.length() == 1) {
-                constantNode = ICodeFactory.createICodeNode(STRING_CONSTANT);
+                constantNode = context.createICodeNode(STRING_CONSTANT);
                 constantNode.setAttribute(VALUE, value);
             }
             else {
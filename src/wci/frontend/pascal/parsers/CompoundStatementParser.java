@@ -39,7 +39,7 @@ public class CompoundStatementParser extends StatementParser
         token = nextToken();  // consume the BEGIN
 
         // Create the COMPOUND node.
-        ICodeNode compoundNode = ICodeFactory.createICodeNode(COMPOUND);
+        ICodeNode compoundNode = context.createICodeNode(COMPOUND);
 
         // Parse the statement list terminated by the END token.
         StatementParser statementParser = new StatementParser(this);
@@ -47,4 +47,36 @@ public class CompoundStatementParser extends StatementParser
 
         return compoundNode;
     }
+
+    /**
+     * Parse the compound statement of a program.  Send each of its
+     * statements in a message as soon as it has been parsed, so that
+     * listeners can process the program one statement at a time.
+     * @param token the initial token.
+     * @return the root node of the generated parse tree.
+     * @throws Exception if an error occurred.
+     */
+    public ICodeNode parseProgram(Token token)
+        throws Exception
+    {
+        Token beginToken = token;
+        token = nextToken();  // consume the BEGIN
+
+        // Create the COMPOUND node.
+        ICodeNode compoundNode = context.createICodeNode(COMPOUND);
+
+        // Parse the statement list terminated by the END token.
+        StatementParser statementParser = new StatementParser(this);
+        statementParser.parseList(token, compoundNode, END, MISSING_END,
+                                  true);
+
+        // Set the current line number as an attribute.
+        setLineNumber(compoundNode, beginToken);
+
+        if (spans != null) {
+            spans.enterStatement(compoundNode, beginToken, currentToken());
+        }
+
+        return compoundNode;
+    }
 }
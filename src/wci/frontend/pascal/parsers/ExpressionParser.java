@@ -89,7 +89,7 @@ public class ExpressionParser extends StatementParser
             // Create a new operator node and adopt the current tree
             // as its first child.
             ICodeNodeType nodeType = REL_OPS_MAP.get(tokenType);
-            ICodeNode opNode = ICodeFactory.createICodeNode(nodeType);
+            ICodeNode opNode = context.createICodeNode(nodeType);
             opNode.addChild(rootNode);
 
             token = nextToken();  // consume the operator
@@ -144,7 +144,7 @@ public class ExpressionParser extends StatementParser
 
             // Create a NEGATE node and adopt the current tree
             // as its child. The NEGATE node becomes the new root node.
-            ICodeNode negateNode = ICodeFactory.createICodeNode(NEGATE);
+            ICodeNode negateNode = context.createICodeNode(NEGATE);
             negateNode.addChild(rootNode);
             rootNode = negateNode;
         }
@@ -158,7 +158,7 @@ public class ExpressionParser extends StatementParser
             // Create a new operator node and adopt the current tree
             // as its first child.
             ICodeNodeType nodeType = ADD_OPS_OPS_MAP.get(tokenType);
-            ICodeNode opNode = ICodeFactory.createICodeNode(nodeType);
+            ICodeNode opNode = context.createICodeNode(nodeType);
             opNode.addChild(rootNode);
 
             token = nextToken();  // consume the operator
@@ -213,7 +213,7 @@ public class ExpressionParser extends StatementParser
             // Create a new operator node and adopt the current tree
             // as its first child.
             ICodeNodeType nodeType = MULT_OPS_OPS_MAP.get(tokenType);
-            ICodeNode opNode = ICodeFactory.createICodeNode(nodeType);
+            ICodeNode opNode = context.createICodeNode(nodeType);
             opNode.addChild(rootNode);
 
             token = nextToken();  // consume the operator
@@ -249,14 +249,15 @@ public class ExpressionParser extends StatementParser
             case IDENTIFIER: {
                 // Look up the identifier in the symbol table stack.
                 // Flag the identifier as undefined if it's not found.
-                String name = token.getText().toLowerCase();
+                // The token value is the identifier's canonical name.
+                String name = (String) token.getValue();
                 SymTabEntry id = symTabStack.lookup(name);
                 if (id == null) {
                     errorHandler.flag(token, IDENTIFIER_UNDEFINED, this);
                     id = symTabStack.enterLocal(name);
                 }
 
-                rootNode = ICodeFactory.createICodeNode(VARIABLE);
+                rootNode = context.createICodeNode(VARIABLE);
                 rootNode.setAttribute(ID, id);
                 id.appendLineNumber(token.getLineNumber());
 
@@ -266,7 +267,7 @@ public class ExpressionParser extends StatementParser
 
             case INTEGER: {
                 // Create an INTEGER_CONSTANT node as the root node.
-                rootNode = ICodeFactory.createICodeNode(INTEGER_CONSTANT);
+                rootNode = context.createICodeNode(INTEGER_CONSTANT);
                 rootNode.setAttribute(VALUE, token.getValue());
 
                 token = nextToken();  // consume the number
@@ -275,7 +276,7 @@ public class ExpressionParser extends StatementParser
 
             case REAL: {
                 // Create an REAL_CONSTANT node as the root node.
-                rootNode = ICodeFactory.createICodeNode(REAL_CONSTANT);
+                rootNode = context.createICodeNode(REAL_CONSTANT);
                 rootNode.setAttribute(VALUE, token.getValue());
 
                 token = nextToken();  // consume the number
@@ -286,7 +287,7 @@ public class ExpressionParser extends StatementParser
                 String value = (String) token.getValue();
 
                 // Create a STRING_CONSTANT node as the root node.
-                rootNode = ICodeFactory.createICodeNode(STRING_CONSTANT);
+                rootNode = context.createICodeNode(STRING_CONSTANT);
                 rootNode.setAttribute(VALUE, value);
 
                 token = nextToken();  // consume the string
@@ -297,7 +298,7 @@ public class ExpressionParser extends StatementParser
                 token = nextToken();  // consume the NOT
 
                 // Create a NOT node as the root node.
-                rootNode = ICodeFactory.createICodeNode(ICodeNodeTypeImpl.NOT);
+                rootNode = context.createICodeNode(ICodeNodeTypeImpl.NOT);
 
                 // Parse the factor.  The NOT node adopts the
                 // factor node as its child.
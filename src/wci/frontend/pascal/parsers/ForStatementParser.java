@@ -15,7 +15,11 @@ import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
 /**
  * <h1>ForStatementParser</h1>
  *
- * <p>Parse a FOR statement.</p>
+ * <p>Parse a FOR statement into a FOR node whose children are the
+ * initial assignment of the control variable, the termination
+ * expression, the nested statement, and the assignment that advances
+ * the control variable.  The advancing assignment adds 1 for TO and
+ * subtracts 1 for DOWNTO.</p>
  *
  * <p>Copyright (c) 2009 by Ronald Mak</p>
  * <p>For instructional purposes only.  No warranties.</p>
@@ -60,10 +64,8 @@ public class ForStatementParser extends StatementParser
         token = nextToken();  // consume the FOR
         Token targetToken = token;
 
-        // Create the loop COMPOUND, LOOP, and TEST nodes.
-        ICodeNode compoundNode = ICodeFactory.createICodeNode(COMPOUND);
-        ICodeNode loopNode = ICodeFactory.createICodeNode(ICodeNodeTypeImpl.LOOP);
-        ICodeNode testNode = ICodeFactory.createICodeNode(TEST);
+        // Create the FOR node.
+        ICodeNode forNode = context.createICodeNode(ICodeNodeTypeImpl.FOR);
 
         // Parse the embedded initial assignment.
         AssignmentStatementParser assignmentParser =
@@ -73,10 +75,8 @@ public class ForStatementParser extends StatementParser
         // Set the current line number attribute.
         setLineNumber(initAssignNode, targetToken);
 
-        // The COMPOUND node adopts the initial ASSIGN and the LOOP nodes
-        // as its first and second children.
-        compoundNode.addChild(initAssignNode);
-        compoundNode.addChild(loopNode);
+        // The FOR node adopts the initial ASSIGN node as its first child.
+        forNode.addChild(initAssignNode);
 
         // Synchronize at the TO or DOWNTO.
         token = synchronize(TO_DOWNTO_SET);
@@ -91,24 +91,10 @@ public class ForStatementParser extends StatementParser
             errorHandler.flag(token, MISSING_TO_DOWNTO, this);
         }
 
-        // Create a relational operator node: GT for TO, or LT for DOWNTO.
-        ICodeNode relOpNode = ICodeFactory.createICodeNode(direction == TO
-                                                           ? GT : LT);
-
-        // Copy the control VARIABLE node. The relational operator
-        // node adopts the copied VARIABLE node as its first child.
-        ICodeNode controlVarNode = initAssignNode.getChildren().get(0);
-        relOpNode.addChild(controlVarNode.copy());
-
-        // Parse the termination expression. The relational operator node
-        // adopts the expression as its second child.
+        // Parse the termination expression. The FOR node adopts
+        // the expression as its second child.
         ExpressionParser expressionParser = new ExpressionParser(this);
-        relOpNode.addChild(expressionParser.parse(token));
-
-        // The TEST node adopts the relational operator node as its only child.
-        // The LOOP node adopts the TEST node as its first child.
-        testNode.addChild(relOpNode);
-        loopNode.addChild(testNode);
+        forNode.addChild(expressionParser.parse(token));
 
         // Synchronize at the DO.
         token = synchronize(DO_SET);
@@ -119,37 +105,38 @@ public class ForStatementParser extends StatementParser
             errorHandler.flag(token, MISSING_DO, this);
         }
 
-        // Parse the nested statement. The LOOP node adopts the statement
-        // node as its second child.
+        // Parse the nested statement. The FOR node adopts the statement
+        // node as its third child.
         StatementParser statementParser = new StatementParser(this);
-        loopNode.addChild(statementParser.parse(token));
+        forNode.addChild(statementParser.parse(token));
 
         // Create an assignment with a copy of the control variable
         // to advance the value of the variable.
-        ICodeNode nextAssignNode = ICodeFactory.createICodeNode(ASSIGN);
+        ICodeNode controlVarNode = initAssignNode.getChildren().get(0);
+        ICodeNode nextAssignNode = context.createICodeNode(ASSIGN);
         nextAssignNode.addChild(controlVarNode.copy());
 
         // Create the arithmetic operator node:
         // ADD for TO, or SUBTRACT for DOWNTO.
-        ICodeNode arithOpNode = ICodeFactory.createICodeNode(direction == TO
+        ICodeNode arithOpNode = context.createICodeNode(direction == TO
                                                              ? ADD : SUBTRACT);
 
         // The operator node adopts a copy of the loop variable as its
         // first child and the value 1 as its second child.
         arithOpNode.addChild(controlVarNode.copy());
-        ICodeNode oneNode = ICodeFactory.createICodeNode(INTEGER_CONSTANT);
+        ICodeNode oneNode = context.createICodeNode(INTEGER_CONSTANT);
         oneNode.setAttribute(VALUE, 1);
         arithOpNode.addChild(oneNode);
 
         // The next ASSIGN node adopts the arithmetic operator node as its
-        // second child. The loop node adopts the next ASSIGN node as its
-        // third child.
+        // second child. The FOR node adopts the next ASSIGN node as its
+        // fourth child.
         nextAssignNode.addChild(arithOpNode);
-        loopNode.addChild(nextAssignNode);
+        forNode.addChild(nextAssignNode);
 
         // Set the current line number attribute.
         setLineNumber(nextAssignNode, targetToken);
 
-        return compoundNode;
+        return forNode;
     }
 }
@@ -51,7 +51,7 @@ public class IfStatementParser extends StatementParser
         token = nextToken();  // consume the IF
 
         // Create an IF node.
-        ICodeNode ifNode = ICodeFactory.createICodeNode(ICodeNodeTypeImpl.IF);
+        ICodeNode ifNode = context.createICodeNode(ICodeNodeTypeImpl.IF);
 
         // Parse the expression.
         // The IF node adopts the expression subtree as its first child.
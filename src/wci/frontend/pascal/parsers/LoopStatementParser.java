@@ -87,10 +87,10 @@ public class LoopStatementParser extends StatementParser
         Token targetToken = token;
 
         // Create the loop COMPOUND, LOOP, and TEST nodes.
-        ICodeNode compoundNode = ICodeFactory.createICodeNode(COMPOUND);
-        ICodeNode loopNode = ICodeFactory.createICodeNode(ICodeNodeTypeImpl.LOOP);
-        ICodeNode testNode = ICodeFactory.createICodeNode(TEST);
-        ICodeNode notNode = ICodeFactory.createICodeNode(ICodeNodeTypeImpl.NOT);
+        ICodeNode compoundNode = context.createICodeNode(COMPOUND);
+        ICodeNode loopNode = context.createICodeNode(ICodeNodeTypeImpl.LOOP);
+        ICodeNode testNode = context.createICodeNode(TEST);
+        ICodeNode notNode = context.createICodeNode(ICodeNodeTypeImpl.NOT);
 
         // Parse the embedded initial assignment.
         AssignmentStatementParser assignmentParser = new AssignmentStatementParser(this);
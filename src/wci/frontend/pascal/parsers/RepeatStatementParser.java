@@ -41,8 +41,8 @@ public class RepeatStatementParser extends StatementParser
         token = nextToken();  // consume the REPEAT
 
         // Create the LOOP and TEST nodes.
-        ICodeNode loopNode = ICodeFactory.createICodeNode(ICodeNodeTypeImpl.LOOP);
-        ICodeNode testNode = ICodeFactory.createICodeNode(TEST);
+        ICodeNode loopNode = context.createICodeNode(ICodeNodeTypeImpl.LOOP);
+        ICodeNode testNode = context.createICodeNode(TEST);
 
         // Parse the statement list terminated by the UNTIL token.
         // The LOOP node is the parent of the statement subtrees.
@@ -5,11 +5,13 @@ import java.util.EnumSet;
 import wci.frontend.*;
 import wci.frontend.pascal.*;
 import wci.intermediate.*;
+import wci.message.*;
 
 import static wci.frontend.pascal.PascalTokenType.*;
 import static wci.frontend.pascal.PascalErrorCode.*;
 import static wci.intermediate.icodeimpl.ICodeNodeTypeImpl.*;
 import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+import static wci.message.MessageType.STATEMENT;
 
 /**
  * <h1>StatementParser</h1>
@@ -32,7 +34,8 @@ public class StatementParser extends PascalParserTD
 
     // Synchronization set for starting a statement.
     protected static final EnumSet<PascalTokenType> STMT_START_SET =
-        EnumSet.of(BEGIN, CASE, FOR, PascalTokenType.IF, PascalTokenType.LOOP, REPEAT, WHEN, WHILE,
+        EnumSet.of(BEGIN, CASE, PascalTokenType.FOR, PascalTokenType.IF,
+                   PascalTokenType.LOOP, REPEAT, WHEN, WHILE,
                    IDENTIFIER, SEMICOLON);
 
     // Synchronization set for following a statement.
@@ -113,7 +116,7 @@ public class StatementParser extends PascalParserTD
             }
 
             default: {
-                statementNode = ICodeFactory.createICodeNode(NO_OP);
+                statementNode = context.createICodeNode(NO_OP);
                 break;
             }
         }
@@ -121,6 +124,10 @@ public class StatementParser extends PascalParserTD
         // Set the current line number as an attribute.
         setLineNumber(statementNode, token);
 
+        if (spans != null) {
+            spans.enterStatement(statementNode, token, currentToken());
+        }
+
         return statementNode;
     }
 
@@ -148,6 +155,24 @@ public class StatementParser extends PascalParserTD
                              PascalTokenType terminator,
                              PascalErrorCode errorCode)
         throws Exception
+    {
+        parseList(token, parentNode, terminator, errorCode, false);
+    }
+
+    /**
+     * Parse a statement list, and optionally send each statement
+     * in a message as soon as it has been parsed.
+     * @param token the curent token.
+     * @param parentNode the parent node of the statement list.
+     * @param terminator the token type of the node that terminates the list.
+     * @param errorCode the error code if the terminator token is missing.
+     * @param send true to send a statement message for each statement.
+     * @throws Exception if an error occurred.
+     */
+    protected void parseList(Token token, ICodeNode parentNode,
+                             PascalTokenType terminator,
+                             PascalErrorCode errorCode, boolean send)
+        throws Exception
     {
         // Synchronization set for the terminator.
         EnumSet<PascalTokenType> terminatorSet = STMT_START_SET.clone();
@@ -162,6 +187,10 @@ public class StatementParser extends PascalParserTD
             ICodeNode statementNode = parse(token);
             parentNode.addChild(statementNode);
 
+            if (send && isEnabled(STATEMENT)) {
+                sendMessage(new Message(STATEMENT, statementNode));
+            }
+
             token = currentToken();
             TokenType tokenType = token.getType();
 
@@ -182,10 +211,62 @@ public class StatementParser extends PascalParserTD
 
         // Look for the terminator token.
         if (token.getType() == terminator) {
+            if (spans != null) {
+                spans.enterTerminator(parentNode, token);
+            }
+
             token = nextToken();  // consume the terminator token
         }
         else {
             errorHandler.flag(token, errorCode, this);
         }
     }
+
+    /**
+     * Parse a run of statements of the program's compound statement that
+     * ends at the end of the source, as when the compound statement is
+     * split into parts that are parsed separately.  Each statement is
+     * parsed as parseList() parses it in the compound statement.  The END
+     * token of the compound statement is not part of the run.
+     * @param token the curent token.
+     * @param parentNode the parent node of the statements.
+     * @throws Exception if an error occurred.
+     */
+    public void parseStatements(Token token, ICodeNode parentNode)
+        throws Exception
+    {
+        // Synchronization set for the terminator.
+        EnumSet<PascalTokenType> terminatorSet = STMT_START_SET.clone();
+        terminatorSet.add(END);
+
+        // Loop to parse each statement until the end of the source.
+        while (!(token instanceof EofToken)) {
+            if (token.getType() == END) {
+                errorHandler.flag(token, UNEXPECTED_TOKEN, this);
+                return;
+            }
+
+            // Parse a statement.  The parent node adopts the statement node.
+            ICodeNode statementNode = parse(token);
+            parentNode.addChild(statementNode);
+
+            token = currentToken();
+            TokenType tokenType = token.getType();
+
+            // Look for the semicolon between statements.
+            if (tokenType == SEMICOLON) {
+                token = nextToken();  // consume the ;
+            }
+
+            // If at the start of the next statement, then missing a semicolon.
+            else if (STMT_START_SET.contains(tokenType)) {
+                errorHandler.flag(token, MISSING_SEMICOLON, this);
+            }
+
+            // The end of the source is where the terminator would be.
+            if (!(token instanceof EofToken)) {
+                token = synchronize(terminatorSet);
+            }
+        }
+    }
 }
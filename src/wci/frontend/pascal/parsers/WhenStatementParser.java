@@ -72,14 +72,14 @@ public class WhenStatementParser extends StatementParser
         ICodeNode whenExpressionNode = expressionParser.parse(token);
 
         // Create assignNode to keep track of expression value
-        ICodeNode assignNode = ICodeFactory.createICodeNode(ASSIGN);
+        ICodeNode assignNode = context.createICodeNode(ASSIGN);
 
         // Enter the identifier into the table
         String targetName = "_ExpressionVal_Line" + expressionLineNumber;
         SymTabEntry targetId = targetId = symTabStack.enterLocal(targetName);
 
         // Create the variable node and set its name attribute.
-        ICodeNode variableNode = ICodeFactory.createICodeNode(VARIABLE);
+        ICodeNode variableNode = context.createICodeNode(VARIABLE);
         variableNode.setAttribute(ID, targetId);
 
         // The ASSIGN node adopts the variable node as its first child.
@@ -87,7 +87,7 @@ public class WhenStatementParser extends StatementParser
 
         assignNode.addChild(whenExpressionNode);
 
-        ICodeNode compoundNode = ICodeFactory.createICodeNode(COMPOUND);
+        ICodeNode compoundNode = context.createICodeNode(COMPOUND);
         compoundNode.addChild(assignNode);
 
         // Synchronize at the LESSTHAN0.
@@ -106,16 +106,16 @@ public class WhenStatementParser extends StatementParser
 
         // LESSTHAN0
         ICodeNodeType nodeType = LT;
-        ICodeNode lessThan0Node = ICodeFactory.createICodeNode(nodeType);
+        ICodeNode lessThan0Node = context.createICodeNode(nodeType);
         lessThan0Node.addChild(variableNode);
 
         //Add 0 node
-        ICodeNode zeroNode = ICodeFactory.createICodeNode(INTEGER_CONSTANT);
+        ICodeNode zeroNode = context.createICodeNode(INTEGER_CONSTANT);
         zeroNode.setAttribute(VALUE, 0);
         lessThan0Node.addChild(zeroNode);
         
         // Create IF node
-        ICodeNode ifLTNode = ICodeFactory.createICodeNode(ICodeNodeTypeImpl.IF);
+        ICodeNode ifLTNode = context.createICodeNode(ICodeNodeTypeImpl.IF);
 
         // Add Expression as child
         ifLTNode.addChild(lessThan0Node);
@@ -138,14 +138,14 @@ public class WhenStatementParser extends StatementParser
 
         // EQUAL0
         ICodeNodeType nodeTypeEQ = EQ;
-        ICodeNode equal0Node = ICodeFactory.createICodeNode(nodeTypeEQ);
+        ICodeNode equal0Node = context.createICodeNode(nodeTypeEQ);
         equal0Node.addChild(variableNode);
 
         // Add 0 node
         equal0Node.addChild(zeroNode);
 
         // Create IF node
-        ICodeNode ifEQNode = ICodeFactory.createICodeNode(ICodeNodeTypeImpl.IF);
+        ICodeNode ifEQNode = context.createICodeNode(ICodeNodeTypeImpl.IF);
 
         // Set the current line number as an attribute.
         setLineNumber(ifEQNode, targetToken);
@@ -51,9 +51,9 @@ public class WhileStatementParser extends StatementParser
         token = nextToken();  // consume the WHILE
 
         // Create LOOP, TEST, and NOT nodes.
-        ICodeNode loopNode = ICodeFactory.createICodeNode(ICodeNodeTypeImpl.LOOP);
-        ICodeNode breakNode = ICodeFactory.createICodeNode(TEST);
-        ICodeNode notNode = ICodeFactory.createICodeNode(ICodeNodeTypeImpl.NOT);
+        ICodeNode loopNode = context.createICodeNode(ICodeNodeTypeImpl.LOOP);
+        ICodeNode breakNode = context.createICodeNode(TEST);
+        ICodeNode notNode = context.createICodeNode(ICodeNodeTypeImpl.NOT);
 
         // The LOOP node adopts the TEST node as its first child.
         // The TEST node adopts the NOT node as its only child.
@@ -9,7 +9,8 @@ import static wci.frontend.pascal.PascalErrorCode.*;
 /**
  * <h1>PascalNumberToken</h1>
  *
- * <p>Pascal number tokens (integer and real).</p>
+ * <p>Pascal number tokens (integer and real).  The value of a real number
+ * is correctly rounded.</p>
  *
  * <p>Copyright (c) 2009 by Ronald Mak</p>
  * <p>For instructional purposes only.  No warranties.</p>
@@ -18,6 +19,8 @@ public class PascalNumberToken extends PascalToken
 {
     private static final int MAX_EXPONENT = 37;
 
+    private long digitsValue;  // value of the digits extracted so far
+
     /**
      * Constructor.
      * @param source the source from where to fetch the token's characters.
@@ -42,24 +45,25 @@ public class PascalNumberToken extends PascalToken
     }
 
     /**
-     * Extract a Pascal number token from the source.
+     * Extract a Pascal number token from the source.  The value is
+     * accumulated from the digits as they are read.
      * @param textBuffer the buffer to append the token's characters.
      * @throws Exception if an error occurred.
      */
     protected void extractNumber(StringBuilder textBuffer)
         throws Exception
     {
-        String wholeDigits = null;     // digits before the decimal point
-        String fractionDigits = null;  // digits after the decimal point
-        String exponentDigits = null;  // exponent digits
-        char exponentSign = '+';       // exponent sign '+' or '-'
-        boolean sawDotDot = false;     // true if saw .. token
-        char currentChar;              // current character
+        int wholeCount;            // number of digits before the decimal point
+        long exponentValue = 0;    // power of ten of the mantissa
+        char exponentSign = '+';   // exponent sign '+' or '-'
+        boolean sawDotDot = false; // true if saw .. token
+        char currentChar;          // current character
 
         type = INTEGER;  // assume INTEGER token type for now
+        digitsValue = 0;
 
         // Extract the digits of the whole part of the number.
-        wholeDigits = unsignedIntegerDigits(textBuffer);
+        wholeCount = unsignedIntegerDigits(textBuffer);
         if (type == ERROR) {
             return;
         }
@@ -76,14 +80,17 @@ public class PascalNumberToken extends PascalToken
                 textBuffer.append(currentChar);
                 currentChar = nextChar();  // consume decimal point
 
-                // Collect the digits of the fraction part of the number.
-                fractionDigits = unsignedIntegerDigits(textBuffer);
+                // Collect the digits of the fraction part of the number,
+                // and scale the mantissa by them.
+                exponentValue = -unsignedIntegerDigits(textBuffer);
                 if (type == ERROR) {
                     return;
                 }
             }
         }
 
+        long mantissa = digitsValue;  // whole and fraction digits' value
+
         // Is there an exponent part?
         // There cannot be an exponent if we already saw a ".." token.
         currentChar = currentChar();
@@ -100,36 +107,61 @@ public class PascalNumberToken extends PascalToken
             }
 
             // Extract the digits of the exponent.
-            exponentDigits = unsignedIntegerDigits(textBuffer);
+            digitsValue = 0;
+            unsignedIntegerDigits(textBuffer);
+            if (type == ERROR) {
+                return;
+            }
+
+            // The exponent is an unsigned integer, so an exponent that is
+            // too large for an int is an integer out of range.
+            if (digitsValue > Integer.MAX_VALUE) {
+                type = ERROR;
+                value = RANGE_INTEGER;
+                return;
+            }
+
+            exponentValue += exponentSign == '-' ? -digitsValue
+                                                 : digitsValue;
         }
 
         // Compute the value of an integer number token.
         if (type == INTEGER) {
-            int integerValue = computeIntegerValue(wholeDigits);
+            if (mantissa <= Integer.MAX_VALUE) {
+                value = (int) mantissa;
+            }
 
-            if (type != ERROR) {
-                value = new Integer(integerValue);
+            // Overflow:  Set the integer out of range error.
+            else {
+                type = ERROR;
+                value = RANGE_INTEGER;
             }
         }
 
         // Compute the value of a real number token.
         else if (type == REAL) {
-            float floatValue = computeFloatValue(wholeDigits, fractionDigits,
-                                                 exponentDigits, exponentSign);
 
-            if (type != ERROR) {
-                value = new Float(floatValue);
+            // Check for a real number out of range error.  The exponent
+            // is a long, so that a large one cannot wrap around into range.
+            if (Math.abs(exponentValue + wholeCount) > MAX_EXPONENT) {
+                type = ERROR;
+                value = RANGE_REAL;
+            }
+            else {
+                value = NumberTable.floatValue(mantissa, (int) exponentValue,
+                                               textBuffer.toString());
             }
         }
     }
 
     /**
-     * Extract and return the digits of an unsigned integer.
+     * Extract the digits of an unsigned integer, and accumulate them into
+     * the value of the digits.
      * @param textBuffer the buffer to append the token's characters.
-     * @return the string of digits.
+     * @return the number of digits.
      * @throws Exception if an error occurred.
      */
-    private String unsignedIntegerDigits(StringBuilder textBuffer)
+    private int unsignedIntegerDigits(StringBuilder textBuffer)
         throws Exception
     {
         char currentChar = currentChar();
@@ -138,104 +170,18 @@ public class PascalNumberToken extends PascalToken
         if (!Character.isDigit(currentChar)) {
             type = ERROR;
             value = INVALID_NUMBER;
-            return null;
+            return 0;
         }
 
         // Extract the digits.
-        StringBuilder digits = new StringBuilder();
+        int count = 0;
         while (Character.isDigit(currentChar)) {
             textBuffer.append(currentChar);
-            digits.append(currentChar);
+            digitsValue = NumberTable.accumulate(digitsValue, currentChar);
+            ++count;
             currentChar = nextChar();  // consume digit
         }
 
-        return digits.toString();
-    }
-
-    /**
-     * Compute and return the integer value of a string of digits.
-     * Check for overflow.
-     * @param digits the string of digits.
-     * @return the integer value.
-     */
-    private int computeIntegerValue(String digits)
-    {
-        // Return 0 if no digits.
-        if (digits == null) {
-            return 0;
-        }
-
-        int integerValue = 0;
-        int prevValue = -1;    // overflow occurred if prevValue > integerValue
-        int index = 0;
-
-        // Loop over the digits to compute the integer value
-        // as long as there is no overflow.
-        while ((index < digits.length()) && (integerValue >= prevValue)) {
-            prevValue = integerValue;
-            integerValue = 10*integerValue +
-                           Character.getNumericValue(digits.charAt(index++));
-        }
-
-        // No overflow:  Return the integer value.
-        if (integerValue >= prevValue) {
-            return integerValue;
-        }
-
-        // Overflow:  Set the integer out of range error.
-        else {
-            type = ERROR;
-            value = RANGE_INTEGER;
-            return 0;
-        }
-    }
-
-    /**
-     * Compute and return the float value of a real number.
-     * @param wholeDigits the string of digits before the decimal point.
-     * @param fractionDigits the string of digits after the decimal point.
-     * @param exponentDigits the string of exponent digits.
-     * @param exponentSign the exponent sign.
-     * @return the float value.
-     */
-    private float computeFloatValue(String wholeDigits, String fractionDigits,
-                                    String exponentDigits, char exponentSign)
-    {
-        double floatValue = 0.0;
-        int exponentValue = computeIntegerValue(exponentDigits);
-        String digits = wholeDigits;  // whole and fraction digits
-
-        // Negate the exponent if the exponent sign is '-'.
-        if (exponentSign == '-') {
-            exponentValue = -exponentValue;
-        }
-
-        // If there are any fraction digits, adjust the exponent value
-        // and append the fraction digits.
-        if (fractionDigits != null) {
-            exponentValue -= fractionDigits.length();
-            digits += fractionDigits;
-        }
-
-        // Check for a real number out of range error.
-        if (Math.abs(exponentValue + wholeDigits.length()) > MAX_EXPONENT) {
-            type = ERROR;
-            value = RANGE_REAL;
-            return 0.0f;
-        }
-
-        // Loop over the digits to compute the float value.
-        int index = 0;
-        while (index < digits.length()) {
-            floatValue = 10*floatValue +
-                         Character.getNumericValue(digits.charAt(index++));
-        }
-
-        // Adjust the float value based on the exponent value.
-        if (exponentValue != 0) {
-            floatValue *= Math.pow(10, exponentValue);
-        }
-
-        return (float) floatValue;
+        return count;
     }
 }
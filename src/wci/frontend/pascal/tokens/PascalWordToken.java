@@ -49,5 +49,10 @@ public class PascalWordToken extends PascalToken
         type = (RESERVED_WORDS.contains(text.toLowerCase()))
                ? PascalTokenType.valueOf(text.toUpperCase())  // reserved word
                : IDENTIFIER;                                  // identifier
+
+        // The value of an identifier is its name in lower case.
+        if (type == IDENTIFIER) {
+            value = text.toLowerCase();
+        }
     }
 }
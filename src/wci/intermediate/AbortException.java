@@ -0,0 +1,36 @@
+package wci.intermediate;
+
+/**
+ * <h1>AbortException</h1>
+ *
+ * <p>Thrown to abort a compilation after a fatal error.  The error has
+ * already been sent to the listeners, except for the message of this
+ * exception, if any.  Aborting by an exception instead of exiting lets
+ * other compilations in the same process continue.</p>
+ */
+public class AbortException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+    private int status;  // exit status of a command that aborts
+
+    /**
+     * Constructor.
+     * @param status the exit status.
+     * @param message the message to print, or null if none.
+     */
+    public AbortException(int status, String message)
+    {
+        super(message);
+        this.status = status;
+    }
+
+    /**
+     * Getter.
+     * @return the exit status.
+     */
+    public int getStatus()
+    {
+        return status;
+    }
+}
@@ -0,0 +1,117 @@
+package wci.intermediate;
+
+import wci.intermediate.icodeimpl.FlatICodeImpl;
+
+/**
+ * <h1>CompilationContext</h1>
+ *
+ * <p>The state of one compilation of a source program, shared by the
+ * parsers, the optimizer, and the back end that work on it: the symbol
+ * table stack, the kind of intermediate code to create, and the count of
+ * statements executed.  Every component gets the context from the
+ * factory or the parent component that creates it, so that compilations
+ * with contexts of their own can run concurrently on different
+ * threads.</p>
+ */
+public class CompilationContext
+{
+    private SymTabStack symTabStack;     // symbol table stack
+    private boolean flatICode;           // true to create flat code
+    private FlatICodeImpl currentICode;  // flat code to create nodes in
+    private int executionCount;          // count of statements executed
+
+    /**
+     * Constructor for a context that creates a tree of node objects.
+     */
+    public CompilationContext()
+    {
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     * @param flatICode true to create flat, array-encoded intermediate
+     *                  code, false to create a tree of node objects.
+     */
+    public CompilationContext(boolean flatICode)
+    {
+        this.symTabStack = SymTabFactory.createSymTabStack();
+        this.flatICode = flatICode;
+        this.currentICode = null;
+        this.executionCount = 0;
+    }
+
+    /**
+     * Getter.
+     * @return the symbol table stack.
+     */
+    public SymTabStack getSymTabStack()
+    {
+        return symTabStack;
+    }
+
+    /**
+     * Getter.
+     * @return true if createICode() creates flat intermediate code.
+     */
+    public boolean isFlatICode()
+    {
+        return flatICode;
+    }
+
+    /**
+     * Create intermediate code.  If the code is flat, createICodeNode()
+     * creates the nodes in it until the next call.
+     * @return the intermediate code.
+     */
+    public ICode createICode()
+    {
+        if (flatICode) {
+            currentICode = ICodeFactory.createFlatICode();
+            return currentICode;
+        }
+        else {
+            return ICodeFactory.createICode();
+        }
+    }
+
+    /**
+     * Create a node of the intermediate code.
+     * @param type the node type.
+     * @return the node.
+     */
+    public ICodeNode createICodeNode(ICodeNodeType type)
+    {
+        if (currentICode != null) {
+            return currentICode.createNode(type);
+        }
+
+        return ICodeFactory.createICodeNode(type);
+    }
+
+    /**
+     * Getter.
+     * @return the count of statements executed.
+     */
+    public int getExecutionCount()
+    {
+        return executionCount;
+    }
+
+    /**
+     * Count an executed statement.
+     */
+    public void countExecution()
+    {
+        ++executionCount;
+    }
+
+    /**
+     * Count executed statements.
+     * @param count the number of statements.
+     */
+    public void countExecutions(int count)
+    {
+        executionCount += count;
+    }
+}
@@ -1,7 +1,8 @@
 package wci.intermediate;
 
+import wci.intermediate.icodeimpl.CompactICodeNodeImpl;
+import wci.intermediate.icodeimpl.FlatICodeImpl;
 import wci.intermediate.icodeimpl.ICodeImpl;
-import wci.intermediate.icodeimpl.ICodeNodeImpl;
 
 /**
  * <h1>ICodeFactory</h1>
@@ -23,12 +24,23 @@ public class ICodeFactory
     }
 
     /**
-     * Create and return a node implementation.
+     * Create and return a flat, array-encoded intermediate code
+     * implementation, which creates its own nodes.
+     * @return the intermediate code implementation.
+     */
+    public static FlatICodeImpl createFlatICode()
+    {
+        return new FlatICodeImpl();
+    }
+
+    /**
+     * Create and return a node implementation.  The node keeps its
+     * attributes in dedicated fields instead of in a hash table.
      * @param type the node type.
      * @return the node implementation.
      */
     public static ICodeNode createICodeNode(ICodeNodeType type)
     {
-        return new ICodeNodeImpl(type);
+        return new CompactICodeNodeImpl(type);
     }
 }
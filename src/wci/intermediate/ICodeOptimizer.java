@@ -0,0 +1,780 @@
+package wci.intermediate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import wci.intermediate.icodeimpl.*;
+
+import static wci.intermediate.symtabimpl.SymTabKeyImpl.*;
+import static wci.intermediate.icodeimpl.ICodeNodeTypeImpl.*;
+import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+
+/**
+ * <h1>ICodeOptimizer</h1>
+ *
+ * <p>Simplify the intermediate code before the back end processes it.
+ * The optimizer folds constant subexpressions into constant nodes,
+ * simplifies x + 0, x - 0, x * 1, NOT NOT x, and - - x to x, and replaces
+ * an IF statement whose condition is constant by the branch that would be
+ * taken.  A variable that is assigned only once in the whole program has
+ * the assigned constant value in the statements that follow the
+ * assignment in the same compound statement, which makes the conditions
+ * of a WHEN statement with a constant expression constant.</p>
+ *
+ * <p>The optimizer also moves loop-invariant subexpressions out of a LOOP
+ * statement.  An expression whose variables are not assigned anywhere in
+ * the loop is computed once into a new temporary variable before the loop,
+ * and the loop reads the variable instead.  Only the expressions that
+ * every entry into the loop evaluates are moved, namely those of the
+ * loop's statements up to and including its first TEST, and only if they
+ * cannot cause a runtime error, so moving them changes no results.  The
+ * temporary variables have the TEMPORARY attribute: the cross-reference
+ * listing omits them, and the back ends do not count the assignments to
+ * them as executed statements.</p>
+ *
+ * <p>The optimizer computes values exactly as the executor does and does
+ * not fold a division by zero, so the program's results and runtime
+ * errors do not change.  A statement that replaces another keeps the
+ * replaced statement's line number.</p>
+ */
+public class ICodeOptimizer
+{
+    private static final String INVARIANT_PREFIX = "_LoopInvariant";
+
+    private CompilationContext context;  // context of the compilation
+    private SymTabStack symTabStack;     // symbol table stack for temporaries
+    private int invariantCount;          // number of temporaries
+
+    // Number of assignments to each variable.
+    private IdentityHashMap<SymTabEntry, Integer> assignmentCounts;
+
+    /**
+     * Constructor.
+     * @param context the context of the compilation, whose symbol table
+     *                stack the optimizer enters the temporary variables in.
+     */
+    public ICodeOptimizer(CompilationContext context)
+    {
+        this.context = context;
+        this.symTabStack = context.getSymTabStack();
+        this.invariantCount = 0;
+        this.assignmentCounts = new IdentityHashMap<SymTabEntry, Integer>();
+    }
+
+    /**
+     * Optimize intermediate code.
+     * @param iCode the intermediate code.
+     * @return new, optimized intermediate code.
+     */
+    public ICode optimize(ICode iCode)
+    {
+        ICode optimized = context.createICode();
+        ICodeNode root = iCode.getRoot();
+
+        if (root != null) {
+            countAssignments(root);
+            optimized.setRoot(optimizeStatement(
+                root, new IdentityHashMap<SymTabEntry, ICodeNode>()));
+        }
+
+        return optimized;
+    }
+
+    /**
+     * Count the assignments to each variable of a subtree.
+     * @param node the root node of the subtree.
+     */
+    private void countAssignments(ICodeNode node)
+    {
+        if (node.getType() == ASSIGN) {
+            SymTabEntry targetId =
+                (SymTabEntry) node.getChildren().get(0).getAttribute(ID);
+            Integer count = assignmentCounts.get(targetId);
+            assignmentCounts.put(targetId, count != null ? count + 1 : 1);
+        }
+
+        for (ICodeNode child : node.getChildren()) {
+            countAssignments(child);
+        }
+    }
+
+    /**
+     * Optimize a statement.
+     * @param node the root node of the statement.
+     * @param constants the constant values of the variables known to
+     *                  have them at the statement.
+     * @return the root node of the optimized statement.
+     */
+    private ICodeNode optimizeStatement(
+        ICodeNode node, IdentityHashMap<SymTabEntry, ICodeNode> constants)
+    {
+        ICodeNodeTypeImpl nodeType = (ICodeNodeTypeImpl) node.getType();
+        ArrayList<ICodeNode> children = node.getChildren();
+
+        switch (nodeType) {
+
+            case COMPOUND: {
+                ICodeNode compoundNode = copyNode(node);
+
+                // Constant values found here hold only in this statement.
+                constants =
+                    new IdentityHashMap<SymTabEntry, ICodeNode>(constants);
+
+                for (ICodeNode child : children) {
+                    ICodeNode statementNode =
+                        optimizeStatement(child, constants);
+                    compoundNode.addChild(statementNode);
+                    recordConstant(statementNode, constants);
+                }
+
+                return compoundNode;
+            }
+
+            case ASSIGN: {
+                ICodeNode assignNode = copyNode(node);
+                assignNode.addChild(copyTree(children.get(0)));
+                assignNode.addChild(optimizeExpression(children.get(1),
+                                                       constants));
+                return assignNode;
+            }
+
+            case IF: {
+                ICodeNode conditionNode =
+                    optimizeExpression(children.get(0), constants);
+                Object condition = valueOf(conditionNode);
+
+                // Replace the IF statement by the branch it would take.
+                if (condition instanceof Boolean) {
+                    ICodeNode branchNode =
+                          (Boolean) condition ? children.get(1)
+                        : children.size() > 2 ? children.get(2)
+                        :                       null;
+
+                    ICodeNode replacement =
+                        branchNode != null
+                            ? optimizeStatement(branchNode, constants)
+                            : context.createICodeNode(NO_OP);
+                    return keepLine(node, replacement);
+                }
+
+                ICodeNode ifNode = copyNode(node);
+                ifNode.addChild(conditionNode);
+                for (int i = 1; i < children.size(); ++i) {
+                    ifNode.addChild(optimizeStatement(children.get(i),
+                                                      constants));
+                }
+
+                return ifNode;
+            }
+
+            case LOOP: {
+                ArrayList<ICodeNode> loopChildren = new ArrayList<ICodeNode>();
+
+                for (ICodeNode child : children) {
+                    if (child.getType() == TEST) {
+                        ICodeNode testNode = copyNode(child);
+                        testNode.addChild(optimizeExpression(
+                            child.getChildren().get(0), constants));
+                        loopChildren.add(testNode);
+                    }
+                    else {
+                        loopChildren.add(optimizeStatement(child,
+                                                           constants));
+                    }
+                }
+
+                return moveInvariants(node, loopChildren);
+            }
+
+            // The termination expression of a FOR statement is evaluated
+            // only once, so there is nothing to move out of the loop.
+            case FOR: {
+                ICodeNode forNode = copyNode(node);
+                forNode.addChild(optimizeStatement(children.get(0),
+                                                   constants));
+                forNode.addChild(optimizeExpression(children.get(1),
+                                                    constants));
+                forNode.addChild(optimizeStatement(children.get(2),
+                                                   constants));
+                forNode.addChild(optimizeStatement(children.get(3),
+                                                   constants));
+                return forNode;
+            }
+
+            case SELECT: {
+                ICodeNode selectNode = copyNode(node);
+                selectNode.addChild(optimizeExpression(children.get(0),
+                                                       constants));
+
+                // Copy each SELECT_BRANCH with its optimized statement.
+                for (int i = 1; i < children.size(); ++i) {
+                    ICodeNode branchNode = children.get(i);
+                    ArrayList<ICodeNode> branchChildren =
+                        branchNode.getChildren();
+                    ICodeNode newBranchNode = copyNode(branchNode);
+
+                    newBranchNode.addChild(copyTree(branchChildren.get(0)));
+                    newBranchNode.addChild(
+                        optimizeStatement(branchChildren.get(1), constants));
+                    selectNode.addChild(newBranchNode);
+                }
+
+                return selectNode;
+            }
+
+            default: return copyTree(node);
+        }
+    }
+
+    /**
+     * Build a LOOP statement after moving its invariant subexpressions
+     * into temporary variables assigned before the loop.
+     * @param node the original LOOP node.
+     * @param loopChildren the optimized children of the loop.
+     * @return the LOOP node, or a COMPOUND node with the assignments to
+     *         the temporaries followed by the LOOP node.
+     */
+    private ICodeNode moveInvariants(ICodeNode node,
+                                     ArrayList<ICodeNode> loopChildren)
+    {
+        Set<SymTabEntry> assigned =
+            Collections.newSetFromMap(
+                new IdentityHashMap<SymTabEntry, Boolean>());
+        for (ICodeNode child : loopChildren) {
+            collectAssigned(child, assigned);
+        }
+
+        ArrayList<ICodeNode> assignNodes = new ArrayList<ICodeNode>();
+        ICodeNode loopNode = copyNode(node);
+        boolean everyEntry = true;  // true up to and including the first TEST
+
+        for (ICodeNode child : loopChildren) {
+            ICodeNodeType childType = child.getType();
+
+            if (everyEntry && ((childType == TEST) || (childType == ASSIGN))) {
+                ArrayList<ICodeNode> grandChildren = child.getChildren();
+                int last = grandChildren.size() - 1;
+                ICodeNode newChild = copyNode(child);
+
+                // The expression is the last child of a TEST or an ASSIGN.
+                for (int i = 0; i < last; ++i) {
+                    newChild.addChild(grandChildren.get(i));
+                }
+                newChild.addChild(moveInvariants(grandChildren.get(last),
+                                                 assigned, assignNodes));
+                loopNode.addChild(newChild);
+            }
+            else {
+                loopNode.addChild(child);
+            }
+
+            if (childType == TEST) {
+                everyEntry = false;
+            }
+        }
+
+        if (assignNodes.isEmpty()) {
+            return loopNode;
+        }
+
+        ICodeNode compoundNode = context.createICodeNode(COMPOUND);
+        for (ICodeNode assignNode : assignNodes) {
+            compoundNode.addChild(assignNode);
+        }
+        compoundNode.addChild(loopNode);
+
+        return compoundNode;
+    }
+
+    /**
+     * Replace the largest invariant subexpressions of an expression by
+     * temporary variables.
+     * @param node the root node of the expression.
+     * @param assigned the variables assigned in the loop.
+     * @param assignNodes the list to append the assignments to the
+     *                    temporaries to.
+     * @return the root node of the new expression.
+     */
+    private ICodeNode moveInvariants(ICodeNode node,
+                                     Set<SymTabEntry> assigned,
+                                     ArrayList<ICodeNode> assignNodes)
+    {
+        ArrayList<ICodeNode> children = node.getChildren();
+
+        if (children.isEmpty()) {
+            return node;
+        }
+
+        if (isInvariant(node, assigned) && isSafe(node)) {
+            SymTabEntry temporaryId = enterTemporary();
+
+            ICodeNode assignNode = context.createICodeNode(ASSIGN);
+            ICodeNode targetNode = context.createICodeNode(VARIABLE);
+            targetNode.setAttribute(ID, temporaryId);
+            assignNode.addChild(targetNode);
+            assignNode.addChild(node);
+            assignNodes.add(assignNode);
+
+            ICodeNode variableNode = context.createICodeNode(VARIABLE);
+            variableNode.setAttribute(ID, temporaryId);
+            return variableNode;
+        }
+
+        ICodeNode newNode = copyNode(node);
+        for (ICodeNode child : children) {
+            newNode.addChild(moveInvariants(child, assigned, assignNodes));
+        }
+
+        return newNode;
+    }
+
+    /**
+     * Collect the variables assigned in a statement.
+     * @param node the root node of the statement.
+     * @param assigned the set to add the variables to.
+     */
+    private void collectAssigned(ICodeNode node, Set<SymTabEntry> assigned)
+    {
+        if (node.getType() == ASSIGN) {
+            assigned.add(
+                (SymTabEntry) node.getChildren().get(0).getAttribute(ID));
+        }
+
+        for (ICodeNode child : node.getChildren()) {
+            collectAssigned(child, assigned);
+        }
+    }
+
+    /**
+     * Test whether an expression has the same value throughout a loop.
+     * @param node the root node of the expression.
+     * @param assigned the variables assigned in the loop.
+     * @return true if none of the expression's variables is assigned.
+     */
+    private boolean isInvariant(ICodeNode node, Set<SymTabEntry> assigned)
+    {
+        switch ((ICodeNodeTypeImpl) node.getType()) {
+            case VARIABLE: {
+                return !assigned.contains(
+                            (SymTabEntry) node.getAttribute(ID));
+            }
+
+            case INTEGER_CONSTANT:
+            case REAL_CONSTANT:
+            case STRING_CONSTANT: return true;
+
+            case NEGATE: case NOT: case AND: case OR:
+            case ADD: case SUBTRACT: case MULTIPLY:
+            case FLOAT_DIVIDE: case INTEGER_DIVIDE: case MOD:
+            case EQ: case NE: case LT: case LE: case GT: case GE: {
+                for (ICodeNode child : node.getChildren()) {
+                    if (!isInvariant(child, assigned)) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+
+            default: return false;
+        }
+    }
+
+    /**
+     * Test whether an expression cannot cause a division by zero, which
+     * is the case if each of its divisors is a nonzero constant.
+     * @param node the root node of the expression.
+     * @return true if it cannot.
+     */
+    private boolean isSafe(ICodeNode node)
+    {
+        ICodeNodeType nodeType = node.getType();
+        ArrayList<ICodeNode> children = node.getChildren();
+
+        if (   (nodeType == FLOAT_DIVIDE) || (nodeType == INTEGER_DIVIDE)
+            || (nodeType == MOD)) {
+            Object divisor = valueOf(children.get(1));
+
+            if (!isNumber(divisor) || (((Number) divisor).floatValue() == 0)) {
+                return false;
+            }
+        }
+
+        for (ICodeNode child : children) {
+            if (!isSafe(child)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Enter a new temporary variable into the local symbol table.
+     * @return the variable's symbol table entry.
+     */
+    private SymTabEntry enterTemporary()
+    {
+        String name;
+
+        do {
+            name = INVARIANT_PREFIX + (++invariantCount);
+        } while (symTabStack.lookupLocal(name) != null);
+
+        SymTabEntry temporaryId = symTabStack.enterLocal(name);
+        temporaryId.setAttribute(TEMPORARY, true);
+
+        return temporaryId;
+    }
+
+    /**
+     * If a statement assigns a constant to a variable that is assigned
+     * nowhere else, record the constant as the variable's value.
+     * @param node the root node of the optimized statement.
+     * @param constants the constant values of the variables.
+     */
+    private void recordConstant(ICodeNode node,
+                                IdentityHashMap<SymTabEntry, ICodeNode>
+                                    constants)
+    {
+        if (node.getType() != ASSIGN) {
+            return;
+        }
+
+        ArrayList<ICodeNode> children = node.getChildren();
+        SymTabEntry targetId = (SymTabEntry) children.get(0).getAttribute(ID);
+        ICodeNodeType valueType = children.get(1).getType();
+
+        if (   (assignmentCounts.get(targetId) != null)
+            && (assignmentCounts.get(targetId) == 1)
+            && (   (valueType == INTEGER_CONSTANT)
+                || (valueType == REAL_CONSTANT)
+                || (valueType == STRING_CONSTANT))) {
+            constants.put(targetId, children.get(1));
+        }
+    }
+
+    /**
+     * Optimize an expression.
+     * @param node the root node of the expression.
+     * @param constants the constant values of the variables.
+     * @return the root node of the optimized expression.
+     */
+    private ICodeNode optimizeExpression(
+        ICodeNode node, IdentityHashMap<SymTabEntry, ICodeNode> constants)
+    {
+        ICodeNodeTypeImpl nodeType = (ICodeNodeTypeImpl) node.getType();
+
+        if (nodeType == VARIABLE) {
+            ICodeNode constantNode =
+                constants.get((SymTabEntry) node.getAttribute(ID));
+            return constantNode != null ? copyTree(constantNode)
+                                        : copyTree(node);
+        }
+
+        ArrayList<ICodeNode> children = node.getChildren();
+        if (children.isEmpty()) {
+            return copyTree(node);
+        }
+
+        // Optimize the operands first.
+        ArrayList<ICodeNode> operands = new ArrayList<ICodeNode>();
+        for (ICodeNode child : children) {
+            operands.add(optimizeExpression(child, constants));
+        }
+
+        // Fold a numeric result into a constant node.
+        // A boolean result has no constant node.
+        Object value = compute(nodeType, operands);
+        if (value instanceof Integer) {
+            return keepLine(node, constantNode(INTEGER_CONSTANT, value));
+        }
+        else if (value instanceof Float) {
+            return keepLine(node, constantNode(REAL_CONSTANT, value));
+        }
+
+        ICodeNode simplified = simplify(nodeType, operands);
+        if (simplified != null) {
+            return keepLine(node, simplified);
+        }
+
+        ICodeNode operatorNode = copyNode(node);
+        for (ICodeNode operand : operands) {
+            operatorNode.addChild(operand);
+        }
+
+        return operatorNode;
+    }
+
+    /**
+     * Simplify an operation with an identity operand or a double
+     * negation.
+     * @param nodeType the operator node type.
+     * @param operands the optimized operand nodes.
+     * @return the simplified node, or null if no simplification applies.
+     */
+    private ICodeNode simplify(ICodeNodeTypeImpl nodeType,
+                               ArrayList<ICodeNode> operands)
+    {
+        ICodeNode operand1 = operands.get(0);
+        ICodeNode operand2 = operands.size() > 1 ? operands.get(1) : null;
+
+        switch (nodeType) {
+
+            case ADD: {
+                if (isInteger(operand1, 0)) return operand2;
+                if (isInteger(operand2, 0)) return operand1;
+                return null;
+            }
+
+            case SUBTRACT: {
+                return isInteger(operand2, 0) ? operand1 : null;
+            }
+
+            case MULTIPLY: {
+                if (isInteger(operand1, 1)) return operand2;
+                if (isInteger(operand2, 1)) return operand1;
+                return null;
+            }
+
+            case NOT:
+            case NEGATE: {
+                return operand1.getType() == nodeType
+                           ? operand1.getChildren().get(0) : null;
+            }
+
+            default: return null;
+        }
+    }
+
+    /**
+     * Compute the value of an operation whose operands are constant, as
+     * the executor computes it.
+     * @param nodeType the operator node type.
+     * @param operands the optimized operand nodes.
+     * @return the Integer, Float, or Boolean value, or null if the value is
+     *         not constant or computing it would be a runtime error.
+     */
+    private Object compute(ICodeNodeTypeImpl nodeType,
+                           ArrayList<ICodeNode> operands)
+    {
+        Object operand1 = valueOf(operands.get(0));
+        if (operand1 == null) {
+            return null;
+        }
+
+        switch (nodeType) {
+            case NEGATE: {
+                if (operand1 instanceof Integer) {
+                    return -(Integer) operand1;
+                }
+                else if (operand1 instanceof Float) {
+                    return -(Float) operand1;
+                }
+                else {
+                    return null;
+                }
+            }
+
+            case NOT: {
+                return operand1 instanceof Boolean ? !(Boolean) operand1
+                                                   : null;
+            }
+        }
+
+        Object operand2 = operands.size() > 1 ? valueOf(operands.get(1))
+                                              : null;
+        if (operand2 == null) {
+            return null;
+        }
+
+        // AND and OR.
+        if ((nodeType == AND) || (nodeType == OR)) {
+            if (   (operand1 instanceof Boolean)
+                && (operand2 instanceof Boolean)) {
+                boolean value1 = (Boolean) operand1;
+                boolean value2 = (Boolean) operand2;
+                return nodeType == AND ? value1 && value2 : value1 || value2;
+            }
+            else {
+                return null;
+            }
+        }
+
+        if (!isNumber(operand1) || !isNumber(operand2)) {
+            return null;
+        }
+
+        // Integer mode.
+        if ((operand1 instanceof Integer) && (operand2 instanceof Integer)) {
+            int value1 = (Integer) operand1;
+            int value2 = (Integer) operand2;
+
+            switch (nodeType) {
+                case ADD:      return value1 + value2;
+                case SUBTRACT: return value1 - value2;
+                case MULTIPLY: return value1 * value2;
+
+                // Leave a division by zero to the runtime.
+                case FLOAT_DIVIDE:
+                    return value2 != 0 ? ((float) value1)/((float) value2)
+                                       : null;
+                case INTEGER_DIVIDE:
+                    return value2 != 0 ? (Object) (value1/value2) : null;
+                case MOD:
+                    return value2 != 0 ? (Object) (value1%value2) : null;
+
+                case EQ: return value1 == value2;
+                case NE: return value1 != value2;
+                case LT: return value1 <  value2;
+                case LE: return value1 <= value2;
+                case GT: return value1 >  value2;
+                case GE: return value1 >= value2;
+
+                default: return null;
+            }
+        }
+
+        // Float mode.
+        else {
+            float value1 = operand1 instanceof Integer
+                               ? (Integer) operand1 : (Float) operand1;
+            float value2 = operand2 instanceof Integer
+                               ? (Integer) operand2 : (Float) operand2;
+
+            switch (nodeType) {
+                case ADD:      return value1 + value2;
+                case SUBTRACT: return value1 - value2;
+                case MULTIPLY: return value1 * value2;
+
+                // Leave a division by zero to the runtime.
+                case FLOAT_DIVIDE:
+                    return value2 != 0.0f ? (Object) (value1/value2) : null;
+
+                case EQ: return value1 == value2;
+                case NE: return value1 != value2;
+                case LT: return value1 <  value2;
+                case LE: return value1 <= value2;
+                case GT: return value1 >  value2;
+                case GE: return value1 >= value2;
+
+                // DIV and MOD have no float mode.
+                default: return null;
+            }
+        }
+    }
+
+    /**
+     * Return the constant value of an optimized expression.
+     * @param node the root node of the expression.
+     * @return the Integer, Float, String, or Boolean value, or null if the
+     *         expression is not constant.
+     */
+    private Object valueOf(ICodeNode node)
+    {
+        ICodeNodeTypeImpl nodeType = (ICodeNodeTypeImpl) node.getType();
+
+        switch (nodeType) {
+            case INTEGER_CONSTANT:
+            case REAL_CONSTANT:
+            case STRING_CONSTANT: return node.getAttribute(VALUE);
+
+            case VARIABLE: return null;
+
+            default: {
+                ArrayList<ICodeNode> children = node.getChildren();
+                return children.isEmpty() ? null : compute(nodeType, children);
+            }
+        }
+    }
+
+    /**
+     * Test whether a value is an Integer or a Float.
+     * @param value the value.
+     * @return true if it is.
+     */
+    private boolean isNumber(Object value)
+    {
+        return (value instanceof Integer) || (value instanceof Float);
+    }
+
+    /**
+     * Test whether a node is an integer constant with a given value.
+     * @param node the node.
+     * @param value the value.
+     * @return true if it is.
+     */
+    private boolean isInteger(ICodeNode node, int value)
+    {
+        return    (node.getType() == INTEGER_CONSTANT)
+               && (((Integer) node.getAttribute(VALUE)) == value);
+    }
+
+    /**
+     * Create a constant node.
+     * @param nodeType INTEGER_CONSTANT or REAL_CONSTANT.
+     * @param value the constant value.
+     * @return the node.
+     */
+    private ICodeNode constantNode(ICodeNodeTypeImpl nodeType, Object value)
+    {
+        ICodeNode node = context.createICodeNode(nodeType);
+        node.setAttribute(VALUE, value);
+        return node;
+    }
+
+    /**
+     * Give a replacement node the line number of the node it replaces,
+     * unless it has its own.
+     * @param original the replaced node.
+     * @param replacement the replacement node.
+     * @return the replacement node.
+     */
+    private ICodeNode keepLine(ICodeNode original, ICodeNode replacement)
+    {
+        Object lineNumber = original.getAttribute(LINE);
+
+        if ((lineNumber != null) && (replacement.getAttribute(LINE) == null)) {
+            replacement.setAttribute(LINE, lineNumber);
+        }
+
+        return replacement;
+    }
+
+    /**
+     * Copy a node without its children.
+     * @param node the node to copy.
+     * @return the copy.
+     */
+    private ICodeNode copyNode(ICodeNode node)
+    {
+        ICodeNode copy = context.createICodeNode(node.getType());
+
+        for (ICodeKeyImpl key : ICodeKeyImpl.values()) {
+            Object value = node.getAttribute(key);
+            if (value != null) {
+                copy.setAttribute(key, value);
+            }
+        }
+
+        return copy;
+    }
+
+    /**
+     * Copy a subtree.
+     * @param node the root node of the subtree.
+     * @return the root node of the copy.
+     */
+    private ICodeNode copyTree(ICodeNode node)
+    {
+        ICodeNode copy = copyNode(node);
+
+        for (ICodeNode child : node.getChildren()) {
+            copy.addChild(copyTree(child));
+        }
+
+        return copy;
+    }
+}
@@ -18,6 +18,12 @@ public interface SymTab
      */
     public int getNestingLevel();
 
+    /**
+     * Getter.
+     * @return the number of slots assigned to the entries of this table.
+     */
+    public int getSlotCount();
+
     /**
      * Create and enter a new entry into the symbol table.
      * @param name the name of the entry.
@@ -24,6 +24,12 @@ public interface SymTabEntry
      */
     public SymTab getSymTab();
 
+    /**
+     * Getter.
+     * @return the slot number of this entry within its symbol table.
+     */
+    public int getSlot();
+
     /**
      * Append a source line number to the entry.
      * @param lineNumber the line number to append.
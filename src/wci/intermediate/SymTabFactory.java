@@ -35,10 +35,12 @@ public class SymTabFactory
      * Create and return a symbol table entry implementation.
      * @param name the identifier name.
      * @param symTab the symbol table that contains this entry.
+     * @param slot the slot number of the entry within its symbol table.
      * @return the symbol table entry implementation.
      */
-    public static SymTabEntry createSymTabEntry(String name, SymTab symTab)
+    public static SymTabEntry createSymTabEntry(String name, SymTab symTab,
+                                                int slot)
     {
-        return new SymTabEntryImpl(name, symTab);
+        return new SymTabEntryImpl(name, symTab, slot);
     }
 }
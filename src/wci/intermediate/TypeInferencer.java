@@ -0,0 +1,199 @@
+package wci.intermediate;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import wci.intermediate.icodeimpl.*;
+
+import static wci.intermediate.ValueKind.*;
+import static wci.intermediate.icodeimpl.ICodeNodeTypeImpl.*;
+import static wci.intermediate.icodeimpl.ICodeKeyImpl.*;
+
+/**
+ * <h1>TypeInferencer</h1>
+ *
+ * <p>Infer the kind of value of each variable and expression of the
+ * intermediate code.  A variable's kind is the common kind of all the
+ * expressions assigned to it anywhere in the program; if they differ,
+ * the variable's kind is UNKNOWN.  The inference iterates over the
+ * assignments until no variable's kind changes.</p>
+ */
+public class TypeInferencer
+{
+    // Variable kinds.  A variable without an entry has no kind yet.
+    // Symbol table entries are hash tables whose contents can be equal,
+    // so the variables are told apart by identity.
+    private IdentityHashMap<SymTabEntry, ValueKind> variableKinds;
+
+    /**
+     * Constructor.
+     * @param iCode the intermediate code to infer kinds for.
+     */
+    public TypeInferencer(ICode iCode)
+    {
+        this.variableKinds = new IdentityHashMap<SymTabEntry, ValueKind>();
+
+        ArrayList<ICodeNode> assignNodes = new ArrayList<ICodeNode>();
+        if (iCode.getRoot() != null) {
+            collectAssignments(iCode.getRoot(), assignNodes);
+        }
+
+        // Join the kinds of the assigned expressions into the kinds
+        // of the target variables until there are no more changes.
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (ICodeNode assignNode : assignNodes) {
+                ArrayList<ICodeNode> children = assignNode.getChildren();
+                SymTabEntry targetId =
+                    (SymTabEntry) children.get(0).getAttribute(ID);
+                ValueKind oldKind = variableKinds.get(targetId);
+                ValueKind newKind = join(oldKind, kindOf(children.get(1)));
+
+                if (newKind != oldKind) {
+                    variableKinds.put(targetId, newKind);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the inferred kind of a variable.
+     * @param id the variable's symbol table entry.
+     * @return the kind, or UNKNOWN if the variable is never assigned.
+     */
+    public ValueKind variableKind(SymTabEntry id)
+    {
+        ValueKind kind = variableKinds.get(id);
+        return kind != null ? kind : UNKNOWN;
+    }
+
+    /**
+     * Return the inferred kind of an expression.
+     * @param node the root node of the expression.
+     * @return the kind.
+     */
+    public ValueKind expressionKind(ICodeNode node)
+    {
+        ValueKind kind = kindOf(node);
+        return kind != null ? kind : UNKNOWN;
+    }
+
+    /**
+     * Collect the ASSIGN nodes of a subtree.
+     * @param node the root node of the subtree.
+     * @param assignNodes the list to append the ASSIGN nodes to.
+     */
+    private void collectAssignments(ICodeNode node,
+                                    ArrayList<ICodeNode> assignNodes)
+    {
+        if (node.getType() == ASSIGN) {
+            assignNodes.add(node);
+        }
+
+        for (ICodeNode child : node.getChildren()) {
+            collectAssignments(child, assignNodes);
+        }
+    }
+
+    /**
+     * Compute the kind of an expression from what is known so far.
+     * @param node the root node of the expression.
+     * @return the kind, or null if nothing is known yet.
+     */
+    private ValueKind kindOf(ICodeNode node)
+    {
+        ICodeNodeTypeImpl nodeType = (ICodeNodeTypeImpl) node.getType();
+        ArrayList<ICodeNode> children = node.getChildren();
+
+        switch (nodeType) {
+
+            case VARIABLE: {
+                return variableKinds.get((SymTabEntry) node.getAttribute(ID));
+            }
+
+            case INTEGER_CONSTANT: return INTEGER;
+            case REAL_CONSTANT:    return REAL;
+            case STRING_CONSTANT:  return STRING;
+
+            case NEGATE: {
+                ValueKind kind = kindOf(children.get(0));
+                return (kind == null) || kind.isNumeric() ? kind : UNKNOWN;
+            }
+
+            case NOT: case AND: case OR:
+            case EQ:  case NE:  case LT: case LE: case GT: case GE: {
+                return BOOLEAN;
+            }
+
+            case ADD: case SUBTRACT: case MULTIPLY: {
+                ValueKind kind1 = kindOf(children.get(0));
+                ValueKind kind2 = kindOf(children.get(1));
+
+                if ((kind1 == null) || (kind2 == null)) {
+                    return null;
+                }
+                else if ((kind1 == INTEGER) && (kind2 == INTEGER)) {
+                    return INTEGER;
+                }
+                else {
+                    return kind1.isNumeric() && kind2.isNumeric() ? REAL
+                                                                  : UNKNOWN;
+                }
+            }
+
+            case FLOAT_DIVIDE: {
+                ValueKind kind1 = kindOf(children.get(0));
+                ValueKind kind2 = kindOf(children.get(1));
+
+                // A division of integers by zero yields the integer 0.
+                if ((kind1 == null) || (kind2 == null)) {
+                    return null;
+                }
+                else if ((kind1 == INTEGER) && (kind2 == INTEGER)) {
+                    return UNKNOWN;
+                }
+                else {
+                    return kind1.isNumeric() && kind2.isNumeric() ? REAL
+                                                                  : UNKNOWN;
+                }
+            }
+
+            case INTEGER_DIVIDE: case MOD: {
+                ValueKind kind1 = kindOf(children.get(0));
+                ValueKind kind2 = kindOf(children.get(1));
+
+                if ((kind1 == null) || (kind2 == null)) {
+                    return null;
+                }
+                else {
+                    return (kind1 == INTEGER) && (kind2 == INTEGER) ? INTEGER
+                                                                    : UNKNOWN;
+                }
+            }
+
+            default: return UNKNOWN;
+        }
+    }
+
+    /**
+     * Join two kinds.
+     * @param kind1 the first kind, or null if nothing is known.
+     * @param kind2 the second kind, or null if nothing is known.
+     * @return the common kind, or UNKNOWN if the kinds differ.
+     */
+    private ValueKind join(ValueKind kind1, ValueKind kind2)
+    {
+        if (kind1 == null) {
+            return kind2;
+        }
+        else if ((kind2 == null) || (kind1 == kind2)) {
+            return kind1;
+        }
+        else {
+            return UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package wci.intermediate;
+
+/**
+ * <h1>ValueKind</h1>
+ *
+ * <p>The kind of runtime value that a variable or an expression
+ * can have.  UNKNOWN means that the kind can vary at run time.</p>
+ */
+public enum ValueKind
+{
+    INTEGER, REAL, BOOLEAN, STRING, UNKNOWN;
+
+    /**
+     * @return true if the kind is INTEGER or REAL.
+     */
+    public boolean isNumeric()
+    {
+        return (this == INTEGER) || (this == REAL);
+    }
+}
@@ -0,0 +1,130 @@
+package wci.intermediate.icodeimpl;
+
+import java.util.ArrayList;
+
+import wci.intermediate.*;
+
+/**
+ * <h1>CompactICodeNodeImpl</h1>
+ *
+ * <p>A compact implementation of a node of the intermediate code.
+ * Instead of a hash table, the node keeps each of the LINE, ID, and
+ * VALUE attributes in a dedicated field.  The children array list
+ * starts out empty and grows only as children are added.</p>
+ */
+public class CompactICodeNodeImpl implements ICodeNode
+{
+    private ICodeNodeType type;             // node type
+    private ICodeNode parent;               // parent node
+    private ArrayList<ICodeNode> children;  // children array list
+
+    private Object line;                    // LINE attribute
+    private Object id;                      // ID attribute
+    private Object value;                   // VALUE attribute
+
+    /**
+     * Constructor.
+     * @param type the node type whose name will be the name of this node.
+     */
+    public CompactICodeNodeImpl(ICodeNodeType type)
+    {
+        this.type = type;
+        this.parent = null;
+        this.children = new ArrayList<ICodeNode>(0);
+    }
+
+    /**
+     * Getter.
+     * @return the node type.
+     */
+    public ICodeNodeType getType()
+    {
+        return type;
+    }
+
+    /**
+     * Return the parent of this node.
+     * @return the parent node.
+     */
+    public ICodeNode getParent()
+    {
+        return parent;
+    }
+
+    /**
+     * Add a child node.
+     * @param node the child node. Not added if null.
+     * @return the child node.
+     */
+    public ICodeNode addChild(ICodeNode node)
+    {
+        if (node != null) {
+            children.add(node);
+            ((CompactICodeNodeImpl) node).parent = this;
+        }
+
+        return node;
+    }
+
+    /**
+     * Return an array list of this node's children.
+     * @return the array list of children.
+     */
+    public ArrayList<ICodeNode> getChildren()
+    {
+        return children;
+    }
+
+    /**
+     * Set a node attribute.
+     * @param key the attribute key.
+     * @param value the attribute value.
+     */
+    public void setAttribute(ICodeKey key, Object value)
+    {
+        switch ((ICodeKeyImpl) key) {
+            case LINE:  this.line = value;  break;
+            case ID:    this.id = value;    break;
+            case VALUE: this.value = value; break;
+        }
+    }
+
+    /**
+     * Get the value of a node attribute.
+     * @param key the attribute key.
+     * @return the attribute value, or null if it is not set.
+     */
+    public Object getAttribute(ICodeKey key)
+    {
+        switch ((ICodeKeyImpl) key) {
+            case LINE:  return line;
+            case ID:    return id;
+            case VALUE: return value;
+            default:    return null;
+        }
+    }
+
+    /**
+     * Make a copy of this node.
+     * @return the copy.
+     */
+    public ICodeNode copy()
+    {
+        // Create a copy with the same type and attributes.
+        ICodeNode copy = ICodeFactory.createICodeNode(type);
+
+        for (ICodeKeyImpl key : ICodeKeyImpl.values()) {
+            Object attribute = getAttribute(key);
+            if (attribute != null) {
+                copy.setAttribute(key, attribute);
+            }
+        }
+
+        return copy;
+    }
+
+    public String toString()
+    {
+        return type.toString();
+    }
+}
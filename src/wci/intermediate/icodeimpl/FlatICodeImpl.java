@@ -0,0 +1,440 @@
+package wci.intermediate.icodeimpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import wci.intermediate.*;
+
+/**
+ * <h1>FlatICodeImpl</h1>
+ *
+ * <p>An implementation of the intermediate code that stores the tree in
+ * parallel primitive arrays instead of in node objects.  Node i has the
+ * node type ordinal types[i], the first child index firstChildren[i], the
+ * next sibling index nextSiblings[i], and the source line number
+ * lines[i].  The ID and VALUE attributes are indices into a constant
+ * pool.  An index or a line number of -1 means none.</p>
+ *
+ * <p>The parsers build the arrays through FlatICodeNodeImpl handles that
+ * they get from ICodeFactory.  Setting the root node lays the reachable
+ * nodes out again in preorder, so that an executor walks the arrays
+ * mostly sequentially.  Handles obtained before then are invalid
+ * afterwards.</p>
+ */
+public class FlatICodeImpl implements ICode
+{
+    private static final int INITIAL_CAPACITY = 256;
+    private static final ICodeNodeTypeImpl TYPES[] =
+        ICodeNodeTypeImpl.values();
+
+    private int types[];          // node type ordinals
+    private int parents[];        // parent indices
+    private int firstChildren[];  // first child indices
+    private int lastChildren[];   // last child indices
+    private int nextSiblings[];   // next sibling indices
+    private int lines[];          // source line numbers
+    private int ids[];            // constant pool indices of ID attributes
+    private int values[];         // constant pool indices of VALUE attributes
+    private int count;            // number of nodes
+    private int root;             // root node index
+
+    private ArrayList<Object> pool;                  // constant pool
+    private HashMap<Object, Integer> valueMap;       // value to pool index
+    private IdentityHashMap<Object, Integer> idMap;  // ID to pool index
+
+    /**
+     * Constructor.
+     */
+    public FlatICodeImpl()
+    {
+        allocate(INITIAL_CAPACITY);
+        this.count = 0;
+        this.root = -1;
+        this.pool = new ArrayList<Object>();
+        this.valueMap = new HashMap<Object, Integer>();
+        this.idMap = new IdentityHashMap<Object, Integer>();
+    }
+
+    /**
+     * Allocate the node arrays.
+     * @param capacity the number of nodes that the arrays can hold.
+     */
+    private void allocate(int capacity)
+    {
+        types = new int[capacity];
+        parents = new int[capacity];
+        firstChildren = new int[capacity];
+        lastChildren = new int[capacity];
+        nextSiblings = new int[capacity];
+        lines = new int[capacity];
+        ids = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Create a new node.
+     * @param type the node type.
+     * @return the handle of the new node.
+     */
+    public ICodeNode createNode(ICodeNodeType type)
+    {
+        // Grow the arrays if they are full.
+        if (count == types.length) {
+            grow();
+        }
+
+        int node = count++;
+        types[node] = ((ICodeNodeTypeImpl) type).ordinal();
+        parents[node] = -1;
+        firstChildren[node] = -1;
+        lastChildren[node] = -1;
+        nextSiblings[node] = -1;
+        lines[node] = -1;
+        ids[node] = -1;
+        values[node] = -1;
+
+        return new FlatICodeNodeImpl(this, node);
+    }
+
+    /**
+     * Double the capacity of the node arrays.
+     */
+    private void grow()
+    {
+        int capacity = 2*types.length;
+
+        types = Arrays.copyOf(types, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        lastChildren = Arrays.copyOf(lastChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    /**
+     * Set and return the root node.  Lay out the nodes that are reachable
+     * from the root node in preorder and drop all other nodes.  A root
+     * node from another intermediate code implementation is copied.
+     * @param node the node to set as root.
+     * @return the root node.
+     */
+    public ICodeNode setRoot(ICodeNode node)
+    {
+        if (node == null) {
+            root = -1;
+            return null;
+        }
+
+        if (   (node instanceof FlatICodeNodeImpl)
+            && (((FlatICodeNodeImpl) node).getICode() == this)) {
+            root = ((FlatICodeNodeImpl) node).getIndex();
+        }
+        else {
+            root = copyTree(node);
+        }
+
+        layOut();
+        return getNode(root);
+    }
+
+    /**
+     * Get the root node.
+     * @return the root node.
+     */
+    public ICodeNode getRoot()
+    {
+        return root >= 0 ? getNode(root) : null;
+    }
+
+    /**
+     * Copy a tree from another intermediate code implementation.
+     * @param node the root node of the tree to copy.
+     * @return the index of the copied root node.
+     */
+    private int copyTree(ICodeNode node)
+    {
+        FlatICodeNodeImpl copy =
+            (FlatICodeNodeImpl) createNode(node.getType());
+        for (ICodeKeyImpl key : ICodeKeyImpl.values()) {
+            Object attribute = node.getAttribute(key);
+            if (attribute != null) {
+                setAttribute(copy.getIndex(), key, attribute);
+            }
+        }
+
+        for (ICodeNode child : node.getChildren()) {
+            linkChild(copy.getIndex(), copyTree(child));
+        }
+
+        return copy.getIndex();
+    }
+
+    /**
+     * Lay out the nodes that are reachable from the root node in preorder.
+     */
+    private void layOut()
+    {
+        int oldTypes[] = types;
+        int oldFirstChildren[] = firstChildren;
+        int oldNextSiblings[] = nextSiblings;
+        int oldLines[] = lines;
+        int oldIds[] = ids;
+        int oldValues[] = values;
+
+        allocate(Math.max(count, 1));
+        count = 0;
+
+        // Copy each node to its new position and link it to its parent.
+        int oldNodes[] = new int[oldTypes.length];
+        int newParents[] = new int[oldTypes.length];
+        int top = 0;
+        oldNodes[top] = root;
+        newParents[top++] = -1;
+
+        while (top > 0) {
+            int oldNode = oldNodes[--top];
+            int parent = newParents[top];
+            int node = count++;
+
+            types[node] = oldTypes[oldNode];
+            parents[node] = -1;
+            firstChildren[node] = -1;
+            lastChildren[node] = -1;
+            nextSiblings[node] = -1;
+            lines[node] = oldLines[oldNode];
+            ids[node] = oldIds[oldNode];
+            values[node] = oldValues[oldNode];
+
+            if (parent >= 0) {
+                linkChild(parent, node);
+            }
+
+            // Push the children in reverse order to visit them in order.
+            int first = top;
+            for (int child = oldFirstChildren[oldNode]; child >= 0;
+                 child = oldNextSiblings[child]) {
+                oldNodes[top] = child;
+                newParents[top++] = node;
+            }
+            for (int i = first, j = top - 1; i < j; ++i, --j) {
+                int temp = oldNodes[i];
+                oldNodes[i] = oldNodes[j];
+                oldNodes[j] = temp;
+            }
+        }
+
+        root = 0;
+    }
+
+    /**
+     * Return the handle of a node.
+     * @param node the node index.
+     * @return the handle.
+     */
+    public ICodeNode getNode(int node)
+    {
+        return new FlatICodeNodeImpl(this, node);
+    }
+
+    /**
+     * Return the number of nodes.
+     * @return the count.
+     */
+    public int getNodeCount()
+    {
+        return count;
+    }
+
+    /**
+     * Return the root node index.
+     * @return the index, or -1 if there is no root node.
+     */
+    public int getRootIndex()
+    {
+        return root;
+    }
+
+    /**
+     * Return the type of a node.
+     * @param node the node index.
+     * @return the node type.
+     */
+    public ICodeNodeTypeImpl getType(int node)
+    {
+        return TYPES[types[node]];
+    }
+
+    /**
+     * Return the parent of a node.
+     * @param node the node index.
+     * @return the parent node index, or -1 if none.
+     */
+    public int getParent(int node)
+    {
+        return parents[node];
+    }
+
+    /**
+     * Return the first child of a node.
+     * @param node the node index.
+     * @return the first child node index, or -1 if none.
+     */
+    public int getFirstChild(int node)
+    {
+        return firstChildren[node];
+    }
+
+    /**
+     * Return the next sibling of a node.
+     * @param node the node index.
+     * @return the next sibling node index, or -1 if none.
+     */
+    public int getNextSibling(int node)
+    {
+        return nextSiblings[node];
+    }
+
+    /**
+     * Return the source line number of a node.
+     * @param node the node index.
+     * @return the line number, or -1 if none.
+     */
+    public int getLineNumber(int node)
+    {
+        return lines[node];
+    }
+
+    /**
+     * Return the ID attribute of a node.
+     * @param node the node index.
+     * @return the attribute value, or null if it is not set.
+     */
+    public Object getId(int node)
+    {
+        return ids[node] >= 0 ? pool.get(ids[node]) : null;
+    }
+
+    /**
+     * Return the VALUE attribute of a node.
+     * @param node the node index.
+     * @return the attribute value, or null if it is not set.
+     */
+    public Object getValue(int node)
+    {
+        return values[node] >= 0 ? pool.get(values[node]) : null;
+    }
+
+    /**
+     * Append a child to a node.  A node has only one next sibling, so a
+     * child that already has a parent is copied along with its subtree.
+     * @param node the parent node index.
+     * @param child the child node index.
+     */
+    void addChild(int node, int child)
+    {
+        if (parents[child] >= 0) {
+            child = copySubtree(child);
+        }
+
+        linkChild(node, child);
+    }
+
+    /**
+     * Copy a node along with its subtree.
+     * @param node the index of the root node of the subtree.
+     * @return the index of the copied root node.
+     */
+    private int copySubtree(int node)
+    {
+        int copy = ((FlatICodeNodeImpl) createNode(getType(node))).getIndex();
+        lines[copy] = lines[node];
+        ids[copy] = ids[node];
+        values[copy] = values[node];
+
+        for (int child = firstChildren[node]; child >= 0;
+             child = nextSiblings[child]) {
+            linkChild(copy, copySubtree(child));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Link a child that has no parent as the last child of a node.
+     * @param node the parent node index.
+     * @param child the child node index.
+     */
+    private void linkChild(int node, int child)
+    {
+        if (lastChildren[node] >= 0) {
+            nextSiblings[lastChildren[node]] = child;
+        }
+        else {
+            firstChildren[node] = child;
+        }
+
+        lastChildren[node] = child;
+        parents[child] = node;
+    }
+
+    /**
+     * Set a node attribute.
+     * @param node the node index.
+     * @param key the attribute key.
+     * @param value the attribute value.
+     */
+    void setAttribute(int node, ICodeKey key, Object value)
+    {
+        switch ((ICodeKeyImpl) key) {
+            case LINE:  lines[node] = value != null ? (Integer) value : -1;
+                        break;
+            case ID:    ids[node] = poolIndex(value, idMap);       break;
+            case VALUE: values[node] = poolIndex(value, valueMap); break;
+        }
+    }
+
+    /**
+     * Get the value of a node attribute.
+     * @param node the node index.
+     * @param key the attribute key.
+     * @return the attribute value, or null if it is not set.
+     */
+    Object getAttribute(int node, ICodeKey key)
+    {
+        switch ((ICodeKeyImpl) key) {
+            case LINE:  return lines[node] >= 0 ? lines[node] : null;
+            case ID:    return getId(node);
+            case VALUE: return getValue(node);
+            default:    return null;
+        }
+    }
+
+    /**
+     * Return the constant pool index of a value, entering the value into
+     * the pool if it isn't already there.  Symbol table entries are
+     * mutable hash tables, so IDs are matched by identity.
+     * @param value the value.
+     * @param map the map from values to their pool indices.
+     * @return the pool index, or -1 if the value is null.
+     */
+    private int poolIndex(Object value, Map<Object, Integer> map)
+    {
+        if (value == null) {
+            return -1;
+        }
+
+        Integer index = map.get(value);
+        if (index == null) {
+            index = pool.size();
+            pool.add(value);
+            map.put(value, index);
+        }
+
+        return index;
+    }
+}
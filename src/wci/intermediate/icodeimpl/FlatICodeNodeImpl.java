@@ -0,0 +1,164 @@
+package wci.intermediate.icodeimpl;
+
+import java.util.ArrayList;
+
+import wci.intermediate.*;
+
+/**
+ * <h1>FlatICodeNodeImpl</h1>
+ *
+ * <p>A lightweight handle to a node of flat, array-encoded intermediate
+ * code.  The handle holds only the node's index.  All of the node's data
+ * is in the arrays of the FlatICodeImpl object, so two handles to the
+ * same node are equal.</p>
+ */
+public class FlatICodeNodeImpl implements ICodeNode
+{
+    private FlatICodeImpl iCode;  // the intermediate code that has the node
+    private int index;            // the node index
+
+    /**
+     * Constructor.
+     * @param iCode the intermediate code that has the node.
+     * @param index the node index.
+     */
+    public FlatICodeNodeImpl(FlatICodeImpl iCode, int index)
+    {
+        this.iCode = iCode;
+        this.index = index;
+    }
+
+    /**
+     * Getter.
+     * @return the intermediate code that has the node.
+     */
+    public FlatICodeImpl getICode()
+    {
+        return iCode;
+    }
+
+    /**
+     * Getter.
+     * @return the node index.
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Getter.
+     * @return the node type.
+     */
+    public ICodeNodeType getType()
+    {
+        return iCode.getType(index);
+    }
+
+    /**
+     * Return the parent of this node.
+     * @return the parent node.
+     */
+    public ICodeNode getParent()
+    {
+        int parent = iCode.getParent(index);
+        return parent >= 0 ? iCode.getNode(parent) : null;
+    }
+
+    /**
+     * Add a child node.
+     * @param node the child node. Not added if null.
+     * @return the child node.
+     */
+    public ICodeNode addChild(ICodeNode node)
+    {
+        if (node != null) {
+            iCode.addChild(index, ((FlatICodeNodeImpl) node).index);
+        }
+
+        return node;
+    }
+
+    /**
+     * Return an array list of handles to this node's children.
+     * @return the array list of children.
+     */
+    public ArrayList<ICodeNode> getChildren()
+    {
+        ArrayList<ICodeNode> children = new ArrayList<ICodeNode>();
+
+        for (int child = iCode.getFirstChild(index); child >= 0;
+             child = iCode.getNextSibling(child)) {
+            children.add(iCode.getNode(child));
+        }
+
+        return children;
+    }
+
+    /**
+     * Set a node attribute.
+     * @param key the attribute key.
+     * @param value the attribute value.
+     */
+    public void setAttribute(ICodeKey key, Object value)
+    {
+        iCode.setAttribute(index, key, value);
+    }
+
+    /**
+     * Get the value of a node attribute.
+     * @param key the attribute key.
+     * @return the attribute value, or null if it is not set.
+     */
+    public Object getAttribute(ICodeKey key)
+    {
+        return iCode.getAttribute(index, key);
+    }
+
+    /**
+     * Make a copy of this node.
+     * @return the copy.
+     */
+    public ICodeNode copy()
+    {
+        // Create a copy with the same type and attributes.
+        ICodeNode copy = iCode.createNode(getType());
+
+        for (ICodeKeyImpl key : ICodeKeyImpl.values()) {
+            Object attribute = getAttribute(key);
+            if (attribute != null) {
+                copy.setAttribute(key, attribute);
+            }
+        }
+
+        return copy;
+    }
+
+    /**
+     * Two handles are equal if they refer to the same node.
+     * @param object the object to compare to.
+     * @return true if equal, else false.
+     */
+    public boolean equals(Object object)
+    {
+        if (!(object instanceof FlatICodeNodeImpl)) {
+            return false;
+        }
+
+        FlatICodeNodeImpl other = (FlatICodeNodeImpl) object;
+        return (iCode == other.iCode) && (index == other.index);
+    }
+
+    /**
+     * @return the hash code of the node.
+     */
+    public int hashCode()
+    {
+        return 31*System.identityHashCode(iCode) + index;
+    }
+
+    public String toString()
+    {
+        return getType().toString();
+    }
+}
@@ -19,17 +19,20 @@ public class SymTabEntryImpl
 {
     private String name;                     // entry name
     private SymTab symTab;                   // parent symbol table
+    private int slot;                        // slot number in the table
     private ArrayList<Integer> lineNumbers;  // source line numbers
 
     /**
      * Constructor.
      * @param name the name of the entry.
      * @param symTab the symbol table that contains this entry.
+     * @param slot the slot number of the entry within its symbol table.
      */
-    public SymTabEntryImpl(String name, SymTab symTab)
+    public SymTabEntryImpl(String name, SymTab symTab, int slot)
     {
         this.name = name;
         this.symTab = symTab;
+        this.slot = slot;
         this.lineNumbers = new ArrayList<Integer>();
     }
 
@@ -51,6 +54,15 @@ public class SymTabEntryImpl
         return symTab;
     }
 
+    /**
+     * Getter.
+     * @return the slot number of this entry within its symbol table.
+     */
+    public int getSlot()
+    {
+        return slot;
+    }
+
     /**
      * Append a source line number to the entry.
      * @param lineNumber the line number to append.
@@ -2,6 +2,7 @@ package wci.intermediate.symtabimpl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.TreeMap;
 
@@ -10,7 +11,10 @@ import wci.intermediate.*;
 /**
  * <h1>SymTabImpl</h1>
  *
- * <p>An implementation of the symbol table.</p>
+ * <p>An implementation of the symbol table.  The entries are also indexed
+ * by the identity of their names, so that looking up the canonical name
+ * that an entry was entered with is a reference comparison rather than a
+ * string comparison per tree level.</p>
  *
  * <p>Copyright (c) 2009 by Ronald Mak</p>
  * <p>For instructional purposes only.  No warranties.</p>
@@ -20,10 +24,15 @@ public class SymTabImpl
     implements SymTab
 {
     private int nestingLevel;
+    private int slotCount;     // number of slots assigned to entries
+    private IdentityHashMap<String, SymTabEntry> identities;  // entries by
+                                                              // name object
 
     public SymTabImpl(int nestingLevel)
     {
         this.nestingLevel = nestingLevel;
+        this.slotCount = 0;
+        this.identities = new IdentityHashMap<String, SymTabEntry>();
     }
 
     /**
@@ -35,15 +44,27 @@ public class SymTabImpl
         return nestingLevel;
     }
 
+    /**
+     * Getter.
+     * @return the number of slots assigned to the entries of this table.
+     */
+    public int getSlotCount()
+    {
+        return slotCount;
+    }
+
     /**
      * Create and enter a new entry into the symbol table.
+     * Each new entry is assigned the next slot number.
      * @param name the name of the entry.
      * @return the new entry.
      */
     public SymTabEntry enter(String name)
     {
-        SymTabEntry entry = SymTabFactory.createSymTabEntry(name, this);
+        SymTabEntry entry =
+            SymTabFactory.createSymTabEntry(name, this, slotCount++);
         put(name, entry);
+        identities.put(name, entry);
 
         return entry;
     }
@@ -55,7 +76,9 @@ public class SymTabImpl
      */
     public SymTabEntry lookup(String name)
     {
-        return get(name);
+        // First try the name object itself, then an equal name.
+        SymTabEntry entry = identities.get(name);
+        return entry != null ? entry : get(name);
     }
 
     /**
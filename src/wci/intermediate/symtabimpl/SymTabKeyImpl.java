@@ -20,5 +20,8 @@ public enum SymTabKeyImpl implements SymTabKey
     ROUTINE_PARMS, ROUTINE_ROUTINES,
 
     // Variable or record field value.
-    DATA_VALUE
+    DATA_VALUE,
+
+    // Temporary variable that the intermediate code optimizer created.
+    TEMPORARY
 }
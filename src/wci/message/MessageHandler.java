@@ -1,6 +1,9 @@
 package wci.message;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
 
 /**
  * <h1>MessageHandler</h1>
@@ -8,38 +11,87 @@ import java.util.ArrayList;
  * <p>A helper class to which message producer classes delegate the task of
  * maintaining and notifying listeners.</p>
  *
+ * <p>A listener subscribes to all the message types or to a set of them,
+ * and receives only the messages of its types.  A producer can ask whether
+ * a message type has any subscribers before it builds a message, and skip
+ * building it if none.</p>
+ *
  * <p>Copyright (c) 2009 by Ronald Mak</p>
  * <p>For instructional purposes only.  No warranties.</p>
  */
 public class MessageHandler
 {
-    private Message message;                       // message
-    private ArrayList<MessageListener> listeners;  // listener list
+    private Message message;  // message
+
+    // Listener list of each message type that has any listeners.
+    private EnumMap<MessageType, ArrayList<MessageListener>> subscribers;
 
     /**
      * Constructor.
      */
     public MessageHandler()
     {
-        this.listeners = new ArrayList<MessageListener>();
+        this.subscribers =
+            new EnumMap<MessageType, ArrayList<MessageListener>>(
+                MessageType.class);
     }
 
     /**
-     * Add a listener to the listener list.
+     * Add a listener to the listener list of every message type.
      * @param listener the listener to add.
      */
     public void addListener(MessageListener listener)
     {
-        listeners.add(listener);
+        addListener(listener, EnumSet.allOf(MessageType.class));
+    }
+
+    /**
+     * Add a listener to the listener lists of some message types.
+     * @param listener the listener to add.
+     * @param types the types of the messages that the listener receives.
+     */
+    public void addListener(MessageListener listener,
+                            EnumSet<MessageType> types)
+    {
+        for (MessageType type : types) {
+            ArrayList<MessageListener> listeners = subscribers.get(type);
+
+            if (listeners == null) {
+                listeners = new ArrayList<MessageListener>();
+                subscribers.put(type, listeners);
+            }
+
+            listeners.add(listener);
+        }
     }
 
     /**
-     * Remove a listener from the listener list.
+     * Remove a listener from the listener lists.
      * @param listener the listener to remove.
      */
     public void removeListener(MessageListener listener)
     {
-        listeners.remove(listener);
+        Iterator<ArrayList<MessageListener>> it =
+            subscribers.values().iterator();
+
+        while (it.hasNext()) {
+            ArrayList<MessageListener> listeners = it.next();
+            listeners.remove(listener);
+
+            if (listeners.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Determine whether any listener receives messages of a type.
+     * @param type the message type.
+     * @return true if a message of the type would be delivered.
+     */
+    public boolean isEnabled(MessageType type)
+    {
+        return subscribers.containsKey(type);
     }
 
     /**
@@ -53,13 +105,18 @@ public class MessageHandler
     }
 
     /**
-     * Notify each listener in the listener list by calling the listener's
-     * messageReceived() method.
+     * Notify each listener in the listener list of the message's type by
+     * calling the listener's messageReceived() method.
      */
     private void notifyListeners()
     {
-        for (MessageListener listener : listeners) {
-            listener.messageReceived(message);
+        ArrayList<MessageListener> listeners =
+            subscribers.get(message.getType());
+
+        if (listeners != null) {
+            for (MessageListener listener : listeners) {
+                listener.messageReceived(message);
+            }
         }
     }
 }
@@ -0,0 +1,106 @@
+package wci.message;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * <h1>MessagePipeline</h1>
+ *
+ * <p>A bounded queue of messages between a stage that runs on its own
+ * thread and the listeners that receive its messages on another thread.
+ * Each listener connected to the pipeline is replaced, on the producing
+ * side, by a listener that queues the message together with the listener
+ * it is for.  The consuming thread delivers the queued messages in the
+ * order that they were sent, so the listeners see the same sequence of
+ * messages as when they are called directly.  A producer that gets too
+ * far ahead of the consumer waits for room in the queue.</p>
+ */
+public class MessagePipeline
+{
+    private ArrayBlockingQueue<Delivery> queue;  // messages to deliver
+
+    // Marks the end of the messages.
+    private static final Delivery END = new Delivery(null, null);
+
+    /**
+     * Constructor.
+     * @param capacity the maximum number of queued messages.
+     */
+    public MessagePipeline(int capacity)
+    {
+        this.queue = new ArrayBlockingQueue<Delivery>(capacity);
+    }
+
+    /**
+     * Connect a listener to the pipeline.
+     * @param listener the listener on the consuming side.
+     * @return the listener to add to the producer.
+     */
+    public MessageListener connect(final MessageListener listener)
+    {
+        return new MessageListener()
+        {
+            public void messageReceived(Message message)
+            {
+                put(new Delivery(listener, message));
+            }
+        };
+    }
+
+    /**
+     * Mark the end of the messages.  Called by the producing thread after
+     * its last message.
+     */
+    public void close()
+    {
+        put(END);
+    }
+
+    /**
+     * Deliver the queued messages to their listeners until the producing
+     * thread closes the pipeline.
+     * @throws InterruptedException if the thread was interrupted.
+     */
+    public void deliver()
+        throws InterruptedException
+    {
+        Delivery delivery;
+
+        while ((delivery = queue.take()) != END) {
+            delivery.listener.messageReceived(delivery.message);
+        }
+    }
+
+    /**
+     * Queue a delivery, waiting for room if the queue is full.
+     * @param delivery the delivery.
+     */
+    private void put(Delivery delivery)
+    {
+        try {
+            queue.put(delivery);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A message and the listener to deliver it to.
+     */
+    private static class Delivery
+    {
+        private MessageListener listener;  // listener to deliver to
+        private Message message;           // message to deliver
+
+        /**
+         * Constructor.
+         * @param listener the listener to deliver to.
+         * @param message the message to deliver.
+         */
+        private Delivery(MessageListener listener, Message message)
+        {
+            this.listener = listener;
+            this.message = message;
+        }
+    }
+}
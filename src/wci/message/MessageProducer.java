@@ -1,5 +1,7 @@
 package wci.message;
 
+import java.util.EnumSet;
+
 /**
  * <h1>MessageProducer</h1>
  *
@@ -16,6 +18,14 @@ public interface MessageProducer
      */
     public void addMessageListener(MessageListener listener);
 
+    /**
+     * Add a listener that receives only some types of messages.
+     * @param listener the listener to add.
+     * @param types the types of the messages that the listener receives.
+     */
+    public void addMessageListener(MessageListener listener,
+                                   EnumSet<MessageType> types);
+
     /**
      * Remove a listener from the listener list.
      * @param listener the listener to remove.
@@ -27,4 +37,12 @@ public interface MessageProducer
      * @param message the message to set.
      */
     public void sendMessage(Message message);
+
+    /**
+     * Determine whether any listener receives messages of a type, so that
+     * a message that nobody receives need not be built.
+     * @param type the message type.
+     * @return true if a message of the type would be delivered.
+     */
+    public boolean isEnabled(MessageType type);
 }
@@ -0,0 +1,244 @@
+package wci.message;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static wci.message.MessageType.INTERPRETER_SUMMARY;
+
+/**
+ * <h1>MessageRing</h1>
+ *
+ * <p>Asynchronous delivery of the messages of a single producing thread
+ * to listeners on a consuming thread, through a preallocated ring of
+ * slots.  As with a pipeline, each listener connected to the ring is
+ * replaced, on the producing side, by a listener that publishes the
+ * message together with the listener it is for.  Publishing fills the
+ * next slot and advances a sequence number, without locking or
+ * allocating.  The consumer delivers every slot published since its last
+ * look as one batch, in order, and then releases the batch's slots.  The
+ * producer wakes a waiting consumer only once per batch of messages, so
+ * that the consumer is not woken for each message.</p>
+ *
+ * <p>A producer that fills the ring waits for the consumer, and a consumer
+ * that empties it waits for the producer.  An INTERPRETER_SUMMARY message
+ * flushes the ring: its producer waits until the summary and every
+ * message before it have been delivered.</p>
+ *
+ * <p>A listener that throws an exception does not stop the consumer,
+ * which goes on delivering the other messages so that the producer never
+ * waits forever.  Closing the ring throws the first such exception on the
+ * producing thread.</p>
+ */
+public class MessageRing
+{
+    // Longest wait before a waiting thread checks the ring again.
+    private static final long PARK_NANOS = 1000000;
+
+    // Number of messages to publish before waking a waiting consumer.
+    private static final int BATCH_SIZE = 256;
+
+    private MessageListener listeners[];  // listener of each slot
+    private Message messages[];           // message of each slot
+    private int mask;                     // slot index mask
+
+    private AtomicLong published;         // number of messages published
+    private AtomicLong delivered;         // number of messages delivered
+    private long nextSequence;            // producer's next sequence number
+    private long deliveredLimit;          // producer's last look at
+                                          // the number delivered
+    private int unsignaled;               // messages published since the
+                                          // consumer was last woken
+    private RuntimeException failure;     // first exception of a listener,
+                                          // published by delivered
+
+    private volatile Thread waitingProducer;  // producer waiting, or null
+    private volatile Thread waitingConsumer;  // consumer waiting, or null
+
+    // Marks the end of the messages.
+    private static final MessageListener END = new MessageListener()
+    {
+        public void messageReceived(Message message) {}
+    };
+
+    /**
+     * Constructor.
+     * @param capacity the minimum number of slots.  The ring has the
+     *                 next power of two.
+     */
+    public MessageRing(int capacity)
+    {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+
+        this.listeners = new MessageListener[size];
+        this.messages = new Message[size];
+        this.mask = size - 1;
+        this.published = new AtomicLong(0);
+        this.delivered = new AtomicLong(0);
+        this.nextSequence = 0;
+        this.deliveredLimit = 0;
+        this.unsignaled = 0;
+    }
+
+    /**
+     * Connect a listener to the ring.
+     * @param listener the listener on the consuming side.
+     * @return the listener to add to the producer.
+     */
+    public MessageListener connect(final MessageListener listener)
+    {
+        return new MessageListener()
+        {
+            public void messageReceived(Message message)
+            {
+                publish(listener, message);
+
+                if (message.getType() == INTERPRETER_SUMMARY) {
+                    flush();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wait until every published message has been delivered.  Called by
+     * the producing thread.
+     */
+    public void flush()
+    {
+        awaitDelivered(nextSequence);
+    }
+
+    /**
+     * Mark the end of the messages, and wait until they have all been
+     * delivered.  Called by the producing thread after its last message.
+     * @throws RuntimeException the first exception that a listener threw,
+     *                          if any.
+     */
+    public void close()
+    {
+        publish(END, null);
+        flush();
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Deliver the published messages to their listeners until the
+     * producing thread closes the ring.
+     */
+    public void deliver()
+    {
+        long next = 0;
+
+        while (true) {
+            long available = published.get();
+
+            // Wait for the producer.
+            if (available == next) {
+                waitingConsumer = Thread.currentThread();
+                if (published.get() == next) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                waitingConsumer = null;
+
+                continue;
+            }
+
+            // Deliver the batch.
+            boolean end = false;
+            for (; next < available; ++next) {
+                int index = (int) next & mask;
+                MessageListener listener = listeners[index];
+                Message message = messages[index];
+
+                listeners[index] = null;
+                messages[index] = null;
+
+                if (listener == END) {
+                    end = true;
+                }
+                else {
+                    try {
+                        listener.messageReceived(message);
+                    }
+                    catch (RuntimeException ex) {
+                        if (failure == null) {
+                            failure = ex;
+                        }
+                    }
+                }
+            }
+
+            // Release the batch's slots.
+            delivered.set(next);
+
+            Thread producer = waitingProducer;
+            if (producer != null) {
+                LockSupport.unpark(producer);
+            }
+
+            if (end) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publish a message in the next slot, waiting for the slot if the
+     * ring is full.
+     * @param listener the listener to deliver the message to.
+     * @param message the message.
+     */
+    private void publish(MessageListener listener, Message message)
+    {
+        long sequence = nextSequence;
+
+        if (sequence - listeners.length >= deliveredLimit) {
+            awaitDelivered(sequence - listeners.length + 1);
+        }
+
+        int index = (int) sequence & mask;
+        listeners[index] = listener;
+        messages[index] = message;
+
+        nextSequence = sequence + 1;
+        published.set(nextSequence);
+
+        // Let a batch build up before waking the consumer.
+        if (++unsignaled >= BATCH_SIZE) {
+            wakeConsumer();
+        }
+    }
+
+    /**
+     * Wake the consumer if it is waiting.
+     */
+    private void wakeConsumer()
+    {
+        Thread consumer = waitingConsumer;
+        unsignaled = 0;
+
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Wait until a number of messages have been delivered.
+     * @param count the number of messages.
+     */
+    private void awaitDelivered(long count)
+    {
+        wakeConsumer();
+
+        while ((deliveredLimit = delivered.get()) < count) {
+            waitingProducer = Thread.currentThread();
+            if (delivered.get() < count) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            waitingProducer = null;
+        }
+    }
+}
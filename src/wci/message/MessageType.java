@@ -10,7 +10,7 @@ package wci.message;
  */
 public enum MessageType
 {
-    SOURCE_LINE, SYNTAX_ERROR,
+    SOURCE_LINE, SYNTAX_ERROR, STATEMENT,
     PARSER_SUMMARY, INTERPRETER_SUMMARY, COMPILER_SUMMARY,
     MISCELLANEOUS, TOKEN,
     ASSIGN, FETCH, BREAKPOINT, RUNTIME_ERROR,
@@ -1,5 +1,6 @@
 package wci.util;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 
 import wci.intermediate.*;
@@ -30,13 +31,24 @@ public class CrossReferencer
         for (int i = 0; i < INDENT_WIDTH; ++i) INDENT.append(" ");
     }
 
+    private PrintStream ps;  // output print stream
+
+    /**
+     * Constructor
+     * @param ps the output print stream.
+     */
+    public CrossReferencer(PrintStream ps)
+    {
+        this.ps = ps;
+    }
+
     /**
      * Print the cross-reference table.
      * @param symTabStack the symbol table stack.
      */
     public void print(SymTabStack symTabStack)
     {
-        System.out.println("\n===== CROSS-REFERENCE TABLE =====");
+        ps.println("\n===== CROSS-REFERENCE TABLE =====");
         printColumnHeadings();
 
         printSymTab(symTabStack.getLocalSymTab());
@@ -47,11 +59,11 @@ public class CrossReferencer
      */
     private void printColumnHeadings()
     {
-        System.out.println();
-        System.out.println(String.format(NAME_FORMAT, "Identifier")
-                           + NUMBERS_LABEL);
-        System.out.println(String.format(NAME_FORMAT, "----------")
-                           + NUMBERS_UNDERLINE);
+        ps.println();
+        ps.println(String.format(NAME_FORMAT, "Identifier")
+                   + NUMBERS_LABEL);
+        ps.println(String.format(NAME_FORMAT, "----------")
+                   + NUMBERS_UNDERLINE);
     }
 
     /**
@@ -65,15 +77,20 @@ public class CrossReferencer
         for (SymTabEntry entry : sorted) {
             ArrayList<Integer> lineNumbers = entry.getLineNumbers();
 
+            // Skip the optimizer's temporary variables.
+            if (entry.getAttribute(TEMPORARY) != null) {
+                continue;
+            }
+
             // For each entry, print the identifier name
             // followed by the line numbers.
-            System.out.print(String.format(NAME_FORMAT, entry.getName()));
+            ps.print(String.format(NAME_FORMAT, entry.getName()));
             if (lineNumbers != null) {
                 for (Integer lineNumber : lineNumbers) {
-                    System.out.print(String.format(NUMBER_FORMAT, lineNumber));
+                    ps.print(String.format(NUMBER_FORMAT, lineNumber));
                 }
             }
-            System.out.println();
+            ps.println();
         }
     }
 }
@@ -0,0 +1,142 @@
+package wci.util;
+
+import java.io.PrintStream;
+
+/**
+ * <h1>LineBuilder</h1>
+ *
+ * <p>A line of listing output that is built piece by piece and then
+ * printed.  A listener keeps one builder and reuses it for every line it
+ * prints, and integers are formatted by hand, so that building a line
+ * neither parses a format string nor allocates more than the line's
+ * text.</p>
+ */
+public class LineBuilder
+{
+    private StringBuilder line;  // the line's text
+    private char digits[];       // digits of an integer, last digit first
+
+    /**
+     * Constructor.
+     */
+    public LineBuilder()
+    {
+        this.line = new StringBuilder(128);
+        this.digits = new char[20];
+    }
+
+    /**
+     * Start a new line.
+     * @return this builder.
+     */
+    public LineBuilder clear()
+    {
+        line.setLength(0);
+        return this;
+    }
+
+    /**
+     * Append text.
+     * @param text the text.
+     * @return this builder.
+     */
+    public LineBuilder append(String text)
+    {
+        line.append(text);
+        return this;
+    }
+
+    /**
+     * Append a character.
+     * @param ch the character.
+     * @return this builder.
+     */
+    public LineBuilder append(char ch)
+    {
+        line.append(ch);
+        return this;
+    }
+
+    /**
+     * Append a character a number of times.
+     * @param ch the character.
+     * @param count the number of times.
+     * @return this builder.
+     */
+    public LineBuilder append(char ch, int count)
+    {
+        for (int i = 0; i < count; ++i) {
+            line.append(ch);
+        }
+
+        return this;
+    }
+
+    /**
+     * Append an integer padded on the left with zeros, as with the
+     * format "%0<width>d".
+     * @param value the integer.
+     * @param width the minimum width, including any minus sign.
+     * @return this builder.
+     */
+    public LineBuilder appendPadded(int value, int width)
+    {
+        long magnitude = value;
+        int count = 0;
+
+        if (value < 0) {
+            line.append('-');
+            magnitude = -magnitude;
+            --width;
+        }
+
+        do {
+            digits[count++] = (char) ('0' + magnitude%10);
+            magnitude /= 10;
+        } while (magnitude > 0);
+
+        for (int i = count; i < width; ++i) {
+            line.append('0');
+        }
+        while (count > 0) {
+            line.append(digits[--count]);
+        }
+
+        return this;
+    }
+
+    /**
+     * Append a value as with the format "%s".
+     * @param value the value.
+     * @return this builder.
+     */
+    public LineBuilder appendValue(Object value)
+    {
+        if (value instanceof Integer) {
+            appendPadded((Integer) value, 1);
+        }
+        else {
+            line.append(String.valueOf(value));
+        }
+
+        return this;
+    }
+
+    /**
+     * Print the line without a line separator.
+     * @param ps the output print stream.
+     */
+    public void print(PrintStream ps)
+    {
+        ps.print(line);
+    }
+
+    /**
+     * Print the line followed by a line separator.
+     * @param ps the output print stream.
+     */
+    public void println(PrintStream ps)
+    {
+        ps.println(line);
+    }
+}
@@ -1,9 +1,6 @@
 package wci.util;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
 import java.io.PrintStream;
 
 import wci.intermediate.*;
@@ -22,11 +19,12 @@ public class ParseTreePrinter
     private static final int INDENT_WIDTH = 4;
     private static final int LINE_WIDTH = 80;
 
-    private PrintStream ps;      // output print stream
-    private int length;          // output line length
-    private String indent;       // indent spaces
-    private String indentation;  // indentation of a line
-    private StringBuilder line;  // output line
+    private PrintStream ps;          // output print stream
+    private int length;              // output line length
+    private String indent;           // indent spaces
+    private String indentation;      // indentation of a line
+    private StringBuilder line;      // output line
+    private boolean headingPrinted;  // true after printing the heading
 
     /**
      * Constructor
@@ -38,6 +36,7 @@ public class ParseTreePrinter
         this.length = 0;
         this.indentation = "";
         this.line = new StringBuilder();
+        this.headingPrinted = false;
 
         // The indent is INDENT_WIDTH spaces.
         this.indent = "";
@@ -54,7 +53,24 @@ public class ParseTreePrinter
     {
         ps.println("\n===== INTERMEDIATE CODE =====\n");
 
-        printNode((ICodeNodeImpl) iCode.getRoot());
+        printNode(iCode.getRoot());
+        printLine();
+    }
+
+    /**
+     * Print a statement of the program's compound statement as a parse
+     * tree, without the compound statement.  The first statement is
+     * preceded by the heading.
+     * @param node the root node of the statement.
+     */
+    public void printStatement(ICodeNode node)
+    {
+        if (!headingPrinted) {
+            ps.println("\n===== INTERMEDIATE CODE =====\n");
+            headingPrinted = true;
+        }
+
+        printNode(node);
         printLine();
     }
 
@@ -62,7 +78,7 @@ public class ParseTreePrinter
      * Print a parse tree node.
      * @param node the parse tree node.
      */
-    private void printNode(ICodeNodeImpl node)
+    private void printNode(ICodeNode node)
     {
         // Opening tag.
         append(indentation); append("<" + node.toString());
@@ -93,18 +109,18 @@ public class ParseTreePrinter
      * Print a parse tree node's attributes.
      * @param node the parse tree node.
      */
-    private void printAttributes(ICodeNodeImpl node)
+    private void printAttributes(ICodeNode node)
     {
         String saveIndentation = indentation;
         indentation += indent;
 
-        Set<Map.Entry<ICodeKey, Object>> attributes = node.entrySet();
-        Iterator<Map.Entry<ICodeKey, Object>> it = attributes.iterator();
-
-        // Iterate to print each attribute.
-        while (it.hasNext()) {
-            Map.Entry<ICodeKey, Object> attribute = it.next();
-            printAttribute(attribute.getKey().toString(), attribute.getValue());
+        // Iterate over the attribute keys to print each attribute that
+        // the node has.
+        for (ICodeKeyImpl key : ICodeKeyImpl.values()) {
+            Object value = node.getAttribute(key);
+            if (value != null) {
+                printAttribute(key.toString(), value);
+            }
         }
 
         indentation = saveIndentation;
@@ -143,7 +159,7 @@ public class ParseTreePrinter
         indentation += indent;
 
         for (ICodeNode child : childNodes) {
-            printNode((ICodeNodeImpl) child);
+            printNode(child);
         }
 
         indentation = saveIndentation;
@@ -153,7 +169,7 @@ public class ParseTreePrinter
      * Print a parse tree node's type specification.
      * @param node the parse tree node.
      */
-    private void printTypeSpec(ICodeNodeImpl node)
+    private void printTypeSpec(ICodeNode node)
     {
     }
 